@@ -0,0 +1,76 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.repository.ProdutoRepositoryPersistente;
+import br.edu.esc.tp1.repository.ProdutoRepositoryPersistente.Carregamento;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tempo de abertura do repositório persistente a partir de um snapshot já compactado,
+ * copiando tudo para memória ou servindo direto do arquivo mapeado.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class AberturaSnapshotBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    public int tamanhoCatalogo;
+
+    @Param({"COMPLETO", "MAPEADO"})
+    public Carregamento carregamento;
+
+    private Path diretorio;
+
+    @Setup(Level.Trial)
+    public void gravarSnapshot() throws IOException {
+        diretorio = Files.createTempDirectory("abertura-snapshot");
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(
+                diretorio, Long.MAX_VALUE, Carregamento.MAPEADO)) {
+            for (long id = 1; id <= tamanhoCatalogo; id++) {
+                repository.criar(EstadoCatalogo.produto(id));
+            }
+            repository.compactar();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void apagar() throws IOException {
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path arquivo : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(arquivo);
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<Produto> abrirEBuscar() throws IOException {
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(
+                diretorio, Long.MAX_VALUE, carregamento)) {
+            return repository.buscarPorId(tamanhoCatalogo / 2L);
+        }
+    }
+}
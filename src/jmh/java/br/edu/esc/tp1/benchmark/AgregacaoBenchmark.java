@@ -0,0 +1,54 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResumoCatalogo;
+import br.edu.esc.tp1.repository.CatalogoColunar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/** Valor total em estoque pela cópia colunar contra a varredura de objetos de {@code listarTodos()}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class AgregacaoBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class EstadoAgregacao {
+
+        public CatalogoColunar colunar;
+
+        @Setup(Level.Trial)
+        public void registrar(EstadoCatalogo catalogo) {
+            colunar = new CatalogoColunar();
+            catalogo.repository.registrarOuvinte(colunar);
+        }
+    }
+
+    @Benchmark
+    public ResumoCatalogo resumirColunar(EstadoAgregacao estado) {
+        return estado.colunar.resumir();
+    }
+
+    @Benchmark
+    public BigDecimal valorEmEstoquePorObjetos(EstadoCatalogo catalogo) {
+        BigDecimal valor = BigDecimal.ZERO;
+        for (Produto produto : catalogo.repository.listarTodos()) {
+            valor = valor.add(produto.getPreco().multiply(BigDecimal.valueOf(produto.getQuantidadeEstoque())));
+        }
+        return valor;
+    }
+}
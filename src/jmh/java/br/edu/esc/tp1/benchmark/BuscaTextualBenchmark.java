@@ -0,0 +1,33 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Pagina;
+import br.edu.esc.tp1.domain.Produto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class BuscaTextualBenchmark {
+
+    @Param({"produto 4242", "4242", "descricao 99999", "produto"})
+    public String consulta;
+
+    @Benchmark
+    public Pagina<Produto> buscarPorTexto(EstadoCatalogo catalogo) {
+        return catalogo.repository.buscarPorTexto(consulta, 0, 20);
+    }
+}
@@ -0,0 +1,151 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.config.WebConfig;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.service.ProdutoService;
+import br.edu.esc.tp1.web.ProdutoApiController;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Teste de carga da API JSON com um repositório que bloqueia a cada chamada, comparando o Tomcat
+ * com o pool de threads de plataforma e com {@code spring.threads.virtual.enabled=true}. Cada
+ * cliente simulado faz {@code GET /api/produtos/{id}} em sequência, sem pausa, durante o tempo
+ * pedido; a vazão e os percentis são medidos depois do aquecimento.
+ * <p>
+ * Não é um benchmark JMH: roda com
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.main=br.edu.esc.tp1.benchmark.CargaThreadsVirtuais -Djmh.args="400 500 20"}
+ * (clientes simultâneos, latência do repositório em ms, duração em segundos). Com o pool padrão de
+ * 200 threads, a vazão com threads de plataforma fica em 200 / latência; clientes e servidor
+ * dividem a CPU, então a latência precisa ser alta o bastante para esse teto vir antes da CPU.
+ * Antes do Java 21 o Spring Boot ignora a chave e as duas rodadas usam threads de plataforma.
+ */
+public final class CargaThreadsVirtuais {
+
+    private static final int PRODUTOS = 1_000;
+    private static final int SEGUNDOS_AQUECIMENTO = 5;
+
+    private CargaThreadsVirtuais() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int latenciaMs = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        System.out.printf("Java %d, %d núcleo(s), %d clientes, repositório com %d ms%n",
+                Runtime.version().feature(), Runtime.getRuntime().availableProcessors(), clientes, latenciaMs);
+        System.out.printf("%-12s %10s %10s %10s %10s %8s  %s%n",
+                "threads", "req/s", "p50 (ms)", "p99 (ms)", "máx (ms)", "erros", "thread da requisição");
+        for (boolean virtuais : new boolean[]{false, true}) {
+            rodar(virtuais, clientes, latenciaMs, segundos);
+        }
+    }
+
+    private static void rodar(boolean virtuais, int clientes, int latenciaMs, int segundos) throws Exception {
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(Aplicacao.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtuais,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn",
+                "--tp1.web.cache-paginas.habilitado=false",
+                "--carga.latencia-ms=" + latenciaMs)) {
+            int porta = contexto.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            Carga carga = new Carga(porta, clientes);
+            carga.executar(TimeUnit.SECONDS.toNanos(SEGUNDOS_AQUECIMENTO), TimeUnit.SECONDS.toNanos(segundos));
+            Histogram latencias = carga.latencias;
+            System.out.printf("%-12s %10.0f %10.1f %10.1f %10.1f %8d  %s%n",
+                    virtuais ? "virtuais" : "plataforma",
+                    latencias.getTotalCount() / (double) segundos,
+                    latencias.getValueAtPercentile(50) / 1000.0,
+                    latencias.getValueAtPercentile(99) / 1000.0,
+                    latencias.getMaxValue() / 1000.0,
+                    carga.erros.sum(),
+                    contexto.getBean(RepositorioComLatencia.class).threadObservada());
+        }
+    }
+
+    /** Clientes em laço fechado: cada um só envia a próxima requisição quando a anterior volta. */
+    private static final class Carga {
+
+        private final HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        private final URI base;
+        private final int clientes;
+        private final Histogram latencias = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        private final LongAdder erros = new LongAdder();
+        private long inicioMedicao;
+        private long fim;
+        private CountDownLatch terminados;
+
+        Carga(int porta, int clientes) {
+            this.base = URI.create("http://localhost:" + porta + "/api/produtos/");
+            this.clientes = clientes;
+        }
+
+        void executar(long aquecimentoNanos, long duracaoNanos) throws InterruptedException {
+            inicioMedicao = System.nanoTime() + aquecimentoNanos;
+            fim = inicioMedicao + duracaoNanos;
+            terminados = new CountDownLatch(clientes);
+            for (int i = 0; i < clientes; i++) {
+                enviar();
+            }
+            terminados.await();
+        }
+
+        private void enviar() {
+            long id = ThreadLocalRandom.current().nextLong(1, PRODUTOS + 1L);
+            HttpRequest requisicao = HttpRequest.newBuilder(base.resolve(Long.toString(id))).build();
+            long inicio = System.nanoTime();
+            cliente.sendAsync(requisicao, HttpResponse.BodyHandlers.discarding()).whenComplete((resposta, erro) -> {
+                long agora = System.nanoTime();
+                if (inicio >= inicioMedicao && agora <= fim) {
+                    if (erro != null || resposta.statusCode() != 200) {
+                        erros.increment();
+                    } else {
+                        latencias.recordValue(TimeUnit.NANOSECONDS.toMicros(agora - inicio));
+                    }
+                }
+                if (agora < fim) {
+                    enviar();
+                } else {
+                    terminados.countDown();
+                }
+            });
+        }
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @Import({ProdutoApiController.class, WebConfig.class})
+    static class Aplicacao {
+
+        @Bean
+        RepositorioComLatencia repositorioComLatencia(@Value("${carga.latencia-ms}") long latenciaMs) {
+            ProdutoRepositoryImpl repository = new ProdutoRepositoryImpl();
+            for (long id = 1; id <= PRODUTOS; id++) {
+                repository.criar(EstadoCatalogo.produto(id));
+            }
+            return new RepositorioComLatencia(repository, latenciaMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Bean
+        ProdutoService produtoService(RepositorioComLatencia repository) {
+            return new ProdutoService(repository);
+        }
+    }
+}
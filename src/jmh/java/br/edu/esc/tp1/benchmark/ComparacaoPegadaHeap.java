@@ -0,0 +1,63 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.repository.ProdutoRepository;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.repository.ProdutoRepositoryOffHeap;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Mede heap e memória direta retidos por cada implementação depois de carregar o catálogo.
+ * Não é um benchmark JMH: roda com
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.main=br.edu.esc.tp1.benchmark.ComparacaoPegadaHeap -Djmh.args=1000000}.
+ */
+public final class ComparacaoPegadaHeap {
+
+    private ComparacaoPegadaHeap() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%-28s %12s %14s %14s%n", "implementação", "produtos", "heap (MiB)", "direta (MiB)");
+        medir("ProdutoRepositoryImpl", ProdutoRepositoryImpl::new, quantidade);
+        medir("ProdutoRepositoryOffHeap", () -> new ProdutoRepositoryOffHeap(quantidade), quantidade);
+    }
+
+    private static void medir(String nome, Supplier<ProdutoRepository> fabrica, int quantidade)
+            throws InterruptedException {
+        long heapAntes = heapUsado();
+        long diretaAntes = memoriaDireta();
+        ProdutoRepository repository = fabrica.get();
+        for (long id = 1; id <= quantidade; id++) {
+            repository.criar(EstadoCatalogo.produto(id));
+        }
+        long heap = heapUsado() - heapAntes;
+        long direta = memoriaDireta() - diretaAntes;
+        System.out.printf("%-28s %12d %14.1f %14.1f%n", nome, quantidade, mib(heap), mib(direta));
+        if (!repository.existe(1L)) {
+            throw new IllegalStateException("Catálogo não foi carregado");
+        }
+    }
+
+    private static long heapUsado() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long memoriaDireta() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    private static double mib(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
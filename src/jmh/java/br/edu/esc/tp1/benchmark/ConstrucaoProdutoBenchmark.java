@@ -0,0 +1,70 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Produto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Montagem e validação de um {@link Produto}, como feitas na importação, na leitura dos
+ * repositórios e nas atualizações. Rodar com {@code -prof gc}: o esperado é só o próprio Produto
+ * em {@code gc.alloc.rate.norm}. Com {@code texto=comEspacos} nome e descrição vêm com espaços
+ * nas pontas, como numa planilha mal preenchida.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConstrucaoProdutoBenchmark {
+
+    @Param({"limpo", "comEspacos"})
+    public String texto;
+
+    private Long id;
+    private String nome;
+    private String descricao;
+    private BigDecimal preco;
+    private Integer quantidade;
+    private Produto existente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        String margem = "comEspacos".equals(texto) ? "  " : "";
+        id = 1_000L;
+        nome = margem + "Teclado mecânico" + margem;
+        descricao = margem + "Teclado mecânico ABNT2 com switches marrons" + margem;
+        preco = new BigDecimal("349.90");
+        quantidade = 1_000;
+        existente = Produto.criar(id, "Teclado", "Teclado ABNT2", new BigDecimal("199.90"), 500, 7);
+    }
+
+    @Benchmark
+    public Produto criar() {
+        return Produto.criar(id, nome, descricao, preco, quantidade);
+    }
+
+    /** Como os repositórios e o serviço montam um produto que já tem versão. */
+    @Benchmark
+    public Produto criarComVersao() {
+        return Produto.criar(id, nome, descricao, preco, quantidade, 7);
+    }
+
+    @Benchmark
+    public Produto atualizar() {
+        return existente.atualizar(nome, descricao, preco, quantidade);
+    }
+}
@@ -0,0 +1,87 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.repository.ProdutoRepository;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escritas sob contenção: poucos IDs quentes disputados por todas as threads.
+ * Compara a escrita atômica do {@link ProdutoRepositoryImpl} com a versão antiga
+ * que fazia containsKey antes de cada put/remove.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class EscritaConcorrenteBenchmark {
+
+    @Param({"atomica", "verificaDepoisAge"})
+    public String implementacao;
+
+    @Param({"16", "100000"})
+    public int idsQuentes;
+
+    private ProdutoRepository repository;
+    private Produto[] produtos;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        repository = "atomica".equals(implementacao)
+                ? new ProdutoRepositoryImpl()
+                : new ProdutoRepositoryVerificaDepoisAge();
+        produtos = new Produto[idsQuentes];
+        for (int i = 0; i < idsQuentes; i++) {
+            produtos[i] = EstadoCatalogo.produto(i + 1L);
+            repository.criar(produtos[i]);
+        }
+    }
+
+    @Benchmark
+    public void atualizar() {
+        repository.atualizar(produtos[ThreadLocalRandom.current().nextInt(idsQuentes)]);
+    }
+
+    @Benchmark
+    public void criarEDeletar(FaixaDeIds ids) {
+        long id = ids.proximo();
+        repository.criar(EstadoCatalogo.produto(id));
+        repository.deletar(id);
+    }
+
+    @State(Scope.Thread)
+    public static class FaixaDeIds {
+
+        private static final AtomicLong FAIXAS = new AtomicLong(1L << 40);
+
+        private long proximo;
+
+        @Setup(Level.Trial)
+        public void reservar() {
+            proximo = FAIXAS.getAndAdd(1L << 32);
+        }
+
+        long proximo() {
+            return proximo++;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.repository.ProdutoRepository;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.service.ProdutoService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+public class EstadoCatalogo {
+
+    static final BigDecimal PRECO_PADRAO = new BigDecimal("100.00");
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int tamanhoCatalogo;
+
+    public ProdutoRepository repository;
+    public ProdutoService service;
+
+    private final AtomicLong proximaFaixaDeIds = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void preencher() {
+        repository = criarRepository();
+        service = new ProdutoService(repository);
+        for (long id = 1; id <= tamanhoCatalogo; id++) {
+            repository.criar(produto(id));
+        }
+        proximaFaixaDeIds.set(tamanhoCatalogo + 1L);
+    }
+
+    protected ProdutoRepository criarRepository() {
+        return new ProdutoRepositoryImpl();
+    }
+
+    public long idExistenteAleatorio() {
+        return ThreadLocalRandom.current().nextLong(1, tamanhoCatalogo + 1L);
+    }
+
+    long reservarFaixaDeIds(long tamanhoFaixa) {
+        return proximaFaixaDeIds.getAndAdd(tamanhoFaixa);
+    }
+
+    static Produto produto(long id) {
+        return Produto.criar(id, "Produto " + id, "Descrição do produto " + id,
+                BigDecimal.valueOf(id % 100_000, 2), (int) (id % 1_000));
+    }
+}
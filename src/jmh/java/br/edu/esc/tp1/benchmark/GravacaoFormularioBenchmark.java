@@ -0,0 +1,73 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.service.ProdutoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * O que o {@code salvar} do formulário custa por envio: o caminho antigo, que busca o produto e
+ * depois chama {@code atualizarProduto} ou {@code criarProduto}, contra o
+ * {@code criarOuAtualizarProduto} de uma chamada só. Com latência, o repositório se comporta como
+ * um banco remoto e cada chamada paga a ida e a volta.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GravacaoFormularioBenchmark {
+
+    private static final int TAMANHO_CATALOGO = 100_000;
+
+    @Param({"0", "100"})
+    public int latenciaMicros;
+
+    private ProdutoService service;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        ProdutoRepositoryImpl repository = new ProdutoRepositoryImpl();
+        for (long id = 1; id <= TAMANHO_CATALOGO; id++) {
+            repository.criar(EstadoCatalogo.produto(id));
+        }
+        service = new ProdutoService(new RepositorioComLatencia(repository, latenciaMicros, TimeUnit.MICROSECONDS));
+    }
+
+    @Benchmark
+    public boolean buscarEGravar() {
+        long id = idAleatorio();
+        if (service.buscarProduto(id).isPresent()) {
+            service.atualizarProduto(id, "Produto " + id, "Descrição atualizada", EstadoCatalogo.PRECO_PADRAO, 20);
+            return false;
+        }
+        service.criarProduto(id, "Produto " + id, "Descrição atualizada", EstadoCatalogo.PRECO_PADRAO, 20);
+        return true;
+    }
+
+    @Benchmark
+    public ResultadoGravacao criarOuAtualizar() {
+        long id = idAleatorio();
+        return service.criarOuAtualizarProduto(id, "Produto " + id, "Descrição atualizada",
+                EstadoCatalogo.PRECO_PADRAO, 20, 0);
+    }
+
+    private static long idAleatorio() {
+        return ThreadLocalRandom.current().nextLong(1, TAMANHO_CATALOGO + 1L);
+    }
+}
@@ -0,0 +1,23 @@
+package br.edu.esc.tp1.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class IdsNovos {
+
+    private static final long TAMANHO_FAIXA = 1L << 32;
+
+    private long proximo;
+
+    @Setup(Level.Trial)
+    public void reservar(EstadoCatalogo catalogo) {
+        proximo = catalogo.reservarFaixaDeIds(TAMANHO_FAIXA);
+    }
+
+    public long proximo() {
+        return proximo++;
+    }
+}
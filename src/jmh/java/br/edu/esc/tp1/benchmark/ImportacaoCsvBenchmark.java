@@ -0,0 +1,113 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.csv.ImportadorCsv;
+import br.edu.esc.tp1.csv.ImportadorParalelo;
+import br.edu.esc.tp1.csv.RelatorioImportacao;
+import br.edu.esc.tp1.repository.ProdutoRepository;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.repository.ProdutoRepositoryOffHeap;
+import br.edu.esc.tp1.service.ProdutoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+
+/** Linhas importadas por segundo; o CSV é gerado enquanto é lido, sem ocupar memória. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(ImportacaoCsvBenchmark.LINHAS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class ImportacaoCsvBenchmark {
+
+    static final int LINHAS = 1_000_000;
+
+    /** memoria mantém os índices ordenados e textual; offheap mede quase só a leitura do CSV. */
+    @Param({"memoria", "offheap"})
+    public String repositorio;
+
+    /** paralelo usa as threads padrão do {@link ImportadorParalelo}; só ganha com mais de um núcleo. */
+    @Param({"sequencial", "paralelo"})
+    public String importacao;
+
+    private Importacao importador;
+
+    @Setup(Level.Invocation)
+    public void novoCatalogo() {
+        ProdutoRepository repository = repositorio.equals("offheap")
+                ? new ProdutoRepositoryOffHeap(LINHAS)
+                : new ProdutoRepositoryImpl();
+        ProdutoService service = new ProdutoService(repository);
+        importador = importacao.equals("paralelo")
+                ? new ImportadorParalelo(service)::importar
+                : new ImportadorCsv(service)::importar;
+    }
+
+    @Benchmark
+    public RelatorioImportacao importar() throws IOException {
+        return importador.importar(new CsvGerado(LINHAS));
+    }
+
+    interface Importacao {
+        RelatorioImportacao importar(Reader reader) throws IOException;
+    }
+
+    /** Gera {@code id,Produto id,"Descrição, do produto id",preço,estoque} sob demanda. */
+    static final class CsvGerado extends Reader {
+
+        private final int linhas;
+        private final StringBuilder linha = new StringBuilder(96);
+        private int proximoId = 1;
+        private int posicao;
+
+        CsvGerado(int linhas) {
+            this.linhas = linhas;
+        }
+
+        @Override
+        public int read(char[] destino, int deslocamento, int tamanho) {
+            int copiados = 0;
+            while (copiados < tamanho) {
+                if (posicao == linha.length()) {
+                    if (proximoId > linhas) {
+                        break;
+                    }
+                    gerarLinha(proximoId++);
+                }
+                int quantidade = Math.min(tamanho - copiados, linha.length() - posicao);
+                linha.getChars(posicao, posicao + quantidade, destino, deslocamento + copiados);
+                posicao += quantidade;
+                copiados += quantidade;
+            }
+            return copiados == 0 ? -1 : copiados;
+        }
+
+        private void gerarLinha(int id) {
+            linha.setLength(0);
+            linha.append(id).append(",Produto ").append(id)
+                .append(",\"Descrição, do produto ").append(id).append("\",")
+                .append(id % 100_000 / 100).append('.').append(id % 100 / 10).append(id % 10)
+                .append(',').append(id % 1_000).append('\n');
+            posicao = 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
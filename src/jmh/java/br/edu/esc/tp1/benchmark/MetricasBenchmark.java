@@ -0,0 +1,75 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.repository.ProdutoRepository;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.repository.ProdutoRepositoryMetricas;
+import br.edu.esc.tp1.service.ProdutoService;
+import br.edu.esc.tp1.service.ProdutoServiceMetricas;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo das métricas: o mesmo serviço com e sem os decoradores medindo serviço e repositório no
+ * registro Prometheus. Rodar com {@code -prof gc} para conferir que as métricas não alocam.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MetricasBenchmark {
+
+    private static final int TAMANHO_CATALOGO = 100_000;
+
+    @Param({"sem", "prometheus"})
+    public String metricas;
+
+    private ProdutoService service;
+    private Produto existente;
+
+    @Setup(Level.Trial)
+    public void preencher() {
+        ProdutoRepository repository = new ProdutoRepositoryImpl();
+        if (metricas.equals("prometheus")) {
+            PrometheusMeterRegistry registro = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+            repository = new ProdutoRepositoryMetricas(repository, registro);
+            service = new ProdutoServiceMetricas(repository, null, registro);
+        } else {
+            service = new ProdutoService(repository);
+        }
+        for (long id = 1; id <= TAMANHO_CATALOGO; id++) {
+            repository.criar(EstadoCatalogo.produto(id));
+        }
+        existente = EstadoCatalogo.produto(TAMANHO_CATALOGO / 2);
+    }
+
+    @Benchmark
+    public Optional<Produto> buscarProduto() {
+        return service.buscarProduto(ThreadLocalRandom.current().nextLong(1, TAMANHO_CATALOGO + 1L));
+    }
+
+    /** O Produto montado pelo serviço é alocado nos dois casos; a diferença é só das métricas. */
+    @Benchmark
+    public void atualizarProduto() {
+        service.atualizarProduto(existente.getId(), existente.getNome(), existente.getDescricao(),
+                existente.getPreco(), existente.getQuantidadeEstoque());
+    }
+}
@@ -0,0 +1,105 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Produto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ProdutoRepositoryBenchmark {
+
+    private static final BigDecimal FAIXA_PRECO_MINIMO = new BigDecimal("10.00");
+    private static final BigDecimal FAIXA_PRECO_MAXIMO = new BigDecimal("10.50");
+
+    @Benchmark
+    public Optional<Produto> buscarPorId(EstadoCatalogo catalogo) {
+        return catalogo.repository.buscarPorId(catalogo.idExistenteAleatorio());
+    }
+
+    @Benchmark
+    public List<Produto> listarTodos(EstadoCatalogo catalogo) {
+        return catalogo.repository.listarTodos();
+    }
+
+    @Benchmark
+    public List<Produto> buscarPorFaixaDePreco(EstadoCatalogo catalogo) {
+        return catalogo.repository.buscarPorFaixaDePreco(FAIXA_PRECO_MINIMO, FAIXA_PRECO_MAXIMO);
+    }
+
+    @Benchmark
+    public List<Produto> buscarComEstoqueAbaixoDe(EstadoCatalogo catalogo) {
+        return catalogo.repository.buscarComEstoqueAbaixoDe(2);
+    }
+
+    @Benchmark
+    public void atualizar(EstadoCatalogo catalogo) {
+        catalogo.repository.atualizar(EstadoCatalogo.produto(catalogo.idExistenteAleatorio()));
+    }
+
+    @Benchmark
+    public void criarEDeletar(EstadoCatalogo catalogo, IdsNovos ids) {
+        long id = ids.proximo();
+        catalogo.repository.criar(EstadoCatalogo.produto(id));
+        catalogo.repository.deletar(id);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Optional<Produto> buscarPorIdConcorrente(EstadoCatalogo catalogo) {
+        return catalogo.repository.buscarPorId(catalogo.idExistenteAleatorio());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void atualizarConcorrente(EstadoCatalogo catalogo) {
+        catalogo.repository.atualizar(EstadoCatalogo.produto(catalogo.idExistenteAleatorio()));
+    }
+
+    @Benchmark
+    @Group("leituraIntensiva")
+    @GroupThreads(7)
+    public void leituraIntensivaLeitor(EstadoCatalogo catalogo, Blackhole bh) {
+        bh.consume(catalogo.repository.buscarPorId(catalogo.idExistenteAleatorio()));
+    }
+
+    @Benchmark
+    @Group("leituraIntensiva")
+    @GroupThreads(1)
+    public void leituraIntensivaEscritor(EstadoCatalogo catalogo) {
+        catalogo.repository.atualizar(EstadoCatalogo.produto(catalogo.idExistenteAleatorio()));
+    }
+
+    @Benchmark
+    @Group("escritaIntensiva")
+    @GroupThreads(2)
+    public void escritaIntensivaLeitor(EstadoCatalogo catalogo, Blackhole bh) {
+        bh.consume(catalogo.repository.buscarPorId(catalogo.idExistenteAleatorio()));
+    }
+
+    @Benchmark
+    @Group("escritaIntensiva")
+    @GroupThreads(6)
+    public void escritaIntensivaEscritor(EstadoCatalogo catalogo, IdsNovos ids) {
+        long id = ids.proximo();
+        catalogo.repository.criar(EstadoCatalogo.produto(id));
+        catalogo.repository.atualizar(EstadoCatalogo.produto(catalogo.idExistenteAleatorio()));
+        catalogo.repository.deletar(id);
+    }
+}
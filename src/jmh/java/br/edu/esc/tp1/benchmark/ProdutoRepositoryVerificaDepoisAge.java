@@ -0,0 +1,61 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import br.edu.esc.tp1.repository.ProdutoRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cópia da escrita antiga (containsKey seguido de put/remove), mantida só como linha de base.
+ */
+class ProdutoRepositoryVerificaDepoisAge implements ProdutoRepository {
+
+    private final Map<Long, Produto> produtos = new ConcurrentHashMap<>();
+
+    @Override
+    public void criar(Produto produto) {
+        Long id = produto.getId();
+        if (produtos.containsKey(id)) {
+            throw new ProdutoDuplicadoException(id);
+        }
+        produtos.put(id, produto);
+    }
+
+    @Override
+    public Optional<Produto> buscarPorId(Long id) {
+        return Optional.ofNullable(produtos.get(id));
+    }
+
+    @Override
+    public List<Produto> listarTodos() {
+        return new ArrayList<>(produtos.values());
+    }
+
+    @Override
+    public void atualizar(Produto produto) {
+        Long id = produto.getId();
+        if (!produtos.containsKey(id)) {
+            throw new ProdutoNaoEncontradoException(id);
+        }
+        produtos.put(id, produto);
+    }
+
+    @Override
+    public void deletar(Long id) {
+        if (!produtos.containsKey(id)) {
+            throw new ProdutoNaoEncontradoException(id);
+        }
+        produtos.remove(id);
+    }
+
+    @Override
+    public boolean existe(Long id) {
+        return produtos.containsKey(id);
+    }
+}
@@ -0,0 +1,78 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Produto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ProdutoServiceBenchmark {
+
+    @Benchmark
+    public Optional<Produto> buscarProduto(EstadoCatalogo catalogo) {
+        return catalogo.service.buscarProduto(catalogo.idExistenteAleatorio());
+    }
+
+    @Benchmark
+    public List<Produto> listarProdutos(EstadoCatalogo catalogo) {
+        return catalogo.service.listarProdutos();
+    }
+
+    @Benchmark
+    public void atualizarProduto(EstadoCatalogo catalogo) {
+        long id = catalogo.idExistenteAleatorio();
+        catalogo.service.atualizarProduto(id, "Produto " + id, "Descrição atualizada",
+                EstadoCatalogo.PRECO_PADRAO, 20);
+    }
+
+    @Benchmark
+    public void criarEDeletarProduto(EstadoCatalogo catalogo, IdsNovos ids) {
+        long id = ids.proximo();
+        catalogo.service.criarProduto(id, "Produto " + id, "Descrição", EstadoCatalogo.PRECO_PADRAO, 10);
+        catalogo.service.deletarProduto(id);
+    }
+
+    @Benchmark
+    @Group("leituraIntensiva")
+    @GroupThreads(7)
+    public void leituraIntensivaLeitor(EstadoCatalogo catalogo, Blackhole bh) {
+        bh.consume(catalogo.service.buscarProduto(catalogo.idExistenteAleatorio()));
+    }
+
+    @Benchmark
+    @Group("leituraIntensiva")
+    @GroupThreads(1)
+    public void leituraIntensivaEscritor(EstadoCatalogo catalogo) {
+        atualizarProduto(catalogo);
+    }
+
+    @Benchmark
+    @Group("escritaIntensiva")
+    @GroupThreads(2)
+    public void escritaIntensivaLeitor(EstadoCatalogo catalogo, Blackhole bh) {
+        bh.consume(catalogo.service.buscarProduto(catalogo.idExistenteAleatorio()));
+    }
+
+    @Benchmark
+    @Group("escritaIntensiva")
+    @GroupThreads(6)
+    public void escritaIntensivaEscritor(EstadoCatalogo catalogo, IdsNovos ids) {
+        criarEDeletarProduto(catalogo, ids);
+        atualizarProduto(catalogo);
+    }
+}
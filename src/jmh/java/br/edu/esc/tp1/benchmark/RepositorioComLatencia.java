@@ -0,0 +1,86 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.repository.ProdutoRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repositório que bloqueia a thread chamadora por um tempo fixo antes de cada operação, como um
+ * banco remoto. As operações derivadas (paginação, buscas) usam as implementações padrão da
+ * interface e bloqueiam uma vez, em {@code listarTodos()}.
+ */
+final class RepositorioComLatencia implements ProdutoRepository {
+
+    private final ProdutoRepository repository;
+    private final long latenciaNanos;
+    private volatile String threadObservada;
+
+    RepositorioComLatencia(ProdutoRepository repository, long latencia, TimeUnit unidade) {
+        this.repository = repository;
+        this.latenciaNanos = unidade.toNanos(latencia);
+    }
+
+    @Override
+    public void criar(Produto produto) {
+        bloquear();
+        repository.criar(produto);
+    }
+
+    @Override
+    public Optional<Produto> buscarPorId(Long id) {
+        bloquear();
+        return repository.buscarPorId(id);
+    }
+
+    @Override
+    public List<Produto> listarTodos() {
+        bloquear();
+        return repository.listarTodos();
+    }
+
+    @Override
+    public void atualizar(Produto produto) {
+        bloquear();
+        repository.atualizar(produto);
+    }
+
+    @Override
+    public ResultadoGravacao criarOuAtualizar(Produto produto) {
+        bloquear();
+        return repository.criarOuAtualizar(produto);
+    }
+
+    @Override
+    public void deletar(Long id) {
+        bloquear();
+        repository.deletar(id);
+    }
+
+    @Override
+    public boolean existe(Long id) {
+        bloquear();
+        return repository.existe(id);
+    }
+
+    /** Descrição da última thread que chamou o repositório; threads virtuais aparecem como {@code VirtualThread[...]}. */
+    String threadObservada() {
+        return threadObservada;
+    }
+
+    private void bloquear() {
+        threadObservada = Thread.currentThread().toString();
+        if (latenciaNanos == 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(latenciaNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido esperando o repositório", e);
+        }
+    }
+}
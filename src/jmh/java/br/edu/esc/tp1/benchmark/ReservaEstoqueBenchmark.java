@@ -0,0 +1,73 @@
+package br.edu.esc.tp1.benchmark;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.repository.ProdutoRepository;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.repository.ProdutoRepositoryOffHeap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservas de estoque disputadas por todas as threads, de um produto só até cem mil. Compara
+ * {@link ProdutoRepository#reservarEstoque} no repositório em memória (trava por produto) e no
+ * fora do heap (trava única) com o caminho antigo de buscar o produto, montar outro com o estoque
+ * menor e chamar {@code atualizar}, que além de mais caro perde reservas quando duas threads leem
+ * o mesmo estoque.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class ReservaEstoqueBenchmark {
+
+    /** Estoque inicial grande o bastante para não esgotar durante a medição. */
+    private static final int ESTOQUE_INICIAL = Integer.MAX_VALUE / 2;
+
+    @Param({"memoria", "offheap", "lerEAtualizar"})
+    public String implementacao;
+
+    @Param({"1", "16", "100000"})
+    public int produtosQuentes;
+
+    private ProdutoRepository repository;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        repository = "offheap".equals(implementacao) ? new ProdutoRepositoryOffHeap() : new ProdutoRepositoryImpl();
+        for (long id = 1; id <= produtosQuentes; id++) {
+            repository.criar(Produto.criar(id, "Produto " + id, "Descrição do produto " + id,
+                    BigDecimal.valueOf(id % 100_000, 2), ESTOQUE_INICIAL));
+        }
+    }
+
+    @Benchmark
+    public int reservar() {
+        long id = 1 + ThreadLocalRandom.current().nextInt(produtosQuentes);
+        if ("lerEAtualizar".equals(implementacao)) {
+            Produto atual = repository.buscarPorId(id).orElseThrow();
+            Produto reservado = Produto.criar(id, atual.getNome(), atual.getDescricao(), atual.getPreco(),
+                    atual.getQuantidadeEstoque() - 1);
+            repository.atualizar(reservado);
+            return reservado.getQuantidadeEstoque();
+        }
+        return repository.reservarEstoque(id, 1);
+    }
+}
@@ -2,16 +2,31 @@ package br.edu.esc.tp1;
 
 import br.edu.esc.tp1.repository.ProdutoRepository;
 import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.repository.ProdutoRepositoryPersistente;
 import br.edu.esc.tp1.service.ProdutoService;
 import br.edu.esc.tp1.ui.ConsoleUI;
 
+import java.nio.file.Path;
+
 public class Main {
     
-    public static void main(String[] args) {
-        ProdutoRepository repository = new ProdutoRepositoryImpl();
+    public static void main(String[] args) throws Exception {
+        ProdutoRepository repository = criarRepository();
         ProdutoService service = new ProdutoService(repository);
         ConsoleUI ui = new ConsoleUI(service);
         
         ui.iniciar();
+        
+        if (repository instanceof AutoCloseable recurso) {
+            recurso.close();
+        }
+    }
+    
+    private static ProdutoRepository criarRepository() {
+        String diretorio = System.getProperty("tp1.repositorio.diretorio");
+        if (diretorio == null || diretorio.isBlank()) {
+            return new ProdutoRepositoryImpl();
+        }
+        return new ProdutoRepositoryPersistente(Path.of(diretorio));
     }
 }
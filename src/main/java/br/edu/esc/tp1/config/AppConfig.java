@@ -1,21 +1,100 @@
 package br.edu.esc.tp1.config;
 
+import br.edu.esc.tp1.repository.CatalogoColunar;
+import br.edu.esc.tp1.repository.FluxoAlteracoes;
 import br.edu.esc.tp1.repository.ProdutoRepository;
+import br.edu.esc.tp1.repository.ProdutoRepositoryCache;
 import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.repository.ProdutoRepositoryMetricas;
+import br.edu.esc.tp1.repository.ProdutoRepositoryOffHeap;
+import br.edu.esc.tp1.repository.ProdutoRepositoryPersistente;
+import br.edu.esc.tp1.repository.ProdutoRepositoryVersionado;
 import br.edu.esc.tp1.service.ProdutoService;
+import br.edu.esc.tp1.service.ProdutoServiceAssincrono;
+import br.edu.esc.tp1.service.ProdutoServiceMetricas;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+
 @Configuration
 public class AppConfig {
 
     @Bean
-    public ProdutoRepository produtoRepository() {
-        return new ProdutoRepositoryImpl();
+    public ProdutoRepository produtoRepository(
+            @Value("${tp1.repositorio.tipo:memoria}") String tipo,
+            @Value("${tp1.repositorio.diretorio:dados}") String diretorio,
+            @Value("${tp1.repositorio.registros-para-compactar:100000}") long registrosParaCompactar,
+            @Value("${tp1.repositorio.carregamento:completo}") String carregamento,
+            @Value("${tp1.repositorio.cache.habilitado:false}") boolean cacheHabilitado,
+            @Value("${tp1.repositorio.cache.capacidade:10000}") int capacidadeCache,
+            @Value("${tp1.repositorio.cache.ttl:5m}") Duration ttlCache,
+            @Value("${tp1.metricas.habilitado:true}") boolean metricasHabilitado,
+            MeterRegistry registro) {
+        ProdutoRepository repository = switch (tipo) {
+            case "memoria" -> new ProdutoRepositoryImpl();
+            case "offheap" -> new ProdutoRepositoryOffHeap();
+            case "arquivo" -> new ProdutoRepositoryPersistente(Path.of(diretorio), registrosParaCompactar,
+                    ProdutoRepositoryPersistente.Carregamento.valueOf(carregamento.toUpperCase(Locale.ROOT)));
+            default -> throw new IllegalArgumentException("Tipo de repositório desconhecido: " + tipo);
+        };
+        if (cacheHabilitado) {
+            ProdutoRepositoryCache cache = new ProdutoRepositoryCache(repository, capacidadeCache, ttlCache);
+            cache.bindTo(registro);
+            repository = cache;
+        }
+        if (metricasHabilitado) {
+            repository = new ProdutoRepositoryMetricas(repository, registro);
+        }
+        return new ProdutoRepositoryVersionado(repository);
+    }
+
+    /** Montada na primeira agregação, não na abertura: o snapshot mapeado não é decodificado à toa. */
+    @Bean
+    public CatalogoColunar catalogoColunar(ProdutoRepository produtoRepository) {
+        return CatalogoColunar.sobDemanda(produtoRepository);
+    }
+
+    @Bean(destroyMethod = "close")
+    public FluxoAlteracoes fluxoAlteracoes(ProdutoRepository produtoRepository,
+                                           @Value("${tp1.alteracoes.capacidade:65536}") int capacidade,
+                                           @Value("${tp1.alteracoes.assinaturas:256}") int assinaturas) {
+        FluxoAlteracoes fluxo = new FluxoAlteracoes(capacidade, assinaturas);
+        fluxo.registrarEm(produtoRepository);
+        return fluxo;
+    }
+
+    @Bean
+    public ProdutoService produtoService(ProdutoRepository produtoRepository, CatalogoColunar catalogoColunar,
+                                         @Value("${tp1.metricas.habilitado:true}") boolean metricasHabilitado,
+                                         MeterRegistry registro) {
+        if (metricasHabilitado) {
+            return new ProdutoServiceMetricas(produtoRepository, catalogoColunar, registro);
+        }
+        return new ProdutoService(produtoRepository, catalogoColunar);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ProdutoServiceAssincrono produtoServiceAssincrono(ProdutoService produtoService,
+                                                             @Value("${tp1.assincrono.threads:8}") int threads) {
+        return new ProdutoServiceAssincrono(produtoService, threads);
     }
 
+    /**
+     * Lido da cópia colunar, que acompanha as escritas; só a primeira coleta monta a cópia, as
+     * seguintes não varrem o repositório.
+     */
     @Bean
-    public ProdutoService produtoService(ProdutoRepository produtoRepository) {
-        return new ProdutoService(produtoRepository);
+    public MeterBinder tamanhoCatalogo(CatalogoColunar catalogoColunar) {
+        return registro -> Gauge.builder("produtos.catalogo.tamanho", catalogoColunar, CatalogoColunar::tamanho)
+                .description("Produtos cadastrados")
+                .baseUnit("produtos")
+                .register(registro);
     }
 }
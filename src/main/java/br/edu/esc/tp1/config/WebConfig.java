@@ -0,0 +1,31 @@
+package br.edu.esc.tp1.config;
+
+import br.edu.esc.tp1.web.CachePaginas;
+import br.edu.esc.tp1.web.ProdutoJsonConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /** Na frente do conversor Jackson padrão, que continua atendendo os demais tipos. */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new ProdutoJsonConverter());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tp1.web.cache-paginas.habilitado", havingValue = "true", matchIfMissing = true)
+    public CachePaginas cachePaginas(@Qualifier("thymeleafViewResolver") ViewResolver thymeleafViewResolver,
+                                     @Value("${tp1.web.cache-paginas.capacidade:64}") int capacidade) {
+        return new CachePaginas(thymeleafViewResolver, capacidade);
+    }
+}
@@ -0,0 +1,118 @@
+package br.edu.esc.tp1.csv;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Sequência de registros copiados do {@link LeitorCsv} para arrays próprios, para que a conversão
+ * aconteça em outra thread enquanto o leitor segue em frente. Funciona também como cursor:
+ * {@link #posicionar(int)} escolhe o registro que os métodos de {@link RegistroCsv} leem.
+ */
+final class BlocoCsv implements RegistroCsv {
+    
+    final long sequencia;
+    private char[] dados = new char[1 << 14];
+    private int tamanhoDados;
+    private int[] inicios = new int[1 << 10];
+    private int[] fins = new int[1 << 10];
+    private int totalCampos;
+    private final int[] primeiroCampo;
+    private final int[] camposPorRegistro;
+    private final long[] linhas;
+    private int registros;
+    private int atual;
+    
+    BlocoCsv(long sequencia, int capacidade) {
+        this.sequencia = sequencia;
+        this.primeiroCampo = new int[capacidade];
+        this.camposPorRegistro = new int[capacidade];
+        this.linhas = new long[capacidade];
+    }
+    
+    boolean cheio() {
+        return registros == linhas.length;
+    }
+    
+    int registros() {
+        return registros;
+    }
+    
+    void adicionar(char[] registro, int tamanho, int[] iniciosRegistro, int[] finsRegistro, int campos, long linha) {
+        if (tamanhoDados + tamanho > dados.length) {
+            dados = Arrays.copyOf(dados, Math.max(dados.length * 2, tamanhoDados + tamanho));
+        }
+        if (totalCampos + campos > inicios.length) {
+            int capacidade = Math.max(inicios.length * 2, totalCampos + campos);
+            inicios = Arrays.copyOf(inicios, capacidade);
+            fins = Arrays.copyOf(fins, capacidade);
+        }
+        System.arraycopy(registro, 0, dados, tamanhoDados, tamanho);
+        for (int i = 0; i < campos; i++) {
+            inicios[totalCampos + i] = iniciosRegistro[i] + tamanhoDados;
+            fins[totalCampos + i] = finsRegistro[i] + tamanhoDados;
+        }
+        primeiroCampo[registros] = totalCampos;
+        camposPorRegistro[registros] = campos;
+        linhas[registros] = linha;
+        registros++;
+        totalCampos += campos;
+        tamanhoDados += tamanho;
+    }
+    
+    void posicionar(int registro) {
+        atual = registro;
+    }
+    
+    @Override
+    public long linha() {
+        return linhas[atual];
+    }
+    
+    @Override
+    public int quantidadeCampos() {
+        return camposPorRegistro[atual];
+    }
+    
+    @Override
+    public boolean isVazio() {
+        int campo = primeiroCampo[atual];
+        return camposPorRegistro[atual] == 1 && fins[campo] == inicios[campo];
+    }
+    
+    @Override
+    public String texto(int campo) {
+        int indice = indice(campo);
+        return new String(dados, inicios[indice], fins[indice] - inicios[indice]);
+    }
+    
+    @Override
+    public boolean textoIgual(int campo, String esperado) {
+        int indice = indice(campo);
+        return CamposCsv.textoIgual(dados, inicios[indice], fins[indice], esperado);
+    }
+    
+    @Override
+    public long numeroLong(int campo) {
+        int indice = indice(campo);
+        return CamposCsv.numeroLong(dados, inicios[indice], fins[indice]);
+    }
+    
+    @Override
+    public int numeroInt(int campo) {
+        int indice = indice(campo);
+        return CamposCsv.numeroInt(dados, inicios[indice], fins[indice]);
+    }
+    
+    @Override
+    public BigDecimal decimal(int campo) {
+        int indice = indice(campo);
+        return CamposCsv.decimal(dados, inicios[indice], fins[indice]);
+    }
+    
+    private int indice(int campo) {
+        if (campo < 0 || campo >= camposPorRegistro[atual]) {
+            throw new IndexOutOfBoundsException("Campo " + campo + " inexistente no registro da linha " + linhas[atual]);
+        }
+        return primeiroCampo[atual] + campo;
+    }
+}
@@ -0,0 +1,75 @@
+package br.edu.esc.tp1.csv;
+
+import java.math.BigDecimal;
+
+/** Conversões de trechos de um array de caracteres, compartilhadas pelo leitor e pelos blocos. */
+final class CamposCsv {
+    
+    private CamposCsv() {
+    }
+    
+    static boolean textoIgual(char[] dados, int inicio, int fim, String esperado) {
+        int tamanho = fim - inicio;
+        if (tamanho != esperado.length()) {
+            return false;
+        }
+        for (int i = 0; i < tamanho; i++) {
+            if (Character.toLowerCase(dados[inicio + i]) != Character.toLowerCase(esperado.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    static long numeroLong(char[] dados, int inicio, int fim) {
+        while (inicio < fim && dados[inicio] == ' ') {
+            inicio++;
+        }
+        while (fim > inicio && dados[fim - 1] == ' ') {
+            fim--;
+        }
+        if (inicio == fim) {
+            throw new NumberFormatException("Campo numérico vazio");
+        }
+        boolean negativo = dados[inicio] == '-';
+        int i = negativo || dados[inicio] == '+' ? inicio + 1 : inicio;
+        if (i == fim) {
+            throw new NumberFormatException("Número inválido: " + new String(dados, inicio, fim - inicio));
+        }
+        long valor = 0;
+        for (; i < fim; i++) {
+            int digito = dados[i] - '0';
+            if (digito < 0 || digito > 9) {
+                throw new NumberFormatException("Número inválido: " + new String(dados, inicio, fim - inicio));
+            }
+            try {
+                valor = Math.addExact(Math.multiplyExact(valor, 10), negativo ? -digito : digito);
+            } catch (ArithmeticException e) {
+                throw new NumberFormatException("Número fora da faixa: " + new String(dados, inicio, fim - inicio));
+            }
+        }
+        return valor;
+    }
+    
+    static int numeroInt(char[] dados, int inicio, int fim) {
+        long valor = numeroLong(dados, inicio, fim);
+        if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Número fora da faixa: " + valor);
+        }
+        return (int) valor;
+    }
+    
+    static BigDecimal decimal(char[] dados, int inicio, int fim) {
+        while (inicio < fim && dados[inicio] == ' ') {
+            inicio++;
+        }
+        while (fim > inicio && dados[fim - 1] == ' ') {
+            fim--;
+        }
+        try {
+            return new BigDecimal(dados, inicio, fim - inicio);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Número inválido: " + new String(dados, inicio, fim - inicio));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package br.edu.esc.tp1.csv;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.service.ProdutoService;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+
+/**
+ * Exporta o catálogo no mesmo formato lido pelo {@link ImportadorCsv}. O catálogo é percorrido
+ * sem cópia e cada produto é escrito direto no {@link Writer}, então nem a lista de produtos nem o
+ * arquivo são montados em memória.
+ */
+public class ExportadorCsv {
+    
+    private final ProdutoService service;
+    
+    public ExportadorCsv(ProdutoService service) {
+        if (service == null) {
+            throw new IllegalArgumentException("Serviço não pode ser nulo");
+        }
+        this.service = service;
+    }
+    
+    /** Escreve o cabeçalho e todos os produtos; devolve quantos produtos foram escritos. */
+    public long exportar(Writer writer) throws IOException {
+        writer.write(ImportadorCsv.CABECALHO);
+        writer.write('\n');
+        long escritos = 0;
+        for (Iterator<Produto> produtos = service.percorrerProdutos(); produtos.hasNext(); ) {
+            escrever(writer, produtos.next());
+            escritos++;
+        }
+        writer.flush();
+        return escritos;
+    }
+    
+    static void escrever(Writer writer, Produto produto) throws IOException {
+        writer.write(Long.toString(produto.getId()));
+        writer.write(',');
+        escreverTexto(writer, produto.getNome());
+        writer.write(',');
+        escreverTexto(writer, produto.getDescricao());
+        writer.write(',');
+        writer.write(produto.getPreco().toPlainString());
+        writer.write(',');
+        writer.write(Integer.toString(produto.getQuantidadeEstoque()));
+        writer.write('\n');
+    }
+    
+    private static void escreverTexto(Writer writer, String texto) throws IOException {
+        if (!precisaDeAspas(texto)) {
+            writer.write(texto);
+            return;
+        }
+        writer.write('"');
+        int inicio = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '"') {
+                writer.write(texto, inicio, i + 1 - inicio);
+                writer.write('"');
+                inicio = i + 1;
+            }
+        }
+        writer.write(texto, inicio, texto.length() - inicio);
+        writer.write('"');
+    }
+    
+    private static boolean precisaDeAspas(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,122 @@
+package br.edu.esc.tp1.csv;
+
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.service.ProdutoService;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Importa produtos de um CSV no formato {@value #CABECALHO}, com o cabeçalho opcional. O arquivo
+ * é lido registro a registro e gravado em lotes de melhor esforço, então a memória usada não
+ * depende do tamanho do arquivo. Linhas inválidas ou recusadas pelo repositório (id duplicado,
+ * por exemplo) entram no relatório com o número da linha e não interrompem a importação.
+ */
+public class ImportadorCsv {
+    
+    public static final String CABECALHO = "id,nome,descricao,preco,quantidadeEstoque";
+    
+    static final int TAMANHO_LOTE = 1_000;
+    static final int MAXIMO_ERROS_RELATADOS = 1_000;
+    private static final int CAMPOS = 5;
+    
+    private final ProdutoService service;
+    
+    public ImportadorCsv(ProdutoService service) {
+        if (service == null) {
+            throw new IllegalArgumentException("Serviço não pode ser nulo");
+        }
+        this.service = service;
+    }
+    
+    public RelatorioImportacao importar(Reader reader) throws IOException {
+        LeitorCsv leitor = new LeitorCsv(reader);
+        Contagem contagem = new Contagem();
+        List<Produto> lote = new ArrayList<>(TAMANHO_LOTE);
+        long[] linhasDoLote = new long[TAMANHO_LOTE];
+        boolean primeiro = true;
+        while (leitor.proximo()) {
+            if (leitor.isVazio()) {
+                continue;
+            }
+            if (primeiro && leitor.textoIgual(0, "id")) {
+                primeiro = false;
+                continue;
+            }
+            primeiro = false;
+            contagem.lidos++;
+            Produto produto = converter(leitor, contagem);
+            if (produto == null) {
+                continue;
+            }
+            linhasDoLote[lote.size()] = leitor.linha();
+            lote.add(produto);
+            if (lote.size() == TAMANHO_LOTE) {
+                gravar(service, lote, linhasDoLote, contagem);
+                lote.clear();
+            }
+        }
+        gravar(service, lote, linhasDoLote, contagem);
+        return contagem.relatorio();
+    }
+    
+    /** Converte o registro em produto; se ele for inválido, anota o erro e devolve {@code null}. */
+    static Produto converter(RegistroCsv registro, Contagem contagem) {
+        if (registro.quantidadeCampos() != CAMPOS) {
+            contagem.erro(registro.linha(), "Esperados " + CAMPOS + " campos, encontrados " + registro.quantidadeCampos());
+            return null;
+        }
+        try {
+            return Produto.criar(registro.numeroLong(0), registro.texto(1), registro.texto(2),
+                registro.decimal(3), registro.numeroInt(4));
+        } catch (IllegalArgumentException e) {
+            contagem.erro(registro.linha(), e.getMessage());
+            return null;
+        }
+    }
+    
+    static void gravar(ProdutoService service, List<Produto> lote, long[] linhasDoLote, Contagem contagem) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        ResultadoLote resultado = service.criarEmLote(lote, ModoLote.MELHOR_ESFORCO);
+        contagem.importados += resultado.getAplicados();
+        for (ResultadoLote.Item falha : resultado.getFalhas()) {
+            contagem.erro(linhasDoLote[falha.posicao()], falha.mensagem());
+        }
+    }
+    
+    static final class Contagem {
+        long lidos;
+        long importados;
+        long totalErros;
+        private final List<RelatorioImportacao.ErroLinha> erros = new ArrayList<>();
+        
+        void erro(long linha, String mensagem) {
+            totalErros++;
+            if (erros.size() < MAXIMO_ERROS_RELATADOS) {
+                erros.add(new RelatorioImportacao.ErroLinha(linha, mensagem));
+            }
+        }
+        
+        void somar(Contagem outra) {
+            lidos += outra.lidos;
+            importados += outra.importados;
+            for (RelatorioImportacao.ErroLinha erro : outra.erros) {
+                erro(erro.linha(), erro.mensagem());
+            }
+            totalErros += outra.totalErros - outra.erros.size();
+        }
+
+        RelatorioImportacao relatorio() {
+            List<RelatorioImportacao.ErroLinha> ordenados = new ArrayList<>(erros);
+            ordenados.sort(Comparator.comparingLong(RelatorioImportacao.ErroLinha::linha));
+            return new RelatorioImportacao(lidos, importados, totalErros, ordenados);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package br.edu.esc.tp1.csv;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.service.ProdutoService;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importa o mesmo CSV do {@link ImportadorCsv} em três etapas ligadas por filas limitadas: a
+ * thread que chama separa os registros em blocos, várias threads convertem e validam os blocos e
+ * outras gravam os produtos em lotes de melhor esforço. As filas seguram poucos blocos, então a
+ * memória continua independente do tamanho do arquivo e a etapa mais lenta dita o ritmo das outras.
+ * <p>
+ * Os blocos são gravados fora de ordem; o resultado só difere do importador sequencial quando o
+ * arquivo repete um id, caso em que não dá para saber de antemão qual das linhas vence. Os erros
+ * vêm ordenados por linha, mas, passando de {@value ImportadorCsv#MAXIMO_ERROS_RELATADOS}, os
+ * relatados não são necessariamente os primeiros do arquivo.
+ */
+public class ImportadorParalelo {
+
+    static final int REGISTROS_POR_BLOCO = ImportadorCsv.TAMANHO_LOTE;
+    private static final long ESPERA_FILA_MS = 100;
+    private static final AtomicInteger IMPORTACOES = new AtomicInteger();
+    private static final BlocoCsv FIM_LEITURA = new BlocoCsv(-1, 0);
+    private static final BlocoConvertido FIM_CONVERSAO = new BlocoConvertido(List.of(), new long[0], null);
+
+    private final ProdutoService service;
+    private final int conversores;
+    private final int gravadores;
+
+    public ImportadorParalelo(ProdutoService service) {
+        this(service, Runtime.getRuntime().availableProcessors(),
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    public ImportadorParalelo(ProdutoService service, int conversores, int gravadores) {
+        if (service == null) {
+            throw new IllegalArgumentException("Serviço não pode ser nulo");
+        }
+        if (conversores < 1 || gravadores < 1) {
+            throw new IllegalArgumentException("É preciso ao menos uma thread de conversão e uma de gravação");
+        }
+        this.service = service;
+        this.conversores = conversores;
+        this.gravadores = gravadores;
+    }
+
+    public RelatorioImportacao importar(Reader reader) throws IOException {
+        return importar(reader, new MetricasImportacao());
+    }
+
+    /**
+     * Importa acompanhando o andamento em {@code metricas}. Se uma etapa falhar, as demais são
+     * interrompidas e a exceção é relançada aqui; o que já foi gravado permanece.
+     */
+    public RelatorioImportacao importar(Reader reader, MetricasImportacao metricas) throws IOException {
+        BlockingQueue<BlocoCsv> paraConverter = new ArrayBlockingQueue<>(conversores * 2);
+        BlockingQueue<BlocoConvertido> paraGravar = new ArrayBlockingQueue<>(gravadores * 2);
+        ImportadorCsv.Contagem contagem = new ImportadorCsv.Contagem();
+        AtomicInteger conversoresAtivos = new AtomicInteger(conversores);
+        metricas.iniciar(conversores, gravadores, paraConverter, paraGravar);
+
+        ExecutorService executor = Executors.newFixedThreadPool(conversores + gravadores, fabricaDeThreads());
+        CompletionService<Void> etapas = new ExecutorCompletionService<>(executor);
+        Acompanhamento acompanhamento = new Acompanhamento(etapas, conversores + gravadores);
+        try {
+            for (int i = 0; i < conversores; i++) {
+                etapas.submit(() -> converter(paraConverter, paraGravar, conversoresAtivos, metricas), null);
+            }
+            for (int i = 0; i < gravadores; i++) {
+                etapas.submit(() -> gravar(paraGravar, contagem, metricas), null);
+            }
+            ler(new LeitorCsv(reader), paraConverter, contagem, metricas, acompanhamento);
+            for (int i = 0; i < conversores; i++) {
+                colocar(paraConverter, FIM_LEITURA, acompanhamento);
+            }
+            acompanhamento.aguardarTodas();
+        } finally {
+            executor.shutdownNow();
+            metricas.concluir();
+        }
+        synchronized (contagem) {
+            return contagem.relatorio();
+        }
+    }
+
+    private static void ler(LeitorCsv leitor, BlockingQueue<BlocoCsv> paraConverter, ImportadorCsv.Contagem contagem,
+                            MetricasImportacao metricas, Acompanhamento acompanhamento) throws IOException {
+        long sequencia = 0;
+        BlocoCsv bloco = new BlocoCsv(sequencia++, REGISTROS_POR_BLOCO);
+        boolean primeiro = true;
+        long lidos = 0;
+        long inicio = System.nanoTime();
+        while (leitor.proximo()) {
+            if (leitor.isVazio()) {
+                continue;
+            }
+            if (primeiro && leitor.textoIgual(0, "id")) {
+                primeiro = false;
+                continue;
+            }
+            primeiro = false;
+            lidos++;
+            leitor.copiarPara(bloco);
+            if (bloco.cheio()) {
+                metricas.lidos(bloco.registros(), System.nanoTime() - inicio);
+                colocar(paraConverter, bloco, acompanhamento);
+                bloco = new BlocoCsv(sequencia++, REGISTROS_POR_BLOCO);
+                inicio = System.nanoTime();
+            }
+        }
+        if (bloco.registros() > 0) {
+            metricas.lidos(bloco.registros(), System.nanoTime() - inicio);
+            colocar(paraConverter, bloco, acompanhamento);
+        }
+        synchronized (contagem) {
+            contagem.lidos = lidos;
+        }
+    }
+
+    private void converter(BlockingQueue<BlocoCsv> paraConverter, BlockingQueue<BlocoConvertido> paraGravar,
+                           AtomicInteger conversoresAtivos, MetricasImportacao metricas) {
+        try {
+            BlocoCsv bloco;
+            while ((bloco = paraConverter.take()) != FIM_LEITURA) {
+                long inicio = System.nanoTime();
+                int registros = bloco.registros();
+                List<Produto> produtos = new ArrayList<>(registros);
+                long[] linhas = new long[registros];
+                ImportadorCsv.Contagem erros = new ImportadorCsv.Contagem();
+                for (int i = 0; i < registros; i++) {
+                    bloco.posicionar(i);
+                    Produto produto = ImportadorCsv.converter(bloco, erros);
+                    if (produto != null) {
+                        linhas[produtos.size()] = bloco.linha();
+                        produtos.add(produto);
+                    }
+                }
+                metricas.convertidos(produtos.size(), System.nanoTime() - inicio);
+                metricas.erros(erros.totalErros);
+                paraGravar.put(new BlocoConvertido(produtos, linhas, erros));
+            }
+            if (conversoresAtivos.decrementAndGet() == 0) {
+                for (int i = 0; i < gravadores; i++) {
+                    paraGravar.put(FIM_CONVERSAO);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void gravar(BlockingQueue<BlocoConvertido> paraGravar, ImportadorCsv.Contagem contagem,
+                        MetricasImportacao metricas) {
+        try {
+            BlocoConvertido bloco;
+            while ((bloco = paraGravar.take()) != FIM_CONVERSAO) {
+                long inicio = System.nanoTime();
+                ImportadorCsv.Contagem parcial = bloco.erros();
+                ImportadorCsv.gravar(service, bloco.produtos(), bloco.linhas(), parcial);
+                metricas.gravados(parcial.importados, System.nanoTime() - inicio);
+                metricas.erros(bloco.produtos().size() - parcial.importados);
+                synchronized (contagem) {
+                    contagem.somar(parcial);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Espera espaço na fila sem deixar de notar que uma etapa falhou e parou de consumir. */
+    private static <T> void colocar(BlockingQueue<T> fila, T item, Acompanhamento acompanhamento) throws IOException {
+        try {
+            while (!fila.offer(item, ESPERA_FILA_MS, TimeUnit.MILLISECONDS)) {
+                acompanhamento.verificar();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Importação interrompida");
+        }
+    }
+
+    private static ThreadFactory fabricaDeThreads() {
+        int importacao = IMPORTACOES.incrementAndGet();
+        AtomicInteger contador = new AtomicInteger();
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, "importacao-csv-" + importacao + "-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record BlocoConvertido(List<Produto> produtos, long[] linhas, ImportadorCsv.Contagem erros) {
+    }
+
+    /** Etapas que rodam no executor; qualquer uma que termine antes da hora terminou com erro. */
+    private static final class Acompanhamento {
+
+        private final CompletionService<Void> etapas;
+        private int pendentes;
+
+        Acompanhamento(CompletionService<Void> etapas, int pendentes) {
+            this.etapas = etapas;
+            this.pendentes = pendentes;
+        }
+
+        void verificar() throws IOException {
+            Future<Void> concluida = etapas.poll();
+            if (concluida != null) {
+                pendentes--;
+                resultado(concluida);
+            }
+        }
+
+        void aguardarTodas() throws IOException {
+            try {
+                while (pendentes > 0) {
+                    Future<Void> concluida = etapas.take();
+                    pendentes--;
+                    resultado(concluida);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Importação interrompida");
+            }
+        }
+
+        private static void resultado(Future<Void> concluida) throws IOException {
+            try {
+                concluida.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Importação interrompida");
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (causa instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException("Falha na importação", causa);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package br.edu.esc.tp1.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Lê um CSV (RFC 4180) registro a registro a partir de um buffer de caracteres reaproveitado.
+ * Os campos ficam como trechos de um array interno e só viram objeto quando pedidos; números
+ * são convertidos direto dos caracteres, sem passar por {@link String}. Aceita campos entre
+ * aspas com vírgulas, aspas duplicadas e quebras de linha, e finais de linha LF ou CRLF.
+ */
+public final class LeitorCsv implements RegistroCsv {
+    
+    private static final int TAMANHO_BUFFER = 1 << 16;
+    
+    private final Reader reader;
+    private final char[] buffer = new char[TAMANHO_BUFFER];
+    private int posicao;
+    private int limite;
+    private char[] registro = new char[256];
+    private int tamanhoRegistro;
+    private int[] inicios = new int[8];
+    private int[] fins = new int[8];
+    private int campos;
+    private long linhaAtual = 1;
+    private long linhaDoRegistro;
+    
+    public LeitorCsv(Reader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException("Leitor não pode ser nulo");
+        }
+        this.reader = reader;
+    }
+    
+    /** Avança para o próximo registro; devolve {@code false} no fim da entrada. */
+    public boolean proximo() throws IOException {
+        tamanhoRegistro = 0;
+        campos = 0;
+        linhaDoRegistro = linhaAtual;
+        int c = ler();
+        if (c < 0) {
+            return false;
+        }
+        int inicioCampo = 0;
+        boolean entreAspas = false;
+        while (true) {
+            if (entreAspas) {
+                if (c < 0) {
+                    throw new IOException("Aspas não fechadas no registro da linha " + linhaDoRegistro);
+                }
+                if (c == '"') {
+                    int seguinte = ler();
+                    if (seguinte == '"') {
+                        anexar('"');
+                    } else {
+                        entreAspas = false;
+                        c = seguinte;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        linhaAtual++;
+                    }
+                    anexar((char) c);
+                }
+            } else if (c == '"' && tamanhoRegistro == inicioCampo) {
+                entreAspas = true;
+            } else if (c == ',') {
+                fecharCampo(inicioCampo);
+                inicioCampo = tamanhoRegistro;
+            } else if (c == '\n' || c < 0) {
+                if (c == '\n') {
+                    linhaAtual++;
+                }
+                if (tamanhoRegistro > inicioCampo && registro[tamanhoRegistro - 1] == '\r') {
+                    tamanhoRegistro--;
+                }
+                fecharCampo(inicioCampo);
+                return true;
+            } else {
+                anexar((char) c);
+            }
+            c = ler();
+        }
+    }
+    
+    /** Número da linha física em que o registro atual começa, contando a partir de 1. */
+    @Override
+    public long linha() {
+        return linhaDoRegistro;
+    }
+    
+    @Override
+    public int quantidadeCampos() {
+        return campos;
+    }
+    
+    @Override
+    public boolean isVazio() {
+        return campos == 1 && fins[0] == inicios[0];
+    }
+    
+    @Override
+    public String texto(int campo) {
+        verificarCampo(campo);
+        return new String(registro, inicios[campo], fins[campo] - inicios[campo]);
+    }
+    
+    @Override
+    public boolean textoIgual(int campo, String esperado) {
+        verificarCampo(campo);
+        return CamposCsv.textoIgual(registro, inicios[campo], fins[campo], esperado);
+    }
+    
+    @Override
+    public long numeroLong(int campo) {
+        verificarCampo(campo);
+        return CamposCsv.numeroLong(registro, inicios[campo], fins[campo]);
+    }
+    
+    @Override
+    public int numeroInt(int campo) {
+        verificarCampo(campo);
+        return CamposCsv.numeroInt(registro, inicios[campo], fins[campo]);
+    }
+    
+    @Override
+    public BigDecimal decimal(int campo) {
+        verificarCampo(campo);
+        return CamposCsv.decimal(registro, inicios[campo], fins[campo]);
+    }
+    
+    /** Copia o registro atual para o fim do bloco, que pode então ser convertido em outra thread. */
+    void copiarPara(BlocoCsv bloco) {
+        bloco.adicionar(registro, tamanhoRegistro, inicios, fins, campos, linhaDoRegistro);
+    }
+    
+    private void verificarCampo(int campo) {
+        if (campo < 0 || campo >= campos) {
+            throw new IndexOutOfBoundsException("Campo " + campo + " inexistente no registro da linha " + linhaDoRegistro);
+        }
+    }
+    
+    private void fecharCampo(int inicio) {
+        if (campos == inicios.length) {
+            inicios = Arrays.copyOf(inicios, campos * 2);
+            fins = Arrays.copyOf(fins, campos * 2);
+        }
+        inicios[campos] = inicio;
+        fins[campos] = tamanhoRegistro;
+        campos++;
+    }
+    
+    private void anexar(char c) {
+        if (tamanhoRegistro == registro.length) {
+            registro = Arrays.copyOf(registro, registro.length * 2);
+        }
+        registro[tamanhoRegistro++] = c;
+    }
+    
+    private int ler() throws IOException {
+        if (posicao == limite) {
+            limite = reader.read(buffer, 0, buffer.length);
+            posicao = 0;
+            if (limite <= 0) {
+                limite = 0;
+                return -1;
+            }
+        }
+        return buffer[posicao++];
+    }
+}
@@ -0,0 +1,93 @@
+package br.edu.esc.tp1.csv;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de uma importação em andamento, atualizados pelas etapas do {@link ImportadorParalelo}
+ * e lidos a qualquer momento por {@link #instantaneo()}. A ocupação de cada etapa é o tempo gasto
+ * trabalhando dividido pelo tempo decorrido vezes o número de threads da etapa: a etapa perto de 1
+ * é o gargalo, e filas cheias antes dela confirmam.
+ */
+public final class MetricasImportacao {
+
+    public record Progresso(long lidos, long convertidos, long gravados, long erros, double segundos,
+                            double lidosPorSegundo, double convertidosPorSegundo, double gravadosPorSegundo,
+                            double ocupacaoLeitura, double ocupacaoConversao, double ocupacaoGravacao,
+                            int filaConversao, int filaGravacao, boolean concluida) {
+    }
+
+    private final LongAdder lidos = new LongAdder();
+    private final LongAdder convertidos = new LongAdder();
+    private final LongAdder gravados = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+    private final LongAdder nanosLeitura = new LongAdder();
+    private final LongAdder nanosConversao = new LongAdder();
+    private final LongAdder nanosGravacao = new LongAdder();
+    private volatile long inicio = System.nanoTime();
+    private volatile long fim;
+    private volatile int conversores = 1;
+    private volatile int gravadores = 1;
+    private volatile BlockingQueue<?> filaConversao;
+    private volatile BlockingQueue<?> filaGravacao;
+
+    void iniciar(int conversores, int gravadores, BlockingQueue<?> filaConversao, BlockingQueue<?> filaGravacao) {
+        this.conversores = conversores;
+        this.gravadores = gravadores;
+        this.filaConversao = filaConversao;
+        this.filaGravacao = filaGravacao;
+        this.inicio = System.nanoTime();
+    }
+
+    void lidos(long registros, long nanos) {
+        lidos.add(registros);
+        nanosLeitura.add(nanos);
+    }
+
+    void convertidos(long registros, long nanos) {
+        convertidos.add(registros);
+        nanosConversao.add(nanos);
+    }
+
+    void gravados(long registros, long nanos) {
+        gravados.add(registros);
+        nanosGravacao.add(nanos);
+    }
+
+    void erros(long quantidade) {
+        erros.add(quantidade);
+    }
+
+    void concluir() {
+        fim = System.nanoTime();
+    }
+
+    public boolean isConcluida() {
+        return fim != 0;
+    }
+
+    public Progresso instantaneo() {
+        long termino = fim;
+        boolean concluida = termino != 0;
+        long decorrido = Math.max(1, (concluida ? termino : System.nanoTime()) - inicio);
+        double segundos = decorrido / (double) TimeUnit.SECONDS.toNanos(1);
+        long totalLidos = lidos.sum();
+        long totalConvertidos = convertidos.sum();
+        long totalGravados = gravados.sum();
+        BlockingQueue<?> conversao = filaConversao;
+        BlockingQueue<?> gravacao = filaGravacao;
+        return new Progresso(totalLidos, totalConvertidos, totalGravados, erros.sum(), segundos,
+            totalLidos / segundos, totalConvertidos / segundos, totalGravados / segundos,
+            ocupacao(nanosLeitura, decorrido, 1),
+            ocupacao(nanosConversao, decorrido, conversores),
+            ocupacao(nanosGravacao, decorrido, gravadores),
+            conversao == null ? 0 : conversao.size(),
+            gravacao == null ? 0 : gravacao.size(),
+            concluida);
+    }
+
+    private static double ocupacao(LongAdder nanos, long decorrido, int threads) {
+        return Math.min(1.0, nanos.sum() / ((double) decorrido * threads));
+    }
+}
@@ -0,0 +1,23 @@
+package br.edu.esc.tp1.csv;
+
+import java.math.BigDecimal;
+
+/** Acesso aos campos de um registro CSV já separado, sem exigir que os campos virem {@link String}. */
+interface RegistroCsv {
+    
+    long linha();
+    
+    int quantidadeCampos();
+    
+    boolean isVazio();
+    
+    String texto(int campo);
+    
+    boolean textoIgual(int campo, String esperado);
+    
+    long numeroLong(int campo);
+    
+    int numeroInt(int campo);
+    
+    BigDecimal decimal(int campo);
+}
@@ -0,0 +1,47 @@
+package br.edu.esc.tp1.csv;
+
+import java.util.List;
+
+public final class RelatorioImportacao {
+    
+    public record ErroLinha(long linha, String mensagem) {
+    }
+    
+    private final long registrosLidos;
+    private final long importados;
+    private final long totalErros;
+    private final List<ErroLinha> erros;
+    
+    public RelatorioImportacao(long registrosLidos, long importados, long totalErros, List<ErroLinha> erros) {
+        if (erros == null) {
+            throw new IllegalArgumentException("Lista de erros não pode ser nula");
+        }
+        this.registrosLidos = registrosLidos;
+        this.importados = importados;
+        this.totalErros = totalErros;
+        this.erros = List.copyOf(erros);
+    }
+    
+    public long getRegistrosLidos() {
+        return registrosLidos;
+    }
+    
+    public long getImportados() {
+        return importados;
+    }
+    
+    public long getTotalErros() {
+        return totalErros;
+    }
+    
+    /** Primeiros erros encontrados, em ordem de linha; pode ter menos itens que {@link #getTotalErros()}. */
+    public List<ErroLinha> getErros() {
+        return erros;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("RelatorioImportacao{lidos=%d, importados=%d, erros=%d}",
+                           registrosLidos, importados, totalErros);
+    }
+}
@@ -0,0 +1,89 @@
+package br.edu.esc.tp1.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * Cursor de página: a posição de um produto numa ordenação (o valor do campo ordenado e o id, que
+ * desempata) e o lado de onde vêm os produtos pedidos. A página seguinte começa logo depois da
+ * chave sem percorrer as anteriores, e continua certa quando produtos entram ou saem antes dela.
+ * <p>
+ * Como parâmetro, a chave é {@code <id>} na ordenação por id e {@code <id>:<valor>} nas outras.
+ */
+public record ChavePagina(OrdenacaoProduto ordenacao, Object valor, long id, boolean anteriores) {
+    
+    public ChavePagina {
+        if (ordenacao == null) {
+            throw new IllegalArgumentException("Ordenação não pode ser nula");
+        }
+        if (valor == null) {
+            throw new IllegalArgumentException("Valor da chave não pode ser nulo");
+        }
+    }
+    
+    /** Os produtos que vêm depois da chave do parâmetro. */
+    public static ChavePagina depois(String parametro, OrdenacaoProduto ordenacao) {
+        return deParametro(parametro, ordenacao, false);
+    }
+    
+    /** Os produtos que vêm antes da chave do parâmetro, os mais próximos dela. */
+    public static ChavePagina antes(String parametro, OrdenacaoProduto ordenacao) {
+        return deParametro(parametro, ordenacao, true);
+    }
+    
+    /** A chave do produto como parâmetro, para o link da página vizinha. */
+    public static String parametro(Produto produto, OrdenacaoProduto ordenacao) {
+        Object valor = switch (ordenacao) {
+            case ID -> produto.getId();
+            case NOME -> produto.getNome();
+            case PRECO -> produto.getPreco();
+            case ESTOQUE -> produto.getQuantidadeEstoque();
+        };
+        return new ChavePagina(ordenacao, valor, produto.getId(), false).parametro();
+    }
+    
+    public String parametro() {
+        if (ordenacao == OrdenacaoProduto.ID) {
+            return Long.toString(id);
+        }
+        String texto = valor instanceof BigDecimal decimal ? decimal.toPlainString() : valor.toString();
+        return id + ":" + texto;
+    }
+    
+    /** Negativo se o produto vem antes da chave na ordenação, positivo se vem depois. */
+    public int compararCom(Produto produto) {
+        int porCampo = switch (ordenacao) {
+            case ID -> 0;
+            case NOME -> String.CASE_INSENSITIVE_ORDER.compare(produto.getNome(), (String) valor);
+            case PRECO -> produto.getPreco().compareTo((BigDecimal) valor);
+            case ESTOQUE -> Integer.compare(produto.getQuantidadeEstoque(), (Integer) valor);
+        };
+        return porCampo != 0 ? porCampo : Long.compare(produto.getId(), id);
+    }
+    
+    private static ChavePagina deParametro(String parametro, OrdenacaoProduto ordenacao, boolean anteriores) {
+        if (parametro == null || ordenacao == null) {
+            throw new IllegalArgumentException("Cursor de página e ordenação não podem ser nulos");
+        }
+        try {
+            if (ordenacao == OrdenacaoProduto.ID) {
+                long id = Long.parseLong(parametro);
+                return new ChavePagina(ordenacao, id, id, anteriores);
+            }
+            int separador = parametro.indexOf(':');
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor de página inválido: " + parametro);
+            }
+            long id = Long.parseLong(parametro.substring(0, separador));
+            String texto = parametro.substring(separador + 1);
+            Object valor = switch (ordenacao) {
+                case NOME -> texto;
+                case PRECO -> new BigDecimal(texto);
+                case ESTOQUE -> Integer.valueOf(texto);
+                case ID -> throw new IllegalStateException();
+            };
+            return new ChavePagina(ordenacao, valor, id, anteriores);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor de página inválido: " + parametro);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package br.edu.esc.tp1.domain;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Contagem de produtos por faixa de preço de largura fixa a partir de zero. A última faixa
+ * não tem limite superior e recebe todos os preços acima do início dela.
+ */
+public final class HistogramaPrecos {
+    
+    private final BigDecimal larguraFaixa;
+    private final long[] contagens;
+    
+    public HistogramaPrecos(BigDecimal larguraFaixa, long[] contagens) {
+        if (larguraFaixa == null || contagens == null) {
+            throw new IllegalArgumentException("Largura e contagens do histograma não podem ser nulas");
+        }
+        this.larguraFaixa = larguraFaixa;
+        this.contagens = contagens.clone();
+    }
+    
+    public BigDecimal getLarguraFaixa() {
+        return larguraFaixa;
+    }
+    
+    public int getQuantidadeFaixas() {
+        return contagens.length;
+    }
+    
+    public long getContagem(int faixa) {
+        return contagens[faixa];
+    }
+    
+    public BigDecimal getInicioFaixa(int faixa) {
+        return larguraFaixa.multiply(BigDecimal.valueOf(faixa));
+    }
+    
+    public long getTotal() {
+        return Arrays.stream(contagens).sum();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("HistogramaPrecos{larguraFaixa=%s, contagens=%s}",
+                           larguraFaixa, Arrays.toString(contagens));
+    }
+}
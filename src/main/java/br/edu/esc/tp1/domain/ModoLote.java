@@ -0,0 +1,28 @@
+package br.edu.esc.tp1.domain;
+
+public enum ModoLote {
+    /** Se algum item falhar, os já aplicados são desfeitos e nada do lote permanece. */
+    TUDO_OU_NADA("tudo-ou-nada"),
+    /** Cada item é aplicado ou rejeitado de forma independente. */
+    MELHOR_ESFORCO("melhor-esforco");
+    
+    private final String parametro;
+    
+    ModoLote(String parametro) {
+        this.parametro = parametro;
+    }
+    
+    public String getParametro() {
+        return parametro;
+    }
+    
+    /** Aceita o parâmetro ou o nome da constante, sem diferenciar maiúsculas. */
+    public static ModoLote deParametro(String parametro) {
+        for (ModoLote modo : values()) {
+            if (modo.parametro.equalsIgnoreCase(parametro) || modo.name().equalsIgnoreCase(parametro)) {
+                return modo;
+            }
+        }
+        throw new IllegalArgumentException("Modo de lote desconhecido: " + parametro);
+    }
+}
@@ -0,0 +1,40 @@
+package br.edu.esc.tp1.domain;
+
+import java.util.Comparator;
+
+public enum OrdenacaoProduto {
+    
+    ID("id"),
+    NOME("nome"),
+    PRECO("preco"),
+    ESTOQUE("estoque");
+    
+    private final String parametro;
+    
+    OrdenacaoProduto(String parametro) {
+        this.parametro = parametro;
+    }
+    
+    public String getParametro() {
+        return parametro;
+    }
+    
+    public Comparator<Produto> comparador() {
+        Comparator<Produto> porCampo = switch (this) {
+            case ID -> Comparator.comparing(Produto::getId);
+            case NOME -> Comparator.comparing(Produto::getNome, String.CASE_INSENSITIVE_ORDER);
+            case PRECO -> Comparator.comparing(Produto::getPreco);
+            case ESTOQUE -> Comparator.comparing(Produto::getQuantidadeEstoque);
+        };
+        return porCampo.thenComparing(Produto::getId);
+    }
+    
+    public static OrdenacaoProduto deParametro(String parametro) {
+        for (OrdenacaoProduto ordenacao : values()) {
+            if (ordenacao.parametro.equalsIgnoreCase(parametro)) {
+                return ordenacao;
+            }
+        }
+        return ID;
+    }
+}
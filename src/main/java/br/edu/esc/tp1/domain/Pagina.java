@@ -0,0 +1,99 @@
+package br.edu.esc.tp1.domain;
+
+import java.util.List;
+
+/**
+ * Uma página de resultados. A página por número sabe se há vizinhas pelo total; a página por
+ * cursor ({@link ChavePagina}) sabe pelos cursores, que ficam nulos quando não há vizinha daquele
+ * lado. A listagem põe os cursores também na página por número, para a próxima seguir por eles.
+ */
+public final class Pagina<T> {
+    
+    private final List<T> conteudo;
+    private final int numero;
+    private final int tamanho;
+    private final long totalElementos;
+    private final boolean temAnterior;
+    private final boolean temProxima;
+    private final String anterior;
+    private final String proxima;
+    
+    public Pagina(List<T> conteudo, int numero, int tamanho, long totalElementos) {
+        this(conteudo, numero, tamanho, totalElementos,
+             numero > 0, ((long) numero + 1) * tamanho < totalElementos, null, null);
+    }
+    
+    public Pagina(List<T> conteudo, int numero, int tamanho, long totalElementos, String anterior, String proxima) {
+        this(conteudo, numero, tamanho, totalElementos, anterior != null, proxima != null, anterior, proxima);
+    }
+    
+    private Pagina(List<T> conteudo, int numero, int tamanho, long totalElementos,
+                   boolean temAnterior, boolean temProxima, String anterior, String proxima) {
+        if (conteudo == null) {
+            throw new IllegalArgumentException("Conteúdo da página não pode ser nulo");
+        }
+        this.conteudo = List.copyOf(conteudo);
+        this.numero = numero;
+        this.tamanho = tamanho;
+        this.totalElementos = totalElementos;
+        this.temAnterior = temAnterior;
+        this.temProxima = temProxima;
+        this.anterior = anterior;
+        this.proxima = proxima;
+    }
+    
+    /** A mesma página com os cursores dados, sem mudar {@link #temAnterior()} nem {@link #temProxima()}. */
+    public Pagina<T> comCursores(String anterior, String proxima) {
+        return new Pagina<>(conteudo, numero, tamanho, totalElementos, temAnterior, temProxima, anterior, proxima);
+    }
+    
+    /** A mesma página sem próxima se {@code numero} já é o último que se pode pedir. */
+    public Pagina<T> limitadaA(int numeroMaximo) {
+        if (numero < numeroMaximo) {
+            return this;
+        }
+        return new Pagina<>(conteudo, numero, tamanho, totalElementos, temAnterior, false, anterior, null);
+    }
+    
+    public List<T> getConteudo() {
+        return conteudo;
+    }
+    
+    public int getNumero() {
+        return numero;
+    }
+    
+    public int getTamanho() {
+        return tamanho;
+    }
+    
+    public long getTotalElementos() {
+        return totalElementos;
+    }
+    
+    public long getTotalPaginas() {
+        return (totalElementos + tamanho - 1) / tamanho;
+    }
+    
+    /** Cursor para {@code antes=} que traz a página anterior, ou nulo. */
+    public String getAnterior() {
+        return anterior;
+    }
+    
+    /** Cursor para {@code depois=} que traz a próxima página, ou nulo. */
+    public String getProxima() {
+        return proxima;
+    }
+    
+    public boolean isVazia() {
+        return conteudo.isEmpty();
+    }
+    
+    public boolean temAnterior() {
+        return temAnterior;
+    }
+    
+    public boolean temProxima() {
+        return temProxima;
+    }
+}
@@ -1,5 +1,7 @@
 package br.edu.esc.tp1.domain;
 
+import br.edu.esc.tp1.exception.EstoqueInsuficienteException;
+
 import java.math.BigDecimal;
 import java.util.Objects;
 
@@ -10,31 +12,44 @@ public final class Produto {
     private final String descricao;
     private final BigDecimal preco;
     private final Integer quantidadeEstoque;
+    private final long versao;
     
     private Produto(Long id, String nome, String descricao, 
-                   BigDecimal preco, Integer quantidadeEstoque) {
+                   BigDecimal preco, Integer quantidadeEstoque, long versao) {
         this.id = id;
         this.nome = nome;
         this.descricao = descricao;
         this.preco = preco;
         this.quantidadeEstoque = quantidadeEstoque;
+        this.versao = versao;
     }
     
     public static Produto criar(Long id, String nome, String descricao, 
                                BigDecimal preco, Integer quantidadeEstoque) {
+        return criar(id, nome, descricao, preco, quantidadeEstoque, 0);
+    }
+    
+    /** O mesmo que {@code criar(...).comVersao(versao)}, montando um objeto só. */
+    public static Produto criar(Long id, String nome, String descricao,
+                               BigDecimal preco, Integer quantidadeEstoque, long versao) {
         validarDados(nome, descricao, preco, quantidadeEstoque);
-        return new Produto(id, nome, descricao, preco, quantidadeEstoque);
+        validarVersao(versao);
+        return new Produto(id, nome, descricao, preco, quantidadeEstoque, versao);
     }
     
+    /**
+     * Valida sem alocar: os textos são percorridos no lugar em vez de copiados por {@code trim()},
+     * e o preço é conferido pelo sinal, sem comparar com outro BigDecimal.
+     */
     private static void validarDados(String nome, String descricao, 
                                     BigDecimal preco, Integer quantidadeEstoque) {
-        if (nome == null || nome.trim().isEmpty()) {
+        if (emBranco(nome)) {
             throw new IllegalArgumentException("Nome do produto não pode ser vazio");
         }
-        if (descricao == null || descricao.trim().isEmpty()) {
+        if (emBranco(descricao)) {
             throw new IllegalArgumentException("Descrição do produto não pode ser vazia");
         }
-        if (preco == null || preco.compareTo(BigDecimal.ZERO) < 0) {
+        if (preco == null || preco.signum() < 0) {
             throw new IllegalArgumentException("Preço deve ser maior ou igual a zero");
         }
         if (quantidadeEstoque == null || quantidadeEstoque < 0) {
@@ -42,6 +57,25 @@ public final class Produto {
         }
     }
     
+    /** Mesmo critério de {@code trim().isEmpty()}: só caracteres até o espaço ({@code <= ' '}). */
+    private static boolean emBranco(String texto) {
+        if (texto == null) {
+            return true;
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static void validarVersao(long versao) {
+        if (versao < 0) {
+            throw new IllegalArgumentException("Versão do produto não pode ser negativa");
+        }
+    }
+    
     public Long getId() {
         return id;
     }
@@ -62,9 +96,56 @@ public final class Produto {
         return quantidadeEstoque;
     }
     
+    /**
+     * Versão do produto quando esta cópia foi lida do repositório; 0 se não veio de lá. Uma
+     * atualização com versão diferente de 0 só é aceita se o produto ainda estiver nessa versão.
+     */
+    public long getVersao() {
+        return versao;
+    }
+    
+    /** Cópia com a versão dada, sem validar de novo os outros campos. */
+    public Produto comVersao(long novaVersao) {
+        validarVersao(novaVersao);
+        return novaVersao == versao ? this : new Produto(id, nome, descricao, preco, quantidadeEstoque, novaVersao);
+    }
+    
+    /** Valida os novos dados e monta a cópia direto, mantendo id e versão; sem mudança devolve este. */
     public Produto atualizar(String novoNome, String novaDescricao, 
                             BigDecimal novoPreco, Integer novaQuantidade) {
-        return criar(this.id, novoNome, novaDescricao, novoPreco, novaQuantidade);
+        validarDados(novoNome, novaDescricao, novoPreco, novaQuantidade);
+        if (novoNome == nome && novaDescricao == descricao && novoPreco == preco
+                && novaQuantidade.equals(quantidadeEstoque)) {
+            return this;
+        }
+        return new Produto(id, novoNome, novaDescricao, novoPreco, novaQuantidade, versao);
+    }
+    
+    /**
+     * Cópia com {@code quantidade} unidades a menos no estoque. Os outros campos já foram
+     * validados na criação e são reaproveitados sem validar de novo.
+     */
+    public Produto reservarEstoque(int quantidade) {
+        validarQuantidadeMovimentada(quantidade);
+        if (quantidade > quantidadeEstoque) {
+            throw new EstoqueInsuficienteException(id, quantidade, quantidadeEstoque);
+        }
+        return new Produto(id, nome, descricao, preco, quantidadeEstoque - quantidade, versao);
+    }
+    
+    /** Cópia com {@code quantidade} unidades a mais no estoque. */
+    public Produto devolverEstoque(int quantidade) {
+        validarQuantidadeMovimentada(quantidade);
+        if (quantidade > Integer.MAX_VALUE - quantidadeEstoque) {
+            throw new IllegalArgumentException("Quantidade em estoque passaria do máximo permitido");
+        }
+        return new Produto(id, nome, descricao, preco, quantidadeEstoque + quantidade, versao);
+    }
+    
+    public static void validarQuantidadeMovimentada(int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("Quantidade movimentada deve ser maior que zero");
+        }
     }
     
     @Override
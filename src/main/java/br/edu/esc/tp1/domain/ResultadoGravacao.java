@@ -0,0 +1,7 @@
+package br.edu.esc.tp1.domain;
+
+/** O que um {@code criarOuAtualizar} fez com o produto. */
+public enum ResultadoGravacao {
+    CRIADO,
+    ATUALIZADO
+}
@@ -0,0 +1,47 @@
+package br.edu.esc.tp1.domain;
+
+import java.util.List;
+
+public final class ResultadoLote {
+    
+    public enum Situacao {
+        APLICADO,
+        FALHOU,
+        /** Item válido que não ficou gravado porque outro item de um lote tudo-ou-nada falhou. */
+        NAO_APLICADO
+    }
+    
+    public record Item(int posicao, Long id, Situacao situacao, String mensagem) {
+    }
+    
+    private final List<Item> itens;
+    
+    public ResultadoLote(List<Item> itens) {
+        if (itens == null) {
+            throw new IllegalArgumentException("Itens do resultado não podem ser nulos");
+        }
+        this.itens = List.copyOf(itens);
+    }
+    
+    public List<Item> getItens() {
+        return itens;
+    }
+    
+    public List<Item> getFalhas() {
+        return itens.stream().filter(item -> item.situacao() == Situacao.FALHOU).toList();
+    }
+    
+    public long getAplicados() {
+        return itens.stream().filter(item -> item.situacao() == Situacao.APLICADO).count();
+    }
+    
+    public boolean isSucessoTotal() {
+        return itens.stream().allMatch(item -> item.situacao() == Situacao.APLICADO);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ResultadoLote{itens=%d, aplicados=%d, falhas=%d}",
+                           itens.size(), getAplicados(), getFalhas().size());
+    }
+}
@@ -0,0 +1,57 @@
+package br.edu.esc.tp1.domain;
+
+import java.math.BigDecimal;
+
+public final class ResumoCatalogo {
+    
+    private final long quantidadeProdutos;
+    private final long estoqueTotal;
+    private final BigDecimal valorEmEstoque;
+    private final BigDecimal precoMinimo;
+    private final BigDecimal precoMaximo;
+    private final BigDecimal precoMedio;
+    
+    public ResumoCatalogo(long quantidadeProdutos, long estoqueTotal, BigDecimal valorEmEstoque,
+                          BigDecimal precoMinimo, BigDecimal precoMaximo, BigDecimal precoMedio) {
+        if (valorEmEstoque == null || precoMinimo == null || precoMaximo == null || precoMedio == null) {
+            throw new IllegalArgumentException("Valores do resumo não podem ser nulos");
+        }
+        this.quantidadeProdutos = quantidadeProdutos;
+        this.estoqueTotal = estoqueTotal;
+        this.valorEmEstoque = valorEmEstoque;
+        this.precoMinimo = precoMinimo;
+        this.precoMaximo = precoMaximo;
+        this.precoMedio = precoMedio;
+    }
+    
+    public long getQuantidadeProdutos() {
+        return quantidadeProdutos;
+    }
+    
+    public long getEstoqueTotal() {
+        return estoqueTotal;
+    }
+    
+    /** Soma de preço × quantidade em estoque de todos os produtos. */
+    public BigDecimal getValorEmEstoque() {
+        return valorEmEstoque;
+    }
+    
+    public BigDecimal getPrecoMinimo() {
+        return precoMinimo;
+    }
+    
+    public BigDecimal getPrecoMaximo() {
+        return precoMaximo;
+    }
+    
+    public BigDecimal getPrecoMedio() {
+        return precoMedio;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ResumoCatalogo{produtos=%d, estoque=%d, valorEmEstoque=%s}",
+                           quantidadeProdutos, estoqueTotal, valorEmEstoque);
+    }
+}
@@ -0,0 +1,28 @@
+package br.edu.esc.tp1.exception;
+
+public class ConflitoVersaoException extends RuntimeException {
+    
+    private final Long produtoId;
+    private final long versaoEsperada;
+    private final long versaoAtual;
+    
+    public ConflitoVersaoException(Long produtoId, long versaoEsperada, long versaoAtual) {
+        super(String.format("Produto com ID %d está na versão %d, não na %d esperada",
+            produtoId, versaoAtual, versaoEsperada));
+        this.produtoId = produtoId;
+        this.versaoEsperada = versaoEsperada;
+        this.versaoAtual = versaoAtual;
+    }
+    
+    public Long getProdutoId() {
+        return produtoId;
+    }
+    
+    public long getVersaoEsperada() {
+        return versaoEsperada;
+    }
+    
+    public long getVersaoAtual() {
+        return versaoAtual;
+    }
+}
@@ -0,0 +1,28 @@
+package br.edu.esc.tp1.exception;
+
+public class EstoqueInsuficienteException extends RuntimeException {
+    
+    private final Long produtoId;
+    private final int solicitado;
+    private final int disponivel;
+    
+    public EstoqueInsuficienteException(Long produtoId, int solicitado, int disponivel) {
+        super(String.format("Produto com ID %d tem %d em estoque, menos que os %d pedidos",
+            produtoId, disponivel, solicitado));
+        this.produtoId = produtoId;
+        this.solicitado = solicitado;
+        this.disponivel = disponivel;
+    }
+    
+    public Long getProdutoId() {
+        return produtoId;
+    }
+    
+    public int getSolicitado() {
+        return solicitado;
+    }
+    
+    public int getDisponivel() {
+        return disponivel;
+    }
+}
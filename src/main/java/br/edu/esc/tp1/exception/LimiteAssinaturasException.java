@@ -0,0 +1,15 @@
+package br.edu.esc.tp1.exception;
+
+public class LimiteAssinaturasException extends RuntimeException {
+    
+    private final int maximo;
+    
+    public LimiteAssinaturasException(int maximo) {
+        super(String.format("Limite de %d assinaturas do fluxo de alterações atingido", maximo));
+        this.maximo = maximo;
+    }
+    
+    public int getMaximo() {
+        return maximo;
+    }
+}
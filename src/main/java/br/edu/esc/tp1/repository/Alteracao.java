@@ -0,0 +1,19 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+
+/**
+ * Uma escrita do catálogo publicada no {@link FluxoAlteracoes}. A sequência começa em 1 e cresce
+ * de um em um na ordem em que as escritas foram aplicadas; {@code anterior} só vem nas
+ * atualizações e {@code atual} é o produto removido nas remoções.
+ */
+public record Alteracao(long sequencia, Tipo tipo, Produto anterior, Produto atual) {
+    
+    public enum Tipo {
+        CRIADO, ATUALIZADO, REMOVIDO
+    }
+    
+    public Long id() {
+        return atual.getId();
+    }
+}
@@ -0,0 +1,388 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.HistogramaPrecos;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResumoCatalogo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Cópia colunar do catálogo para agregações: ids, preços em centavos e estoques em arrays
+ * primitivos paralelos, sem um objeto por produto. Fica em dia com o repositório como
+ * {@link OuvinteProduto}; uma remoção move o último produto para a posição liberada.
+ * <p>
+ * O aviso do repositório chega com a trava do produto tomada, então nunca espera pela trava do
+ * catálogo: a alteração entra numa fila sem trava e é aplicada por quem conseguir a trava na hora
+ * (a próxima escrita ou leitura). As agregações aplicam a fila, copiam os arrays com a trava e
+ * varrem a cópia sem ela, de modo que um relatório longo não segura nenhuma escrita.
+ * <p>
+ * Criada por {@link #sobDemanda}, a cópia só se registra no repositório, recebendo o catálogo
+ * existente, na primeira consulta: a abertura do repositório não espera por ela e, com o snapshot
+ * mapeado, os produtos só são decodificados se alguma agregação for pedida. Um repositório que não
+ * avisa as escritas é lido inteiro a cada consulta.
+ * <p>
+ * Os preços são arredondados para centavos (HALF_EVEN). As agregações varrem blocos dos arrays
+ * em paralelo com aritmética de {@code long} e refazem a conta com {@link BigDecimal} só quando
+ * algum valor não cabe.
+ */
+public class CatalogoColunar implements OuvinteProduto {
+    
+    private static final int ESCALA = 2;
+    private static final long PRECO_FORA_DA_FAIXA = Long.MIN_VALUE;
+    private static final int ELEMENTOS_POR_BLOCO = 1 << 16;
+    private static final int CAPACIDADE_INICIAL = 1024;
+    
+    private final ProdutoRepository origem;
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Queue<Pendente> pendentes = new ConcurrentLinkedQueue<>();
+    private final IndiceLongInt posicoes = new IndiceLongInt(CAPACIDADE_INICIAL);
+    private final Map<Long, BigDecimal> precosForaDaFaixa = new HashMap<>();
+    private long[] ids = new long[CAPACIDADE_INICIAL];
+    private long[] centavos = new long[CAPACIDADE_INICIAL];
+    private int[] estoques = new int[CAPACIDADE_INICIAL];
+    private int tamanho;
+    private volatile boolean acompanhando;
+    
+    public CatalogoColunar() {
+        this(null);
+    }
+    
+    private CatalogoColunar(ProdutoRepository origem) {
+        this.origem = origem;
+        this.acompanhando = origem == null;
+    }
+    
+    /** Cópia que se registra como ouvinte do repositório na primeira consulta. */
+    public static CatalogoColunar sobDemanda(ProdutoRepository repository) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repositório não pode ser nulo");
+        }
+        return new CatalogoColunar(repository);
+    }
+    
+    public static CatalogoColunar de(Collection<Produto> produtos) {
+        CatalogoColunar catalogo = new CatalogoColunar();
+        for (Produto produto : produtos) {
+            catalogo.aoCriar(produto);
+        }
+        return catalogo;
+    }
+    
+    @Override
+    public void aoCriar(Produto produto) {
+        enfileirar(Pendente.colocar(produto));
+    }
+    
+    @Override
+    public void aoAtualizar(Produto anterior, Produto atual) {
+        enfileirar(Pendente.colocar(atual));
+    }
+    
+    @Override
+    public void aoDeletar(Produto removido) {
+        enfileirar(Pendente.remover(removido.getId()));
+    }
+    
+    public int tamanho() {
+        CatalogoColunar fonte = acompanhar();
+        if (fonte != this) {
+            return fonte.tamanho();
+        }
+        trava.lock();
+        try {
+            aplicarPendentes();
+            return tamanho;
+        } finally {
+            trava.unlock();
+        }
+    }
+    
+    public ResumoCatalogo resumir() {
+        CatalogoColunar fonte = acompanhar();
+        if (fonte != this) {
+            return fonte.resumir();
+        }
+        Foto foto = fotografar();
+        int quantidade = foto.tamanho();
+        long[] precos = foto.centavos();
+        int[] quantidades = foto.estoques();
+        Parcial total = blocos(quantidade)
+            .mapToObj(bloco -> Parcial.de(precos, quantidades, inicio(bloco), fim(bloco, quantidade)))
+            .reduce(Parcial.VAZIO, Parcial::somar);
+        if (total.estourou()) {
+            return resumirExato(foto);
+        }
+        if (quantidade == 0) {
+            BigDecimal zero = BigDecimal.ZERO.setScale(ESCALA);
+            return new ResumoCatalogo(0, 0, zero, zero, zero, zero);
+        }
+        return new ResumoCatalogo(quantidade, total.estoque(),
+            BigDecimal.valueOf(total.valor(), ESCALA),
+            BigDecimal.valueOf(total.minimo(), ESCALA),
+            BigDecimal.valueOf(total.maximo(), ESCALA),
+            BigDecimal.valueOf(total.somaPrecos(), ESCALA)
+                .divide(BigDecimal.valueOf(quantidade), ESCALA, RoundingMode.HALF_EVEN));
+    }
+    
+    public HistogramaPrecos histogramaDePrecos(BigDecimal larguraFaixa, int quantidadeFaixas) {
+        if (larguraFaixa == null || larguraFaixa.signum() <= 0) {
+            throw new IllegalArgumentException("Largura da faixa deve ser maior que zero");
+        }
+        if (quantidadeFaixas <= 0) {
+            throw new IllegalArgumentException("Quantidade de faixas deve ser maior que zero");
+        }
+        long largura = centavos(larguraFaixa);
+        if (largura <= 0) {
+            throw new IllegalArgumentException("Largura da faixa deve ser de ao menos um centavo e caber em long");
+        }
+        CatalogoColunar fonte = acompanhar();
+        if (fonte != this) {
+            return fonte.histogramaDePrecos(larguraFaixa, quantidadeFaixas);
+        }
+        int quantidade;
+        long[] precos;
+        trava.lock();
+        try {
+            aplicarPendentes();
+            quantidade = tamanho;
+            precos = Arrays.copyOf(centavos, quantidade);
+        } finally {
+            trava.unlock();
+        }
+        long[] contagens = blocos(quantidade)
+            .mapToObj(bloco -> contar(precos, inicio(bloco), fim(bloco, quantidade), largura, quantidadeFaixas))
+            .reduce(new long[quantidadeFaixas], CatalogoColunar::somarContagens);
+        return new HistogramaPrecos(BigDecimal.valueOf(largura, ESCALA), contagens);
+    }
+    
+    /** Enfileira e, se ninguém estiver com a trava, aplica; senão quem está com ela aplica depois. */
+    private void enfileirar(Pendente pendente) {
+        pendentes.add(pendente);
+        if (trava.tryLock()) {
+            try {
+                aplicarPendentes();
+            } finally {
+                trava.unlock();
+            }
+        }
+    }
+    
+    // Chamado com a trava tomada.
+    private void aplicarPendentes() {
+        Pendente pendente;
+        while ((pendente = pendentes.poll()) != null) {
+            if (pendente.remocao()) {
+                aplicarRemocao(pendente.id());
+            } else {
+                aplicarColocacao(pendente);
+            }
+        }
+    }
+    
+    /**
+     * Registra a cópia no repositório na primeira consulta e a devolve. Se o repositório não avisa
+     * as escritas, devolve uma cópia temporária de {@code listarTodos()}, montada a cada consulta.
+     */
+    private CatalogoColunar acompanhar() {
+        if (!acompanhando) {
+            synchronized (this) {
+                if (!acompanhando) {
+                    try {
+                        origem.registrarOuvinte(this);
+                    } catch (UnsupportedOperationException e) {
+                        return de(origem.listarTodos());
+                    }
+                    acompanhando = true;
+                }
+            }
+        }
+        return this;
+    }
+    
+    private Foto fotografar() {
+        trava.lock();
+        try {
+            aplicarPendentes();
+            if (precosForaDaFaixa.isEmpty()) {
+                return new Foto(tamanho, null, Arrays.copyOf(centavos, tamanho), Arrays.copyOf(estoques, tamanho), Map.of());
+            }
+            return new Foto(tamanho, Arrays.copyOf(ids, tamanho), Arrays.copyOf(centavos, tamanho),
+                Arrays.copyOf(estoques, tamanho), new HashMap<>(precosForaDaFaixa));
+        } finally {
+            trava.unlock();
+        }
+    }
+    
+    private void aplicarRemocao(long id) {
+        int posicao = posicoes.remover(id);
+        if (posicao == IndiceLongInt.AUSENTE) {
+            return;
+        }
+        int ultima = --tamanho;
+        if (posicao != ultima) {
+            ids[posicao] = ids[ultima];
+            centavos[posicao] = centavos[ultima];
+            estoques[posicao] = estoques[ultima];
+            posicoes.colocar(ids[posicao], posicao);
+        }
+        if (!precosForaDaFaixa.isEmpty()) {
+            precosForaDaFaixa.remove(id);
+        }
+    }
+    
+    private void aplicarColocacao(Pendente pendente) {
+        long id = pendente.id();
+        int posicao = posicoes.buscar(id);
+        if (posicao == IndiceLongInt.AUSENTE) {
+            if (tamanho == ids.length) {
+                int capacidade = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacidade);
+                centavos = Arrays.copyOf(centavos, capacidade);
+                estoques = Arrays.copyOf(estoques, capacidade);
+            }
+            posicao = tamanho++;
+            ids[posicao] = id;
+            posicoes.colocar(id, posicao);
+        }
+        centavos[posicao] = pendente.centavos();
+        estoques[posicao] = pendente.estoque();
+        if (pendente.centavos() == PRECO_FORA_DA_FAIXA) {
+            precosForaDaFaixa.put(id, pendente.precoExato());
+        } else if (!precosForaDaFaixa.isEmpty()) {
+            precosForaDaFaixa.remove(id);
+        }
+    }
+    
+    private static ResumoCatalogo resumirExato(Foto foto) {
+        BigDecimal valor = BigDecimal.ZERO.setScale(ESCALA);
+        BigDecimal somaPrecos = BigDecimal.ZERO.setScale(ESCALA);
+        BigDecimal minimo = null;
+        BigDecimal maximo = null;
+        long estoque = 0;
+        for (int i = 0; i < foto.tamanho(); i++) {
+            long emCentavos = foto.centavos()[i];
+            BigDecimal preco = emCentavos == PRECO_FORA_DA_FAIXA
+                ? foto.precosForaDaFaixa().get(foto.ids()[i])
+                : BigDecimal.valueOf(emCentavos, ESCALA);
+            int quantidade = foto.estoques()[i];
+            estoque += quantidade;
+            valor = valor.add(preco.multiply(BigDecimal.valueOf(quantidade)));
+            somaPrecos = somaPrecos.add(preco);
+            minimo = minimo == null || preco.compareTo(minimo) < 0 ? preco : minimo;
+            maximo = maximo == null || preco.compareTo(maximo) > 0 ? preco : maximo;
+        }
+        return new ResumoCatalogo(foto.tamanho(), estoque, valor, minimo, maximo,
+            somaPrecos.divide(BigDecimal.valueOf(foto.tamanho()), ESCALA, RoundingMode.HALF_EVEN));
+    }
+    
+    private static long[] contar(long[] precos, int inicio, int fim, long largura, int quantidadeFaixas) {
+        long[] contagens = new long[quantidadeFaixas];
+        int ultimaFaixa = quantidadeFaixas - 1;
+        for (int i = inicio; i < fim; i++) {
+            long preco = precos[i];
+            int faixa = preco == PRECO_FORA_DA_FAIXA ? ultimaFaixa : (int) Math.min(preco / largura, ultimaFaixa);
+            contagens[faixa]++;
+        }
+        return contagens;
+    }
+    
+    private static long[] somarContagens(long[] a, long[] b) {
+        long[] soma = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            soma[i] = a[i] + b[i];
+        }
+        return soma;
+    }
+    
+    private static long centavos(BigDecimal preco) {
+        BigDecimal arredondado = preco.setScale(ESCALA, RoundingMode.HALF_EVEN);
+        if (arredondado.unscaledValue().bitLength() > 63) {
+            return PRECO_FORA_DA_FAIXA;
+        }
+        return arredondado.unscaledValue().longValue();
+    }
+    
+    private static IntStream blocos(int quantidade) {
+        return IntStream.range(0, (quantidade + ELEMENTOS_POR_BLOCO - 1) / ELEMENTOS_POR_BLOCO).parallel();
+    }
+    
+    private static int inicio(int bloco) {
+        return bloco * ELEMENTOS_POR_BLOCO;
+    }
+    
+    private static int fim(int bloco, int quantidade) {
+        return (int) Math.min((long) (bloco + 1) * ELEMENTOS_POR_BLOCO, quantidade);
+    }
+    
+    /** Alteração ainda não aplicada aos arrays; o preço já vem convertido na thread de quem escreveu. */
+    private record Pendente(long id, boolean remocao, long centavos, int estoque, BigDecimal precoExato) {
+        
+        static Pendente colocar(Produto produto) {
+            long preco = CatalogoColunar.centavos(produto.getPreco());
+            BigDecimal precoExato = preco == PRECO_FORA_DA_FAIXA
+                ? produto.getPreco().setScale(ESCALA, RoundingMode.HALF_EVEN) : null;
+            return new Pendente(produto.getId(), false, preco, produto.getQuantidadeEstoque(), precoExato);
+        }
+        
+        static Pendente remover(long id) {
+            return new Pendente(id, true, 0, 0, null);
+        }
+    }
+    
+    /** Cópia dos arrays tirada com a trava, para agregar sem ela; os ids só vêm se houver preço fora da faixa. */
+    private record Foto(int tamanho, long[] ids, long[] centavos, int[] estoques, Map<Long, BigDecimal> precosForaDaFaixa) {
+    }
+    
+    private record Parcial(long estoque, long valor, long somaPrecos, long minimo, long maximo, boolean estourou) {
+        
+        static final Parcial VAZIO = new Parcial(0, 0, 0, Long.MAX_VALUE, Long.MIN_VALUE, false);
+        static final Parcial ESTOUROU = new Parcial(0, 0, 0, Long.MAX_VALUE, Long.MIN_VALUE, true);
+        
+        static Parcial de(long[] precos, int[] quantidades, int inicio, int fim) {
+            long estoque = 0;
+            long valor = 0;
+            long somaPrecos = 0;
+            long minimo = Long.MAX_VALUE;
+            long maximo = Long.MIN_VALUE;
+            try {
+                for (int i = inicio; i < fim; i++) {
+                    long preco = precos[i];
+                    if (preco == PRECO_FORA_DA_FAIXA) {
+                        return ESTOUROU;
+                    }
+                    int quantidade = quantidades[i];
+                    estoque += quantidade;
+                    valor = Math.addExact(valor, Math.multiplyExact(preco, quantidade));
+                    somaPrecos = Math.addExact(somaPrecos, preco);
+                    minimo = Math.min(minimo, preco);
+                    maximo = Math.max(maximo, preco);
+                }
+            } catch (ArithmeticException e) {
+                return ESTOUROU;
+            }
+            return new Parcial(estoque, valor, somaPrecos, minimo, maximo, false);
+        }
+        
+        Parcial somar(Parcial outra) {
+            if (estourou || outra.estourou) {
+                return ESTOUROU;
+            }
+            try {
+                return new Parcial(estoque + outra.estoque, Math.addExact(valor, outra.valor),
+                    Math.addExact(somaPrecos, outra.somaPrecos),
+                    Math.min(minimo, outra.minimo), Math.max(maximo, outra.maximo), false);
+            } catch (ArithmeticException e) {
+                return ESTOUROU;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+final class CodecProduto {
+    
+    private CodecProduto() {
+    }
+    
+    static void escrever(DataOutput saida, Produto produto) throws IOException {
+        saida.writeLong(produto.getId());
+        escreverTexto(saida, produto.getNome());
+        escreverTexto(saida, produto.getDescricao());
+        byte[] precoSemEscala = produto.getPreco().unscaledValue().toByteArray();
+        saida.writeInt(produto.getPreco().scale());
+        saida.writeInt(precoSemEscala.length);
+        saida.write(precoSemEscala);
+        saida.writeInt(produto.getQuantidadeEstoque());
+    }
+    
+    static Produto ler(DataInput entrada) throws IOException {
+        long id = entrada.readLong();
+        String nome = lerTexto(entrada);
+        String descricao = lerTexto(entrada);
+        int escala = entrada.readInt();
+        byte[] precoSemEscala = new byte[entrada.readInt()];
+        entrada.readFully(precoSemEscala);
+        int quantidadeEstoque = entrada.readInt();
+        BigDecimal preco = new BigDecimal(new BigInteger(precoSemEscala), escala);
+        return Produto.criar(id, nome, descricao, preco, quantidadeEstoque);
+    }
+    
+    private static void escreverTexto(DataOutput saida, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        saida.writeInt(bytes.length);
+        saida.write(bytes);
+    }
+    
+    private static String lerTexto(DataInput entrada) throws IOException {
+        byte[] bytes = new byte[entrada.readInt()];
+        entrada.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.domain.ResultadoLote.Item;
+import br.edu.esc.tp1.domain.ResultadoLote.Situacao;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Aplica um lote item a item, registrando o resultado de cada um. No modo tudo-ou-nada a primeira
+ * falha desfaz, em ordem inversa, o que já tinha sido aplicado.
+ */
+final class ExecucaoLote {
+    
+    @FunctionalInterface
+    interface Operacao<T> {
+        /** Aplica o item e devolve a ação que o desfaz. */
+        Runnable aplicar(T item);
+    }
+    
+    private ExecucaoLote() {
+    }
+    
+    static void validar(List<?> itens, ModoLote modo) {
+        if (itens == null) {
+            throw new IllegalArgumentException("Lote não pode ser nulo");
+        }
+        if (modo == null) {
+            throw new IllegalArgumentException("Modo do lote não pode ser nulo");
+        }
+    }
+    
+    static <T> ResultadoLote executar(List<T> itens, ModoLote modo, Function<T, Long> idDe, Operacao<T> operacao) {
+        validar(itens, modo);
+        List<Item> resultado = new ArrayList<>(itens.size());
+        Deque<Runnable> desfazer = new ArrayDeque<>();
+        for (int posicao = 0; posicao < itens.size(); posicao++) {
+            T item = itens.get(posicao);
+            Long id = item == null ? null : idDe.apply(item);
+            try {
+                if (item == null) {
+                    throw new IllegalArgumentException("Item do lote não pode ser nulo");
+                }
+                Runnable desfazerItem = operacao.aplicar(item);
+                if (modo == ModoLote.TUDO_OU_NADA) {
+                    desfazer.push(desfazerItem);
+                }
+                resultado.add(new Item(posicao, id, Situacao.APLICADO, null));
+            } catch (RuntimeException e) {
+                resultado.add(new Item(posicao, id, Situacao.FALHOU, e.getMessage()));
+                if (modo == ModoLote.TUDO_OU_NADA) {
+                    desfazerTudo(desfazer);
+                    return new ResultadoLote(naoAplicados(resultado, itens, idDe));
+                }
+            }
+        }
+        return new ResultadoLote(resultado);
+    }
+    
+    private static void desfazerTudo(Deque<Runnable> desfazer) {
+        try {
+            while (!desfazer.isEmpty()) {
+                desfazer.pop().run();
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Falha ao desfazer o lote; parte dele pode ter permanecido", e);
+        }
+    }
+    
+    private static <T> List<Item> naoAplicados(List<Item> resultado, List<T> itens, Function<T, Long> idDe) {
+        List<Item> todos = new ArrayList<>(itens.size());
+        for (Item item : resultado) {
+            todos.add(item.situacao() == Situacao.APLICADO
+                ? new Item(item.posicao(), item.id(), Situacao.NAO_APLICADO, null)
+                : item);
+        }
+        for (int posicao = resultado.size(); posicao < itens.size(); posicao++) {
+            T item = itens.get(posicao);
+            todos.add(new Item(posicao, item == null ? null : idDe.apply(item), Situacao.NAO_APLICADO, null));
+        }
+        return todos;
+    }
+}
@@ -0,0 +1,264 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.exception.LimiteAssinaturasException;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fluxo ordenado das escritas do repositório (criações, atualizações e remoções), cada uma com
+ * um número de sequência. As alterações ficam num buffer circular de tamanho fixo, no estilo do
+ * Disruptor: quem escreve reserva a sequência num contador atômico e grava a alteração na posição
+ * {@code sequencia & mascara}, sem trava e sem esperar ninguém. Os assinantes leem o buffer cada um
+ * no seu ritmo, a partir da sequência que quiserem; um assinante que fica mais de uma volta para
+ * trás perde as alterações sobrescritas e é avisado por {@link OuvinteAlteracoes#aoPerder}.
+ * <p>
+ * A sequência é reservada dentro da chamada do {@link OuvinteProduto}, ainda com a trava do
+ * produto, então as alterações de um mesmo id saem na ordem em que foram aplicadas. As alterações
+ * são publicadas antes da escrita ficar visível no repositório: quem precisa do produto deve usar
+ * o que vem na alteração, não buscá-lo de novo.
+ * <p>
+ * Cada assinatura tem uma thread própria; passado o limite de assinaturas ativas, novas assinaturas
+ * são recusadas com {@link LimiteAssinaturasException}.
+ */
+public class FluxoAlteracoes implements OuvinteProduto, AutoCloseable {
+    
+    /** Quanto um assinante dorme sem aviso antes de olhar o buffer de novo. */
+    private static final long ESPERA_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int ASSINATURAS_PADRAO = 256;
+    
+    private final long epoca = System.currentTimeMillis();
+    private final int capacidade;
+    private final int mascara;
+    private final int maximoAssinaturas;
+    private final Semaphore vagas;
+    private final AtomicReferenceArray<Alteracao> buffer;
+    private final AtomicLong proxima = new AtomicLong(1);
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition publicada = trava.newCondition();
+    private final AtomicInteger esperando = new AtomicInteger();
+    private final Set<Assinatura> assinaturas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger threads = new AtomicInteger();
+    
+    /** @param capacidade alterações guardadas; arredondada para a próxima potência de dois */
+    public FluxoAlteracoes(int capacidade) {
+        this(capacidade, ASSINATURAS_PADRAO);
+    }
+    
+    /**
+     * @param capacidade alterações guardadas; arredondada para a próxima potência de dois
+     * @param maximoAssinaturas assinaturas ativas ao mesmo tempo
+     */
+    public FluxoAlteracoes(int capacidade, int maximoAssinaturas) {
+        if (capacidade <= 0 || capacidade > 1 << 30) {
+            throw new IllegalArgumentException("Capacidade do fluxo de alterações deve estar entre 1 e 2^30");
+        }
+        if (maximoAssinaturas <= 0) {
+            throw new IllegalArgumentException("Máximo de assinaturas deve ser maior que zero");
+        }
+        this.maximoAssinaturas = maximoAssinaturas;
+        this.vagas = new Semaphore(maximoAssinaturas);
+        this.capacidade = Integer.highestOneBit(capacidade) == capacidade
+            ? capacidade : Integer.highestOneBit(capacidade) << 1;
+        this.mascara = this.capacidade - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacidade);
+    }
+    
+    /**
+     * Passa a publicar as escritas do repositório. Os produtos já existentes não entram no fluxo
+     * nem são lidos no registro: quem quer o estado inicial percorre o repositório depois de
+     * anotar {@link #ultimaSequencia()}.
+     */
+    public void registrarEm(ProdutoRepository repository) {
+        repository.registrarOuvinte(this, false);
+    }
+    
+    @Override
+    public void aoCriar(Produto produto) {
+        publicar(Alteracao.Tipo.CRIADO, null, produto);
+    }
+    
+    @Override
+    public void aoAtualizar(Produto anterior, Produto atual) {
+        publicar(Alteracao.Tipo.ATUALIZADO, anterior, atual);
+    }
+    
+    @Override
+    public void aoDeletar(Produto removido) {
+        if (removido != null) {
+            publicar(Alteracao.Tipo.REMOVIDO, null, removido);
+        }
+    }
+    
+    /** Última sequência reservada; 0 antes da primeira escrita. */
+    public long ultimaSequencia() {
+        return proxima.get() - 1;
+    }
+    
+    /** Instante de criação do fluxo: sequências de épocas diferentes não se comparam. */
+    public long epoca() {
+        return epoca;
+    }
+    
+    public int capacidade() {
+        return capacidade;
+    }
+    
+    public int maximoAssinaturas() {
+        return maximoAssinaturas;
+    }
+    
+    /**
+     * Entrega ao ouvinte, numa thread própria, as alterações a partir de {@code aPartirDe} (no
+     * máximo {@code ultimaSequencia() + 1}, que significa só as próximas). A vaga da assinatura é
+     * liberada quando a thread termina.
+     *
+     * @throws LimiteAssinaturasException se já há {@link #maximoAssinaturas()} assinaturas ativas
+     */
+    public Assinatura assinar(long aPartirDe, OuvinteAlteracoes ouvinte) {
+        if (ouvinte == null) {
+            throw new IllegalArgumentException("Ouvinte não pode ser nulo");
+        }
+        if (aPartirDe < 1 || aPartirDe > proxima.get()) {
+            throw new IllegalArgumentException("Sequência fora do fluxo: " + aPartirDe);
+        }
+        if (!vagas.tryAcquire()) {
+            throw new LimiteAssinaturasException(maximoAssinaturas);
+        }
+        Assinatura assinatura;
+        try {
+            assinatura = new Assinatura(aPartirDe, ouvinte);
+            assinaturas.add(assinatura);
+            assinatura.thread.start();
+        } catch (RuntimeException | Error e) {
+            vagas.release();
+            throw e;
+        }
+        return assinatura;
+    }
+    
+    @Override
+    public void close() {
+        for (Assinatura assinatura : assinaturas) {
+            assinatura.cancelar();
+        }
+    }
+    
+    private void publicar(Alteracao.Tipo tipo, Produto anterior, Produto atual) {
+        long sequencia = proxima.getAndIncrement();
+        Alteracao alteracao = new Alteracao(sequencia, tipo, anterior, atual);
+        int indice = (int) (sequencia & mascara);
+        Alteracao ocupante;
+        do {
+            ocupante = buffer.get(indice);
+            if (ocupante != null && ocupante.sequencia() > sequencia) {
+                return;
+            }
+        } while (!buffer.compareAndSet(indice, ocupante, alteracao));
+        if (esperando.get() != 0) {
+            acordarAssinantes();
+        }
+    }
+    
+    private void acordarAssinantes() {
+        trava.lock();
+        try {
+            publicada.signalAll();
+        } finally {
+            trava.unlock();
+        }
+    }
+    
+    /** Espera a sequência ser publicada ou sobrescrita, por no máximo {@link #ESPERA_NANOS}. */
+    private void esperar(long sequencia) throws InterruptedException {
+        esperando.incrementAndGet();
+        trava.lock();
+        try {
+            Alteracao ocupante = buffer.get((int) (sequencia & mascara));
+            if (ocupante == null || ocupante.sequencia() < sequencia) {
+                publicada.awaitNanos(ESPERA_NANOS);
+            }
+        } finally {
+            trava.unlock();
+            esperando.decrementAndGet();
+        }
+    }
+    
+    public final class Assinatura implements AutoCloseable {
+    
+        private final OuvinteAlteracoes ouvinte;
+        private final Thread thread;
+        private volatile long proximaSequencia;
+        private volatile boolean cancelada;
+        private volatile Exception falha;
+    
+        private Assinatura(long aPartirDe, OuvinteAlteracoes ouvinte) {
+            this.ouvinte = ouvinte;
+            this.proximaSequencia = aPartirDe;
+            this.thread = new Thread(this::entregar, "fluxo-alteracoes-" + threads.incrementAndGet());
+            this.thread.setDaemon(true);
+        }
+    
+        /** Sequência da próxima alteração a entregar; serve para retomar depois. */
+        public long proximaSequencia() {
+            return proximaSequencia;
+        }
+    
+        public boolean ativa() {
+            return !cancelada;
+        }
+    
+        /** A exceção do ouvinte que encerrou a assinatura, ou {@code null}. */
+        public Exception falha() {
+            return falha;
+        }
+    
+        /** Para a entrega; a alteração que estiver sendo entregue termina antes. */
+        public void cancelar() {
+            cancelada = true;
+            assinaturas.remove(this);
+            acordarAssinantes();
+        }
+    
+        @Override
+        public void close() {
+            cancelar();
+        }
+    
+        private void entregar() {
+            long sequencia = proximaSequencia;
+            try {
+                while (!cancelada) {
+                    Alteracao alteracao = buffer.get((int) (sequencia & mascara));
+                    if (alteracao != null && alteracao.sequencia() == sequencia) {
+                        ouvinte.aoReceber(alteracao);
+                        proximaSequencia = ++sequencia;
+                    } else if (alteracao != null && alteracao.sequencia() > sequencia) {
+                        long disponivel = proxima.get() - capacidade;
+                        ouvinte.aoPerder(sequencia, disponivel - 1);
+                        sequencia = disponivel;
+                        proximaSequencia = sequencia;
+                    } else {
+                        esperar(sequencia);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                falha = e;
+            } finally {
+                cancelada = true;
+                assinaturas.remove(this);
+                vagas.release();
+            }
+        }
+    }
+}
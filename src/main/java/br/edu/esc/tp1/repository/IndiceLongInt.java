@@ -0,0 +1,125 @@
+package br.edu.esc.tp1.repository;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de long para int com endereçamento aberto e sondagem linear, sem caixas nem nós.
+ * Remoções reposicionam as chaves seguintes em vez de deixar lápides. Não é thread-safe.
+ */
+final class IndiceLongInt {
+    
+    static final int AUSENTE = -1;
+    
+    private static final long VAZIO = 0L;
+    private static final double CARGA_MAXIMA = 0.6;
+    
+    private long[] chaves;
+    private int[] valores;
+    private int mascara;
+    private int tamanho;
+    private boolean temChaveZero;
+    private int valorChaveZero;
+    
+    IndiceLongInt(int capacidadeInicial) {
+        int capacidade = Integer.highestOneBit(Math.max(capacidadeInicial * 2 - 1, 16));
+        alocar(capacidade);
+    }
+    
+    int buscar(long chave) {
+        if (chave == VAZIO) {
+            return temChaveZero ? valorChaveZero : AUSENTE;
+        }
+        for (int i = posicao(chave); ; i = (i + 1) & mascara) {
+            long atual = chaves[i];
+            if (atual == chave) {
+                return valores[i];
+            }
+            if (atual == VAZIO) {
+                return AUSENTE;
+            }
+        }
+    }
+    
+    void colocar(long chave, int valor) {
+        if (chave == VAZIO) {
+            if (!temChaveZero) {
+                tamanho++;
+            }
+            temChaveZero = true;
+            valorChaveZero = valor;
+            return;
+        }
+        int i = posicao(chave);
+        while (chaves[i] != VAZIO && chaves[i] != chave) {
+            i = (i + 1) & mascara;
+        }
+        if (chaves[i] == VAZIO) {
+            chaves[i] = chave;
+            tamanho++;
+        }
+        valores[i] = valor;
+        if (tamanho > chaves.length * CARGA_MAXIMA) {
+            redimensionar();
+        }
+    }
+    
+    int remover(long chave) {
+        if (chave == VAZIO) {
+            if (!temChaveZero) {
+                return AUSENTE;
+            }
+            temChaveZero = false;
+            tamanho--;
+            return valorChaveZero;
+        }
+        int i = posicao(chave);
+        while (chaves[i] != chave) {
+            if (chaves[i] == VAZIO) {
+                return AUSENTE;
+            }
+            i = (i + 1) & mascara;
+        }
+        int removido = valores[i];
+        tamanho--;
+        int vaga = i;
+        for (int j = (i + 1) & mascara; chaves[j] != VAZIO; j = (j + 1) & mascara) {
+            int ideal = posicao(chaves[j]);
+            boolean podeOcuparVaga = vaga <= j ? (ideal <= vaga || ideal > j) : (ideal <= vaga && ideal > j);
+            if (podeOcuparVaga) {
+                chaves[vaga] = chaves[j];
+                valores[vaga] = valores[j];
+                vaga = j;
+            }
+        }
+        chaves[vaga] = VAZIO;
+        return removido;
+    }
+    
+    int tamanho() {
+        return tamanho;
+    }
+    
+    private int posicao(long chave) {
+        long misturado = chave * 0x9E3779B97F4A7C15L;
+        return (int) (misturado ^ (misturado >>> 32)) & mascara;
+    }
+    
+    private void redimensionar() {
+        long[] chavesAntigas = chaves;
+        int[] valoresAntigos = valores;
+        alocar(chavesAntigas.length * 2);
+        tamanho = temChaveZero ? 1 : 0;
+        for (int i = 0; i < chavesAntigas.length; i++) {
+            if (chavesAntigas[i] != VAZIO) {
+                colocar(chavesAntigas[i], valoresAntigos[i]);
+            }
+        }
+    }
+    
+    private void alocar(int capacidade) {
+        chaves = new long[capacidade];
+        valores = new int[capacidade];
+        Arrays.fill(valores, AUSENTE);
+        mascara = capacidade - 1;
+    }
+}
@@ -0,0 +1,112 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Índice ordenado por um campo do produto. Guarda só o valor do campo e o id; o produto é buscado
+ * no mapa principal na leitura, então uma escrita que não muda o campo não mexe no índice.
+ * Produtos removidos entre a leitura do índice e a do mapa ficam de fora do resultado.
+ */
+class IndiceOrdenado<K> {
+    
+    private final ConcurrentSkipListSet<Chave<K>> entradas;
+    private final Function<Produto, K> extrator;
+    private final Function<Long, Produto> produtos;
+    
+    IndiceOrdenado(Function<Produto, K> extrator, Comparator<? super K> comparador, Function<Long, Produto> produtos) {
+        this.extrator = extrator;
+        this.produtos = produtos;
+        Comparator<Chave<K>> porValor = Comparator.comparing(Chave::valor, comparador);
+        this.entradas = new ConcurrentSkipListSet<>(porValor.thenComparingLong(Chave::id));
+    }
+    
+    void adicionar(Produto produto) {
+        entradas.add(chave(produto));
+    }
+    
+    void remover(Produto produto) {
+        entradas.remove(chave(produto));
+    }
+    
+    /** Move o produto no índice só se o campo indexado mudou. */
+    void substituir(Produto anterior, Produto atual) {
+        Chave<K> antiga = chave(anterior);
+        Chave<K> nova = chave(atual);
+        if (entradas.comparator().compare(antiga, nova) != 0) {
+            entradas.remove(antiga);
+            entradas.add(nova);
+        }
+    }
+    
+    List<Produto> pagina(long deslocamento, int tamanho) {
+        Iterator<Chave<K>> iterador = entradas.iterator();
+        for (long i = 0; i < deslocamento && iterador.hasNext(); i++) {
+            iterador.next();
+        }
+        List<Produto> pagina = new ArrayList<>(tamanho);
+        while (pagina.size() < tamanho && iterador.hasNext()) {
+            adicionarSeExiste(pagina, iterador.next());
+        }
+        return pagina;
+    }
+    
+    /**
+     * Até {@code limite} produtos estritamente depois da chave (valor, id), na ordem do índice, ou
+     * estritamente antes dela, do mais próximo para o mais distante. Não percorre o que fica do
+     * outro lado da chave.
+     */
+    @SuppressWarnings("unchecked")
+    List<Produto> aPartirDe(Object valor, long id, boolean anteriores, int limite) {
+        Chave<K> chave = new Chave<>((K) valor, id);
+        Iterator<Chave<K>> iterador = anteriores
+            ? entradas.headSet(chave, false).descendingIterator()
+            : entradas.tailSet(chave, false).iterator();
+        List<Produto> encontrados = new ArrayList<>(limite);
+        while (encontrados.size() < limite && iterador.hasNext()) {
+            adicionarSeExiste(encontrados, iterador.next());
+        }
+        return encontrados;
+    }
+    
+    List<Produto> entre(K minimo, K maximo) {
+        Chave<K> inicio = new Chave<>(minimo, Long.MIN_VALUE);
+        Chave<K> fim = new Chave<>(maximo, Long.MAX_VALUE);
+        if (entradas.comparator().compare(inicio, fim) > 0) {
+            return List.of();
+        }
+        return resolver(entradas.subSet(inicio, true, fim, true));
+    }
+    
+    List<Produto> abaixoDe(K limite) {
+        return resolver(entradas.headSet(new Chave<>(limite, Long.MIN_VALUE), false));
+    }
+    
+    private List<Produto> resolver(Iterable<Chave<K>> chaves) {
+        List<Produto> encontrados = new ArrayList<>();
+        for (Chave<K> chave : chaves) {
+            adicionarSeExiste(encontrados, chave);
+        }
+        return encontrados;
+    }
+    
+    private void adicionarSeExiste(List<Produto> destino, Chave<K> chave) {
+        Produto produto = produtos.apply(chave.id());
+        if (produto != null) {
+            destino.add(produto);
+        }
+    }
+    
+    private Chave<K> chave(Produto produto) {
+        return new Chave<>(extrator.apply(produto), produto.getId());
+    }
+    
+    private record Chave<K>(K valor, long id) {
+    }
+}
@@ -0,0 +1,194 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+class IndiceTextual {
+    
+    static final int CAMPO_NOME = 1;
+    static final int CAMPO_DESCRICAO = 2;
+    
+    private static final Pattern MARCAS_DE_ACENTO = Pattern.compile("\\p{M}+");
+    private static final String FIM_DE_PREFIXO = "\uffff";
+    
+    private static final int FAIXAS_DE_TRAVA = 64;
+    
+    // Termos que ficam sem produtos são removidos. A inclusão e a remoção de um mesmo termo
+    // passam pela mesma trava: sem ela, a remoção do termo vazio poderia descartar o mapa em
+    // que uma inclusão concorrente acabou de entrar.
+    private final ConcurrentSkipListMap<String, Map<Long, Integer>> termos = new ConcurrentSkipListMap<>();
+    private final Object[] travas = new Object[FAIXAS_DE_TRAVA];
+    
+    IndiceTextual() {
+        for (int i = 0; i < travas.length; i++) {
+            travas[i] = new Object();
+        }
+    }
+    
+    void adicionar(Produto produto) {
+        Long id = produto.getId();
+        tokensComCampos(produto).forEach((token, campos) -> {
+            synchronized (travaDo(token)) {
+                termos.computeIfAbsent(token, t -> new ConcurrentHashMap<>()).merge(id, campos, (a, b) -> a | b);
+            }
+        });
+    }
+    
+    void remover(Produto produto) {
+        Long id = produto.getId();
+        for (String token : tokensComCampos(produto).keySet()) {
+            synchronized (travaDo(token)) {
+                termos.computeIfPresent(token, (t, ocorrencias) -> {
+                    ocorrencias.remove(id);
+                    return ocorrencias.isEmpty() ? null : ocorrencias;
+                });
+            }
+        }
+    }
+    
+    int quantidadeDeTermos() {
+        return termos.size();
+    }
+    
+    private Object travaDo(String token) {
+        return travas[token.hashCode() & (FAIXAS_DE_TRAVA - 1)];
+    }
+    
+    ResultadoBusca buscar(String consulta, long deslocamento, int tamanho) {
+        List<String> termosConsulta = tokenizar(consulta);
+        if (termosConsulta.isEmpty()) {
+            return new ResultadoBusca(List.of(), 0);
+        }
+        
+        List<Map<Long, Integer>> pontuacoesPorTermo = new ArrayList<>(termosConsulta.size());
+        for (String termo : termosConsulta) {
+            Map<Long, Integer> pontuacoes = pontuacoesDoTermo(termo);
+            if (pontuacoes.isEmpty()) {
+                return new ResultadoBusca(List.of(), 0);
+            }
+            pontuacoesPorTermo.add(pontuacoes);
+        }
+        pontuacoesPorTermo.sort(Comparator.comparingInt(Map::size));
+        
+        Map<Long, Integer> candidatos = pontuacoesPorTermo.get(0);
+        int limite = (int) Math.min(deslocamento + tamanho, Integer.MAX_VALUE);
+        PriorityQueue<Candidato> melhores = new PriorityQueue<>(Candidato.PIOR_PRIMEIRO);
+        int total = 0;
+        for (Map.Entry<Long, Integer> candidato : candidatos.entrySet()) {
+            int pontuacao = candidato.getValue();
+            for (int i = 1; i < pontuacoesPorTermo.size() && pontuacao > 0; i++) {
+                Integer doTermo = pontuacoesPorTermo.get(i).get(candidato.getKey());
+                pontuacao = doTermo == null ? 0 : pontuacao + doTermo;
+            }
+            if (pontuacao > 0) {
+                total++;
+                melhores.offer(new Candidato(candidato.getKey(), pontuacao));
+                if (melhores.size() > limite) {
+                    melhores.poll();
+                }
+            }
+        }
+        
+        List<Candidato> ordenados = new ArrayList<>(melhores);
+        ordenados.sort(Candidato.PIOR_PRIMEIRO.reversed());
+        List<Long> ids = new ArrayList<>(tamanho);
+        for (int i = (int) Math.min(deslocamento, ordenados.size()); i < ordenados.size(); i++) {
+            ids.add(ordenados.get(i).id());
+        }
+        return new ResultadoBusca(ids, total);
+    }
+    
+    private Map<Long, Integer> pontuacoesDoTermo(String termo) {
+        Map<Long, Integer> pontuacoes = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Integer>> entrada
+                : termos.subMap(termo, true, termo + FIM_DE_PREFIXO, false).entrySet()) {
+            boolean exato = entrada.getKey().length() == termo.length();
+            entrada.getValue().forEach((id, campos) ->
+                pontuacoes.merge(id, pontuar(campos, exato), Math::max));
+        }
+        return pontuacoes;
+    }
+    
+    static int pontuar(Produto produto, List<String> termosConsulta) {
+        Map<String, Integer> tokens = tokensComCampos(produto);
+        int total = 0;
+        for (String termo : termosConsulta) {
+            int melhor = 0;
+            for (Map.Entry<String, Integer> token : tokens.entrySet()) {
+                if (token.getKey().startsWith(termo)) {
+                    boolean exato = token.getKey().length() == termo.length();
+                    melhor = Math.max(melhor, pontuar(token.getValue(), exato));
+                }
+            }
+            if (melhor == 0) {
+                return 0;
+            }
+            total += melhor;
+        }
+        return total;
+    }
+    
+    private static int pontuar(int campos, boolean exato) {
+        int peso = ((campos & CAMPO_NOME) != 0 ? 3 : 0) + ((campos & CAMPO_DESCRICAO) != 0 ? 1 : 0);
+        return exato ? peso * 2 : peso;
+    }
+    
+    static Map<String, Integer> tokensComCampos(Produto produto) {
+        Map<String, Integer> tokens = new HashMap<>();
+        for (String token : tokenizar(produto.getNome())) {
+            tokens.merge(token, CAMPO_NOME, (a, b) -> a | b);
+        }
+        for (String token : tokenizar(produto.getDescricao())) {
+            tokens.merge(token, CAMPO_DESCRICAO, (a, b) -> a | b);
+        }
+        return tokens;
+    }
+    
+    static List<String> tokenizar(String texto) {
+        String normalizado = normalizar(texto);
+        List<String> tokens = new ArrayList<>();
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean letraOuDigito = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (letraOuDigito && inicio < 0) {
+                inicio = i;
+            } else if (!letraOuDigito && inicio >= 0) {
+                tokens.add(normalizado.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return tokens;
+    }
+    
+    static String normalizar(String texto) {
+        boolean ascii = true;
+        for (int i = 0; i < texto.length() && ascii; i++) {
+            ascii = texto.charAt(i) < 0x80;
+        }
+        String semAcentos = ascii
+            ? texto
+            : MARCAS_DE_ACENTO.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return semAcentos.toLowerCase(Locale.ROOT);
+    }
+    
+    record ResultadoBusca(List<Long> ids, long total) {
+    }
+    
+    private record Candidato(long id, int pontuacao) {
+        
+        static final Comparator<Candidato> PIOR_PRIMEIRO = Comparator
+            .comparingInt(Candidato::pontuacao)
+            .thenComparing(Comparator.comparingLong(Candidato::id).reversed());
+    }
+}
@@ -0,0 +1,223 @@
+package br.edu.esc.tp1.repository;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Log de escrita só de acréscimo. Cada registro é gravado como [tamanho][crc32c][conteúdo].
+ * Uma thread dedicada junta tudo o que chegou enquanto o fsync anterior rodava e grava
+ * o lote inteiro com um único force (group commit).
+ */
+final class LogEscrita implements AutoCloseable {
+    
+    private static final int CABECALHO = Integer.BYTES * 2;
+    private static final int MAXIMO_POR_LOTE = 4096;
+    
+    private final FileChannel canal;
+    private final Forca forca;
+    private final BlockingQueue<Pendente> fila = new LinkedBlockingQueue<>();
+    private final Thread escritor;
+    private volatile IOException falha;
+    private volatile boolean fechado;
+    
+    /** O fsync de cada lote; trocado nos testes para simular falha do disco. */
+    @FunctionalInterface
+    interface Forca {
+        
+        Forca PADRAO = canal -> canal.force(false);
+        
+        void forcar(FileChannel canal) throws IOException;
+    }
+    
+    private LogEscrita(FileChannel canal, Forca forca) {
+        this.canal = canal;
+        this.forca = forca;
+        this.escritor = new Thread(this::gravarLotes, "log-escrita-produtos");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+    
+    /**
+     * Abre o log, entregando ao consumidor cada registro íntegro já gravado. O que vier depois
+     * do primeiro registro incompleto ou corrompido é descartado.
+     */
+    static LogEscrita abrir(Path arquivo, Consumer<byte[]> aoRecuperar) throws IOException {
+        return abrir(arquivo, aoRecuperar, Forca.PADRAO);
+    }
+    
+    static LogEscrita abrir(Path arquivo, Consumer<byte[]> aoRecuperar, Forca forca) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fimValido = recuperar(canal, aoRecuperar);
+        canal.truncate(fimValido);
+        canal.position(fimValido);
+        return new LogEscrita(canal, forca);
+    }
+    
+    private static long recuperar(FileChannel canal, Consumer<byte[]> aoRecuperar) throws IOException {
+        canal.position(0);
+        DataInputStream entrada = new DataInputStream(
+            new BufferedInputStream(Channels.newInputStream(canal), 1 << 16));
+        long fimValido = 0;
+        CRC32C crc = new CRC32C();
+        while (true) {
+            byte[] registro;
+            int crcEsperado;
+            try {
+                int tamanho = entrada.readInt();
+                crcEsperado = entrada.readInt();
+                if (tamanho < 0 || fimValido + CABECALHO + tamanho > canal.size()) {
+                    return fimValido;
+                }
+                registro = new byte[tamanho];
+                entrada.readFully(registro);
+            } catch (EOFException e) {
+                return fimValido;
+            }
+            crc.reset();
+            crc.update(registro);
+            if ((int) crc.getValue() != crcEsperado) {
+                return fimValido;
+            }
+            aoRecuperar.accept(registro);
+            fimValido += CABECALHO + registro.length;
+        }
+    }
+    
+    /**
+     * Lança a exceção que {@link #anexar} devolveria se o log já estiver fechado ou tiver falhado,
+     * para que a escrita seja recusada antes de mexer no estado em memória.
+     */
+    void verificarDisponivel() {
+        if (fechado) {
+            throw new IllegalStateException("Log de escrita fechado");
+        }
+        if (falha != null) {
+            throw new UncheckedIOException(falha);
+        }
+    }
+    
+    CompletableFuture<Void> anexar(List<byte[]> registros) {
+        try {
+            verificarDisponivel();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Pendente pendente = new Pendente(registros, new CompletableFuture<>());
+        fila.add(pendente);
+        return pendente.concluido;
+    }
+    
+    CompletableFuture<Void> anexar(byte[] registro) {
+        return anexar(List.of(registro));
+    }
+    
+    void sincronizar() {
+        anexar(List.of()).join();
+    }
+    
+    /**
+     * Descarta o conteúdo do log. Só pode ser chamado sem escritas em andamento,
+     * logo depois de um {@link #sincronizar()}.
+     */
+    void reiniciar() throws IOException {
+        canal.truncate(0);
+        canal.position(0);
+        canal.force(true);
+    }
+    
+    long tamanho() throws IOException {
+        return canal.size();
+    }
+    
+    private void gravarLotes() {
+        List<Pendente> lote = new ArrayList<>();
+        while (true) {
+            try {
+                lote.add(fila.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            fila.drainTo(lote, MAXIMO_POR_LOTE - 1);
+            boolean encerrar = lote.removeIf(p -> p == Pendente.ENCERRAR);
+            try {
+                gravar(lote);
+                lote.forEach(p -> p.concluido.complete(null));
+            } catch (IOException e) {
+                falha = e;
+                lote.forEach(p -> p.concluido.completeExceptionally(new UncheckedIOException(e)));
+            }
+            lote.clear();
+            if (encerrar) {
+                return;
+            }
+        }
+    }
+    
+    private void gravar(List<Pendente> lote) throws IOException {
+        if (falha != null) {
+            throw falha;
+        }
+        int total = 0;
+        for (Pendente pendente : lote) {
+            for (byte[] registro : pendente.registros) {
+                total += CABECALHO + registro.length;
+            }
+        }
+        if (total == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        CRC32C crc = new CRC32C();
+        for (Pendente pendente : lote) {
+            for (byte[] registro : pendente.registros) {
+                crc.reset();
+                crc.update(registro);
+                buffer.putInt(registro.length).putInt((int) crc.getValue()).put(registro);
+            }
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        forca.forcar(canal);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (fechado) {
+            return;
+        }
+        fechado = true;
+        fila.add(Pendente.ENCERRAR);
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IllegalStateException fechadoException = new IllegalStateException("Log de escrita fechado");
+        fila.forEach(p -> p.concluido.completeExceptionally(fechadoException));
+        canal.close();
+    }
+    
+    private record Pendente(List<byte[]> registros, CompletableFuture<Void> concluido) {
+        
+        static final Pendente ENCERRAR = new Pendente(List.of(), new CompletableFuture<>());
+    }
+}
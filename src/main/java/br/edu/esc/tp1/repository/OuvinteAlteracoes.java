@@ -0,0 +1,18 @@
+package br.edu.esc.tp1.repository;
+
+/**
+ * Recebe as alterações de uma assinatura do {@link FluxoAlteracoes}, em ordem de sequência e
+ * sempre na thread da assinatura, então pode demorar e chamar o repositório.
+ */
+public interface OuvinteAlteracoes {
+    
+    /** Uma exceção aqui encerra a assinatura. */
+    void aoReceber(Alteracao alteracao) throws Exception;
+    
+    /**
+     * As alterações de {@code primeira} a {@code ultima} saíram do buffer antes de serem lidas; a
+     * entrega segue a partir de {@code ultima + 1}. Quem mantém uma cópia deve recarregá-la.
+     */
+    default void aoPerder(long primeira, long ultima) throws Exception {
+    }
+}
@@ -0,0 +1,17 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+
+/**
+ * Recebe cada escrita aplicada pelo repositório, na mesma ordem em que foram aplicadas a um
+ * mesmo id. As chamadas acontecem enquanto o repositório ainda segura a trava do produto,
+ * então devem ser rápidas e não podem lançar exceção nem chamar o repositório de volta.
+ */
+public interface OuvinteProduto {
+    
+    void aoCriar(Produto produto);
+    
+    void aoAtualizar(Produto anterior, Produto atual);
+    
+    void aoDeletar(Produto removido);
+}
@@ -1,9 +1,28 @@
 package br.edu.esc.tp1.repository;
 
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
 import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.exception.ConflitoVersaoException;
+import br.edu.esc.tp1.exception.EstoqueInsuficienteException;
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 public interface ProdutoRepository {
     
@@ -11,11 +30,309 @@ public interface ProdutoRepository {
     
     Optional<Produto> buscarPorId(Long id);
     
+    /**
+     * Busca vários produtos numa chamada; ids ausentes ou nulos ficam de fora do mapa, que segue a
+     * ordem dos ids pedidos. A implementação padrão chama {@link #buscarPorId} para cada um.
+     */
+    default Map<Long, Produto> buscarPorIds(Collection<Long> ids) {
+        Map<Long, Produto> encontrados = new LinkedHashMap<>();
+        for (Long id : ids) {
+            buscarPorId(id).ifPresent(produto -> encontrados.put(id, produto));
+        }
+        return encontrados;
+    }
+    
     List<Produto> listarTodos();
     
+    /**
+     * Percorre o catálogo sem copiá-lo, em ordem indefinida. O percurso é fracamente consistente:
+     * não bloqueia escritas nem lança {@link java.util.ConcurrentModificationException}, e cada
+     * produto que não muda durante o percurso aparece exatamente uma vez; os criados, alterados
+     * ou removidos no meio podem aparecer ou não. A implementação padrão copia {@link #listarTodos()}.
+     */
+    default Iterator<Produto> percorrerTodos() {
+        return listarTodos().iterator();
+    }
+    
+    default Pagina<Produto> listarPagina(int numero, int tamanho, OrdenacaoProduto ordenacao) {
+        validarPagina(numero, tamanho, ordenacao);
+        List<Produto> todos = listarTodos();
+        List<Produto> conteudo = todos.stream()
+            .sorted(ordenacao.comparador())
+            .skip((long) numero * tamanho)
+            .limit(tamanho)
+            .toList();
+        return paginaComCursores(conteudo, numero, tamanho, todos.size(), ordenacao);
+    }
+    
+    /**
+     * A página que começa logo depois da chave (ou termina logo antes dela, se a chave pede os
+     * anteriores), sem contar as páginas do caminho: o custo não cresce com a distância do início.
+     * {@code numero} só é repassado para a página; quem decide o conteúdo é a chave.
+     */
+    default Pagina<Produto> listarPagina(ChavePagina chave, int numero, int tamanho) {
+        validarPagina(chave, numero, tamanho);
+        Comparator<Produto> comparador = chave.ordenacao().comparador();
+        List<Produto> todos = listarTodos();
+        List<Produto> encontrados = todos.stream()
+            .filter(p -> chave.anteriores() ? chave.compararCom(p) < 0 : chave.compararCom(p) > 0)
+            .sorted(chave.anteriores() ? comparador.reversed() : comparador)
+            .limit(tamanho + 1L)
+            .toList();
+        return paginaDaChave(chave, encontrados, numero, tamanho, todos.size());
+    }
+    
+    default Pagina<Produto> buscarPorTexto(String consulta, int numero, int tamanho) {
+        validarBusca(consulta, numero, tamanho);
+        List<String> termos = IndiceTextual.tokenizar(consulta);
+        List<Map.Entry<Produto, Integer>> encontrados = listarTodos().stream()
+            .map(p -> Map.entry(p, IndiceTextual.pontuar(p, termos)))
+            .filter(e -> e.getValue() > 0)
+            .sorted(Map.Entry.<Produto, Integer>comparingByValue().reversed()
+                .thenComparing(e -> e.getKey().getId()))
+            .toList();
+        List<Produto> conteudo = encontrados.stream()
+            .skip((long) numero * tamanho)
+            .limit(tamanho)
+            .map(Map.Entry::getKey)
+            .toList();
+        return new Pagina<>(conteudo, numero, tamanho, encontrados.size());
+    }
+    
+    default List<Produto> buscarPorFaixaDePreco(BigDecimal minimo, BigDecimal maximo) {
+        validarFaixaDePreco(minimo, maximo);
+        return listarTodos().stream()
+            .filter(p -> p.getPreco().compareTo(minimo) >= 0 && p.getPreco().compareTo(maximo) <= 0)
+            .sorted(OrdenacaoProduto.PRECO.comparador())
+            .toList();
+    }
+    
+    default List<Produto> buscarComEstoqueAbaixoDe(int limite) {
+        return listarTodos().stream()
+            .filter(p -> p.getQuantidadeEstoque() < limite)
+            .sorted(OrdenacaoProduto.ESTOQUE.comparador())
+            .toList();
+    }
+    
+    /**
+     * Troca o produto guardado pelo dado. Se {@link Produto#getVersao()} for diferente de 0, a troca
+     * só acontece se o produto guardado ainda estiver nessa versão; do contrário lança
+     * {@link ConflitoVersaoException} e nada muda. Toda escrita avança a versão do produto.
+     */
     void atualizar(Produto produto);
     
     void deletar(Long id);
     
     boolean existe(Long id);
+    
+    /**
+     * Cria o produto se o id não existe e o atualiza se existe (upsert), com as mesmas regras de
+     * {@link #criar} e {@link #atualizar}. Com versão diferente de 0 o produto precisa existir nela;
+     * se não existir, lança {@link ProdutoNaoEncontradoException}. A implementação padrão tenta
+     * atualizar e depois criar, de novo se outra escrita passar no meio; as daqui decidem e gravam
+     * num passo só, com a trava do produto.
+     */
+    default ResultadoGravacao criarOuAtualizar(Produto produto) {
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não pode ser nulo");
+        }
+        while (true) {
+            try {
+                atualizar(produto);
+                return ResultadoGravacao.ATUALIZADO;
+            } catch (ProdutoNaoEncontradoException e) {
+                if (produto.getVersao() != 0) {
+                    throw e;
+                }
+            }
+            try {
+                criar(produto);
+                return ResultadoGravacao.CRIADO;
+            } catch (ProdutoDuplicadoException e) {
+                // criado por outra escrita entre as duas tentativas
+            }
+        }
+    }
+    
+    /**
+     * Tira {@code quantidade} do estoque do produto num passo só e devolve o estoque que sobrou.
+     * O estoque nunca fica negativo: sem unidades bastantes, lança
+     * {@link EstoqueInsuficienteException} e nada muda. A implementação padrão lê e atualiza
+     * segurando o monitor do repositório, então só é atômica em relação a outras reservas e
+     * devoluções; as implementações daqui usam a trava do próprio produto.
+     */
+    default int reservarEstoque(Long id, int quantidade) {
+        Produto.validarQuantidadeMovimentada(quantidade);
+        return alterarEstoque(id, produto -> produto.reservarEstoque(quantidade));
+    }
+    
+    /** Devolve {@code quantidade} ao estoque do produto num passo só; retorna o estoque novo. */
+    default int devolverEstoque(Long id, int quantidade) {
+        Produto.validarQuantidadeMovimentada(quantidade);
+        return alterarEstoque(id, produto -> produto.devolverEstoque(quantidade));
+    }
+    
+    /**
+     * Cria vários produtos, informando o resultado de cada um. A implementação padrão, como as
+     * dos outros lotes, aplica item a item e, no modo {@link ModoLote#TUDO_OU_NADA}, desfaz os já
+     * aplicados com a operação inversa; leitores concorrentes podem ver o lote pela metade, e os
+     * ouvintes recebem tanto as escritas quanto as desfeitas. As implementações deste pacote
+     * sobrescrevem os lotes para só avisar os ouvintes quando o lote inteiro foi aplicado.
+     */
+    default ResultadoLote criarEmLote(List<Produto> produtos, ModoLote modo) {
+        return ExecucaoLote.executar(produtos, modo, Produto::getId, produto -> {
+            criar(produto);
+            return () -> deletar(produto.getId());
+        });
+    }
+    
+    default ResultadoLote atualizarEmLote(List<Produto> produtos, ModoLote modo) {
+        return ExecucaoLote.executar(produtos, modo, Produto::getId, produto -> {
+            Produto anterior = buscarPorId(produto.getId())
+                .orElseThrow(() -> new ProdutoNaoEncontradoException(produto.getId()));
+            atualizar(produto);
+            return () -> restaurar(anterior);
+        });
+    }
+    
+    default ResultadoLote deletarEmLote(List<Long> ids, ModoLote modo) {
+        return ExecucaoLote.executar(ids, modo, id -> id, id -> {
+            Produto removido = buscarPorId(id).orElseThrow(() -> new ProdutoNaoEncontradoException(id));
+            deletar(id);
+            return () -> criar(removido);
+        });
+    }
+    
+    /**
+     * Desfaz a atualização de um lote: remove e recria o produto, que volta na versão que tinha
+     * em vez de avançar mais uma, como aconteceria com {@code atualizar}.
+     */
+    private void restaurar(Produto anterior) {
+        deletar(anterior.getId());
+        criar(anterior);
+    }
+    
+    /**
+     * Passa a notificar o ouvinte das escritas. Os produtos que já existem são entregues antes
+     * como {@link OuvinteProduto#aoCriar}, então o ouvinte não precisa carregar o catálogo à parte.
+     */
+    default void registrarOuvinte(OuvinteProduto ouvinte) {
+        registrarOuvinte(ouvinte, true);
+    }
+    
+    /**
+     * Como {@link #registrarOuvinte(OuvinteProduto)}; com {@code entregarExistentes} falso o
+     * ouvinte recebe só as escritas seguintes e o catálogo não é lido no registro.
+     */
+    default void registrarOuvinte(OuvinteProduto ouvinte, boolean entregarExistentes) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " não publica alterações");
+    }
+    
+    /**
+     * Versão do catálogo inteiro, que muda a cada escrita. Vazia quando o repositório não numera
+     * escritas; veja {@link ProdutoRepositoryVersionado}.
+     */
+    default Optional<Versao> versao() {
+        return Optional.empty();
+    }
+    
+    private int alterarEstoque(Long id, UnaryOperator<Produto> alteracao) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        synchronized (this) {
+            Produto atual = buscarPorId(id).orElseThrow(() -> new ProdutoNaoEncontradoException(id));
+            Produto alterado = alteracao.apply(atual);
+            atualizar(alterado);
+            return alterado.getQuantidadeEstoque();
+        }
+    }
+    
+    /** O produto como é guardado na criação: na versão 1, se ainda não tiver uma. */
+    static Produto primeiraVersao(Produto produto) {
+        return produto.getVersao() == 0 ? produto.comVersao(1) : produto;
+    }
+    
+    /**
+     * O produto como é guardado no lugar de {@code atual}, na versão seguinte. Lança
+     * {@link ConflitoVersaoException} se {@code novo} foi lido numa versão que não é mais a atual.
+     */
+    static Produto proximaVersao(Produto atual, Produto novo) {
+        if (novo.getVersao() != 0 && novo.getVersao() != atual.getVersao()) {
+            throw new ConflitoVersaoException(atual.getId(), novo.getVersao(), atual.getVersao());
+        }
+        return novo.comVersao(atual.getVersao() + 1);
+    }
+    
+    /** Página por número com os cursores do primeiro e do último produto, onde há vizinha. */
+    static Pagina<Produto> paginaComCursores(List<Produto> conteudo, int numero, int tamanho, long total,
+                                             OrdenacaoProduto ordenacao) {
+        Pagina<Produto> pagina = new Pagina<>(conteudo, numero, tamanho, total);
+        if (conteudo.isEmpty()) {
+            return pagina;
+        }
+        String anterior = pagina.temAnterior() ? ChavePagina.parametro(conteudo.get(0), ordenacao) : null;
+        String proxima = pagina.temProxima()
+            ? ChavePagina.parametro(conteudo.get(conteudo.size() - 1), ordenacao)
+            : null;
+        return pagina.comCursores(anterior, proxima);
+    }
+    
+    /**
+     * Página por cursor a partir de até {@code tamanho + 1} produtos na ordem em que se afastam da
+     * chave; o excedente só indica que há mais daquele lado.
+     */
+    static Pagina<Produto> paginaDaChave(ChavePagina chave, List<Produto> encontrados, int numero, int tamanho,
+                                         long total) {
+        boolean haMais = encontrados.size() > tamanho;
+        List<Produto> conteudo = new ArrayList<>(encontrados.subList(0, Math.min(tamanho, encontrados.size())));
+        if (chave.anteriores()) {
+            Collections.reverse(conteudo);
+        }
+        OrdenacaoProduto ordenacao = chave.ordenacao();
+        // Página vazia: a vizinha do lado de onde se veio é a da própria chave.
+        String primeiro = conteudo.isEmpty() ? chave.parametro() : ChavePagina.parametro(conteudo.get(0), ordenacao);
+        String ultimo = conteudo.isEmpty()
+            ? chave.parametro()
+            : ChavePagina.parametro(conteudo.get(conteudo.size() - 1), ordenacao);
+        String anterior = !chave.anteriores() || haMais ? primeiro : null;
+        String proxima = chave.anteriores() || haMais ? ultimo : null;
+        return new Pagina<>(conteudo, numero, tamanho, total, anterior, proxima);
+    }
+    
+    static void validarFaixaDePreco(BigDecimal minimo, BigDecimal maximo) {
+        if (minimo == null || maximo == null) {
+            throw new IllegalArgumentException("Faixa de preço não pode ter limites nulos");
+        }
+    }
+    
+    static void validarBusca(String consulta, int numero, int tamanho) {
+        if (consulta == null) {
+            throw new IllegalArgumentException("Termo de busca não pode ser nulo");
+        }
+        validarPagina(numero, tamanho);
+    }
+    
+    static void validarPagina(int numero, int tamanho, OrdenacaoProduto ordenacao) {
+        validarPagina(numero, tamanho);
+        if (ordenacao == null) {
+            throw new IllegalArgumentException("Ordenação não pode ser nula");
+        }
+    }
+    
+    static void validarPagina(ChavePagina chave, int numero, int tamanho) {
+        validarPagina(numero, tamanho);
+        if (chave == null) {
+            throw new IllegalArgumentException("Cursor da página não pode ser nulo");
+        }
+    }
+    
+    static void validarPagina(int numero, int tamanho) {
+        if (numero < 0) {
+            throw new IllegalArgumentException("Número da página não pode ser negativo");
+        }
+        if (tamanho <= 0) {
+            throw new IllegalArgumentException("Tamanho da página deve ser maior que zero");
+        }
+    }
 }
@@ -0,0 +1,386 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Decorador que guarda em memória os produtos lidos por id. A capacidade é dividida em segmentos,
+ * cada um com uma LRU segmentada: entradas novas entram na área probatória e só passam para a
+ * protegida (80% do segmento) quando lidas de novo, então uma varredura não expulsa os produtos
+ * quentes. Entradas vencem depois do TTL.
+ * <p>
+ * Escritas passam direto para o repositório e invalidam a entrada. Cada segmento tem um contador
+ * de geração incrementado na invalidação; uma leitura só guarda o que carregou se a geração não
+ * mudou desde antes da carga, o que impede que um valor antigo volte ao cache depois de uma escrita.
+ * <p>
+ * Como {@link MeterBinder}, publica acertos e faltas em {@value #CONSULTAS} (tag {@code resultado}),
+ * os despejos em {@value #DESPEJOS} e as entradas guardadas em {@value #TAMANHO}.
+ */
+public class ProdutoRepositoryCache implements ProdutoRepository, MeterBinder, AutoCloseable {
+    
+    static final String CONSULTAS = "produtos.repositorio.cache";
+    static final String DESPEJOS = "produtos.repositorio.cache.despejos";
+    static final String TAMANHO = "produtos.repositorio.cache.tamanho";
+    
+    private static final int SEGMENTOS_MAXIMO = 16;
+    private static final int ENTRADAS_MINIMAS_POR_SEGMENTO = 64;
+    
+    private final ProdutoRepository repository;
+    private final Segmento[] segmentos;
+    private final long ttlNanos;
+    private final LongSupplier relogio;
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder despejos = new LongAdder();
+    
+    public ProdutoRepositoryCache(ProdutoRepository repository, int capacidade, Duration ttl) {
+        this(repository, capacidade, ttl, System::nanoTime);
+    }
+    
+    ProdutoRepositoryCache(ProdutoRepository repository, int capacidade, Duration ttl, LongSupplier relogio) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repositório não pode ser nulo");
+        }
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade do cache deve ser maior que zero");
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("TTL do cache deve ser positivo");
+        }
+        this.repository = repository;
+        this.ttlNanos = ttl.toNanos();
+        this.relogio = relogio;
+        int quantidade = Math.min(SEGMENTOS_MAXIMO,
+            Integer.highestOneBit(Math.max(1, capacidade / ENTRADAS_MINIMAS_POR_SEGMENTO)));
+        this.segmentos = new Segmento[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            segmentos[i] = new Segmento(capacidade / quantidade + (i < capacidade % quantidade ? 1 : 0));
+        }
+    }
+    
+    @Override
+    public void criar(Produto produto) {
+        repository.criar(produto);
+        invalidar(produto.getId());
+    }
+    
+    @Override
+    public Optional<Produto> buscarPorId(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Segmento segmento = segmentoDe(id);
+        long geracao;
+        synchronized (segmento) {
+            Produto emCache = segmento.obter(id, relogio.getAsLong());
+            if (emCache != null) {
+                acertos.increment();
+                return Optional.of(emCache);
+            }
+            geracao = segmento.geracao;
+        }
+        faltas.increment();
+        Optional<Produto> carregado = repository.buscarPorId(id);
+        if (carregado.isPresent()) {
+            synchronized (segmento) {
+                if (segmento.geracao == geracao) {
+                    despejos.add(segmento.guardar(id, carregado.get(), relogio.getAsLong() + ttlNanos));
+                }
+            }
+        }
+        return carregado;
+    }
+    
+    @Override
+    public List<Produto> listarTodos() {
+        return repository.listarTodos();
+    }
+    
+    @Override
+    public Iterator<Produto> percorrerTodos() {
+        return repository.percorrerTodos();
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(int numero, int tamanho, OrdenacaoProduto ordenacao) {
+        return repository.listarPagina(numero, tamanho, ordenacao);
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(ChavePagina chave, int numero, int tamanho) {
+        return repository.listarPagina(chave, numero, tamanho);
+    }
+    
+    @Override
+    public Pagina<Produto> buscarPorTexto(String consulta, int numero, int tamanho) {
+        return repository.buscarPorTexto(consulta, numero, tamanho);
+    }
+    
+    @Override
+    public List<Produto> buscarPorFaixaDePreco(BigDecimal minimo, BigDecimal maximo) {
+        return repository.buscarPorFaixaDePreco(minimo, maximo);
+    }
+    
+    @Override
+    public List<Produto> buscarComEstoqueAbaixoDe(int limite) {
+        return repository.buscarComEstoqueAbaixoDe(limite);
+    }
+    
+    @Override
+    public void atualizar(Produto produto) {
+        try {
+            repository.atualizar(produto);
+        } finally {
+            if (produto != null) {
+                invalidar(produto.getId());
+            }
+        }
+    }
+    
+    @Override
+    public ResultadoGravacao criarOuAtualizar(Produto produto) {
+        try {
+            return repository.criarOuAtualizar(produto);
+        } finally {
+            if (produto != null) {
+                invalidar(produto.getId());
+            }
+        }
+    }
+    
+    @Override
+    public void deletar(Long id) {
+        try {
+            repository.deletar(id);
+        } finally {
+            if (id != null) {
+                invalidar(id);
+            }
+        }
+    }
+    
+    @Override
+    public int reservarEstoque(Long id, int quantidade) {
+        try {
+            return repository.reservarEstoque(id, quantidade);
+        } finally {
+            if (id != null) {
+                invalidar(id);
+            }
+        }
+    }
+    
+    @Override
+    public int devolverEstoque(Long id, int quantidade) {
+        try {
+            return repository.devolverEstoque(id, quantidade);
+        } finally {
+            if (id != null) {
+                invalidar(id);
+            }
+        }
+    }
+    
+    @Override
+    public ResultadoLote criarEmLote(List<Produto> produtos, ModoLote modo) {
+        try {
+            return repository.criarEmLote(produtos, modo);
+        } finally {
+            invalidarProdutos(produtos);
+        }
+    }
+    
+    @Override
+    public ResultadoLote atualizarEmLote(List<Produto> produtos, ModoLote modo) {
+        try {
+            return repository.atualizarEmLote(produtos, modo);
+        } finally {
+            invalidarProdutos(produtos);
+        }
+    }
+    
+    @Override
+    public ResultadoLote deletarEmLote(List<Long> ids, ModoLote modo) {
+        try {
+            return repository.deletarEmLote(ids, modo);
+        } finally {
+            if (ids != null) {
+                ids.stream().filter(Objects::nonNull).forEach(this::invalidar);
+            }
+        }
+    }
+    
+    @Override
+    public boolean existe(Long id) {
+        if (id == null) {
+            return false;
+        }
+        Segmento segmento = segmentoDe(id);
+        synchronized (segmento) {
+            if (segmento.obter(id, relogio.getAsLong()) != null) {
+                return true;
+            }
+        }
+        return repository.existe(id);
+    }
+    
+    @Override
+    public void registrarOuvinte(OuvinteProduto ouvinte, boolean entregarExistentes) {
+        repository.registrarOuvinte(ouvinte, entregarExistentes);
+    }
+    
+    @Override
+    public Optional<Versao> versao() {
+        return repository.versao();
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registro) {
+        FunctionCounter.builder(CONSULTAS, acertos, LongAdder::sum)
+            .description("Leituras por id no cache do repositório")
+            .tag("resultado", "acerto")
+            .register(registro);
+        FunctionCounter.builder(CONSULTAS, faltas, LongAdder::sum)
+            .description("Leituras por id no cache do repositório")
+            .tag("resultado", "falta")
+            .register(registro);
+        FunctionCounter.builder(DESPEJOS, despejos, LongAdder::sum)
+            .description("Entradas expulsas do cache do repositório por falta de espaço")
+            .register(registro);
+        Gauge.builder(TAMANHO, this, cache -> cache.estatisticas().tamanho())
+            .description("Produtos guardados no cache do repositório")
+            .baseUnit("produtos")
+            .register(registro);
+    }
+    
+    public Estatisticas estatisticas() {
+        int tamanho = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                tamanho += segmento.tamanho();
+            }
+        }
+        return new Estatisticas(acertos.sum(), faltas.sum(), despejos.sum(), tamanho);
+    }
+    
+    @Override
+    public void close() throws Exception {
+        if (repository instanceof AutoCloseable recurso) {
+            recurso.close();
+        }
+    }
+    
+    private void invalidarProdutos(List<Produto> produtos) {
+        if (produtos != null) {
+            produtos.stream().filter(Objects::nonNull).forEach(produto -> invalidar(produto.getId()));
+        }
+    }
+    
+    private void invalidar(Long id) {
+        Segmento segmento = segmentoDe(id);
+        synchronized (segmento) {
+            segmento.geracao++;
+            segmento.remover(id);
+        }
+    }
+    
+    private Segmento segmentoDe(Long id) {
+        long misturado = id * 0x9E3779B97F4A7C15L;
+        return segmentos[(int) (misturado >>> 32) & (segmentos.length - 1)];
+    }
+    
+    public record Estatisticas(long acertos, long faltas, long despejos, int tamanho) {
+        
+        public double taxaDeAcerto() {
+            long leituras = acertos + faltas;
+            return leituras == 0 ? 0 : (double) acertos / leituras;
+        }
+    }
+    
+    private record Entrada(Produto produto, long expiraEm) {
+    }
+    
+    private static final class Segmento {
+        
+        private final LinkedHashMap<Long, Entrada> probatorio = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Long, Entrada> protegido = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacidade;
+        private final int capacidadeProtegido;
+        private long geracao;
+        
+        Segmento(int capacidade) {
+            this.capacidade = capacidade;
+            this.capacidadeProtegido = Math.max(1, capacidade * 4 / 5);
+        }
+        
+        Produto obter(Long id, long agora) {
+            Entrada entrada = protegido.get(id);
+            if (entrada == null) {
+                entrada = probatorio.remove(id);
+                if (entrada == null) {
+                    return null;
+                }
+                protegido.put(id, entrada);
+                if (protegido.size() > capacidadeProtegido) {
+                    Iterator<Map.Entry<Long, Entrada>> maisAntigo = protegido.entrySet().iterator();
+                    Map.Entry<Long, Entrada> rebaixado = maisAntigo.next();
+                    maisAntigo.remove();
+                    probatorio.put(rebaixado.getKey(), rebaixado.getValue());
+                }
+            }
+            if (entrada.expiraEm() - agora <= 0) {
+                remover(id);
+                return null;
+            }
+            return entrada.produto();
+        }
+        
+        int guardar(Long id, Produto produto, long expiraEm) {
+            Entrada entrada = new Entrada(produto, expiraEm);
+            if (protegido.containsKey(id)) {
+                protegido.put(id, entrada);
+                return 0;
+            }
+            probatorio.put(id, entrada);
+            int despejados = 0;
+            while (tamanho() > capacidade) {
+                Map<Long, Entrada> origem = probatorio.isEmpty() ? protegido : probatorio;
+                Iterator<Long> maisAntigo = origem.keySet().iterator();
+                maisAntigo.next();
+                maisAntigo.remove();
+                despejados++;
+            }
+            return despejados;
+        }
+        
+        void remover(Long id) {
+            if (protegido.remove(id) == null) {
+                probatorio.remove(id);
+            }
+        }
+        
+        int tamanho() {
+            return probatorio.size() + protegido.size();
+        }
+    }
+}
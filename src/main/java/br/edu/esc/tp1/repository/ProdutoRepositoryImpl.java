@@ -1,21 +1,45 @@
 package br.edu.esc.tp1.repository;
 
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
 import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.exception.EstoqueInsuficienteException;
 import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
 import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 public class ProdutoRepositoryImpl implements ProdutoRepository {
     
-    private final Map<Long, Produto> produtos;
+    private final ConcurrentHashMap<Long, Produto> produtos;
+    private final IndiceOrdenado<Long> indicePorId;
+    private final IndiceOrdenado<String> indicePorNome;
+    private final IndiceOrdenado<BigDecimal> indicePorPreco;
+    private final IndiceOrdenado<Integer> indicePorEstoque;
+    private final IndiceTextual indiceTextual;
+    private volatile OuvinteProduto[] ouvintes = new OuvinteProduto[0];
     
     public ProdutoRepositoryImpl() {
         this.produtos = new ConcurrentHashMap<>();
+        this.indicePorId = new IndiceOrdenado<>(Produto::getId, Comparator.naturalOrder(), produtos::get);
+        this.indicePorNome = new IndiceOrdenado<>(Produto::getNome, String.CASE_INSENSITIVE_ORDER, produtos::get);
+        this.indicePorPreco = new IndiceOrdenado<>(Produto::getPreco, Comparator.naturalOrder(), produtos::get);
+        this.indicePorEstoque = new IndiceOrdenado<>(Produto::getQuantidadeEstoque, Comparator.naturalOrder(), produtos::get);
+        this.indiceTextual = new IndiceTextual();
     }
     
     @Override
@@ -25,11 +49,12 @@ public class ProdutoRepositoryImpl implements ProdutoRepository {
         }
         
         Long id = produto.getId();
-        if (produtos.containsKey(id)) {
-            throw new ProdutoDuplicadoException(id);
-        }
-        
-        produtos.put(id, produto);
+        produtos.compute(id, (chave, atual) -> {
+            if (atual != null) {
+                throw new ProdutoDuplicadoException(id);
+            }
+            return incluir(produto);
+        });
     }
     
     @Override
@@ -45,6 +70,61 @@ public class ProdutoRepositoryImpl implements ProdutoRepository {
         return new ArrayList<>(produtos.values());
     }
     
+    @Override
+    public Iterator<Produto> percorrerTodos() {
+        return Collections.unmodifiableCollection(produtos.values()).iterator();
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(int numero, int tamanho, OrdenacaoProduto ordenacao) {
+        ProdutoRepository.validarPagina(numero, tamanho, ordenacao);
+        List<Produto> conteudo = indice(ordenacao).pagina((long) numero * tamanho, tamanho);
+        return ProdutoRepository.paginaComCursores(conteudo, numero, tamanho, produtos.size(), ordenacao);
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(ChavePagina chave, int numero, int tamanho) {
+        ProdutoRepository.validarPagina(chave, numero, tamanho);
+        List<Produto> encontrados = indice(chave.ordenacao())
+            .aPartirDe(chave.valor(), chave.id(), chave.anteriores(), tamanho + 1);
+        return ProdutoRepository.paginaDaChave(chave, encontrados, numero, tamanho, produtos.size());
+    }
+    
+    private IndiceOrdenado<?> indice(OrdenacaoProduto ordenacao) {
+        return switch (ordenacao) {
+            case ID -> indicePorId;
+            case NOME -> indicePorNome;
+            case PRECO -> indicePorPreco;
+            case ESTOQUE -> indicePorEstoque;
+        };
+    }
+    
+    @Override
+    public Pagina<Produto> buscarPorTexto(String consulta, int numero, int tamanho) {
+        ProdutoRepository.validarBusca(consulta, numero, tamanho);
+        IndiceTextual.ResultadoBusca resultado = indiceTextual.buscar(consulta, (long) numero * tamanho, tamanho);
+        List<Produto> conteudo = new ArrayList<>(resultado.ids().size());
+        for (Long id : resultado.ids()) {
+            Produto produto = produtos.get(id);
+            if (produto != null) {
+                conteudo.add(produto);
+            }
+        }
+        return new Pagina<>(conteudo, numero, tamanho, resultado.total());
+    }
+    
+    @Override
+    public List<Produto> buscarPorFaixaDePreco(BigDecimal minimo, BigDecimal maximo) {
+        ProdutoRepository.validarFaixaDePreco(minimo, maximo);
+        return indicePorPreco.entre(minimo, maximo);
+    }
+    
+    @Override
+    public List<Produto> buscarComEstoqueAbaixoDe(int limite) {
+        return indicePorEstoque.abaixoDe(limite);
+    }
+    
+    /** A versão é conferida dentro do {@code computeIfPresent}, com a trava do produto tomada. */
     @Override
     public void atualizar(Produto produto) {
         if (produto == null) {
@@ -52,11 +132,10 @@ public class ProdutoRepositoryImpl implements ProdutoRepository {
         }
         
         Long id = produto.getId();
-        if (!produtos.containsKey(id)) {
+        Produto anterior = produtos.computeIfPresent(id, (chave, atual) -> substituir(atual, produto));
+        if (anterior == null) {
             throw new ProdutoNaoEncontradoException(id);
         }
-        
-        produtos.put(id, produto);
     }
     
     @Override
@@ -65,11 +144,18 @@ public class ProdutoRepositoryImpl implements ProdutoRepository {
             throw new IllegalArgumentException("ID não pode ser nulo");
         }
         
-        if (!produtos.containsKey(id)) {
+        boolean[] removido = new boolean[1];
+        produtos.computeIfPresent(id, (chave, atual) -> {
+            desindexar(atual);
+            for (OuvinteProduto ouvinte : ouvintes) {
+                ouvinte.aoDeletar(atual);
+            }
+            removido[0] = true;
+            return null;
+        });
+        if (!removido[0]) {
             throw new ProdutoNaoEncontradoException(id);
         }
-        
-        produtos.remove(id);
     }
     
     @Override
@@ -79,4 +165,252 @@ public class ProdutoRepositoryImpl implements ProdutoRepository {
         }
         return produtos.containsKey(id);
     }
+    
+    /** Decide entre criar e atualizar no mesmo {@code compute} do id. */
+    @Override
+    public ResultadoGravacao criarOuAtualizar(Produto produto) {
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não pode ser nulo");
+        }
+        
+        Long id = produto.getId();
+        ResultadoGravacao[] resultado = new ResultadoGravacao[1];
+        produtos.compute(id, (chave, atual) -> {
+            if (atual != null) {
+                resultado[0] = ResultadoGravacao.ATUALIZADO;
+                return substituir(atual, produto);
+            }
+            if (produto.getVersao() != 0) {
+                throw new ProdutoNaoEncontradoException(id);
+            }
+            resultado[0] = ResultadoGravacao.CRIADO;
+            return incluir(produto);
+        });
+        return resultado[0];
+    }
+    
+    /**
+     * A troca acontece no {@code computeIfPresent} do id, que trava só o produto, e só o índice por
+     * estoque é tocado. Um pedido maior que o estoque lido é recusado sem entrar na trava,
+     * então um produto esgotado e disputado não enfileira ninguém.
+     */
+    @Override
+    public int reservarEstoque(Long id, int quantidade) {
+        Produto.validarQuantidadeMovimentada(quantidade);
+        Produto lido = id != null ? produtos.get(id) : null;
+        if (lido != null && lido.getQuantidadeEstoque() < quantidade) {
+            throw new EstoqueInsuficienteException(id, quantidade, lido.getQuantidadeEstoque());
+        }
+        return alterarEstoque(id, produto -> produto.reservarEstoque(quantidade));
+    }
+    
+    @Override
+    public int devolverEstoque(Long id, int quantidade) {
+        Produto.validarQuantidadeMovimentada(quantidade);
+        return alterarEstoque(id, produto -> produto.devolverEstoque(quantidade));
+    }
+    
+    /**
+     * No modo tudo-ou-nada os itens são aplicados sem avisar os ouvintes, que só recebem as
+     * escritas depois que o lote inteiro deu certo. Um lote desfeito devolve cada produto
+     * exatamente como estava, na mesma versão, e não gera aviso nenhum. Se outra escrita mexeu
+     * no produto no meio do lote, ela prevalece: o item não é desfeito nem avisado por cima dela.
+     */
+    @Override
+    public ResultadoLote criarEmLote(List<Produto> lote, ModoLote modo) {
+        if (modo != ModoLote.TUDO_OU_NADA) {
+            return ProdutoRepository.super.criarEmLote(lote, modo);
+        }
+        return emLoteTudoOuNada(lote, Produto::getId, produto -> {
+            Long id = produto.getId();
+            Produto criado = produtos.compute(id, (chave, atual) -> {
+                if (atual != null) {
+                    throw new ProdutoDuplicadoException(id);
+                }
+                Produto versionado = ProdutoRepository.primeiraVersao(produto);
+                indexar(versionado);
+                return versionado;
+            });
+            return new Troca(id, null, criado);
+        });
+    }
+    
+    @Override
+    public ResultadoLote atualizarEmLote(List<Produto> lote, ModoLote modo) {
+        if (modo != ModoLote.TUDO_OU_NADA) {
+            return ProdutoRepository.super.atualizarEmLote(lote, modo);
+        }
+        return emLoteTudoOuNada(lote, Produto::getId, produto -> {
+            Long id = produto.getId();
+            Produto[] anterior = new Produto[1];
+            Produto novo = produtos.computeIfPresent(id, (chave, atual) -> {
+                Produto substituto = ProdutoRepository.proximaVersao(atual, produto);
+                reindexar(atual, substituto);
+                anterior[0] = atual;
+                return substituto;
+            });
+            if (novo == null) {
+                throw new ProdutoNaoEncontradoException(id);
+            }
+            return new Troca(id, anterior[0], novo);
+        });
+    }
+    
+    @Override
+    public ResultadoLote deletarEmLote(List<Long> ids, ModoLote modo) {
+        if (modo != ModoLote.TUDO_OU_NADA) {
+            return ProdutoRepository.super.deletarEmLote(ids, modo);
+        }
+        return emLoteTudoOuNada(ids, id -> id, id -> {
+            Produto[] removido = new Produto[1];
+            produtos.computeIfPresent(id, (chave, atual) -> {
+                desindexar(atual);
+                removido[0] = atual;
+                return null;
+            });
+            if (removido[0] == null) {
+                throw new ProdutoNaoEncontradoException(id);
+            }
+            return new Troca(id, removido[0], null);
+        });
+    }
+    
+    /**
+     * Os produtos existentes são reentregues um a um dentro do {@code compute} de cada chave.
+     * Um produto criado durante o registro pode chegar duas vezes em {@link OuvinteProduto#aoCriar};
+     * registre antes de liberar escritas concorrentes para não perder nenhuma criação.
+     */
+    @Override
+    public void registrarOuvinte(OuvinteProduto ouvinte, boolean entregarExistentes) {
+        if (ouvinte == null) {
+            throw new IllegalArgumentException("Ouvinte não pode ser nulo");
+        }
+        synchronized (this) {
+            OuvinteProduto[] novos = Arrays.copyOf(ouvintes, ouvintes.length + 1);
+            novos[ouvintes.length] = ouvinte;
+            ouvintes = novos;
+        }
+        if (!entregarExistentes) {
+            return;
+        }
+        for (Long id : produtos.keySet()) {
+            produtos.computeIfPresent(id, (chave, atual) -> {
+                ouvinte.aoCriar(atual);
+                return atual;
+            });
+        }
+    }
+    
+    private <T> ResultadoLote emLoteTudoOuNada(List<T> itens, Function<T, Long> idDe, Function<T, Troca> aplicar) {
+        List<Troca> trocas = new ArrayList<>();
+        ResultadoLote resultado = ExecucaoLote.executar(itens, ModoLote.TUDO_OU_NADA, idDe, item -> {
+            Troca troca = aplicar.apply(item);
+            trocas.add(troca);
+            return () -> desfazer(troca);
+        });
+        if (resultado.getAplicados() > 0) {
+            trocas.forEach(this::avisar);
+        }
+        return resultado;
+    }
+    
+    /** Volta o produto ao de antes da troca, se ninguém o alterou depois dela. */
+    private void desfazer(Troca troca) {
+        produtos.compute(troca.id(), (chave, atual) -> {
+            if (atual != troca.depois()) {
+                return atual;
+            }
+            if (troca.antes() == null) {
+                desindexar(atual);
+            } else if (atual == null) {
+                indexar(troca.antes());
+            } else {
+                reindexar(atual, troca.antes());
+            }
+            return troca.antes();
+        });
+    }
+    
+    /** Avisa os ouvintes da troca, se ela ainda for a última escrita do produto. */
+    private void avisar(Troca troca) {
+        produtos.compute(troca.id(), (chave, atual) -> {
+            if (atual == troca.depois()) {
+                for (OuvinteProduto ouvinte : ouvintes) {
+                    if (troca.antes() == null) {
+                        ouvinte.aoCriar(troca.depois());
+                    } else if (troca.depois() == null) {
+                        ouvinte.aoDeletar(troca.antes());
+                    } else {
+                        ouvinte.aoAtualizar(troca.antes(), troca.depois());
+                    }
+                }
+            }
+            return atual;
+        });
+    }
+    
+    private int alterarEstoque(Long id, UnaryOperator<Produto> alteracao) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        
+        Produto alterado = produtos.computeIfPresent(id, (chave, atual) -> {
+            Produto novo = alteracao.apply(atual).comVersao(atual.getVersao() + 1);
+            indicePorEstoque.substituir(atual, novo);
+            for (OuvinteProduto ouvinte : ouvintes) {
+                ouvinte.aoAtualizar(atual, novo);
+            }
+            return novo;
+        });
+        if (alterado == null) {
+            throw new ProdutoNaoEncontradoException(id);
+        }
+        return alterado.getQuantidadeEstoque();
+    }
+    
+    private Produto incluir(Produto produto) {
+        Produto versionado = ProdutoRepository.primeiraVersao(produto);
+        indexar(versionado);
+        for (OuvinteProduto ouvinte : ouvintes) {
+            ouvinte.aoCriar(versionado);
+        }
+        return versionado;
+    }
+    
+    private Produto substituir(Produto atual, Produto produto) {
+        Produto novo = ProdutoRepository.proximaVersao(atual, produto);
+        reindexar(atual, novo);
+        for (OuvinteProduto ouvinte : ouvintes) {
+            ouvinte.aoAtualizar(atual, novo);
+        }
+        return novo;
+    }
+    
+    private void indexar(Produto produto) {
+        indicePorId.adicionar(produto);
+        indicePorNome.adicionar(produto);
+        indicePorPreco.adicionar(produto);
+        indicePorEstoque.adicionar(produto);
+        indiceTextual.adicionar(produto);
+    }
+    
+    private void reindexar(Produto anterior, Produto atual) {
+        indicePorNome.substituir(anterior, atual);
+        indicePorPreco.substituir(anterior, atual);
+        indicePorEstoque.substituir(anterior, atual);
+        indiceTextual.remover(anterior);
+        indiceTextual.adicionar(atual);
+    }
+    
+    private void desindexar(Produto produto) {
+        indicePorId.remover(produto);
+        indicePorNome.remover(produto);
+        indicePorPreco.remover(produto);
+        indicePorEstoque.remover(produto);
+        indiceTextual.remover(produto);
+    }
+    
+    /** Escrita de um lote: o produto antes e depois dela, {@code null} quando não existia ou foi removido. */
+    private record Troca(Long id, Produto antes, Produto depois) {
+    }
 }
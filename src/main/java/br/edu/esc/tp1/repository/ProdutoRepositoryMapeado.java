@@ -0,0 +1,152 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Repositório que lê direto de um {@link SnapshotMapeado} e guarda em memória só o que mudou
+ * depois dele. A abertura custa o mesmo para qualquer tamanho de catálogo; cada busca por id
+ * é uma busca binária na tabela mapeada mais a decodificação de um único produto.
+ * Consultas ordenadas e textuais usam as implementações por varredura da interface.
+ */
+class ProdutoRepositoryMapeado implements ProdutoRepository {
+    
+    private static final Object REMOVIDO = new Object();
+    
+    private final SnapshotMapeado base;
+    private final ConcurrentHashMap<Long, Object> alteracoes = new ConcurrentHashMap<>();
+    
+    ProdutoRepositoryMapeado(SnapshotMapeado base) {
+        this.base = base;
+    }
+    
+    @Override
+    public void criar(Produto produto) {
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não pode ser nulo");
+        }
+        Long id = produto.getId();
+        alteracoes.compute(id, (chave, atual) -> {
+            if (existe(chave, atual)) {
+                throw new ProdutoDuplicadoException(id);
+            }
+            return ProdutoRepository.primeiraVersao(produto);
+        });
+    }
+    
+    @Override
+    public Optional<Produto> buscarPorId(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Object alterado = alteracoes.get(id);
+        if (alterado != null) {
+            return alterado == REMOVIDO ? Optional.empty() : Optional.of((Produto) alterado);
+        }
+        int indice = base.indiceDe(id);
+        return indice < 0 ? Optional.empty() : Optional.of(base.produto(indice));
+    }
+    
+    @Override
+    public List<Produto> listarTodos() {
+        List<Produto> todos = new ArrayList<>(base.quantidade() + alteracoes.size());
+        for (int i = 0; i < base.quantidade(); i++) {
+            if (!alteracoes.containsKey(base.id(i))) {
+                todos.add(base.produto(i));
+            }
+        }
+        for (Object alterado : alteracoes.values()) {
+            if (alterado != REMOVIDO) {
+                todos.add((Produto) alterado);
+            }
+        }
+        return todos;
+    }
+    
+    /** Um produto alterado durante o percurso pode aparecer duas vezes, com o valor do snapshot e o novo. */
+    @Override
+    public Iterator<Produto> percorrerTodos() {
+        Stream<Produto> doSnapshot = IntStream.range(0, base.quantidade())
+            .filter(i -> !alteracoes.containsKey(base.id(i)))
+            .mapToObj(base::produto);
+        Stream<Produto> alterados = alteracoes.values().stream()
+            .filter(alterado -> alterado != REMOVIDO)
+            .map(Produto.class::cast);
+        return Stream.concat(doSnapshot, alterados).iterator();
+    }
+    
+    @Override
+    public void atualizar(Produto produto) {
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não pode ser nulo");
+        }
+        Long id = produto.getId();
+        alteracoes.compute(id, (chave, atual) -> {
+            if (!existe(chave, atual)) {
+                throw new ProdutoNaoEncontradoException(id);
+            }
+            Produto anterior = atual != null ? (Produto) atual : base.produto(base.indiceDe(chave));
+            return ProdutoRepository.proximaVersao(anterior, produto);
+        });
+    }
+    
+    @Override
+    public ResultadoGravacao criarOuAtualizar(Produto produto) {
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não pode ser nulo");
+        }
+        Long id = produto.getId();
+        ResultadoGravacao[] resultado = new ResultadoGravacao[1];
+        alteracoes.compute(id, (chave, atual) -> {
+            if (existe(chave, atual)) {
+                resultado[0] = ResultadoGravacao.ATUALIZADO;
+                Produto anterior = atual != null ? (Produto) atual : base.produto(base.indiceDe(chave));
+                return ProdutoRepository.proximaVersao(anterior, produto);
+            }
+            if (produto.getVersao() != 0) {
+                throw new ProdutoNaoEncontradoException(id);
+            }
+            resultado[0] = ResultadoGravacao.CRIADO;
+            return ProdutoRepository.primeiraVersao(produto);
+        });
+        return resultado[0];
+    }
+    
+    @Override
+    public void deletar(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        alteracoes.compute(id, (chave, atual) -> {
+            if (!existe(chave, atual)) {
+                throw new ProdutoNaoEncontradoException(id);
+            }
+            return base.indiceDe(chave) >= 0 ? REMOVIDO : null;
+        });
+    }
+    
+    @Override
+    public boolean existe(Long id) {
+        if (id == null) {
+            return false;
+        }
+        return existe(id, alteracoes.get(id));
+    }
+    
+    private boolean existe(Long id, Object alterado) {
+        if (alterado != null) {
+            return alterado != REMOVIDO;
+        }
+        return base.indiceDe(id) >= 0;
+    }
+}
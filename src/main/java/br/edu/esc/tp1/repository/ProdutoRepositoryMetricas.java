@@ -0,0 +1,360 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorador que mede cada operação do repositório: um timer {@value #TEMPO} e um contador
+ * {@value #FALHAS} por operação (tag {@code operacao}), e o número de itens por lote em
+ * {@value #ITENS_LOTE}. Os medidores são criados no construtor e cada chamada só lê o relógio e
+ * soma nos medidores, sem alocar. Os timers daqui não publicam histograma: gravar nos baldes
+ * custaria o dobro numa busca por id, e os percentis ficam com os timers do serviço.
+ * {@code buscarPorId}, {@code buscarPorIds} e {@code existe} só repassam: o serviço já mede as
+ * leituras por id, e um segundo timer nelas custava mais que a própria leitura.
+ */
+public class ProdutoRepositoryMetricas implements ProdutoRepository, AutoCloseable {
+    
+    static final String TEMPO = "produtos.repositorio";
+    static final String FALHAS = "produtos.repositorio.falhas";
+    static final String ITENS_LOTE = "produtos.repositorio.lote.itens";
+    
+    private final ProdutoRepository repository;
+    private final Operacao criar;
+    private final Operacao listarTodos;
+    private final Operacao percorrerTodos;
+    private final Operacao listarPagina;
+    private final Operacao buscarPorTexto;
+    private final Operacao buscarPorFaixaDePreco;
+    private final Operacao buscarComEstoqueAbaixoDe;
+    private final Operacao atualizar;
+    private final Operacao deletar;
+    private final Operacao criarOuAtualizar;
+    private final Operacao reservarEstoque;
+    private final Operacao devolverEstoque;
+    private final Operacao criarEmLote;
+    private final Operacao atualizarEmLote;
+    private final Operacao deletarEmLote;
+    private final DistributionSummary itensLote;
+    
+    public ProdutoRepositoryMetricas(ProdutoRepository repository, MeterRegistry registro) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repositório não pode ser nulo");
+        }
+        if (registro == null) {
+            throw new IllegalArgumentException("Registro de métricas não pode ser nulo");
+        }
+        this.repository = repository;
+        this.criar = new Operacao(registro, "criar");
+        this.listarTodos = new Operacao(registro, "listarTodos");
+        this.percorrerTodos = new Operacao(registro, "percorrerTodos");
+        this.listarPagina = new Operacao(registro, "listarPagina");
+        this.buscarPorTexto = new Operacao(registro, "buscarPorTexto");
+        this.buscarPorFaixaDePreco = new Operacao(registro, "buscarPorFaixaDePreco");
+        this.buscarComEstoqueAbaixoDe = new Operacao(registro, "buscarComEstoqueAbaixoDe");
+        this.atualizar = new Operacao(registro, "atualizar");
+        this.deletar = new Operacao(registro, "deletar");
+        this.criarOuAtualizar = new Operacao(registro, "criarOuAtualizar");
+        this.reservarEstoque = new Operacao(registro, "reservarEstoque");
+        this.devolverEstoque = new Operacao(registro, "devolverEstoque");
+        this.criarEmLote = new Operacao(registro, "criarEmLote");
+        this.atualizarEmLote = new Operacao(registro, "atualizarEmLote");
+        this.deletarEmLote = new Operacao(registro, "deletarEmLote");
+        this.itensLote = DistributionSummary.builder(ITENS_LOTE)
+            .description("Itens por lote recebido pelo repositório")
+            .baseUnit("itens")
+            .register(registro);
+    }
+    
+    @Override
+    public void criar(Produto produto) {
+        long inicio = System.nanoTime();
+        try {
+            repository.criar(produto);
+        } catch (RuntimeException e) {
+            criar.falhou();
+            throw e;
+        } finally {
+            criar.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public Optional<Produto> buscarPorId(Long id) {
+        return repository.buscarPorId(id);
+    }
+    
+    @Override
+    public Map<Long, Produto> buscarPorIds(Collection<Long> ids) {
+        contarItens(ids);
+        return repository.buscarPorIds(ids);
+    }
+    
+    @Override
+    public List<Produto> listarTodos() {
+        long inicio = System.nanoTime();
+        try {
+            return repository.listarTodos();
+        } catch (RuntimeException e) {
+            listarTodos.falhou();
+            throw e;
+        } finally {
+            listarTodos.registrar(inicio);
+        }
+    }
+    
+    /** Mede só a abertura do percurso; o tempo de percorrer fica com quem consome o iterador. */
+    @Override
+    public Iterator<Produto> percorrerTodos() {
+        long inicio = System.nanoTime();
+        try {
+            return repository.percorrerTodos();
+        } catch (RuntimeException e) {
+            percorrerTodos.falhou();
+            throw e;
+        } finally {
+            percorrerTodos.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(int numero, int tamanho, OrdenacaoProduto ordenacao) {
+        long inicio = System.nanoTime();
+        try {
+            return repository.listarPagina(numero, tamanho, ordenacao);
+        } catch (RuntimeException e) {
+            listarPagina.falhou();
+            throw e;
+        } finally {
+            listarPagina.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(ChavePagina chave, int numero, int tamanho) {
+        long inicio = System.nanoTime();
+        try {
+            return repository.listarPagina(chave, numero, tamanho);
+        } catch (RuntimeException e) {
+            listarPagina.falhou();
+            throw e;
+        } finally {
+            listarPagina.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public Pagina<Produto> buscarPorTexto(String consulta, int numero, int tamanho) {
+        long inicio = System.nanoTime();
+        try {
+            return repository.buscarPorTexto(consulta, numero, tamanho);
+        } catch (RuntimeException e) {
+            buscarPorTexto.falhou();
+            throw e;
+        } finally {
+            buscarPorTexto.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public List<Produto> buscarPorFaixaDePreco(BigDecimal minimo, BigDecimal maximo) {
+        long inicio = System.nanoTime();
+        try {
+            return repository.buscarPorFaixaDePreco(minimo, maximo);
+        } catch (RuntimeException e) {
+            buscarPorFaixaDePreco.falhou();
+            throw e;
+        } finally {
+            buscarPorFaixaDePreco.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public List<Produto> buscarComEstoqueAbaixoDe(int limite) {
+        long inicio = System.nanoTime();
+        try {
+            return repository.buscarComEstoqueAbaixoDe(limite);
+        } catch (RuntimeException e) {
+            buscarComEstoqueAbaixoDe.falhou();
+            throw e;
+        } finally {
+            buscarComEstoqueAbaixoDe.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public void atualizar(Produto produto) {
+        long inicio = System.nanoTime();
+        try {
+            repository.atualizar(produto);
+        } catch (RuntimeException e) {
+            atualizar.falhou();
+            throw e;
+        } finally {
+            atualizar.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public void deletar(Long id) {
+        long inicio = System.nanoTime();
+        try {
+            repository.deletar(id);
+        } catch (RuntimeException e) {
+            deletar.falhou();
+            throw e;
+        } finally {
+            deletar.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public boolean existe(Long id) {
+        return repository.existe(id);
+    }
+    
+    @Override
+    public ResultadoGravacao criarOuAtualizar(Produto produto) {
+        long inicio = System.nanoTime();
+        try {
+            return repository.criarOuAtualizar(produto);
+        } catch (RuntimeException e) {
+            criarOuAtualizar.falhou();
+            throw e;
+        } finally {
+            criarOuAtualizar.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public int reservarEstoque(Long id, int quantidade) {
+        long inicio = System.nanoTime();
+        try {
+            return repository.reservarEstoque(id, quantidade);
+        } catch (RuntimeException e) {
+            reservarEstoque.falhou();
+            throw e;
+        } finally {
+            reservarEstoque.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public int devolverEstoque(Long id, int quantidade) {
+        long inicio = System.nanoTime();
+        try {
+            return repository.devolverEstoque(id, quantidade);
+        } catch (RuntimeException e) {
+            devolverEstoque.falhou();
+            throw e;
+        } finally {
+            devolverEstoque.registrar(inicio);
+        }
+    }
+    
+    @Override
+    public ResultadoLote criarEmLote(List<Produto> produtos, ModoLote modo) {
+        long inicio = System.nanoTime();
+        try {
+            return repository.criarEmLote(produtos, modo);
+        } catch (RuntimeException e) {
+            criarEmLote.falhou();
+            throw e;
+        } finally {
+            criarEmLote.registrar(inicio);
+            contarItens(produtos);
+        }
+    }
+    
+    @Override
+    public ResultadoLote atualizarEmLote(List<Produto> produtos, ModoLote modo) {
+        long inicio = System.nanoTime();
+        try {
+            return repository.atualizarEmLote(produtos, modo);
+        } catch (RuntimeException e) {
+            atualizarEmLote.falhou();
+            throw e;
+        } finally {
+            atualizarEmLote.registrar(inicio);
+            contarItens(produtos);
+        }
+    }
+    
+    @Override
+    public ResultadoLote deletarEmLote(List<Long> ids, ModoLote modo) {
+        long inicio = System.nanoTime();
+        try {
+            return repository.deletarEmLote(ids, modo);
+        } catch (RuntimeException e) {
+            deletarEmLote.falhou();
+            throw e;
+        } finally {
+            deletarEmLote.registrar(inicio);
+            contarItens(ids);
+        }
+    }
+    
+    @Override
+    public void registrarOuvinte(OuvinteProduto ouvinte, boolean entregarExistentes) {
+        repository.registrarOuvinte(ouvinte, entregarExistentes);
+    }
+    
+    @Override
+    public Optional<Versao> versao() {
+        return repository.versao();
+    }
+    
+    @Override
+    public void close() throws Exception {
+        if (repository instanceof AutoCloseable recurso) {
+            recurso.close();
+        }
+    }
+    
+    private void contarItens(Collection<?> itens) {
+        if (itens != null) {
+            itensLote.record(itens.size());
+        }
+    }
+    
+    private static final class Operacao {
+    
+        private final Timer tempo;
+        private final Counter falhas;
+    
+        Operacao(MeterRegistry registro, String nome) {
+            this.tempo = Timer.builder(TEMPO)
+                .description("Tempo das operações do repositório de produtos")
+                .tag("operacao", nome)
+                .register(registro);
+            this.falhas = Counter.builder(FALHAS)
+                .description("Operações do repositório que terminaram com exceção")
+                .tag("operacao", nome)
+                .register(registro);
+        }
+    
+        void registrar(long inicio) {
+            tempo.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    
+        void falhou() {
+            falhas.increment();
+        }
+    }
+}
@@ -0,0 +1,544 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.exception.ConflitoVersaoException;
+import br.edu.esc.tp1.exception.EstoqueInsuficienteException;
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Repositório que guarda os produtos fora do heap: cada produto ocupa um registro de largura fixa
+ * num {@link ByteBuffer} direto e nome e descrição ficam numa arena de texto à parte. O heap guarda
+ * apenas o índice de ids em arrays primitivos; o {@link Produto} é remontado a cada leitura.
+ * O preço é gravado como valor sem escala mais a escala, então precisa caber num {@code long}.
+ * Consultas ordenadas e textuais usam as implementações por varredura da interface.
+ */
+public class ProdutoRepositoryOffHeap implements ProdutoRepository {
+    
+    private static final int ID = 0;
+    private static final int PRECO_SEM_ESCALA = 8;
+    private static final int ESCALA_PRECO = 16;
+    private static final int ESTOQUE = 20;
+    private static final int POSICAO_NOME = 24;
+    private static final int TAMANHO_NOME = 28;
+    private static final int POSICAO_DESCRICAO = 32;
+    private static final int TAMANHO_DESCRICAO = 36;
+    private static final int VERSAO = 40;
+    private static final int LARGURA_REGISTRO = 48;
+    
+    private static final int REGISTRO_LIVRE = -1;
+    private static final int TEXTO_MINIMO_PARA_COMPACTAR = 1 << 20;
+    private static final int REGISTROS_POR_PASSO = 256;
+    
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final IndiceLongInt indice;
+    private ByteBuffer registros;
+    private ByteBuffer textos;
+    private int registrosUsados;
+    private int[] registrosLivres = new int[16];
+    private int quantidadeLivres;
+    private int posicaoTexto;
+    private long bytesTextoVivos;
+    private OuvinteProduto[] ouvintes = new OuvinteProduto[0];
+    private List<Runnable> avisosDoLote;
+    
+    public ProdutoRepositoryOffHeap() {
+        this(1024);
+    }
+    
+    public ProdutoRepositoryOffHeap(int capacidadeInicial) {
+        if (capacidadeInicial <= 0) {
+            throw new IllegalArgumentException("Capacidade inicial deve ser maior que zero");
+        }
+        this.indice = new IndiceLongInt(capacidadeInicial);
+        this.registros = ByteBuffer.allocateDirect(capacidadeInicial * LARGURA_REGISTRO);
+        this.textos = ByteBuffer.allocateDirect(capacidadeInicial * 64);
+    }
+    
+    @Override
+    public void criar(Produto produto) {
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não pode ser nulo");
+        }
+        long precoSemEscala = precoSemEscala(produto.getPreco());
+        trava.writeLock().lock();
+        try {
+            long id = produto.getId();
+            if (indice.buscar(id) != IndiceLongInt.AUSENTE) {
+                throw new ProdutoDuplicadoException(id);
+            }
+            incluir(produto, precoSemEscala);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public Optional<Produto> buscarPorId(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        trava.readLock().lock();
+        try {
+            int registro = indice.buscar(id);
+            return registro == IndiceLongInt.AUSENTE ? Optional.empty() : Optional.of(ler(registro));
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+    
+    /** Todos os ids são lidos com a trava de leitura tomada uma só vez. */
+    @Override
+    public Map<Long, Produto> buscarPorIds(Collection<Long> ids) {
+        Map<Long, Produto> encontrados = new LinkedHashMap<>();
+        trava.readLock().lock();
+        try {
+            for (Long id : ids) {
+                int registro = id == null ? IndiceLongInt.AUSENTE : indice.buscar(id);
+                if (registro != IndiceLongInt.AUSENTE) {
+                    encontrados.put(id, ler(registro));
+                }
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+        return encontrados;
+    }
+    
+    @Override
+    public List<Produto> listarTodos() {
+        trava.readLock().lock();
+        try {
+            List<Produto> todos = new ArrayList<>(indice.tamanho());
+            for (int registro = 0; registro < registrosUsados; registro++) {
+                if (registros.getInt(base(registro) + TAMANHO_NOME) != REGISTRO_LIVRE) {
+                    todos.add(ler(registro));
+                }
+            }
+            return todos;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Decodifica {@value #REGISTROS_POR_PASSO} registros por vez sob a trava de leitura e a solta
+     * entre um passo e outro. Os registros não mudam de lugar, então o percurso por posição vê
+     * cada produto que não foi removido uma única vez.
+     */
+    @Override
+    public Iterator<Produto> percorrerTodos() {
+        return new Iterator<>() {
+            private final Produto[] passo = new Produto[REGISTROS_POR_PASSO];
+            private int quantidade;
+            private int proximo;
+            private int registro;
+            
+            @Override
+            public boolean hasNext() {
+                while (proximo == quantidade) {
+                    if (!avancar()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            
+            @Override
+            public Produto next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Produto produto = passo[proximo];
+                passo[proximo++] = null;
+                return produto;
+            }
+            
+            private boolean avancar() {
+                trava.readLock().lock();
+                try {
+                    if (registro >= registrosUsados) {
+                        return false;
+                    }
+                    quantidade = 0;
+                    proximo = 0;
+                    int fim = Math.min(registrosUsados, registro + REGISTROS_POR_PASSO);
+                    for (; registro < fim; registro++) {
+                        if (registros.getInt(base(registro) + TAMANHO_NOME) != REGISTRO_LIVRE) {
+                            passo[quantidade++] = ler(registro);
+                        }
+                    }
+                    return true;
+                } finally {
+                    trava.readLock().unlock();
+                }
+            }
+        };
+    }
+    
+    @Override
+    public void atualizar(Produto produto) {
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não pode ser nulo");
+        }
+        long precoSemEscala = precoSemEscala(produto.getPreco());
+        trava.writeLock().lock();
+        try {
+            int registro = indice.buscar(produto.getId());
+            if (registro == IndiceLongInt.AUSENTE) {
+                throw new ProdutoNaoEncontradoException(produto.getId());
+            }
+            substituir(registro, produto, precoSemEscala);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void deletar(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        trava.writeLock().lock();
+        try {
+            int registro = indice.remover(id);
+            if (registro == IndiceLongInt.AUSENTE) {
+                throw new ProdutoNaoEncontradoException(id);
+            }
+            if (ouvintes.length > 0) {
+                Produto removido = ler(registro);
+                avisar(ouvinte -> ouvinte.aoDeletar(removido));
+            }
+            descartarTextos(registro);
+            registros.putInt(base(registro) + TAMANHO_NOME, REGISTRO_LIVRE);
+            if (quantidadeLivres == registrosLivres.length) {
+                registrosLivres = Arrays.copyOf(registrosLivres, quantidadeLivres * 2);
+            }
+            registrosLivres[quantidadeLivres++] = registro;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public boolean existe(Long id) {
+        if (id == null) {
+            return false;
+        }
+        trava.readLock().lock();
+        try {
+            return indice.buscar(id) != IndiceLongInt.AUSENTE;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public ResultadoGravacao criarOuAtualizar(Produto produto) {
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não pode ser nulo");
+        }
+        long precoSemEscala = precoSemEscala(produto.getPreco());
+        trava.writeLock().lock();
+        try {
+            int registro = indice.buscar(produto.getId());
+            if (registro != IndiceLongInt.AUSENTE) {
+                substituir(registro, produto, precoSemEscala);
+                return ResultadoGravacao.ATUALIZADO;
+            }
+            if (produto.getVersao() != 0) {
+                throw new ProdutoNaoEncontradoException(produto.getId());
+            }
+            incluir(produto, precoSemEscala);
+            return ResultadoGravacao.CRIADO;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public int reservarEstoque(Long id, int quantidade) {
+        Produto.validarQuantidadeMovimentada(quantidade);
+        return alterarEstoque(id, quantidade, true);
+    }
+    
+    @Override
+    public int devolverEstoque(Long id, int quantidade) {
+        Produto.validarQuantidadeMovimentada(quantidade);
+        return alterarEstoque(id, quantidade, false);
+    }
+    
+    /**
+     * Os lotes seguram a trava de escrita do começo ao fim, então nenhum leitor vê um lote pela
+     * metade, e os ouvintes só são avisados no fim: um lote desfeito não gera aviso nenhum.
+     */
+    @Override
+    public ResultadoLote criarEmLote(List<Produto> produtos, ModoLote modo) {
+        return emLote(() -> ProdutoRepository.super.criarEmLote(produtos, modo));
+    }
+    
+    @Override
+    public ResultadoLote atualizarEmLote(List<Produto> produtos, ModoLote modo) {
+        return emLote(() -> ProdutoRepository.super.atualizarEmLote(produtos, modo));
+    }
+    
+    @Override
+    public ResultadoLote deletarEmLote(List<Long> ids, ModoLote modo) {
+        return emLote(() -> ProdutoRepository.super.deletarEmLote(ids, modo));
+    }
+    
+    @Override
+    public void registrarOuvinte(OuvinteProduto ouvinte, boolean entregarExistentes) {
+        if (ouvinte == null) {
+            throw new IllegalArgumentException("Ouvinte não pode ser nulo");
+        }
+        trava.writeLock().lock();
+        try {
+            ouvintes = Arrays.copyOf(ouvintes, ouvintes.length + 1);
+            ouvintes[ouvintes.length - 1] = ouvinte;
+            for (int registro = 0; entregarExistentes && registro < registrosUsados; registro++) {
+                if (registros.getInt(base(registro) + TAMANHO_NOME) != REGISTRO_LIVRE) {
+                    ouvinte.aoCriar(ler(registro));
+                }
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+    
+    /** Bytes ocupados fora do heap pelos registros e pela arena de texto. */
+    public long bytesForaDoHeap() {
+        trava.readLock().lock();
+        try {
+            return (long) registros.capacity() + textos.capacity();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+    
+    /** Regrava só o estoque e a versão do registro; o produto só é remontado se houver ouvintes. */
+    private int alterarEstoque(Long id, int quantidade, boolean reserva) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        trava.writeLock().lock();
+        try {
+            int registro = indice.buscar(id);
+            if (registro == IndiceLongInt.AUSENTE) {
+                throw new ProdutoNaoEncontradoException(id);
+            }
+            int posicao = base(registro) + ESTOQUE;
+            int estoque = registros.getInt(posicao);
+            int novoEstoque = reserva ? estoque - quantidade : estoque + quantidade;
+            if (novoEstoque < 0) {
+                if (reserva) {
+                    throw new EstoqueInsuficienteException(id, quantidade, estoque);
+                }
+                throw new IllegalArgumentException("Quantidade em estoque passaria do máximo permitido");
+            }
+            Produto anterior = ouvintes.length > 0 ? ler(registro) : null;
+            registros.putInt(posicao, novoEstoque);
+            registros.putLong(base(registro) + VERSAO, registros.getLong(base(registro) + VERSAO) + 1);
+            if (ouvintes.length > 0) {
+                Produto novo = ler(registro);
+                avisar(ouvinte -> ouvinte.aoAtualizar(anterior, novo));
+            }
+            return novoEstoque;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+    
+    private void incluir(Produto produto, long precoSemEscala) {
+        Produto versionado = ProdutoRepository.primeiraVersao(produto);
+        int registro = alocarRegistro();
+        gravar(registro, versionado, precoSemEscala);
+        indice.colocar(produto.getId(), registro);
+        avisar(ouvinte -> ouvinte.aoCriar(versionado));
+    }
+    
+    private void substituir(int registro, Produto produto, long precoSemEscala) {
+        long versao = registros.getLong(base(registro) + VERSAO);
+        if (produto.getVersao() != 0 && produto.getVersao() != versao) {
+            throw new ConflitoVersaoException(produto.getId(), produto.getVersao(), versao);
+        }
+        Produto anterior = ouvintes.length > 0 ? ler(registro) : null;
+        Produto novo = produto.comVersao(versao + 1);
+        descartarTextos(registro);
+        gravar(registro, novo, precoSemEscala);
+        avisar(ouvinte -> ouvinte.aoAtualizar(anterior, novo));
+    }
+    
+    private ResultadoLote emLote(Supplier<ResultadoLote> lote) {
+        trava.writeLock().lock();
+        try {
+            avisosDoLote = new ArrayList<>();
+            ResultadoLote resultado;
+            List<Runnable> avisos;
+            try {
+                resultado = lote.get();
+            } finally {
+                avisos = avisosDoLote;
+                avisosDoLote = null;
+            }
+            if (resultado.getAplicados() > 0) {
+                avisos.forEach(Runnable::run);
+            }
+            return resultado;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+    
+    /** Avisa os ouvintes na hora ou, durante um lote, guarda o aviso para o fim dele. Chamado com a trava de escrita. */
+    private void avisar(Consumer<OuvinteProduto> aviso) {
+        if (ouvintes.length == 0) {
+            return;
+        }
+        OuvinteProduto[] notificar = ouvintes;
+        Runnable avisarTodos = () -> {
+            for (OuvinteProduto ouvinte : notificar) {
+                aviso.accept(ouvinte);
+            }
+        };
+        if (avisosDoLote != null) {
+            avisosDoLote.add(avisarTodos);
+        } else {
+            avisarTodos.run();
+        }
+    }
+    
+    private static long precoSemEscala(BigDecimal preco) {
+        if (preco.unscaledValue().bitLength() > 63) {
+            throw new IllegalArgumentException("Preço com precisão acima da suportada: " + preco);
+        }
+        return preco.unscaledValue().longValue();
+    }
+    
+    private static int base(int registro) {
+        return registro * LARGURA_REGISTRO;
+    }
+    
+    private int alocarRegistro() {
+        if (quantidadeLivres > 0) {
+            return registrosLivres[--quantidadeLivres];
+        }
+        if ((long) (registrosUsados + 1) * LARGURA_REGISTRO > registros.capacity()) {
+            registros = crescer(registros, (long) (registrosUsados + 1) * LARGURA_REGISTRO);
+        }
+        return registrosUsados++;
+    }
+    
+    private void gravar(int registro, Produto produto, long precoSemEscala) {
+        byte[] nome = produto.getNome().getBytes(StandardCharsets.UTF_8);
+        byte[] descricao = produto.getDescricao().getBytes(StandardCharsets.UTF_8);
+        reservarTexto(nome.length + descricao.length);
+        int base = base(registro);
+        registros.putLong(base + ID, produto.getId());
+        registros.putLong(base + PRECO_SEM_ESCALA, precoSemEscala);
+        registros.putInt(base + ESCALA_PRECO, produto.getPreco().scale());
+        registros.putInt(base + ESTOQUE, produto.getQuantidadeEstoque());
+        registros.putInt(base + POSICAO_NOME, anexarTexto(nome));
+        registros.putInt(base + TAMANHO_NOME, nome.length);
+        registros.putInt(base + POSICAO_DESCRICAO, anexarTexto(descricao));
+        registros.putInt(base + TAMANHO_DESCRICAO, descricao.length);
+        registros.putLong(base + VERSAO, produto.getVersao());
+    }
+    
+    private Produto ler(int registro) {
+        int base = base(registro);
+        BigDecimal preco = BigDecimal.valueOf(registros.getLong(base + PRECO_SEM_ESCALA),
+            registros.getInt(base + ESCALA_PRECO));
+        return Produto.criar(
+            registros.getLong(base + ID),
+            lerTexto(registros.getInt(base + POSICAO_NOME), registros.getInt(base + TAMANHO_NOME)),
+            lerTexto(registros.getInt(base + POSICAO_DESCRICAO), registros.getInt(base + TAMANHO_DESCRICAO)),
+            preco,
+            registros.getInt(base + ESTOQUE),
+            registros.getLong(base + VERSAO));
+    }
+    
+    private String lerTexto(int posicao, int tamanho) {
+        byte[] bytes = new byte[tamanho];
+        textos.get(posicao, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private int anexarTexto(byte[] bytes) {
+        int posicao = posicaoTexto;
+        textos.put(posicao, bytes);
+        posicaoTexto += bytes.length;
+        bytesTextoVivos += bytes.length;
+        return posicao;
+    }
+    
+    private void descartarTextos(int registro) {
+        int base = base(registro);
+        bytesTextoVivos -= registros.getInt(base + TAMANHO_NOME) + registros.getInt(base + TAMANHO_DESCRICAO);
+    }
+    
+    private void reservarTexto(int bytes) {
+        long necessario = bytesTextoVivos + bytes;
+        if (posicaoTexto + (long) bytes <= textos.capacity()) {
+            return;
+        }
+        if (posicaoTexto > TEXTO_MINIMO_PARA_COMPACTAR && necessario <= posicaoTexto / 2) {
+            compactarTextos(Math.max(textos.capacity(), necessario));
+        } else {
+            textos = crescer(textos, posicaoTexto + (long) bytes);
+        }
+    }
+    
+    /** Copia só os textos ainda referenciados para uma arena nova, descartando os de versões antigas. */
+    private void compactarTextos(long capacidade) {
+        ByteBuffer nova = ByteBuffer.allocateDirect((int) capacidade);
+        int posicao = 0;
+        for (int registro = 0; registro < registrosUsados; registro++) {
+            int base = base(registro);
+            if (registros.getInt(base + TAMANHO_NOME) == REGISTRO_LIVRE) {
+                continue;
+            }
+            posicao = moverTexto(nova, posicao, base + POSICAO_NOME, base + TAMANHO_NOME);
+            posicao = moverTexto(nova, posicao, base + POSICAO_DESCRICAO, base + TAMANHO_DESCRICAO);
+        }
+        textos = nova;
+        posicaoTexto = posicao;
+        bytesTextoVivos = posicao;
+    }
+    
+    private int moverTexto(ByteBuffer destino, int posicao, int campoPosicao, int campoTamanho) {
+        int tamanho = registros.getInt(campoTamanho);
+        destino.put(posicao, textos, registros.getInt(campoPosicao), tamanho);
+        registros.putInt(campoPosicao, posicao);
+        return posicao + tamanho;
+    }
+    
+    private static ByteBuffer crescer(ByteBuffer atual, long necessario) {
+        if (necessario > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Capacidade do repositório fora do heap esgotada");
+        }
+        long capacidade = Math.min(Math.max((long) atual.capacity() * 2, necessario), Integer.MAX_VALUE - 8);
+        ByteBuffer novo = ByteBuffer.allocateDirect((int) capacidade);
+        novo.put(0, atual, 0, atual.capacity());
+        return novo;
+    }
+}
@@ -0,0 +1,647 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Repositório durável: mantém o catálogo em memória e registra cada escrita em um log só de
+ * acréscimo antes de retornar. De tempos em tempos o catálogo é compactado em um
+ * {@link SnapshotMapeado} e o log é zerado. Na abertura, carrega o snapshot e reaplica o log.
+ * <p>
+ * No carregamento {@link Carregamento#COMPLETO} o snapshot é copiado para um
+ * {@link ProdutoRepositoryImpl}, com todos os índices. No {@link Carregamento#MAPEADO} o
+ * snapshot é servido direto do arquivo mapeado e a abertura não depende do tamanho do catálogo.
+ * <p>
+ * Cada escrita espera o fsync do log com a trava do id tomada. Os ouvintes só são avisados depois
+ * dele; se ele falha, a escrita é desfeita em memória antes da exceção chegar a quem chamou.
+ * <p>
+ * Criações e atualizações vão para o log com a versão do produto, que volta igual na recuperação.
+ */
+public class ProdutoRepositoryPersistente implements ProdutoRepository, AutoCloseable {
+    
+    static final String ARQUIVO_LOG = "produtos.log";
+    static final int REGISTROS_PARA_COMPACTAR_PADRAO = 100_000;
+    
+    private static final Pattern ARQUIVO_SNAPSHOT = Pattern.compile("produtos-(\\d+)\\.snapshot");
+    private static final byte CRIAR = 1;
+    private static final byte ATUALIZAR = 2;
+    private static final byte DELETAR = 3;
+    private static final byte LOTE = 4;
+    private static final int FAIXAS_DE_TRAVA = 64;
+    
+    public enum Carregamento {
+        COMPLETO,
+        MAPEADO
+    }
+    
+    private final Path diretorio;
+    private final Carregamento carregamento;
+    private volatile ProdutoRepository estado;
+    private long geracaoSnapshot;
+    private final LogEscrita log;
+    private final Object[] travasPorId;
+    private final ReadWriteLock travaCompactacao = new ReentrantReadWriteLock();
+    private final ExecutorService compactador;
+    private final AtomicBoolean compactacaoAgendada = new AtomicBoolean();
+    private final AtomicLong registrosDesdeSnapshot = new AtomicLong();
+    private final long registrosParaCompactar;
+    private volatile OuvinteProduto[] ouvintes = new OuvinteProduto[0];
+    
+    public ProdutoRepositoryPersistente(Path diretorio) {
+        this(diretorio, REGISTROS_PARA_COMPACTAR_PADRAO, Carregamento.COMPLETO);
+    }
+    
+    public ProdutoRepositoryPersistente(Path diretorio, long registrosParaCompactar, Carregamento carregamento) {
+        this(diretorio, registrosParaCompactar, carregamento, LogEscrita.Forca.PADRAO);
+    }
+    
+    ProdutoRepositoryPersistente(Path diretorio, long registrosParaCompactar, Carregamento carregamento,
+                                 LogEscrita.Forca forca) {
+        if (diretorio == null) {
+            throw new IllegalArgumentException("Diretório não pode ser nulo");
+        }
+        if (carregamento == null) {
+            throw new IllegalArgumentException("Modo de carregamento não pode ser nulo");
+        }
+        if (registrosParaCompactar <= 0) {
+            throw new IllegalArgumentException("Limite de compactação deve ser maior que zero");
+        }
+        this.diretorio = diretorio;
+        this.registrosParaCompactar = registrosParaCompactar;
+        this.carregamento = carregamento;
+        this.travasPorId = new Object[FAIXAS_DE_TRAVA];
+        for (int i = 0; i < FAIXAS_DE_TRAVA; i++) {
+            travasPorId[i] = new Object();
+        }
+        try {
+            Files.createDirectories(diretorio);
+            carregarSnapshot();
+            this.log = LogEscrita.abrir(diretorio.resolve(ARQUIVO_LOG), this::reaplicar, forca);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o repositório em " + diretorio, e);
+        }
+        this.compactador = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "compactacao-produtos");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @Override
+    public void criar(Produto produto) {
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não pode ser nulo");
+        }
+        escrever(produto.getId(), aplicacao -> aplicarCriacao(produto, aplicacao));
+    }
+    
+    @Override
+    public Optional<Produto> buscarPorId(Long id) {
+        return estado.buscarPorId(id);
+    }
+    
+    @Override
+    public Map<Long, Produto> buscarPorIds(Collection<Long> ids) {
+        return estado.buscarPorIds(ids);
+    }
+    
+    @Override
+    public List<Produto> listarTodos() {
+        return estado.listarTodos();
+    }
+    
+    /** Depois de uma compactação no modo mapeado, segue pelo estado anterior a ela. */
+    @Override
+    public Iterator<Produto> percorrerTodos() {
+        return estado.percorrerTodos();
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(int numero, int tamanho, OrdenacaoProduto ordenacao) {
+        return estado.listarPagina(numero, tamanho, ordenacao);
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(ChavePagina chave, int numero, int tamanho) {
+        return estado.listarPagina(chave, numero, tamanho);
+    }
+    
+    @Override
+    public Pagina<Produto> buscarPorTexto(String consulta, int numero, int tamanho) {
+        return estado.buscarPorTexto(consulta, numero, tamanho);
+    }
+    
+    @Override
+    public List<Produto> buscarPorFaixaDePreco(BigDecimal minimo, BigDecimal maximo) {
+        return estado.buscarPorFaixaDePreco(minimo, maximo);
+    }
+    
+    @Override
+    public List<Produto> buscarComEstoqueAbaixoDe(int limite) {
+        return estado.buscarComEstoqueAbaixoDe(limite);
+    }
+    
+    @Override
+    public void atualizar(Produto produto) {
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não pode ser nulo");
+        }
+        escrever(produto.getId(), aplicacao -> aplicarAtualizacao(produto, aplicacao));
+    }
+    
+    @Override
+    public void deletar(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        escrever(id, aplicacao -> aplicarRemocao(id, aplicacao));
+    }
+    
+    @Override
+    public boolean existe(Long id) {
+        return estado.existe(id);
+    }
+    
+    /** Decide e grava sob a trava da faixa do id; o log recebe um registro só, de criação ou de atualização. */
+    @Override
+    public ResultadoGravacao criarOuAtualizar(Produto produto) {
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não pode ser nulo");
+        }
+        Long id = produto.getId();
+        ResultadoGravacao[] resultado = new ResultadoGravacao[1];
+        escrever(id, aplicacao -> {
+            if (estado.existe(id)) {
+                resultado[0] = ResultadoGravacao.ATUALIZADO;
+                aplicarAtualizacao(produto, aplicacao);
+                return;
+            }
+            if (produto.getVersao() != 0) {
+                throw new ProdutoNaoEncontradoException(id);
+            }
+            resultado[0] = ResultadoGravacao.CRIADO;
+            aplicarCriacao(produto, aplicacao);
+        });
+        return resultado[0];
+    }
+    
+    /**
+     * Lido e regravado sob a trava da faixa do id, como as outras escritas; o log recebe o produto
+     * inteiro num registro de atualização comum.
+     */
+    @Override
+    public int reservarEstoque(Long id, int quantidade) {
+        Produto.validarQuantidadeMovimentada(quantidade);
+        return alterarEstoque(id, produto -> produto.reservarEstoque(quantidade));
+    }
+    
+    @Override
+    public int devolverEstoque(Long id, int quantidade) {
+        Produto.validarQuantidadeMovimentada(quantidade);
+        return alterarEstoque(id, produto -> produto.devolverEstoque(quantidade));
+    }
+    
+    /**
+     * Os itens desfeitos de um lote tudo-ou-nada voltam ao estado exatamente como estavam, na
+     * mesma versão, sem passar pelo log nem pelos ouvintes; veja {@link #escreverLote}.
+     */
+    @Override
+    public ResultadoLote criarEmLote(List<Produto> produtos, ModoLote modo) {
+        ExecucaoLote.validar(produtos, modo);
+        return escreverLote(produtos, Produto::getId, aplicacao ->
+            ExecucaoLote.executar(produtos, modo, Produto::getId, produto -> aplicarCriacao(produto, aplicacao)));
+    }
+    
+    @Override
+    public ResultadoLote atualizarEmLote(List<Produto> produtos, ModoLote modo) {
+        ExecucaoLote.validar(produtos, modo);
+        return escreverLote(produtos, Produto::getId, aplicacao ->
+            ExecucaoLote.executar(produtos, modo, Produto::getId, produto -> aplicarAtualizacao(produto, aplicacao)));
+    }
+    
+    @Override
+    public ResultadoLote deletarEmLote(List<Long> ids, ModoLote modo) {
+        ExecucaoLote.validar(ids, modo);
+        return escreverLote(ids, id -> id, aplicacao ->
+            ExecucaoLote.executar(ids, modo, id -> id, id -> aplicarRemocao(id, aplicacao)));
+    }
+    
+    @Override
+    public void registrarOuvinte(OuvinteProduto ouvinte, boolean entregarExistentes) {
+        if (ouvinte == null) {
+            throw new IllegalArgumentException("Ouvinte não pode ser nulo");
+        }
+        travaCompactacao.writeLock().lock();
+        try {
+            OuvinteProduto[] novos = Arrays.copyOf(ouvintes, ouvintes.length + 1);
+            novos[ouvintes.length] = ouvinte;
+            ouvintes = novos;
+            if (!entregarExistentes) {
+                return;
+            }
+            for (Produto produto : estado.listarTodos()) {
+                ouvinte.aoCriar(produto);
+            }
+        } finally {
+            travaCompactacao.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Grava o catálogo atual em um novo snapshot e zera o log. As escritas ficam
+     * bloqueadas enquanto o snapshot é gravado.
+     */
+    public void compactar() {
+        travaCompactacao.writeLock().lock();
+        try {
+            log.sincronizar();
+            Path novoSnapshot = gravarSnapshot(geracaoSnapshot + 1);
+            log.reiniciar();
+            geracaoSnapshot++;
+            registrosDesdeSnapshot.set(0);
+            if (carregamento == Carregamento.MAPEADO) {
+                estado = new ProdutoRepositoryMapeado(SnapshotMapeado.abrir(novoSnapshot));
+            }
+            removerSnapshotsAntigos();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao compactar o repositório em " + diretorio, e);
+        } finally {
+            travaCompactacao.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        compactador.shutdown();
+        travaCompactacao.writeLock().lock();
+        try {
+            log.close();
+        } finally {
+            travaCompactacao.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Aplica a escrita em memória e espera o log gravá-la, tudo sob a trava do id; veja
+     * {@link Aplicacao#gravar()}. O log é conferido antes: fechado ou com falha registrada, a
+     * escrita é recusada sem mudar o estado. O fechamento toma a trava de compactação para
+     * escrita, então não corre com isso.
+     */
+    private void escrever(Long id, Escrita escrita) {
+        Aplicacao aplicacao = new Aplicacao();
+        travaCompactacao.readLock().lock();
+        try {
+            log.verificarDisponivel();
+            synchronized (travaPara(id)) {
+                escrita.aplicar(aplicacao);
+                aplicacao.gravar();
+            }
+        } finally {
+            travaCompactacao.readLock().unlock();
+        }
+        if (registrosDesdeSnapshot.addAndGet(aplicacao.registros.size()) >= registrosParaCompactar) {
+            agendarCompactacao();
+        }
+    }
+    
+    private int alterarEstoque(Long id, UnaryOperator<Produto> alteracao) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        int[] estoque = new int[1];
+        escrever(id, aplicacao -> {
+            Produto atual = estado.buscarPorId(id).orElseThrow(() -> new ProdutoNaoEncontradoException(id));
+            Produto alterado = alteracao.apply(atual);
+            estoque[0] = alterado.getQuantidadeEstoque();
+            aplicarAtualizacao(alterado, aplicacao);
+        });
+        return estoque[0];
+    }
+    
+    /**
+     * Aplica o lote segurando as travas de todos os ids envolvidos e grava os itens aplicados
+     * como um único registro do log, que na recuperação volta inteiro ou não volta. Se nenhum
+     * item ficou aplicado, nada vai para o log nem para os ouvintes.
+     */
+    private <T> ResultadoLote escreverLote(List<T> itens, Function<T, Long> idDe,
+                                           Function<Aplicacao, ResultadoLote> lote) {
+        int[] faixas = itens.stream()
+            .filter(Objects::nonNull)
+            .map(idDe)
+            .filter(Objects::nonNull)
+            .mapToInt(this::faixaDe)
+            .distinct()
+            .sorted()
+            .toArray();
+        Aplicacao aplicacao = new Aplicacao();
+        ResultadoLote[] resultado = new ResultadoLote[1];
+        travaCompactacao.readLock().lock();
+        try {
+            log.verificarDisponivel();
+            comTravas(faixas, 0, a -> {
+                resultado[0] = lote.apply(a);
+                if (resultado[0].getAplicados() == 0) {
+                    a.descartar();
+                }
+                a.gravar();
+            }, aplicacao);
+        } finally {
+            travaCompactacao.readLock().unlock();
+        }
+        if (registrosDesdeSnapshot.addAndGet(aplicacao.registros.size()) >= registrosParaCompactar) {
+            agendarCompactacao();
+        }
+        return resultado[0];
+    }
+    
+    private void comTravas(int[] faixas, int proxima, Escrita escrita, Aplicacao aplicacao) {
+        if (proxima == faixas.length) {
+            escrita.aplicar(aplicacao);
+            return;
+        }
+        synchronized (travasPorId[faixas[proxima]]) {
+            comTravas(faixas, proxima + 1, escrita, aplicacao);
+        }
+    }
+    
+    // Os aplicar* mudam o estado e anotam na aplicação o registro do log, o aviso aos ouvintes e
+    // como desfazer; devolvem o desfazer também para o lote tudo-ou-nada.
+    private Runnable aplicarCriacao(Produto produto, Aplicacao aplicacao) {
+        OuvinteProduto[] notificar = ouvintes;
+        Produto versionado = ProdutoRepository.primeiraVersao(produto);
+        estado.criar(versionado);
+        return aplicacao.anotar(registro(CRIAR, versionado), () -> {
+            for (OuvinteProduto ouvinte : notificar) {
+                ouvinte.aoCriar(versionado);
+            }
+        }, () -> estado.deletar(versionado.getId()));
+    }
+    
+    // Com a trava do id tomada, o estado guarda o produto na versão seguinte à do anterior.
+    private Runnable aplicarAtualizacao(Produto produto, Aplicacao aplicacao) {
+        OuvinteProduto[] notificar = ouvintes;
+        Produto anterior = estado.buscarPorId(produto.getId()).orElse(null);
+        estado.atualizar(produto);
+        Produto novo = produto.comVersao(anterior.getVersao() + 1);
+        return aplicacao.anotar(registro(ATUALIZAR, novo), () -> {
+            for (OuvinteProduto ouvinte : notificar) {
+                ouvinte.aoAtualizar(anterior, novo);
+            }
+        }, () -> {
+            estado.deletar(anterior.getId());
+            estado.criar(anterior);
+        });
+    }
+    
+    private Runnable aplicarRemocao(Long id, Aplicacao aplicacao) {
+        OuvinteProduto[] notificar = ouvintes;
+        Produto removido = estado.buscarPorId(id).orElse(null);
+        estado.deletar(id);
+        return aplicacao.anotar(registroDeRemocao(id), () -> {
+            for (OuvinteProduto ouvinte : notificar) {
+                ouvinte.aoDeletar(removido);
+            }
+        }, () -> estado.criar(removido));
+    }
+    
+    private void agendarCompactacao() {
+        if (compactacaoAgendada.compareAndSet(false, true)) {
+            compactador.execute(() -> {
+                try {
+                    compactar();
+                } finally {
+                    compactacaoAgendada.set(false);
+                }
+            });
+        }
+    }
+    
+    private Object travaPara(Long id) {
+        return travasPorId[faixaDe(id)];
+    }
+    
+    private int faixaDe(Long id) {
+        return Long.hashCode(id) & (FAIXAS_DE_TRAVA - 1);
+    }
+    
+    private void carregarSnapshot() throws IOException {
+        geracaoSnapshot = geracaoMaisRecente();
+        removerSnapshotsAntigos();
+        Path arquivo = arquivoSnapshot(geracaoSnapshot);
+        SnapshotMapeado snapshot = geracaoSnapshot > 0 ? SnapshotMapeado.abrir(arquivo) : SnapshotMapeado.vazio();
+        if (carregamento == Carregamento.MAPEADO) {
+            estado = new ProdutoRepositoryMapeado(snapshot);
+            return;
+        }
+        ProdutoRepositoryImpl completo = new ProdutoRepositoryImpl();
+        for (int i = 0; i < snapshot.quantidade(); i++) {
+            completo.criar(snapshot.produto(i));
+        }
+        estado = completo;
+    }
+    
+    private Path gravarSnapshot(long geracao) throws IOException {
+        Path arquivo = arquivoSnapshot(geracao);
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        SnapshotMapeado.gravar(temporario, estado.listarTodos());
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return arquivo;
+    }
+    
+    private long geracaoMaisRecente() throws IOException {
+        long maisRecente = 0;
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            for (Path arquivo : arquivos.toList()) {
+                Matcher nome = ARQUIVO_SNAPSHOT.matcher(arquivo.getFileName().toString());
+                if (nome.matches()) {
+                    maisRecente = Math.max(maisRecente, Long.parseLong(nome.group(1)));
+                }
+            }
+        }
+        return maisRecente;
+    }
+    
+    // No Windows um snapshot ainda mapeado não pode ser apagado; ele fica para a próxima vez.
+    private void removerSnapshotsAntigos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            for (Path arquivo : arquivos.toList()) {
+                Matcher nome = ARQUIVO_SNAPSHOT.matcher(arquivo.getFileName().toString());
+                if (nome.matches() && Long.parseLong(nome.group(1)) < geracaoSnapshot) {
+                    try {
+                        Files.deleteIfExists(arquivo);
+                    } catch (IOException e) {
+                        // tenta de novo na próxima compactação
+                    }
+                }
+            }
+        }
+    }
+    
+    Path arquivoSnapshot(long geracao) {
+        return diretorio.resolve(String.format("produtos-%06d.snapshot", geracao));
+    }
+    
+    // O log pode repetir operações que já estão no snapshot (queda entre gravar o snapshot e
+    // zerar o log), por isso a reaplicação não falha em duplicados nem em ausentes.
+    private void reaplicar(byte[] registro) {
+        try {
+            DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(registro));
+            byte tipo = entrada.readByte();
+            if (tipo == LOTE) {
+                int quantidade = entrada.readInt();
+                for (int i = 0; i < quantidade; i++) {
+                    byte[] item = new byte[entrada.readInt()];
+                    entrada.readFully(item);
+                    reaplicar(item);
+                }
+                return;
+            }
+            if (tipo == DELETAR) {
+                long id = entrada.readLong();
+                if (estado.existe(id)) {
+                    estado.deletar(id);
+                }
+                return;
+            }
+            if (tipo != CRIAR && tipo != ATUALIZAR) {
+                throw new IOException("Registro de tipo desconhecido no log: " + tipo);
+            }
+            Produto produto = CodecProduto.ler(entrada).comVersao(entrada.readLong());
+            if (estado.existe(produto.getId())) {
+                estado.deletar(produto.getId());
+            }
+            estado.criar(produto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static byte[] registro(byte tipo, Produto produto) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream saida = new DataOutputStream(bytes);
+            saida.writeByte(tipo);
+            CodecProduto.escrever(saida, produto);
+            saida.writeLong(produto.getVersao());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static byte[] registroDeLote(List<byte[]> registros) {
+        if (registros.size() == 1) {
+            return registros.get(0);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(registros.size() * 128);
+            DataOutputStream saida = new DataOutputStream(bytes);
+            saida.writeByte(LOTE);
+            saida.writeInt(registros.size());
+            for (byte[] registro : registros) {
+                saida.writeInt(registro.length);
+                saida.write(registro);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static byte[] registroDeRemocao(Long id) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(DELETAR).putLong(id).array();
+    }
+    
+    @FunctionalInterface
+    private interface Escrita {
+        void aplicar(Aplicacao aplicacao);
+    }
+    
+    /**
+     * O que uma escrita (simples ou em lote) mudou no estado. {@link #gravar()} roda com as travas
+     * dos ids tomadas e espera o log: gravado, avisa os ouvintes; se a gravação ou o fsync falha,
+     * desfaz as mudanças em ordem inversa antes de relançar, e os ouvintes não ficam sabendo. Com
+     * as travas tomadas ninguém mais mexe nesses ids até lá; escritas de outras faixas entram no
+     * mesmo fsync do log.
+     */
+    private final class Aplicacao {
+        
+        private final List<byte[]> registros = new ArrayList<>();
+        private final List<Runnable> avisos = new ArrayList<>();
+        private final Deque<Runnable> desfazer = new ArrayDeque<>();
+        
+        Runnable anotar(byte[] registro, Runnable aviso, Runnable desfazerItem) {
+            registros.add(registro);
+            avisos.add(aviso);
+            desfazer.push(desfazerItem);
+            return desfazerItem;
+        }
+        
+        /** Para o lote tudo-ou-nada que já desfez os próprios itens. */
+        void descartar() {
+            registros.clear();
+            avisos.clear();
+            desfazer.clear();
+        }
+        
+        void gravar() {
+            if (registros.isEmpty()) {
+                return;
+            }
+            try {
+                log.anexar(registroDeLote(registros)).join();
+            } catch (CompletionException e) {
+                RuntimeException falha = e.getCause() instanceof RuntimeException causa ? causa : e;
+                while (!desfazer.isEmpty()) {
+                    try {
+                        desfazer.pop().run();
+                    } catch (RuntimeException erro) {
+                        falha.addSuppressed(erro);
+                    }
+                }
+                throw falha;
+            }
+            avisos.forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.domain.ResultadoLote;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Decorador que numera as escritas num contador global. O número só é publicado depois que a
+ * escrita termina, então quem lê a versão antes dos dados nunca associa uma versão nova a dados
+ * antigos. Escritas que falham avançam a versão do mesmo jeito: isso só custa uma validação
+ * perdida, nunca uma versão que deixa de mudar. A versão de cada produto é a {@code versao} dele.
+ */
+public class ProdutoRepositoryVersionado implements ProdutoRepository, AutoCloseable {
+    
+    private final ProdutoRepository repository;
+    private final LongSupplier relogio;
+    private final long epoca;
+    private final AtomicLong numero = new AtomicLong();
+    private final AtomicLong modificadoEm;
+    
+    public ProdutoRepositoryVersionado(ProdutoRepository repository) {
+        this(repository, System::currentTimeMillis);
+    }
+    
+    ProdutoRepositoryVersionado(ProdutoRepository repository, LongSupplier relogio) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repositório não pode ser nulo");
+        }
+        this.repository = repository;
+        this.relogio = relogio;
+        this.epoca = relogio.getAsLong();
+        this.modificadoEm = new AtomicLong(epoca);
+    }
+    
+    @Override
+    public Optional<Versao> versao() {
+        return Optional.of(new Versao(epoca, numero.get(), modificadoEm.get()));
+    }
+    
+    @Override
+    public void criar(Produto produto) {
+        try {
+            repository.criar(produto);
+        } finally {
+            avancar();
+        }
+    }
+    
+    @Override
+    public Optional<Produto> buscarPorId(Long id) {
+        return repository.buscarPorId(id);
+    }
+    
+    @Override
+    public Map<Long, Produto> buscarPorIds(Collection<Long> ids) {
+        return repository.buscarPorIds(ids);
+    }
+    
+    @Override
+    public List<Produto> listarTodos() {
+        return repository.listarTodos();
+    }
+    
+    @Override
+    public Iterator<Produto> percorrerTodos() {
+        return repository.percorrerTodos();
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(int numero, int tamanho, OrdenacaoProduto ordenacao) {
+        return repository.listarPagina(numero, tamanho, ordenacao);
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(ChavePagina chave, int numero, int tamanho) {
+        return repository.listarPagina(chave, numero, tamanho);
+    }
+    
+    @Override
+    public Pagina<Produto> buscarPorTexto(String consulta, int numero, int tamanho) {
+        return repository.buscarPorTexto(consulta, numero, tamanho);
+    }
+    
+    @Override
+    public List<Produto> buscarPorFaixaDePreco(BigDecimal minimo, BigDecimal maximo) {
+        return repository.buscarPorFaixaDePreco(minimo, maximo);
+    }
+    
+    @Override
+    public List<Produto> buscarComEstoqueAbaixoDe(int limite) {
+        return repository.buscarComEstoqueAbaixoDe(limite);
+    }
+    
+    @Override
+    public void atualizar(Produto produto) {
+        try {
+            repository.atualizar(produto);
+        } finally {
+            avancar();
+        }
+    }
+    
+    @Override
+    public ResultadoGravacao criarOuAtualizar(Produto produto) {
+        try {
+            return repository.criarOuAtualizar(produto);
+        } finally {
+            avancar();
+        }
+    }
+    
+    @Override
+    public void deletar(Long id) {
+        try {
+            repository.deletar(id);
+        } finally {
+            avancar();
+        }
+    }
+    
+    @Override
+    public boolean existe(Long id) {
+        return repository.existe(id);
+    }
+    
+    @Override
+    public int reservarEstoque(Long id, int quantidade) {
+        try {
+            return repository.reservarEstoque(id, quantidade);
+        } finally {
+            avancar();
+        }
+    }
+    
+    @Override
+    public int devolverEstoque(Long id, int quantidade) {
+        try {
+            return repository.devolverEstoque(id, quantidade);
+        } finally {
+            avancar();
+        }
+    }
+    
+    @Override
+    public ResultadoLote criarEmLote(List<Produto> produtos, ModoLote modo) {
+        try {
+            return repository.criarEmLote(produtos, modo);
+        } finally {
+            avancar();
+        }
+    }
+    
+    @Override
+    public ResultadoLote atualizarEmLote(List<Produto> produtos, ModoLote modo) {
+        try {
+            return repository.atualizarEmLote(produtos, modo);
+        } finally {
+            avancar();
+        }
+    }
+    
+    @Override
+    public ResultadoLote deletarEmLote(List<Long> ids, ModoLote modo) {
+        try {
+            return repository.deletarEmLote(ids, modo);
+        } finally {
+            avancar();
+        }
+    }
+    
+    @Override
+    public void registrarOuvinte(OuvinteProduto ouvinte, boolean entregarExistentes) {
+        repository.registrarOuvinte(ouvinte, entregarExistentes);
+    }
+    
+    @Override
+    public void close() throws Exception {
+        if (repository instanceof AutoCloseable recurso) {
+            recurso.close();
+        }
+    }
+    
+    private void avancar() {
+        numero.incrementAndGet();
+        modificadoEm.accumulateAndGet(relogio.getAsLong(), Math::max);
+    }
+}
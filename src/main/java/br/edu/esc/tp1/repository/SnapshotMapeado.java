@@ -0,0 +1,211 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Snapshot binário do catálogo lido por mapeamento de memória. Layout:
+ * <pre>
+ * cabeçalho (32 bytes): mágico, versão, quantidade, posição da tabela
+ * dados: produtos codificados, nunca atravessando um segmento de 1 GiB
+ * tabela: pares (id, posição) ordenados por id
+ * </pre>
+ * Abrir o arquivo só mapeia as regiões; cada {@link Produto} é decodificado quando pedido.
+ */
+final class SnapshotMapeado {
+    
+    private static final int MAGICO = 0x50524F44;
+    private static final int VERSAO = 3;
+    private static final int CABECALHO = 32;
+    private static final int ENTRADA_TABELA = Long.BYTES * 2;
+    private static final int TAMANHO_SEGMENTO = 1 << 30;
+    private static final int BUFFER_ESCRITA = 1 << 20;
+    
+    private final int quantidade;
+    private final ByteBuffer tabela;
+    private final MappedByteBuffer[] segmentos;
+    
+    private SnapshotMapeado(int quantidade, ByteBuffer tabela, MappedByteBuffer[] segmentos) {
+        this.quantidade = quantidade;
+        this.tabela = tabela;
+        this.segmentos = segmentos;
+    }
+    
+    static SnapshotMapeado vazio() {
+        return new SnapshotMapeado(0, ByteBuffer.allocate(0), new MappedByteBuffer[0]);
+    }
+    
+    static SnapshotMapeado abrir(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+            while (cabecalho.hasRemaining() && canal.read(cabecalho) >= 0) {
+                // lê até completar o cabeçalho
+            }
+            cabecalho.flip();
+            if (cabecalho.remaining() < CABECALHO || cabecalho.getInt() != MAGICO) {
+                throw new IOException("Snapshot inválido: " + arquivo);
+            }
+            if (cabecalho.getInt() != VERSAO) {
+                throw new IOException("Snapshot inválido: " + arquivo);
+            }
+            long quantidade = cabecalho.getLong();
+            long posicaoTabela = cabecalho.getLong();
+            long tamanhoTabela = quantidade * ENTRADA_TABELA;
+            if (quantidade < 0 || quantidade > Integer.MAX_VALUE / ENTRADA_TABELA
+                    || posicaoTabela + tamanhoTabela != canal.size()) {
+                throw new IOException("Snapshot incompleto: " + arquivo);
+            }
+            ByteBuffer tabela = canal.map(FileChannel.MapMode.READ_ONLY, posicaoTabela, tamanhoTabela);
+            int quantidadeSegmentos = (int) ((posicaoTabela + TAMANHO_SEGMENTO - 1) / TAMANHO_SEGMENTO);
+            MappedByteBuffer[] segmentos = new MappedByteBuffer[quantidadeSegmentos];
+            for (int i = 0; i < quantidadeSegmentos; i++) {
+                long inicio = (long) i * TAMANHO_SEGMENTO;
+                segmentos[i] = canal.map(FileChannel.MapMode.READ_ONLY, inicio,
+                                         Math.min(TAMANHO_SEGMENTO, posicaoTabela - inicio));
+            }
+            return new SnapshotMapeado((int) quantidade, tabela, segmentos);
+        }
+    }
+    
+    /**
+     * Grava os produtos em um novo arquivo, já ordenando por id, e força o conteúdo para o disco.
+     */
+    static void gravar(Path arquivo, List<Produto> produtos) throws IOException {
+        List<Produto> ordenados = produtos.stream().sorted(Comparator.comparing(Produto::getId)).toList();
+        long[] posicoes = new long[ordenados.size()];
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_ESCRITA);
+            long posicao = CABECALHO;
+            canal.position(posicao);
+            for (int i = 0; i < ordenados.size(); i++) {
+                byte[] registro = codificar(ordenados.get(i));
+                long fimDoSegmento = (posicao / TAMANHO_SEGMENTO + 1) * TAMANHO_SEGMENTO;
+                if (posicao + registro.length > fimDoSegmento) {
+                    descarregar(canal, buffer);
+                    posicao = fimDoSegmento;
+                    canal.position(posicao);
+                }
+                if (buffer.remaining() < registro.length) {
+                    descarregar(canal, buffer);
+                }
+                if (registro.length > buffer.capacity()) {
+                    escreverTudo(canal, ByteBuffer.wrap(registro));
+                } else {
+                    buffer.put(registro);
+                }
+                posicoes[i] = posicao;
+                posicao += registro.length;
+            }
+            descarregar(canal, buffer);
+            long posicaoTabela = posicao;
+            for (int i = 0; i < ordenados.size(); i++) {
+                if (buffer.remaining() < ENTRADA_TABELA) {
+                    descarregar(canal, buffer);
+                }
+                buffer.putLong(ordenados.get(i).getId()).putLong(posicoes[i]);
+            }
+            descarregar(canal, buffer);
+            ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO)
+                .putInt(MAGICO).putInt(VERSAO).putLong(ordenados.size()).putLong(posicaoTabela);
+            cabecalho.flip();
+            canal.position(0);
+            escreverTudo(canal, cabecalho);
+            canal.force(true);
+        }
+    }
+    
+    int quantidade() {
+        return quantidade;
+    }
+    
+    long id(int indice) {
+        return tabela.getLong(indice * ENTRADA_TABELA);
+    }
+    
+    Produto produto(int indice) {
+        long posicao = tabela.getLong(indice * ENTRADA_TABELA + Long.BYTES);
+        ByteBuffer segmento = segmentos[(int) (posicao / TAMANHO_SEGMENTO)];
+        return decodificar(segmento, (int) (posicao % TAMANHO_SEGMENTO));
+    }
+    
+    /**
+     * Posição do id na tabela, ou um valor negativo se não estiver no snapshot.
+     */
+    int indiceDe(long id) {
+        int inicio = 0;
+        int fim = quantidade - 1;
+        while (inicio <= fim) {
+            int meio = (inicio + fim) >>> 1;
+            long atual = id(meio);
+            if (atual < id) {
+                inicio = meio + 1;
+            } else if (atual > id) {
+                fim = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -1;
+    }
+    
+    private static byte[] codificar(Produto produto) {
+        byte[] nome = produto.getNome().getBytes(StandardCharsets.UTF_8);
+        byte[] descricao = produto.getDescricao().getBytes(StandardCharsets.UTF_8);
+        byte[] precoSemEscala = produto.getPreco().unscaledValue().toByteArray();
+        ByteBuffer registro = ByteBuffer.allocate(Long.BYTES * 2 + Integer.BYTES * 5
+                + nome.length + descricao.length + precoSemEscala.length);
+        registro.putLong(produto.getId())
+            .putLong(produto.getVersao())
+            .putInt(produto.getQuantidadeEstoque())
+            .putInt(produto.getPreco().scale())
+            .putInt(precoSemEscala.length).put(precoSemEscala)
+            .putInt(nome.length).put(nome)
+            .putInt(descricao.length).put(descricao);
+        return registro.array();
+    }
+    
+    private Produto decodificar(ByteBuffer segmento, int inicio) {
+        long id = segmento.getLong(inicio);
+        long versao = segmento.getLong(inicio + 8);
+        int quantidadeEstoque = segmento.getInt(inicio + 16);
+        int escala = segmento.getInt(inicio + 20);
+        int tamanhoPreco = segmento.getInt(inicio + 24);
+        byte[] precoSemEscala = new byte[tamanhoPreco];
+        segmento.get(inicio + 28, precoSemEscala);
+        int posicaoNome = inicio + 28 + tamanhoPreco;
+        String nome = lerTexto(segmento, posicaoNome);
+        String descricao = lerTexto(segmento, posicaoNome + Integer.BYTES + segmento.getInt(posicaoNome));
+        BigDecimal preco = new BigDecimal(new BigInteger(precoSemEscala), escala);
+        return Produto.criar(id, nome, descricao, preco, quantidadeEstoque, versao);
+    }
+    
+    private static String lerTexto(ByteBuffer segmento, int posicao) {
+        byte[] bytes = new byte[segmento.getInt(posicao)];
+        segmento.get(posicao + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void descarregar(FileChannel canal, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        escreverTudo(canal, buffer);
+        buffer.clear();
+    }
+    
+    private static void escreverTudo(FileChannel canal, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+}
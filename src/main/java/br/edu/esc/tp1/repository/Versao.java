@@ -0,0 +1,17 @@
+package br.edu.esc.tp1.repository;
+
+/**
+ * Versão do catálogo ou de um produto, para validar cópias guardadas por clientes.
+ *
+ * @param epoca        identifica a instância do repositório; muda a cada reinício, quando os
+ *                     números recomeçam
+ * @param numero       cresce a cada escrita que pode ter alterado o conteúdo
+ * @param modificadoEm instante da última dessas escritas, em milissegundos desde a época Unix
+ */
+public record Versao(long epoca, long numero, long modificadoEm) {
+    
+    /** Valor opaco para o cabeçalho ETag, sem aspas. */
+    public String etag() {
+        return Long.toString(epoca, 36) + "-" + Long.toString(numero, 36);
+    }
+}
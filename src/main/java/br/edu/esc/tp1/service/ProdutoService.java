@@ -1,25 +1,53 @@
 package br.edu.esc.tp1.service;
 
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.HistogramaPrecos;
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
 import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.domain.ResumoCatalogo;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import br.edu.esc.tp1.repository.CatalogoColunar;
 import br.edu.esc.tp1.repository.ProdutoRepository;
+import br.edu.esc.tp1.repository.Versao;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class ProdutoService {
     
     private final ProdutoRepository repository;
+    private final CatalogoColunar catalogo;
     
     public ProdutoService(ProdutoRepository repository) {
+        this(repository, null);
+    }
+    
+    /**
+     * @param catalogo cópia colunar registrada como ouvinte do repositório (ou criada por
+     *                 {@link CatalogoColunar#sobDemanda}); se for nula, cada
+     *                 agregação monta uma cópia temporária a partir de {@code listarTodos()}
+     */
+    public ProdutoService(ProdutoRepository repository, CatalogoColunar catalogo) {
         if (repository == null) {
             throw new IllegalArgumentException("Repositório não pode ser nulo");
         }
         this.repository = repository;
+        this.catalogo = catalogo;
     }
     
     public void criarProduto(Long id, String nome, String descricao, 
                             BigDecimal preco, Integer quantidadeEstoque) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID do produto não pode ser nulo");
+        }
         Produto produto = Produto.criar(id, nome, descricao, preco, quantidadeEstoque);
         repository.criar(produto);
     }
@@ -28,17 +56,126 @@ public class ProdutoService {
         return repository.buscarPorId(id);
     }
     
+    /** Produtos encontrados, na ordem dos ids; uma só chamada ao repositório. */
+    public Map<Long, Produto> buscarProdutos(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Lista de ids não pode ser nula");
+        }
+        return repository.buscarPorIds(ids);
+    }
+    
     public List<Produto> listarProdutos() {
         return repository.listarTodos();
     }
     
-    public void atualizarProduto(Long id, String nome, String descricao, 
-                                BigDecimal preco, Integer quantidadeEstoque) {
-        Produto produtoAtualizado = Produto.criar(id, nome, descricao, preco, quantidadeEstoque);
+    /** Percorre o catálogo sem copiá-lo; veja {@link ProdutoRepository#percorrerTodos()}. */
+    public Iterator<Produto> percorrerProdutos() {
+        return repository.percorrerTodos();
+    }
+    
+    public Pagina<Produto> listarPagina(int numero, int tamanho, OrdenacaoProduto ordenacao) {
+        return repository.listarPagina(numero, tamanho, ordenacao);
+    }
+    
+    /** Página por cursor; veja {@link ProdutoRepository#listarPagina(ChavePagina, int, int)}. */
+    public Pagina<Produto> listarPagina(ChavePagina chave, int numero, int tamanho) {
+        return repository.listarPagina(chave, numero, tamanho);
+    }
+    
+    public Pagina<Produto> buscarPorTexto(String consulta, int numero, int tamanho) {
+        return repository.buscarPorTexto(consulta, numero, tamanho);
+    }
+    
+    public List<Produto> buscarPorFaixaDePreco(BigDecimal minimo, BigDecimal maximo) {
+        return repository.buscarPorFaixaDePreco(minimo, maximo);
+    }
+    
+    public List<Produto> buscarComEstoqueAbaixoDe(int limite) {
+        return repository.buscarComEstoqueAbaixoDe(limite);
+    }
+    
+    public ResultadoLote criarEmLote(List<Produto> produtos, ModoLote modo) {
+        return repository.criarEmLote(produtos, modo);
+    }
+    
+    public ResultadoLote atualizarEmLote(List<Produto> produtos, ModoLote modo) {
+        return repository.atualizarEmLote(produtos, modo);
+    }
+    
+    public ResultadoLote deletarEmLote(List<Long> ids, ModoLote modo) {
+        return repository.deletarEmLote(ids, modo);
+    }
+    
+    public Optional<Versao> versaoCatalogo() {
+        return repository.versao();
+    }
+    
+    /**
+     * Versão de um produto já lido: a {@code versao} dele na época do catálogo, com o instante da
+     * última escrita no catálogo, que nunca é anterior ao da última escrita no produto.
+     */
+    public Optional<Versao> versaoProduto(Produto produto) {
+        return repository.versao()
+            .map(catalogo -> new Versao(catalogo.epoca(), produto.getVersao(), catalogo.modificadoEm()));
+    }
+    
+    public ResumoCatalogo resumirCatalogo() {
+        return catalogoParaAgregar().resumir();
+    }
+    
+    public HistogramaPrecos histogramaDePrecos(BigDecimal larguraFaixa, int quantidadeFaixas) {
+        return catalogoParaAgregar().histogramaDePrecos(larguraFaixa, quantidadeFaixas);
+    }
+    
+    public Produto atualizarProduto(Long id, String nome, String descricao, 
+                                   BigDecimal preco, Integer quantidadeEstoque) {
+        return atualizarProduto(id, nome, descricao, preco, quantidadeEstoque, 0);
+    }
+    
+    /**
+     * Atualiza só se o produto ainda estiver em {@code versaoEsperada}, a versão em que foi lido;
+     * senão lança {@link br.edu.esc.tp1.exception.ConflitoVersaoException}. Com 0 atualiza sem conferir.
+     * Devolve o produto como ficou guardado, já na versão nova; se outra escrita chegar logo depois,
+     * pode ser a dela.
+     */
+    public Produto atualizarProduto(Long id, String nome, String descricao, 
+                                   BigDecimal preco, Integer quantidadeEstoque, long versaoEsperada) {
+        Produto produtoAtualizado = Produto.criar(id, nome, descricao, preco, quantidadeEstoque,
+            versaoEsperada);
         repository.atualizar(produtoAtualizado);
+        return repository.buscarPorId(id).orElseThrow(() -> new ProdutoNaoEncontradoException(id));
+    }
+    
+    /**
+     * Cria o produto ou atualiza o existente numa só chamada ao repositório, informando qual dos
+     * dois aconteceu. Com {@code versaoEsperada} diferente de 0 só atualiza, e só se o produto
+     * ainda estiver nessa versão; veja {@link ProdutoRepository#criarOuAtualizar}.
+     */
+    public ResultadoGravacao criarOuAtualizarProduto(Long id, String nome, String descricao,
+                                                     BigDecimal preco, Integer quantidadeEstoque,
+                                                     long versaoEsperada) {
+        Produto produto = Produto.criar(id, nome, descricao, preco, quantidadeEstoque, versaoEsperada);
+        return repository.criarOuAtualizar(produto);
     }
     
     public void deletarProduto(Long id) {
         repository.deletar(id);
     }
+    
+    /**
+     * Tira unidades do estoque num passo só, sem ler e regravar o produto inteiro; devolve o
+     * estoque que sobrou. Veja {@link ProdutoRepository#reservarEstoque}.
+     */
+    public int reservarEstoque(Long id, int quantidade) {
+        return repository.reservarEstoque(id, quantidade);
+    }
+    
+    /** Devolve ao estoque unidades reservadas antes; retorna o estoque novo. */
+    public int devolverEstoque(Long id, int quantidade) {
+        return repository.devolverEstoque(id, quantidade);
+    }
+    
+    private CatalogoColunar catalogoParaAgregar() {
+        return catalogo != null ? catalogo : CatalogoColunar.de(repository.listarTodos());
+    }
 }
@@ -0,0 +1,194 @@
+package br.edu.esc.tp1.service;
+
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
+import br.edu.esc.tp1.domain.Produto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fachada sem bloqueio sobre o {@link ProdutoService}: cada operação devolve um
+ * {@link CompletableFuture} e roda no executor, nunca na thread de quem chama.
+ * <p>
+ * Buscas por id são agrupadas: os pedidos entram numa fila e um único despachante por vez os
+ * junta em uma chamada a {@link ProdutoService#buscarProdutos}, com até {@value #MAXIMO_POR_LOTE}
+ * ids. Os pedidos que chegam enquanto um lote está no repositório vão juntos no lote seguinte,
+ * então o tamanho dos lotes cresce com a carga sem nenhuma espera proposital.
+ */
+public class ProdutoServiceAssincrono implements AutoCloseable {
+    
+    static final int MAXIMO_POR_LOTE = 1000;
+    
+    private final ProdutoService service;
+    private final Executor executor;
+    private final ExecutorService executorProprio;
+    private final ConcurrentLinkedQueue<Pedido> pendentes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean despachando = new AtomicBoolean();
+    
+    public ProdutoServiceAssincrono(ProdutoService service, Executor executor) {
+        this(service, executor, null);
+    }
+    
+    /** Usa um executor próprio com o número de threads dado, encerrado no {@link #close()}. */
+    public ProdutoServiceAssincrono(ProdutoService service, int threads) {
+        this(service, null, criarExecutor(threads));
+    }
+    
+    private ProdutoServiceAssincrono(ProdutoService service, Executor executor, ExecutorService executorProprio) {
+        if (service == null) {
+            throw new IllegalArgumentException("Serviço não pode ser nulo");
+        }
+        if (executor == null && executorProprio == null) {
+            throw new IllegalArgumentException("Executor não pode ser nulo");
+        }
+        this.service = service;
+        this.executor = executor != null ? executor : executorProprio;
+        this.executorProprio = executorProprio;
+    }
+    
+    public CompletableFuture<Optional<Produto>> buscarProduto(Long id) {
+        CompletableFuture<Optional<Produto>> resposta = new CompletableFuture<>();
+        if (id == null) {
+            resposta.complete(Optional.empty());
+            return resposta;
+        }
+        pendentes.add(new Pedido(id, resposta));
+        if (despachando.compareAndSet(false, true)) {
+            agendarDespacho();
+        }
+        return resposta;
+    }
+    
+    /** Busca os ids numa só chamada ao repositório; o mapa segue a ordem dos ids. */
+    public CompletableFuture<Map<Long, Produto>> buscarProdutos(Collection<Long> ids) {
+        return CompletableFuture.supplyAsync(() -> service.buscarProdutos(ids), executor);
+    }
+    
+    public CompletableFuture<Pagina<Produto>> listarPagina(int numero, int tamanho, OrdenacaoProduto ordenacao) {
+        return CompletableFuture.supplyAsync(() -> service.listarPagina(numero, tamanho, ordenacao), executor);
+    }
+    
+    public CompletableFuture<Pagina<Produto>> listarPagina(ChavePagina chave, int numero, int tamanho) {
+        return CompletableFuture.supplyAsync(() -> service.listarPagina(chave, numero, tamanho), executor);
+    }
+    
+    public CompletableFuture<Pagina<Produto>> buscarPorTexto(String consulta, int numero, int tamanho) {
+        return CompletableFuture.supplyAsync(() -> service.buscarPorTexto(consulta, numero, tamanho), executor);
+    }
+    
+    public CompletableFuture<Void> criarProduto(Long id, String nome, String descricao,
+                                                BigDecimal preco, Integer quantidadeEstoque) {
+        return CompletableFuture.runAsync(
+            () -> service.criarProduto(id, nome, descricao, preco, quantidadeEstoque), executor);
+    }
+    
+    public CompletableFuture<Produto> atualizarProduto(Long id, String nome, String descricao,
+                                                       BigDecimal preco, Integer quantidadeEstoque,
+                                                       long versaoEsperada) {
+        return CompletableFuture.supplyAsync(
+            () -> service.atualizarProduto(id, nome, descricao, preco, quantidadeEstoque, versaoEsperada),
+            executor);
+    }
+    
+    public CompletableFuture<Void> deletarProduto(Long id) {
+        return CompletableFuture.runAsync(() -> service.deletarProduto(id), executor);
+    }
+    
+    /**
+     * Catálogo inteiro como {@link Flow.Publisher}: cada assinante percorre o repositório sem
+     * cópia e só recebe tantos produtos quanto pediu com {@link Flow.Subscription#request}.
+     */
+    public Flow.Publisher<Produto> publicarProdutos() {
+        return new PublicadorProdutos(service::percorrerProdutos, executor);
+    }
+    
+    @Override
+    public void close() {
+        if (executorProprio != null) {
+            executorProprio.shutdown();
+        }
+    }
+    
+    private void agendarDespacho() {
+        try {
+            executor.execute(this::despachar);
+        } catch (RejectedExecutionException e) {
+            despachando.set(false);
+            Pedido pedido;
+            while ((pedido = pendentes.poll()) != null) {
+                pedido.resposta().completeExceptionally(e);
+            }
+        }
+    }
+    
+    private void despachar() {
+        do {
+            List<Pedido> lote = drenar();
+            while (!lote.isEmpty()) {
+                responder(lote);
+                lote = drenar();
+            }
+            despachando.set(false);
+        } while (!pendentes.isEmpty() && despachando.compareAndSet(false, true));
+    }
+    
+    private List<Pedido> drenar() {
+        List<Pedido> lote = new ArrayList<>();
+        Pedido pedido;
+        while (lote.size() < MAXIMO_POR_LOTE && (pedido = pendentes.poll()) != null) {
+            lote.add(pedido);
+        }
+        return lote;
+    }
+    
+    private void responder(List<Pedido> lote) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Pedido pedido : lote) {
+            ids.add(pedido.id());
+        }
+        Map<Long, Produto> encontrados;
+        try {
+            encontrados = service.buscarProdutos(ids);
+        } catch (RuntimeException e) {
+            for (Pedido pedido : lote) {
+                pedido.resposta().completeExceptionally(e);
+            }
+            return;
+        }
+        for (Pedido pedido : lote) {
+            pedido.resposta().complete(Optional.ofNullable(encontrados.get(pedido.id())));
+        }
+    }
+    
+    private static ExecutorService criarExecutor(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Número de threads deve ser maior que zero");
+        }
+        AtomicInteger contador = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, tarefa -> {
+            Thread thread = new Thread(tarefa, "produtos-assincrono-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    private record Pedido(Long id, CompletableFuture<Optional<Produto>> resposta) {
+    }
+}
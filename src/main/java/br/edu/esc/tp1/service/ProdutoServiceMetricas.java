@@ -0,0 +1,389 @@
+package br.edu.esc.tp1.service;
+
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.HistogramaPrecos;
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.domain.ResumoCatalogo;
+import br.edu.esc.tp1.exception.ConflitoVersaoException;
+import br.edu.esc.tp1.exception.EstoqueInsuficienteException;
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import br.edu.esc.tp1.repository.CatalogoColunar;
+import br.edu.esc.tp1.repository.ProdutoRepository;
+import br.edu.esc.tp1.repository.ProdutoRepositoryMetricas;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serviço que mede as próprias operações: um timer {@value #TEMPO} por operação (tag
+ * {@code operacao}) e o contador {@value #EXCECOES} por tipo de exceção lançada (tag
+ * {@code excecao}). Os timers publicam histograma, de onde o Prometheus tira os percentis. Assim
+ * como no {@link ProdutoRepositoryMetricas}, os medidores são criados no construtor e as chamadas
+ * não alocam.
+ */
+public class ProdutoServiceMetricas extends ProdutoService {
+    
+    static final String TEMPO = "produtos.servico";
+    static final String EXCECOES = "produtos.servico.excecoes";
+    /** Faixa dos baldes do histograma: buscas por id ficam na casa do microssegundo. */
+    private static final Duration MENOR_TEMPO_ESPERADO = Duration.ofNanos(500);
+    private static final Duration MAIOR_TEMPO_ESPERADO = Duration.ofSeconds(10);
+    
+    private final Timer criarProduto;
+    private final Timer buscarProduto;
+    private final Timer buscarProdutos;
+    private final Timer listarProdutos;
+    private final Timer listarPagina;
+    private final Timer buscarPorTexto;
+    private final Timer buscarPorFaixaDePreco;
+    private final Timer buscarComEstoqueAbaixoDe;
+    private final Timer criarEmLote;
+    private final Timer atualizarEmLote;
+    private final Timer deletarEmLote;
+    private final Timer resumirCatalogo;
+    private final Timer histogramaDePrecos;
+    private final Timer atualizarProduto;
+    private final Timer criarOuAtualizarProduto;
+    private final Timer deletarProduto;
+    private final Timer reservarEstoque;
+    private final Timer devolverEstoque;
+    private final Counter produtoDuplicado;
+    private final Counter produtoNaoEncontrado;
+    private final Counter estoqueInsuficiente;
+    private final Counter conflitoVersao;
+    private final Counter argumentoInvalido;
+    private final Counter outraExcecao;
+    
+    public ProdutoServiceMetricas(ProdutoRepository repository, CatalogoColunar catalogo, MeterRegistry registro) {
+        super(repository, catalogo);
+        if (registro == null) {
+            throw new IllegalArgumentException("Registro de métricas não pode ser nulo");
+        }
+        this.criarProduto = timer(registro, "criarProduto");
+        this.buscarProduto = timer(registro, "buscarProduto");
+        this.buscarProdutos = timer(registro, "buscarProdutos");
+        this.listarProdutos = timer(registro, "listarProdutos");
+        this.listarPagina = timer(registro, "listarPagina");
+        this.buscarPorTexto = timer(registro, "buscarPorTexto");
+        this.buscarPorFaixaDePreco = timer(registro, "buscarPorFaixaDePreco");
+        this.buscarComEstoqueAbaixoDe = timer(registro, "buscarComEstoqueAbaixoDe");
+        this.criarEmLote = timer(registro, "criarEmLote");
+        this.atualizarEmLote = timer(registro, "atualizarEmLote");
+        this.deletarEmLote = timer(registro, "deletarEmLote");
+        this.resumirCatalogo = timer(registro, "resumirCatalogo");
+        this.histogramaDePrecos = timer(registro, "histogramaDePrecos");
+        this.atualizarProduto = timer(registro, "atualizarProduto");
+        this.criarOuAtualizarProduto = timer(registro, "criarOuAtualizarProduto");
+        this.deletarProduto = timer(registro, "deletarProduto");
+        this.reservarEstoque = timer(registro, "reservarEstoque");
+        this.devolverEstoque = timer(registro, "devolverEstoque");
+        this.produtoDuplicado = contador(registro, ProdutoDuplicadoException.class.getSimpleName());
+        this.produtoNaoEncontrado = contador(registro, ProdutoNaoEncontradoException.class.getSimpleName());
+        this.estoqueInsuficiente = contador(registro, EstoqueInsuficienteException.class.getSimpleName());
+        this.conflitoVersao = contador(registro, ConflitoVersaoException.class.getSimpleName());
+        this.argumentoInvalido = contador(registro, IllegalArgumentException.class.getSimpleName());
+        this.outraExcecao = contador(registro, "outra");
+    }
+    
+    @Override
+    public void criarProduto(Long id, String nome, String descricao,
+                            BigDecimal preco, Integer quantidadeEstoque) {
+        long inicio = System.nanoTime();
+        try {
+            super.criarProduto(id, nome, descricao, preco, quantidadeEstoque);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(criarProduto, inicio);
+        }
+    }
+    
+    @Override
+    public Optional<Produto> buscarProduto(Long id) {
+        long inicio = System.nanoTime();
+        try {
+            return super.buscarProduto(id);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(buscarProduto, inicio);
+        }
+    }
+    
+    @Override
+    public Map<Long, Produto> buscarProdutos(Collection<Long> ids) {
+        long inicio = System.nanoTime();
+        try {
+            return super.buscarProdutos(ids);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(buscarProdutos, inicio);
+        }
+    }
+    
+    @Override
+    public List<Produto> listarProdutos() {
+        long inicio = System.nanoTime();
+        try {
+            return super.listarProdutos();
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(listarProdutos, inicio);
+        }
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(int numero, int tamanho, OrdenacaoProduto ordenacao) {
+        long inicio = System.nanoTime();
+        try {
+            return super.listarPagina(numero, tamanho, ordenacao);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(listarPagina, inicio);
+        }
+    }
+    
+    @Override
+    public Pagina<Produto> listarPagina(ChavePagina chave, int numero, int tamanho) {
+        long inicio = System.nanoTime();
+        try {
+            return super.listarPagina(chave, numero, tamanho);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(listarPagina, inicio);
+        }
+    }
+    
+    @Override
+    public Pagina<Produto> buscarPorTexto(String consulta, int numero, int tamanho) {
+        long inicio = System.nanoTime();
+        try {
+            return super.buscarPorTexto(consulta, numero, tamanho);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(buscarPorTexto, inicio);
+        }
+    }
+    
+    @Override
+    public List<Produto> buscarPorFaixaDePreco(BigDecimal minimo, BigDecimal maximo) {
+        long inicio = System.nanoTime();
+        try {
+            return super.buscarPorFaixaDePreco(minimo, maximo);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(buscarPorFaixaDePreco, inicio);
+        }
+    }
+    
+    @Override
+    public List<Produto> buscarComEstoqueAbaixoDe(int limite) {
+        long inicio = System.nanoTime();
+        try {
+            return super.buscarComEstoqueAbaixoDe(limite);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(buscarComEstoqueAbaixoDe, inicio);
+        }
+    }
+    
+    @Override
+    public ResultadoLote criarEmLote(List<Produto> produtos, ModoLote modo) {
+        long inicio = System.nanoTime();
+        try {
+            return super.criarEmLote(produtos, modo);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(criarEmLote, inicio);
+        }
+    }
+    
+    @Override
+    public ResultadoLote atualizarEmLote(List<Produto> produtos, ModoLote modo) {
+        long inicio = System.nanoTime();
+        try {
+            return super.atualizarEmLote(produtos, modo);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(atualizarEmLote, inicio);
+        }
+    }
+    
+    @Override
+    public ResultadoLote deletarEmLote(List<Long> ids, ModoLote modo) {
+        long inicio = System.nanoTime();
+        try {
+            return super.deletarEmLote(ids, modo);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(deletarEmLote, inicio);
+        }
+    }
+    
+    @Override
+    public ResumoCatalogo resumirCatalogo() {
+        long inicio = System.nanoTime();
+        try {
+            return super.resumirCatalogo();
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(resumirCatalogo, inicio);
+        }
+    }
+    
+    @Override
+    public HistogramaPrecos histogramaDePrecos(BigDecimal larguraFaixa, int quantidadeFaixas) {
+        long inicio = System.nanoTime();
+        try {
+            return super.histogramaDePrecos(larguraFaixa, quantidadeFaixas);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(histogramaDePrecos, inicio);
+        }
+    }
+    
+    @Override
+    public Produto atualizarProduto(Long id, String nome, String descricao,
+                                   BigDecimal preco, Integer quantidadeEstoque, long versaoEsperada) {
+        long inicio = System.nanoTime();
+        try {
+            return super.atualizarProduto(id, nome, descricao, preco, quantidadeEstoque, versaoEsperada);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(atualizarProduto, inicio);
+        }
+    }
+    
+    @Override
+    public ResultadoGravacao criarOuAtualizarProduto(Long id, String nome, String descricao,
+                                                     BigDecimal preco, Integer quantidadeEstoque,
+                                                     long versaoEsperada) {
+        long inicio = System.nanoTime();
+        try {
+            return super.criarOuAtualizarProduto(id, nome, descricao, preco, quantidadeEstoque, versaoEsperada);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(criarOuAtualizarProduto, inicio);
+        }
+    }
+    
+    @Override
+    public void deletarProduto(Long id) {
+        long inicio = System.nanoTime();
+        try {
+            super.deletarProduto(id);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(deletarProduto, inicio);
+        }
+    }
+    
+    @Override
+    public int reservarEstoque(Long id, int quantidade) {
+        long inicio = System.nanoTime();
+        try {
+            return super.reservarEstoque(id, quantidade);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(reservarEstoque, inicio);
+        }
+    }
+    
+    @Override
+    public int devolverEstoque(Long id, int quantidade) {
+        long inicio = System.nanoTime();
+        try {
+            return super.devolverEstoque(id, quantidade);
+        } catch (RuntimeException e) {
+            contar(e);
+            throw e;
+        } finally {
+            registrar(devolverEstoque, inicio);
+        }
+    }
+    
+    private void contar(RuntimeException e) {
+        if (e instanceof ProdutoDuplicadoException) {
+            produtoDuplicado.increment();
+        } else if (e instanceof ProdutoNaoEncontradoException) {
+            produtoNaoEncontrado.increment();
+        } else if (e instanceof EstoqueInsuficienteException) {
+            estoqueInsuficiente.increment();
+        } else if (e instanceof ConflitoVersaoException) {
+            conflitoVersao.increment();
+        } else if (e instanceof IllegalArgumentException) {
+            argumentoInvalido.increment();
+        } else {
+            outraExcecao.increment();
+        }
+    }
+    
+    private static void registrar(Timer timer, long inicio) {
+        timer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+    }
+    
+    private static Timer timer(MeterRegistry registro, String operacao) {
+        return Timer.builder(TEMPO)
+            .description("Tempo das operações do serviço de produtos")
+            .tag("operacao", operacao)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(MENOR_TEMPO_ESPERADO)
+            .maximumExpectedValue(MAIOR_TEMPO_ESPERADO)
+            .register(registro);
+    }
+    
+    private static Counter contador(MeterRegistry registro, String excecao) {
+        return Counter.builder(EXCECOES)
+            .description("Exceções lançadas pelo serviço de produtos, por tipo")
+            .tag("excecao", excecao)
+            .register(registro);
+    }
+}
@@ -0,0 +1,108 @@
+package br.edu.esc.tp1.service;
+
+import br.edu.esc.tp1.domain.Produto;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publica um percurso do catálogo respeitando a demanda do assinante: o iterador só avança
+ * quando há pedidos em aberto, e os sinais saem sempre de uma tarefa por vez no executor, nunca
+ * de dentro de {@link Flow.Subscription#request}. Cada assinatura abre o próprio percurso.
+ */
+final class PublicadorProdutos implements Flow.Publisher<Produto> {
+    
+    private final Supplier<Iterator<Produto>> percurso;
+    private final Executor executor;
+    
+    PublicadorProdutos(Supplier<Iterator<Produto>> percurso, Executor executor) {
+        this.percurso = percurso;
+        this.executor = executor;
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super Produto> assinante) {
+        Objects.requireNonNull(assinante, "Assinante não pode ser nulo");
+        assinante.onSubscribe(new Assinatura(assinante));
+    }
+    
+    private final class Assinatura implements Flow.Subscription {
+    
+        private final Flow.Subscriber<? super Produto> assinante;
+        private final AtomicLong demanda = new AtomicLong();
+        private final AtomicInteger agendamentos = new AtomicInteger();
+        private volatile boolean encerrada;
+        private volatile IllegalArgumentException pedidoInvalido;
+        /** Só é tocado dentro de {@link #emitir()}, que nunca roda em duas threads ao mesmo tempo. */
+        private Iterator<Produto> produtos;
+    
+        Assinatura(Flow.Subscriber<? super Produto> assinante) {
+            this.assinante = assinante;
+        }
+    
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                pedidoInvalido = new IllegalArgumentException("Demanda deve ser maior que zero: " + n);
+            } else {
+                demanda.accumulateAndGet(n, (atual, pedido) -> atual + pedido < 0 ? Long.MAX_VALUE : atual + pedido);
+            }
+            agendar();
+        }
+    
+        @Override
+        public void cancel() {
+            encerrada = true;
+        }
+    
+        private void agendar() {
+            if (agendamentos.getAndIncrement() == 0) {
+                executor.execute(this::emitir);
+            }
+        }
+    
+        private void emitir() {
+            int pendentes = 1;
+            do {
+                if (!encerrada) {
+                    emitirPedidos();
+                }
+                pendentes = agendamentos.addAndGet(-pendentes);
+            } while (pendentes != 0);
+        }
+    
+        private void emitirPedidos() {
+            if (pedidoInvalido != null) {
+                encerrada = true;
+                assinante.onError(pedidoInvalido);
+                return;
+            }
+            long pedidos = demanda.get();
+            long emitidos = 0;
+            try {
+                if (produtos == null) {
+                    produtos = percurso.get();
+                }
+                while (emitidos < pedidos && !encerrada && produtos.hasNext()) {
+                    assinante.onNext(produtos.next());
+                    emitidos++;
+                }
+                if (!encerrada && !produtos.hasNext()) {
+                    encerrada = true;
+                    assinante.onComplete();
+                }
+            } catch (RuntimeException e) {
+                encerrada = true;
+                assinante.onError(e);
+            }
+            if (pedidos != Long.MAX_VALUE) {
+                demanda.addAndGet(-emitidos);
+            }
+        }
+    }
+}
@@ -1,15 +1,32 @@
 package br.edu.esc.tp1.ui;
 
+import br.edu.esc.tp1.csv.ExportadorCsv;
+import br.edu.esc.tp1.csv.ImportadorParalelo;
+import br.edu.esc.tp1.csv.MetricasImportacao;
+import br.edu.esc.tp1.csv.RelatorioImportacao;
+import br.edu.esc.tp1.domain.Pagina;
 import br.edu.esc.tp1.domain.Produto;
 import br.edu.esc.tp1.service.ProdutoService;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class ConsoleUI {
     
+    private static final int RESULTADOS_POR_BUSCA = 20;
+    
     private final ProdutoService service;
     private final Scanner scanner;
     
@@ -45,6 +62,9 @@ public class ConsoleUI {
         System.out.println("3. Listar todos os produtos");
         System.out.println("4. Atualizar produto");
         System.out.println("5. Deletar produto");
+        System.out.println("6. Buscar produtos por nome ou descrição");
+        System.out.println("7. Importar produtos de CSV");
+        System.out.println("8. Exportar produtos para CSV");
         System.out.println("0. Sair");
         System.out.print("\nEscolha uma opção: ");
     }
@@ -64,6 +84,9 @@ public class ConsoleUI {
             case 3 -> listarProdutos();
             case 4 -> atualizarProduto();
             case 5 -> deletarProduto();
+            case 6 -> buscarPorTexto();
+            case 7 -> importarCsv();
+            case 8 -> exportarCsv();
             case 0 -> {
                 return false;
             }
@@ -144,6 +167,67 @@ public class ConsoleUI {
         }
     }
     
+    private void buscarPorTexto() {
+        System.out.println("\n--- Buscar Produtos ---");
+        String consulta = lerString("Texto: ");
+        
+        Pagina<Produto> resultado = service.buscarPorTexto(consulta, 0, RESULTADOS_POR_BUSCA);
+        if (resultado.isVazia()) {
+            System.out.println("Nenhum produto encontrado.");
+            return;
+        }
+        resultado.getConteudo().forEach(this::exibirProduto);
+        System.out.printf("%nMostrando %d de %d resultado(s).%n",
+                         resultado.getConteudo().size(), resultado.getTotalElementos());
+    }
+    
+    private void importarCsv() {
+        System.out.println("\n--- Importar CSV ---");
+        String arquivo = lerString("Arquivo: ");
+        
+        MetricasImportacao metricas = new MetricasImportacao();
+        ScheduledExecutorService relogio = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "progresso-importacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relogio.scheduleAtFixedRate(() -> exibirProgresso(metricas.instantaneo()), 1, 1, TimeUnit.SECONDS);
+        try (Reader reader = Files.newBufferedReader(Path.of(arquivo), StandardCharsets.UTF_8)) {
+            RelatorioImportacao relatorio = new ImportadorParalelo(service).importar(reader, metricas);
+            relogio.shutdownNow();
+            System.out.printf("%n✓ %d de %d produto(s) importado(s) em %.1f s.%n",
+                             relatorio.getImportados(), relatorio.getRegistrosLidos(), metricas.instantaneo().segundos());
+            relatorio.getErros().forEach(erro ->
+                System.out.printf("✗ Linha %d: %s%n", erro.linha(), erro.mensagem()));
+            if (relatorio.getTotalErros() > relatorio.getErros().size()) {
+                System.out.printf("... e mais %d erro(s).%n", relatorio.getTotalErros() - relatorio.getErros().size());
+            }
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("\n✗ Erro ao ler arquivo: " + e.getMessage());
+        } finally {
+            relogio.shutdownNow();
+        }
+    }
+    
+    private void exibirProgresso(MetricasImportacao.Progresso progresso) {
+        System.out.printf("  %,d lidos, %,d gravados (%,.0f/s) | ocupação: leitura %.0f%%, conversão %.0f%%, gravação %.0f%%%n",
+                         progresso.lidos(), progresso.gravados(), progresso.gravadosPorSegundo(),
+                         progresso.ocupacaoLeitura() * 100, progresso.ocupacaoConversao() * 100,
+                         progresso.ocupacaoGravacao() * 100);
+    }
+    
+    private void exportarCsv() {
+        System.out.println("\n--- Exportar CSV ---");
+        String arquivo = lerString("Arquivo: ");
+        
+        try (Writer writer = Files.newBufferedWriter(Path.of(arquivo), StandardCharsets.UTF_8)) {
+            long escritos = new ExportadorCsv(service).exportar(writer);
+            System.out.printf("%n✓ %d produto(s) exportado(s) para %s.%n", escritos, arquivo);
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("\n✗ Erro ao gravar arquivo: " + e.getMessage());
+        }
+    }
+    
     private void exibirProduto(Produto produto) {
         System.out.println("\n" + produto);
     }
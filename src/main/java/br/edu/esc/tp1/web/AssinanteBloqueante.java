@@ -0,0 +1,99 @@
+package br.edu.esc.tp1.web;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+
+/**
+ * Assina um {@link Flow.Publisher} e entrega os itens como um {@link Iterator} que bloqueia à
+ * espera do próximo. A demanda acompanha o consumo: pede dois lotes de início e mais um a cada
+ * lote consumido, então a fila nunca passa de dois lotes e um cliente lento segura o publicador
+ * em vez de acumular itens na memória.
+ */
+final class AssinanteBloqueante<T> implements Flow.Subscriber<T>, Iterator<T> {
+
+    private static final Object FIM = new Object();
+
+    private final int lote;
+    private final BlockingQueue<Object> fila;
+    private volatile Flow.Subscription assinatura;
+    private int consumidosNoLote;
+    private Object proximo;
+
+    AssinanteBloqueante(int lote) {
+        if (lote <= 0) {
+            throw new IllegalArgumentException("Lote deve ser maior que zero");
+        }
+        this.lote = lote;
+        this.fila = new ArrayBlockingQueue<>(2 * lote + 1);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription assinatura) {
+        this.assinatura = assinatura;
+        assinatura.request(2L * lote);
+    }
+
+    @Override
+    public void onNext(T item) {
+        fila.add(item);
+    }
+
+    @Override
+    public void onError(Throwable erro) {
+        fila.add(new Falha(erro));
+    }
+
+    @Override
+    public void onComplete() {
+        fila.add(FIM);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (proximo == null) {
+            try {
+                proximo = fila.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelar();
+                throw new IllegalStateException("Interrompido à espera do próximo item", e);
+            }
+        }
+        if (proximo instanceof Falha falha) {
+            if (falha.erro() instanceof RuntimeException e) {
+                throw e;
+            }
+            throw new IllegalStateException(falha.erro());
+        }
+        return proximo != FIM;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T item = (T) proximo;
+        proximo = null;
+        if (++consumidosNoLote == lote) {
+            consumidosNoLote = 0;
+            assinatura.request(lote);
+        }
+        return item;
+    }
+
+    /** Para o publicador; usado quando quem consome desiste antes do fim. */
+    void cancelar() {
+        Flow.Subscription atual = assinatura;
+        if (atual != null) {
+            atual.cancel();
+        }
+    }
+
+    private record Falha(Throwable erro) {
+    }
+}
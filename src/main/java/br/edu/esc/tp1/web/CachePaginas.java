@@ -0,0 +1,164 @@
+package br.edu.esc.tp1.web;
+
+import br.edu.esc.tp1.repository.Versao;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Páginas já geradas pelo template, guardadas como os bytes UTF-8 enviados ao cliente. Cada página
+ * leva o número da versão do catálogo lida antes de consultar o repositório e só é servida enquanto
+ * o catálogo estiver nessa versão; a primeira página gerada numa versão mais nova descarta as
+ * outras. Páginas geradas numa versão já superada não são guardadas. Além da versão, a capacidade
+ * limita o número de páginas, com despejo da menos usada.
+ * <p>
+ * Como {@link MeterBinder}, publica acertos e faltas em {@value #CONSULTAS} (tag {@code resultado})
+ * e o tempo de geração em {@value #RENDERIZACAO}, lidos dos mesmos contadores das estatísticas.
+ */
+public class CachePaginas implements MeterBinder {
+
+    static final String CONSULTAS = "produtos.listagem.cache";
+    static final String RENDERIZACAO = "produtos.listagem.renderizacao";
+
+    public record Estatisticas(long acertos, long faltas, double taxaDeAcerto, long renderizacoes,
+                               double renderizacaoMediaMs, double renderizacaoMaximaMs, int paginas, long bytes) {
+    }
+
+    private final ViewResolver resolvedor;
+    private final int capacidade;
+    private final LinkedHashMap<String, PaginaGerada> paginas = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder renderizacoes = new LongAdder();
+    private final LongAdder nanosRenderizando = new LongAdder();
+    private final AtomicLong maiorRenderizacao = new AtomicLong();
+    private long versaoAtual = Long.MIN_VALUE;
+
+    public CachePaginas(ViewResolver resolvedor, int capacidade) {
+        if (resolvedor == null) {
+            throw new IllegalArgumentException("Resolvedor de views não pode ser nulo");
+        }
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade do cache de páginas deve ser maior que zero");
+        }
+        this.resolvedor = resolvedor;
+        this.capacidade = capacidade;
+    }
+
+    /** A página guardada para a chave, se foi gerada nesta versão; senão {@code null}. */
+    View emCache(String chave, Versao versao) {
+        synchronized (paginas) {
+            PaginaGerada pagina = paginas.get(chave);
+            if (pagina != null && pagina.versao() == versao.numero()) {
+                acertos.increment();
+                return pagina;
+            }
+        }
+        faltas.increment();
+        return null;
+    }
+
+    /** View que gera a página com o template e guarda o resultado para a chave e a versão. */
+    View gravando(String chave, Versao versao, String nomeView, Locale locale) throws Exception {
+        View view = resolvedor.resolveViewName(nomeView, locale);
+        if (view == null) {
+            throw new IllegalStateException("View não encontrada: " + nomeView);
+        }
+        return (model, request, response) -> {
+            ContentCachingResponseWrapper captura = new ContentCachingResponseWrapper(response);
+            long inicio = System.nanoTime();
+            view.render(model, request, captura);
+            registrarRenderizacao(System.nanoTime() - inicio);
+            if (captura.getStatus() == HttpServletResponse.SC_OK) {
+                guardar(chave, new PaginaGerada(versao.numero(), captura.getContentAsByteArray(), captura.getContentType()));
+            }
+            captura.copyBodyToResponse();
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registro) {
+        FunctionCounter.builder(CONSULTAS, acertos, LongAdder::sum)
+                .description("Consultas ao cache de páginas da listagem")
+                .tag("resultado", "acerto")
+                .register(registro);
+        FunctionCounter.builder(CONSULTAS, faltas, LongAdder::sum)
+                .description("Consultas ao cache de páginas da listagem")
+                .tag("resultado", "falta")
+                .register(registro);
+        FunctionTimer.builder(RENDERIZACAO, this, c -> c.renderizacoes.sum(), c -> c.nanosRenderizando.sum(),
+                        TimeUnit.NANOSECONDS)
+                .description("Geração das páginas da listagem pelo template")
+                .register(registro);
+    }
+
+    public Estatisticas estatisticas() {
+        long a = acertos.sum();
+        long f = faltas.sum();
+        long r = renderizacoes.sum();
+        int quantidade;
+        long bytes = 0;
+        synchronized (paginas) {
+            quantidade = paginas.size();
+            for (PaginaGerada pagina : paginas.values()) {
+                bytes += pagina.corpo().length;
+            }
+        }
+        return new Estatisticas(a, f, a + f == 0 ? 0 : (double) a / (a + f), r,
+                r == 0 ? 0 : nanosRenderizando.sum() / 1e6 / r, maiorRenderizacao.get() / 1e6, quantidade, bytes);
+    }
+
+    private void guardar(String chave, PaginaGerada pagina) {
+        synchronized (paginas) {
+            if (pagina.versao() < versaoAtual) {
+                return;
+            }
+            if (pagina.versao() > versaoAtual) {
+                paginas.clear();
+                versaoAtual = pagina.versao();
+            }
+            paginas.put(chave, pagina);
+            if (paginas.size() > capacidade) {
+                Iterator<String> menosUsada = paginas.keySet().iterator();
+                menosUsada.next();
+                menosUsada.remove();
+            }
+        }
+    }
+
+    private void registrarRenderizacao(long nanos) {
+        renderizacoes.increment();
+        nanosRenderizando.add(nanos);
+        maiorRenderizacao.accumulateAndGet(nanos, Math::max);
+    }
+
+    private record PaginaGerada(long versao, byte[] corpo, String contentType) implements View {
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public void render(Map<String, ?> model, HttpServletRequest request,
+                           HttpServletResponse response) throws Exception {
+            response.setContentType(contentType);
+            response.setContentLength(corpo.length);
+            response.getOutputStream().write(corpo);
+        }
+    }
+}
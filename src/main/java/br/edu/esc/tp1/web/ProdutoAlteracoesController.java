@@ -0,0 +1,105 @@
+package br.edu.esc.tp1.web;
+
+import br.edu.esc.tp1.repository.Alteracao;
+import br.edu.esc.tp1.repository.FluxoAlteracoes;
+import br.edu.esc.tp1.repository.OuvinteAlteracoes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Alterações do catálogo em Server-Sent Events, lidas do {@link FluxoAlteracoes}. Cada evento tem o
+ * nome do tipo ({@code criado}, {@code atualizado}, {@code removido}), a alteração em JSON e o id
+ * {@code <época>-<sequência>}; o navegador reenvia esse id em {@code Last-Event-ID} ao reconectar
+ * e a entrega continua de onde parou. Sem o cabeçalho, {@code ?desde=} escolhe a primeira
+ * sequência; sem nenhum dos dois, só vêm as próximas alterações.
+ * <p>
+ * O evento {@code perda} avisa que alterações ficaram para trás, seja porque saíram do buffer,
+ * seja porque o id é de outra época (o servidor reiniciou): quem mantém uma cópia deve recarregá-la.
+ */
+@RestController
+public class ProdutoAlteracoesController {
+
+    public record Perda(long primeira, long ultima) {
+    }
+
+    private final FluxoAlteracoes fluxo;
+    private final long tempoLimiteMs;
+    private final String epoca;
+
+    public ProdutoAlteracoesController(FluxoAlteracoes fluxo,
+                                       @Value("${tp1.alteracoes.sse-tempo-limite:30m}") Duration tempoLimite) {
+        this.fluxo = fluxo;
+        this.tempoLimiteMs = tempoLimite.toMillis();
+        this.epoca = Long.toString(fluxo.epoca(), 36);
+    }
+
+    @GetMapping(path = "/api/produtos/alteracoes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter assinar(@RequestHeader(name = "Last-Event-ID", required = false) String ultimoEvento,
+                              @RequestParam(required = false) Long desde) throws IOException {
+        long proxima = fluxo.ultimaSequencia() + 1;
+        long aPartirDe = proxima;
+        Perda perdaInicial = null;
+        if (ultimoEvento != null) {
+            long sequencia = sequenciaDoEvento(ultimoEvento);
+            if (sequencia >= 0 && sequencia < proxima) {
+                aPartirDe = sequencia + 1;
+            } else {
+                perdaInicial = new Perda(1, proxima - 1);
+            }
+        } else if (desde != null) {
+            if (desde < 1 || desde > proxima) {
+                throw new IllegalArgumentException("Parâmetro desde deve estar entre 1 e " + proxima);
+            }
+            aPartirDe = desde;
+        }
+
+        SseEmitter emissor = new SseEmitter(tempoLimiteMs);
+        if (perdaInicial != null) {
+            emissor.send(eventoDePerda(perdaInicial));
+        }
+        FluxoAlteracoes.Assinatura assinatura = fluxo.assinar(aPartirDe, new OuvinteAlteracoes() {
+            @Override
+            public void aoReceber(Alteracao alteracao) throws Exception {
+                emissor.send(SseEmitter.event()
+                        .id(epoca + "-" + alteracao.sequencia())
+                        .name(alteracao.tipo().name().toLowerCase(Locale.ROOT))
+                        .data(alteracao, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void aoPerder(long primeira, long ultima) throws Exception {
+                emissor.send(eventoDePerda(new Perda(primeira, ultima)));
+            }
+        });
+        emissor.onCompletion(assinatura::cancelar);
+        emissor.onTimeout(assinatura::cancelar);
+        emissor.onError(erro -> assinatura.cancelar());
+        return emissor;
+    }
+
+    /** A sequência do id, ou -1 se o id não é desta época ou não é um id deste fluxo. */
+    private long sequenciaDoEvento(String id) {
+        int separador = id.indexOf('-');
+        if (separador < 0 || !id.substring(0, separador).equals(epoca)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(id.substring(separador + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder eventoDePerda(Perda perda) {
+        return SseEmitter.event().name("perda").data(perda, MediaType.APPLICATION_JSON);
+    }
+}
@@ -0,0 +1,124 @@
+package br.edu.esc.tp1.web;
+
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import br.edu.esc.tp1.service.ProdutoServiceAssincrono;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A mesma API de {@link ProdutoApiController}, com cada resposta montada fora da thread do
+ * servidor: os métodos devolvem o {@link CompletableFuture} da {@link ProdutoServiceAssincrono} e
+ * a thread volta para o Tomcat enquanto o repositório trabalha. Buscas por id de requisições
+ * simultâneas viram um só acesso ao repositório, e {@code GET ?ids=1,2,3} busca vários de uma vez.
+ */
+@RestController
+@RequestMapping(path = "/api/assincrono/produtos", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ProdutoApiAssincronoController {
+
+    /** Produtos pedidos ao publicador por vez no fluxo NDJSON. */
+    static final int LOTE_FLUXO = 256;
+
+    private final ProdutoServiceAssincrono produtoService;
+
+    public ProdutoApiAssincronoController(ProdutoServiceAssincrono produtoService) {
+        this.produtoService = produtoService;
+    }
+
+    /** Por número de página ou, sem limite de distância, pelo cursor {@code depois}/{@code antes} de uma página anterior. */
+    @GetMapping
+    public CompletableFuture<Pagina<Produto>> listar(@RequestParam(defaultValue = "0") int pagina,
+                                                     @RequestParam(defaultValue = "" + ProdutoController.TAMANHO_PAGINA_PADRAO) int tamanho,
+                                                     @RequestParam(defaultValue = "id") String ordem,
+                                                     @RequestParam(required = false) String depois,
+                                                     @RequestParam(required = false) String antes) {
+        OrdenacaoProduto ordenacao = OrdenacaoProduto.deParametro(ordem);
+        ChavePagina cursor = ProdutoController.cursorValido(depois, antes, ordenacao);
+        if (cursor != null) {
+            return produtoService.listarPagina(cursor, Math.max(pagina, 0), ProdutoController.tamanhoValido(tamanho));
+        }
+        return produtoService.listarPagina(ProdutoController.numeroValido(pagina, tamanho),
+                ProdutoController.tamanhoValido(tamanho), ordenacao);
+    }
+
+    /** Os encontrados, na ordem pedida; ids inexistentes ficam de fora. */
+    @GetMapping(params = "ids")
+    public CompletableFuture<Produto[]> buscarVarios(@RequestParam List<Long> ids) {
+        if (ids.size() > ProdutoJsonConverter.MAXIMO_ITENS_LOTE) {
+            throw new IllegalArgumentException("Mais de " + ProdutoJsonConverter.MAXIMO_ITENS_LOTE + " ids");
+        }
+        return produtoService.buscarProdutos(ids).thenApply(encontrados -> encontrados.values().toArray(new Produto[0]));
+    }
+
+    @GetMapping("/busca")
+    public CompletableFuture<Pagina<Produto>> buscar(@RequestParam(defaultValue = "") String q,
+                                                     @RequestParam(defaultValue = "0") int pagina,
+                                                     @RequestParam(defaultValue = "" + ProdutoController.TAMANHO_PAGINA_PADRAO) int tamanho) {
+        int numeroMaximo = ProdutoController.numeroMaximo(tamanho);
+        return produtoService.buscarPorTexto(q, ProdutoController.numeroValido(pagina, tamanho),
+                ProdutoController.tamanhoValido(tamanho)).thenApply(resultado -> resultado.limitadaA(numeroMaximo));
+    }
+
+    /**
+     * Catálogo inteiro em NDJSON, lido do publicador com demanda limitada a
+     * {@value #LOTE_FLUXO} produtos por pedido: o percurso só avança conforme o cliente consome.
+     */
+    @GetMapping(path = "/fluxo", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> fluxo() {
+        return ResponseEntity.ok().contentType(ProdutoApiController.NDJSON).body(saida -> {
+            AssinanteBloqueante<Produto> produtos = new AssinanteBloqueante<>(LOTE_FLUXO);
+            produtoService.publicarProdutos().subscribe(produtos);
+            try {
+                ProdutoJsonConverter.escreverLinhas(saida, produtos);
+            } finally {
+                produtos.cancelar();
+            }
+        });
+    }
+
+    @GetMapping("/{id}")
+    public CompletableFuture<Produto> buscarPorId(@PathVariable Long id) {
+        return produtoService.buscarProduto(id)
+                .thenApply(produto -> produto.orElseThrow(() -> new ProdutoNaoEncontradoException(id)));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<Produto>> criar(@RequestBody Produto produto) {
+        return produtoService.criarProduto(produto.getId(), produto.getNome(), produto.getDescricao(),
+                        produto.getPreco(), produto.getQuantidadeEstoque())
+                .thenApply(criado -> ResponseEntity.created(URI.create("/api/assincrono/produtos/" + produto.getId()))
+                        .body(produto.comVersao(1)));
+    }
+
+    /** O id do corpo pode ser omitido; se vier, tem de ser o mesmo da URL. Responde com o produto guardado. */
+    @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<Produto> atualizar(@PathVariable Long id, @RequestBody Produto produto) {
+        if (produto.getId() != null && !produto.getId().equals(id)) {
+            throw new IllegalArgumentException("ID do corpo difere do ID da URL");
+        }
+        return produtoService.atualizarProduto(id, produto.getNome(), produto.getDescricao(),
+                produto.getPreco(), produto.getQuantidadeEstoque(), produto.getVersao());
+    }
+
+    @DeleteMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Void>> deletar(@PathVariable Long id) {
+        return produtoService.deletarProduto(id).thenApply(feito -> ResponseEntity.noContent().build());
+    }
+}
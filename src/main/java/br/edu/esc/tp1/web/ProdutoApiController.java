@@ -0,0 +1,161 @@
+package br.edu.esc.tp1.web;
+
+import br.edu.esc.tp1.csv.ExportadorCsv;
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import br.edu.esc.tp1.service.ProdutoService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * API JSON de produtos. O JSON é lido e escrito pelo {@link ProdutoJsonConverter}; erros voltam
+ * como {@code {"status":..,"mensagem":..}}, montados pelo {@link TratadorErrosApi}. Os lotes aceitam
+ * {@code ?modo=tudo-ou-nada} (padrão) ou {@code ?modo=melhor-esforco} e respondem 200 com a
+ * situação de cada item.
+ */
+@RestController
+@RequestMapping(path = "/api/produtos", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ProdutoApiController {
+
+    public record Erro(int status, String mensagem) {
+    }
+
+    /** Estoque que sobrou depois de uma reserva ou devolução. */
+    public record Estoque(long id, int quantidadeEstoque) {
+    }
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ProdutoService produtoService;
+
+    public ProdutoApiController(ProdutoService produtoService) {
+        this.produtoService = produtoService;
+    }
+
+    /** Por número de página ou, sem limite de distância, pelo cursor {@code depois}/{@code antes} de uma página anterior. */
+    @GetMapping
+    public Pagina<Produto> listar(@RequestParam(defaultValue = "0") int pagina,
+                                  @RequestParam(defaultValue = "" + ProdutoController.TAMANHO_PAGINA_PADRAO) int tamanho,
+                                  @RequestParam(defaultValue = "id") String ordem,
+                                  @RequestParam(required = false) String depois,
+                                  @RequestParam(required = false) String antes) {
+        OrdenacaoProduto ordenacao = OrdenacaoProduto.deParametro(ordem);
+        ChavePagina cursor = ProdutoController.cursorValido(depois, antes, ordenacao);
+        if (cursor != null) {
+            return produtoService.listarPagina(cursor, Math.max(pagina, 0), ProdutoController.tamanhoValido(tamanho));
+        }
+        return produtoService.listarPagina(ProdutoController.numeroValido(pagina, tamanho),
+                ProdutoController.tamanhoValido(tamanho), ordenacao);
+    }
+
+    @GetMapping("/busca")
+    public Pagina<Produto> buscar(@RequestParam(defaultValue = "") String q,
+                                  @RequestParam(defaultValue = "0") int pagina,
+                                  @RequestParam(defaultValue = "" + ProdutoController.TAMANHO_PAGINA_PADRAO) int tamanho) {
+        return produtoService.buscarPorTexto(q, ProdutoController.numeroValido(pagina, tamanho),
+                ProdutoController.tamanhoValido(tamanho)).limitadaA(ProdutoController.numeroMaximo(tamanho));
+    }
+
+    /**
+     * Catálogo inteiro em NDJSON (um produto por linha) ou CSV, escrito enquanto o repositório é
+     * percorrido: a memória usada não cresce com o catálogo e os primeiros bytes saem logo.
+     */
+    @GetMapping(path = "/exportacao", produces = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "ndjson") String formato) {
+        if (formato.equalsIgnoreCase("csv")) {
+            ExportadorCsv exportador = new ExportadorCsv(produtoService);
+            return ResponseEntity.ok().contentType(ProdutoCsvController.TEXT_CSV).body(saida ->
+                    exportador.exportar(new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 1 << 16)));
+        }
+        if (!formato.equalsIgnoreCase("ndjson")) {
+            throw new IllegalArgumentException("Formato desconhecido: " + formato);
+        }
+        return ResponseEntity.ok().contentType(NDJSON).body(saida ->
+                ProdutoJsonConverter.escreverLinhas(saida, produtoService.percorrerProdutos()));
+    }
+
+    @GetMapping("/{id}")
+    public Produto buscarPorId(@PathVariable Long id) {
+        return produtoService.buscarProduto(id).orElseThrow(() -> new ProdutoNaoEncontradoException(id));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Produto> criar(@RequestBody Produto produto) {
+        produtoService.criarProduto(produto.getId(), produto.getNome(), produto.getDescricao(),
+                produto.getPreco(), produto.getQuantidadeEstoque());
+        return ResponseEntity.created(URI.create("/api/produtos/" + produto.getId())).body(produto.comVersao(1));
+    }
+
+    /**
+     * O id do corpo pode ser omitido; se vier, tem de ser o mesmo da URL. Com {@code versao} no
+     * corpo, só atualiza se o produto ainda estiver nela (409 se não); sem ela, atualiza de
+     * qualquer jeito. A resposta é o produto como ficou guardado, com a versão nova.
+     */
+    @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Produto atualizar(@PathVariable Long id, @RequestBody Produto produto) {
+        if (produto.getId() != null && !produto.getId().equals(id)) {
+            throw new IllegalArgumentException("ID do corpo difere do ID da URL");
+        }
+        return produtoService.atualizarProduto(id, produto.getNome(), produto.getDescricao(),
+                produto.getPreco(), produto.getQuantidadeEstoque(), produto.getVersao());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deletar(@PathVariable Long id) {
+        produtoService.deletarProduto(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Tira unidades do estoque sem reenviar o produto; responde 409 se não houver o bastante. Duas
+     * reservas simultâneas nunca vendem a mesma unidade.
+     */
+    @PostMapping("/{id}/estoque/reserva")
+    public Estoque reservarEstoque(@PathVariable Long id, @RequestParam int quantidade) {
+        return new Estoque(id, produtoService.reservarEstoque(id, quantidade));
+    }
+
+    @PostMapping("/{id}/estoque/devolucao")
+    public Estoque devolverEstoque(@PathVariable Long id, @RequestParam int quantidade) {
+        return new Estoque(id, produtoService.devolverEstoque(id, quantidade));
+    }
+
+    @PostMapping(path = "/lote", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResultadoLote criarEmLote(@RequestBody Produto[] produtos,
+                                     @RequestParam(defaultValue = "tudo-ou-nada") String modo) {
+        return produtoService.criarEmLote(Arrays.asList(produtos), ModoLote.deParametro(modo));
+    }
+
+    @PutMapping(path = "/lote", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResultadoLote atualizarEmLote(@RequestBody Produto[] produtos,
+                                         @RequestParam(defaultValue = "tudo-ou-nada") String modo) {
+        return produtoService.atualizarEmLote(Arrays.asList(produtos), ModoLote.deParametro(modo));
+    }
+
+    @PostMapping(path = "/lote/deletar", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResultadoLote deletarEmLote(@RequestBody Long[] ids,
+                                       @RequestParam(defaultValue = "tudo-ou-nada") String modo) {
+        return produtoService.deletarEmLote(Arrays.asList(ids), ModoLote.deParametro(modo));
+    }
+}
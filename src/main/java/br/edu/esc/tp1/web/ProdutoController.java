@@ -1,17 +1,34 @@
 package br.edu.esc.tp1.web;
 
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
 import br.edu.esc.tp1.domain.Produto;
-import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.exception.ConflitoVersaoException;
 import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import br.edu.esc.tp1.repository.Versao;
 import br.edu.esc.tp1.service.ProdutoService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.View;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
 
 import java.math.BigDecimal;
 import java.util.Optional;
@@ -20,15 +37,90 @@ import java.util.Optional;
 @RequestMapping("/produtos")
 public class ProdutoController {
 
+    static final int TAMANHO_PAGINA_PADRAO = 20;
+    static final int TAMANHO_PAGINA_MAXIMO = 100;
+    /**
+     * Os índices ordenados percorrem o deslocamento item a item; páginas por número além dele são
+     * recusadas com 400, e daí em diante a listagem segue pelos cursores {@code depois}/{@code antes}.
+     */
+    static final int DESLOCAMENTO_MAXIMO = 100_000;
+
     private final ProdutoService produtoService;
+    private final CachePaginas cachePaginas;
 
     public ProdutoController(ProdutoService produtoService) {
+        this(produtoService, null);
+    }
+
+    /** @param cachePaginas páginas da listagem já geradas; se for nulo, toda listagem passa pelo template */
+    @Autowired
+    public ProdutoController(ProdutoService produtoService, @Nullable CachePaginas cachePaginas) {
         this.produtoService = produtoService;
+        this.cachePaginas = cachePaginas;
     }
 
     @GetMapping
-    public String listar(Model model) {
-        model.addAttribute("produtos", produtoService.listarProdutos());
+    public ModelAndView listar(@RequestParam(defaultValue = "0") int pagina,
+                               @RequestParam(defaultValue = "" + TAMANHO_PAGINA_PADRAO) int tamanho,
+                               @RequestParam(defaultValue = "id") String ordem,
+                               @RequestParam(required = false) String depois,
+                               @RequestParam(required = false) String antes,
+                               Model model, ServletWebRequest request) throws Exception {
+        Optional<Versao> versao = produtoService.versaoCatalogo();
+        if (naoModificado(versao, model, request)) {
+            return null;
+        }
+        OrdenacaoProduto ordenacao = OrdenacaoProduto.deParametro(ordem);
+        int tamanhoPagina = tamanhoValido(tamanho);
+        ChavePagina cursor = cursorValido(depois, antes, ordenacao);
+        int numero = cursor != null ? Math.max(pagina, 0) : numeroValido(pagina, tamanhoPagina);
+        boolean usarCache = cachePaginas != null && versao.isPresent() && !temMensagem(model);
+        String chave = numero + ":" + tamanhoPagina + ":" + ordenacao.getParametro()
+                + (cursor == null ? "" : (cursor.anteriores() ? ":antes:" : ":depois:") + cursor.parametro());
+        if (usarCache) {
+            View emCache = cachePaginas.emCache(chave, versao.get());
+            if (emCache != null) {
+                return new ModelAndView(emCache);
+            }
+        }
+        Pagina<Produto> resultado = cursor != null
+                ? produtoService.listarPagina(cursor, numero, tamanhoPagina)
+                : produtoService.listarPagina(numero, tamanhoPagina, ordenacao);
+        model.addAttribute("pagina", resultado);
+        model.addAttribute("produtos", resultado.getConteudo());
+        model.addAttribute("ordem", ordenacao.getParametro());
+        if (usarCache) {
+            return new ModelAndView(cachePaginas.gravando(chave, versao.get(), "produtos/listagem",
+                    RequestContextUtils.getLocale(request.getRequest())));
+        }
+        return new ModelAndView("produtos/listagem");
+    }
+
+    /** Estatísticas do cache de páginas da listagem; 204 se o cache estiver desligado. */
+    @GetMapping("/cache/estatisticas")
+    @ResponseBody
+    public ResponseEntity<CachePaginas.Estatisticas> estatisticasCache() {
+        if (cachePaginas == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(cachePaginas.estatisticas());
+    }
+
+    @GetMapping("/buscar")
+    public String buscar(@RequestParam(defaultValue = "") String q,
+                         @RequestParam(defaultValue = "0") int pagina,
+                         @RequestParam(defaultValue = "" + TAMANHO_PAGINA_PADRAO) int tamanho,
+                         Model model, ServletWebRequest request) {
+        if (naoModificado(produtoService.versaoCatalogo(), model, request)) {
+            return null;
+        }
+        int tamanhoPagina = tamanhoValido(tamanho);
+        Pagina<Produto> resultado = produtoService
+                .buscarPorTexto(q, numeroValido(pagina, tamanhoPagina), tamanhoPagina)
+                .limitadaA(numeroMaximo(tamanhoPagina));
+        model.addAttribute("pagina", resultado);
+        model.addAttribute("produtos", resultado.getConteudo());
+        model.addAttribute("busca", q);
         return "produtos/listagem";
     }
 
@@ -38,20 +130,31 @@ public class ProdutoController {
         return "produtos/formulario";
     }
 
+    /** O ETag vem da versão do produto: escritas em outros produtos não invalidam o formulário. */
     @GetMapping("/editar/{id}")
-    public String editarFormulario(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
+    public String editarFormulario(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes,
+                                   ServletWebRequest request) {
         Optional<Produto> produto = produtoService.buscarProduto(id);
         if (produto.isEmpty()) {
             redirectAttributes.addFlashAttribute("erro", "Produto não encontrado.");
             return "redirect:/produtos";
         }
         Produto p = produto.get();
+        if (naoModificado(produtoService.versaoProduto(p), model, request)) {
+            return null;
+        }
         model.addAttribute("produto", new ProdutoForm(p.getId(), p.getNome(), p.getDescricao(),
                 p.getPreco() != null ? p.getPreco().toString() : "",
-                p.getQuantidadeEstoque() != null ? p.getQuantidadeEstoque().toString() : ""));
+                p.getQuantidadeEstoque() != null ? p.getQuantidadeEstoque().toString() : "",
+                Long.toString(p.getVersao())));
         return "produtos/formulario";
     }
 
+    /**
+     * Cria ou atualiza numa só chamada ao serviço. O formulário de edição traz a versão em que o
+     * produto foi lido: a atualização só passa se ninguém o alterou nesse meio tempo. No conflito o
+     * formulário volta com os dados digitados e a versão atual, e salvar de novo sobrescreve.
+     */
     @PostMapping
     public String salvar(@ModelAttribute ProdutoForm form, Model model, RedirectAttributes redirectAttributes) {
         try {
@@ -65,14 +168,13 @@ public class ProdutoController {
                     ? new BigDecimal(form.getPreco()) : null;
             Integer qtd = form.getQuantidadeEstoque() != null && !form.getQuantidadeEstoque().trim().isEmpty()
                     ? Integer.parseInt(form.getQuantidadeEstoque()) : null;
+            long versao = form.getVersao() != null && !form.getVersao().trim().isEmpty()
+                    ? Long.parseLong(form.getVersao()) : 0;
 
-            if (produtoService.buscarProduto(id).isPresent()) {
-                produtoService.atualizarProduto(id, form.getNome(), form.getDescricao(), preco, qtd);
-                redirectAttributes.addFlashAttribute("sucesso", "Produto atualizado com sucesso.");
-            } else {
-                produtoService.criarProduto(id, form.getNome(), form.getDescricao(), preco, qtd);
-                redirectAttributes.addFlashAttribute("sucesso", "Produto cadastrado com sucesso.");
-            }
+            ResultadoGravacao resultado = produtoService.criarOuAtualizarProduto(id, form.getNome(),
+                    form.getDescricao(), preco, qtd, versao);
+            redirectAttributes.addFlashAttribute("sucesso", resultado == ResultadoGravacao.CRIADO
+                    ? "Produto cadastrado com sucesso." : "Produto atualizado com sucesso.");
             return "redirect:/produtos";
         } catch (NumberFormatException e) {
             model.addAttribute("erro", "ID, preço ou quantidade inválidos.");
@@ -82,10 +184,15 @@ public class ProdutoController {
             model.addAttribute("erro", e.getMessage());
             model.addAttribute("produto", form);
             return "produtos/formulario";
-        } catch (ProdutoDuplicadoException e) {
-            model.addAttribute("erro", "Já existe um produto com este ID.");
+        } catch (ConflitoVersaoException e) {
+            form.setVersao(Long.toString(e.getVersaoAtual()));
+            model.addAttribute("erro", "Este produto foi alterado por outra pessoa depois que você abriu o formulário. "
+                    + "Confira os dados e salve de novo para sobrescrever.");
             model.addAttribute("produto", form);
             return "produtos/formulario";
+        } catch (ProdutoNaoEncontradoException e) {
+            redirectAttributes.addFlashAttribute("erro", "Produto não encontrado; ele pode ter sido excluído.");
+            return "redirect:/produtos";
         }
     }
 
@@ -102,21 +209,86 @@ public class ProdutoController {
         return "redirect:/produtos";
     }
 
+    /**
+     * Responde 304 se o cliente já tem a página gerada nesta versão. Páginas com mensagem de
+     * sucesso ou erro são exibidas uma vez só e não recebem ETag. O Last-Modified tem precisão de
+     * segundos, então só é enviado quando a última escrita foi antes do segundo corrente; senão
+     * uma escrita no mesmo segundo passaria despercebida por quem valida só pela data.
+     */
+    private static boolean naoModificado(Optional<Versao> versao, Model model, ServletWebRequest request) {
+        if (versao.isEmpty() || temMensagem(model)) {
+            return false;
+        }
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        String etag = "\"" + versao.get().etag() + "\"";
+        long modificadoEm = versao.get().modificadoEm();
+        if (System.currentTimeMillis() / 1000 > modificadoEm / 1000) {
+            return request.checkNotModified(etag, modificadoEm);
+        }
+        return request.checkNotModified(etag);
+    }
+
+    private static boolean temMensagem(Model model) {
+        return model.containsAttribute("sucesso") || model.containsAttribute("erro");
+    }
+
+    /** Parâmetros de listagem inválidos, como página além do limite ou cursor malformado. */
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseBody
+    public ResponseEntity<String> requisicaoInvalida(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /** Lança {@link IllegalArgumentException} (400) para páginas além de {@link #DESLOCAMENTO_MAXIMO}. */
+    static int numeroValido(int pagina, int tamanho) {
+        int numero = Math.max(pagina, 0);
+        if (numero > numeroMaximo(tamanho)) {
+            throw new IllegalArgumentException("Página " + pagina + " passa do limite de " + DESLOCAMENTO_MAXIMO
+                    + " produtos; siga pelo cursor da página anterior");
+        }
+        return numero;
+    }
+
+    static int numeroMaximo(int tamanho) {
+        return DESLOCAMENTO_MAXIMO / tamanhoValido(tamanho);
+    }
+
+    /** O cursor pedido em {@code depois} ou {@code antes}, ou nulo se a página é pedida por número. */
+    static ChavePagina cursorValido(String depois, String antes, OrdenacaoProduto ordenacao) {
+        if (depois != null && antes != null) {
+            throw new IllegalArgumentException("Use só um dos cursores: depois ou antes");
+        }
+        if (depois != null) {
+            return ChavePagina.depois(depois, ordenacao);
+        }
+        return antes != null ? ChavePagina.antes(antes, ordenacao) : null;
+    }
+
+    static int tamanhoValido(int tamanho) {
+        return Math.min(Math.max(tamanho, 1), TAMANHO_PAGINA_MAXIMO);
+    }
+
     public static class ProdutoForm {
         private String id;
         private String nome;
         private String descricao;
         private String preco;
         private String quantidadeEstoque;
+        private String versao;
 
         public ProdutoForm() {}
 
-        public ProdutoForm(Long id, String nome, String descricao, String preco, String quantidadeEstoque) {
+        public ProdutoForm(Long id, String nome, String descricao, String preco, String quantidadeEstoque,
+                           String versao) {
             this.id = id != null ? id.toString() : "";
             this.nome = nome;
             this.descricao = descricao;
             this.preco = preco;
             this.quantidadeEstoque = quantidadeEstoque;
+            this.versao = versao;
         }
 
         public String getId() { return id; }
@@ -129,5 +301,7 @@ public class ProdutoController {
         public void setPreco(String preco) { this.preco = preco; }
         public String getQuantidadeEstoque() { return quantidadeEstoque; }
         public void setQuantidadeEstoque(String quantidadeEstoque) { this.quantidadeEstoque = quantidadeEstoque; }
+        public String getVersao() { return versao; }
+        public void setVersao(String versao) { this.versao = versao; }
     }
 }
@@ -0,0 +1,99 @@
+package br.edu.esc.tp1.web;
+
+import br.edu.esc.tp1.csv.ExportadorCsv;
+import br.edu.esc.tp1.csv.ImportadorParalelo;
+import br.edu.esc.tp1.csv.MetricasImportacao;
+import br.edu.esc.tp1.csv.RelatorioImportacao;
+import br.edu.esc.tp1.service.ProdutoService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+@Controller
+@RequestMapping("/produtos/csv")
+public class ProdutoCsvController {
+
+    static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final int ERROS_NA_MENSAGEM = 5;
+
+    private final ImportadorParalelo importador;
+    private final ExportadorCsv exportador;
+    private final AtomicReference<MetricasImportacao> ultimaImportacao = new AtomicReference<>();
+
+    public ProdutoCsvController(ProdutoService produtoService) {
+        this.importador = new ImportadorParalelo(produtoService);
+        this.exportador = new ExportadorCsv(produtoService);
+    }
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        StreamingResponseBody corpo = saida -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 1 << 16);
+            exportador.exportar(writer);
+        };
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("produtos.csv").build().toString())
+                .body(corpo);
+    }
+
+    /** Andamento da importação em curso ou da última concluída, com vazão e ocupação de cada etapa. */
+    @GetMapping("/progresso")
+    @ResponseBody
+    public ResponseEntity<MetricasImportacao.Progresso> progresso() {
+        MetricasImportacao metricas = ultimaImportacao.get();
+        if (metricas == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(metricas.instantaneo());
+    }
+
+    @PostMapping
+    public String importar(@RequestParam("arquivo") MultipartFile arquivo, RedirectAttributes redirectAttributes) {
+        if (arquivo.isEmpty()) {
+            redirectAttributes.addFlashAttribute("erro", "Selecione um arquivo CSV para importar.");
+            return "redirect:/produtos";
+        }
+        RelatorioImportacao relatorio;
+        try (Reader reader = new BufferedReader(new InputStreamReader(arquivo.getInputStream(), StandardCharsets.UTF_8))) {
+            MetricasImportacao metricas = new MetricasImportacao();
+            ultimaImportacao.set(metricas);
+            relatorio = importador.importar(reader, metricas);
+        } catch (IOException e) {
+            redirectAttributes.addFlashAttribute("erro", "Não foi possível ler o arquivo: " + e.getMessage());
+            return "redirect:/produtos";
+        }
+        redirectAttributes.addFlashAttribute("sucesso",
+                String.format("%d de %d produto(s) importado(s).", relatorio.getImportados(), relatorio.getRegistrosLidos()));
+        if (relatorio.getTotalErros() > 0) {
+            redirectAttributes.addFlashAttribute("erro", String.format("%d linha(s) com erro: %s", relatorio.getTotalErros(),
+                    relatorio.getErros().stream()
+                            .limit(ERROS_NA_MENSAGEM)
+                            .map(erro -> "linha " + erro.linha() + ": " + erro.mensagem())
+                            .collect(Collectors.joining("; "))));
+        }
+        return "redirect:/produtos";
+    }
+}
@@ -0,0 +1,311 @@
+package br.edu.esc.tp1.web;
+
+import br.edu.esc.tp1.domain.Pagina;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.repository.Alteracao;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lê e escreve o JSON da API de produtos direto com o {@link JsonParser} e o {@link JsonGenerator}
+ * do Jackson, campo a campo, sem passar pelo {@code ObjectMapper}. Preços são lidos do texto do
+ * número e escritos sem notação científica, então {@code 59.90} volta como {@code 59.90}.
+ * <p>
+ * Formato de um produto: {@code {"id":1,"nome":"...","descricao":"...","preco":59.90,"quantidadeEstoque":3,"versao":2}}.
+ * O preço também é aceito como texto. A versão só é escrita quando conhecida e é opcional na
+ * leitura. Campos desconhecidos são ignorados.
+ */
+public class ProdutoJsonConverter extends AbstractHttpMessageConverter<Object> {
+
+    /** Máximo de itens aceitos num corpo de lote. */
+    static final int MAXIMO_ITENS_LOTE = 10_000;
+
+    /** Não fecha o fluxo ao fechar o gerador: nos eventos SSE a resposta continua aberta. */
+    private static final JsonFactory FABRICA = JsonFactory.builder()
+            .enable(StreamWriteFeature.WRITE_BIGDECIMAL_AS_PLAIN)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+    private static final Set<Class<?>> LEITURA = Set.of(Produto.class, Produto[].class, Long[].class);
+    private static final Set<Class<?>> ESCRITA = Set.of(Produto.class, Produto[].class, Pagina.class,
+            ResultadoLote.class, Alteracao.class, ProdutoAlteracoesController.Perda.class,
+            ProdutoApiController.Erro.class, ProdutoApiController.Estoque.class);
+
+    public ProdutoJsonConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return LEITURA.contains(clazz) || ESCRITA.contains(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return LEITURA.contains(clazz) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return ESCRITA.contains(clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try (JsonParser parser = FABRICA.createParser(inputMessage.getBody())) {
+            parser.nextToken();
+            Object lido;
+            if (clazz == Produto.class) {
+                lido = lerProduto(parser);
+            } else if (clazz == Produto[].class) {
+                lido = lerProdutos(parser);
+            } else {
+                lido = lerIds(parser);
+            }
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Conteúdo após o fim do JSON");
+            }
+            return lido;
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON inválido: " + e.getOriginalMessage(), e, inputMessage);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object objeto, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator gerador = FABRICA.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+            if (objeto instanceof Produto produto) {
+                escreverProduto(gerador, produto);
+            } else if (objeto instanceof Produto[] produtos) {
+                gerador.writeStartArray();
+                for (Produto produto : produtos) {
+                    escreverProduto(gerador, produto);
+                }
+                gerador.writeEndArray();
+            } else if (objeto instanceof Pagina<?> pagina) {
+                escreverPagina(gerador, pagina);
+            } else if (objeto instanceof ResultadoLote resultado) {
+                escreverResultado(gerador, resultado);
+            } else if (objeto instanceof Alteracao alteracao) {
+                escreverAlteracao(gerador, alteracao);
+            } else if (objeto instanceof ProdutoAlteracoesController.Perda perda) {
+                gerador.writeStartObject();
+                gerador.writeNumberField("primeira", perda.primeira());
+                gerador.writeNumberField("ultima", perda.ultima());
+                gerador.writeEndObject();
+            } else if (objeto instanceof ProdutoApiController.Estoque estoque) {
+                gerador.writeStartObject();
+                gerador.writeNumberField("id", estoque.id());
+                gerador.writeNumberField("quantidadeEstoque", estoque.quantidadeEstoque());
+                gerador.writeEndObject();
+            } else if (objeto instanceof ProdutoApiController.Erro erro) {
+                gerador.writeStartObject();
+                gerador.writeNumberField("status", erro.status());
+                gerador.writeStringField("mensagem", erro.mensagem());
+                gerador.writeEndObject();
+            } else {
+                throw new HttpMessageNotWritableException("Tipo não suportado: " + objeto.getClass().getName());
+            }
+        }
+    }
+
+    static Produto lerProduto(JsonParser parser) throws IOException {
+        esperar(parser, JsonToken.START_OBJECT, "um objeto de produto");
+        Long id = null;
+        String nome = null;
+        String descricao = null;
+        BigDecimal preco = null;
+        Integer quantidadeEstoque = null;
+        long versao = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            JsonToken valor = parser.nextToken();
+            switch (campo) {
+                case "id" -> id = valor == JsonToken.VALUE_NULL ? null : inteiro(parser, valor, campo).longValue();
+                case "nome" -> nome = texto(parser, valor, campo);
+                case "descricao" -> descricao = texto(parser, valor, campo);
+                case "preco" -> preco = decimal(parser, valor);
+                case "quantidadeEstoque" -> quantidadeEstoque = valor == JsonToken.VALUE_NULL
+                        ? null : inteiro(parser, valor, campo).intValue();
+                case "versao" -> versao = valor == JsonToken.VALUE_NULL ? 0 : inteiro(parser, valor, campo).longValue();
+                default -> parser.skipChildren();
+            }
+        }
+        return Produto.criar(id, nome, descricao, preco, quantidadeEstoque, versao);
+    }
+
+    private static Produto[] lerProdutos(JsonParser parser) throws IOException {
+        esperar(parser, JsonToken.START_ARRAY, "uma lista de produtos");
+        List<Produto> produtos = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            limitarLote(produtos.size());
+            try {
+                produtos.add(lerProduto(parser));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Item " + produtos.size() + ": " + e.getMessage(), e);
+            }
+        }
+        return produtos.toArray(new Produto[0]);
+    }
+
+    private static Long[] lerIds(JsonParser parser) throws IOException {
+        esperar(parser, JsonToken.START_ARRAY, "uma lista de ids");
+        List<Long> ids = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            limitarLote(ids.size());
+            ids.add(inteiro(parser, token, "item " + ids.size()).longValue());
+        }
+        return ids.toArray(new Long[0]);
+    }
+
+    /** Escreve um produto por linha (NDJSON); o gerador despeja no fluxo a cada poucos KB. */
+    static long escreverLinhas(OutputStream saida, Iterator<Produto> produtos) throws IOException {
+        long escritos = 0;
+        try (JsonGenerator gerador = FABRICA.createGenerator(saida, JsonEncoding.UTF8)) {
+            gerador.setRootValueSeparator(null);
+            while (produtos.hasNext()) {
+                escreverProduto(gerador, produtos.next());
+                gerador.writeRaw('\n');
+                escritos++;
+            }
+        }
+        return escritos;
+    }
+
+    static void escreverProduto(JsonGenerator gerador, Produto produto) throws IOException {
+        gerador.writeStartObject();
+        gerador.writeNumberField("id", produto.getId());
+        gerador.writeStringField("nome", produto.getNome());
+        gerador.writeStringField("descricao", produto.getDescricao());
+        gerador.writeNumberField("preco", produto.getPreco());
+        gerador.writeNumberField("quantidadeEstoque", produto.getQuantidadeEstoque());
+        if (produto.getVersao() != 0) {
+            gerador.writeNumberField("versao", produto.getVersao());
+        }
+        gerador.writeEndObject();
+    }
+
+    private static void escreverPagina(JsonGenerator gerador, Pagina<?> pagina) throws IOException {
+        gerador.writeStartObject();
+        gerador.writeArrayFieldStart("conteudo");
+        for (Object item : pagina.getConteudo()) {
+            escreverProduto(gerador, (Produto) item);
+        }
+        gerador.writeEndArray();
+        gerador.writeNumberField("numero", pagina.getNumero());
+        gerador.writeNumberField("tamanho", pagina.getTamanho());
+        gerador.writeNumberField("totalElementos", pagina.getTotalElementos());
+        gerador.writeNumberField("totalPaginas", pagina.getTotalPaginas());
+        if (pagina.getAnterior() != null) {
+            gerador.writeStringField("anterior", pagina.getAnterior());
+        }
+        if (pagina.getProxima() != null) {
+            gerador.writeStringField("proxima", pagina.getProxima());
+        }
+        gerador.writeEndObject();
+    }
+
+    private static void escreverResultado(JsonGenerator gerador, ResultadoLote resultado) throws IOException {
+        gerador.writeStartObject();
+        gerador.writeBooleanField("sucessoTotal", resultado.isSucessoTotal());
+        gerador.writeNumberField("aplicados", resultado.getAplicados());
+        gerador.writeArrayFieldStart("itens");
+        for (ResultadoLote.Item item : resultado.getItens()) {
+            gerador.writeStartObject();
+            gerador.writeNumberField("posicao", item.posicao());
+            if (item.id() != null) {
+                gerador.writeNumberField("id", item.id());
+            }
+            gerador.writeStringField("situacao", item.situacao().name());
+            if (item.mensagem() != null) {
+                gerador.writeStringField("mensagem", item.mensagem());
+            }
+            gerador.writeEndObject();
+        }
+        gerador.writeEndArray();
+        gerador.writeEndObject();
+    }
+
+    private static void escreverAlteracao(JsonGenerator gerador, Alteracao alteracao) throws IOException {
+        gerador.writeStartObject();
+        gerador.writeNumberField("sequencia", alteracao.sequencia());
+        gerador.writeStringField("tipo", alteracao.tipo().name());
+        gerador.writeNumberField("id", alteracao.id());
+        gerador.writeFieldName("produto");
+        escreverProduto(gerador, alteracao.atual());
+        if (alteracao.anterior() != null) {
+            gerador.writeFieldName("anterior");
+            escreverProduto(gerador, alteracao.anterior());
+        }
+        gerador.writeEndObject();
+    }
+
+    private static void esperar(JsonParser parser, JsonToken esperado, String descricao) {
+        if (parser.currentToken() != esperado) {
+            throw new IllegalArgumentException("Esperado " + descricao);
+        }
+    }
+
+    private static void limitarLote(int itens) {
+        if (itens == MAXIMO_ITENS_LOTE) {
+            throw new IllegalArgumentException("Lote com mais de " + MAXIMO_ITENS_LOTE + " itens");
+        }
+    }
+
+    private static Number inteiro(JsonParser parser, JsonToken valor, String campo) throws IOException {
+        if (valor != JsonToken.VALUE_NUMBER_INT || parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+            throw new IllegalArgumentException("Campo " + campo + " deve ser um número inteiro");
+        }
+        if (campo.equals("quantidadeEstoque") && parser.getNumberType() != JsonParser.NumberType.INT) {
+            throw new IllegalArgumentException("Campo " + campo + " fora do intervalo");
+        }
+        return parser.getNumberValue();
+    }
+
+    private static String texto(JsonParser parser, JsonToken valor, String campo) throws IOException {
+        if (valor == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (valor != JsonToken.VALUE_STRING) {
+            throw new IllegalArgumentException("Campo " + campo + " deve ser texto");
+        }
+        return parser.getText();
+    }
+
+    private static BigDecimal decimal(JsonParser parser, JsonToken valor) throws IOException {
+        return switch (valor) {
+            case VALUE_NULL -> null;
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDecimalValue();
+            case VALUE_STRING -> {
+                try {
+                    yield new BigDecimal(parser.getText().trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Preço inválido: " + parser.getText());
+                }
+            }
+            default -> throw new IllegalArgumentException("Campo preco deve ser um número");
+        };
+    }
+}
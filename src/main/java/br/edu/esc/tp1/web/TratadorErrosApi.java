@@ -0,0 +1,69 @@
+package br.edu.esc.tp1.web;
+
+import br.edu.esc.tp1.exception.ConflitoVersaoException;
+import br.edu.esc.tp1.exception.EstoqueInsuficienteException;
+import br.edu.esc.tp1.exception.LimiteAssinaturasException;
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+/**
+ * Erros das APIs JSON, síncrona e assíncrona, como {@link ProdutoApiController.Erro}. Nas respostas
+ * assíncronas o Spring tira a {@link java.util.concurrent.CompletionException} antes de chegar aqui.
+ */
+@RestControllerAdvice(assignableTypes = {ProdutoApiController.class, ProdutoApiAssincronoController.class,
+        ProdutoAlteracoesController.class})
+public class TratadorErrosApi {
+
+    @ExceptionHandler(ProdutoNaoEncontradoException.class)
+    public ResponseEntity<ProdutoApiController.Erro> naoEncontrado(ProdutoNaoEncontradoException e) {
+        return erro(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    @ExceptionHandler(ProdutoDuplicadoException.class)
+    public ResponseEntity<ProdutoApiController.Erro> duplicado(ProdutoDuplicadoException e) {
+        return erro(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(EstoqueInsuficienteException.class)
+    public ResponseEntity<ProdutoApiController.Erro> estoqueInsuficiente(EstoqueInsuficienteException e) {
+        return erro(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(ConflitoVersaoException.class)
+    public ResponseEntity<ProdutoApiController.Erro> conflitoVersao(ConflitoVersaoException e) {
+        return erro(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(LimiteAssinaturasException.class)
+    public ResponseEntity<ProdutoApiController.Erro> limiteAssinaturas(LimiteAssinaturasException e) {
+        return erro(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ProdutoApiController.Erro> requisicaoInvalida(IllegalArgumentException e) {
+        return erro(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    /** Sem causa, a exceção vem do próprio Spring (corpo vazio), com uma mensagem que expõe o método. */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ProdutoApiController.Erro> corpoInvalido(HttpMessageNotReadableException e) {
+        return erro(HttpStatus.BAD_REQUEST, e.getCause() != null ? e.getMessage() : "Corpo da requisição ausente");
+    }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ProdutoApiController.Erro> parametroInvalido(MethodArgumentTypeMismatchException e) {
+        return erro(HttpStatus.BAD_REQUEST, "Valor inválido para " + e.getName() + ": " + e.getValue());
+    }
+
+    private static ResponseEntity<ProdutoApiController.Erro> erro(HttpStatus status, String mensagem) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(new ProdutoApiController.Erro(status.value(), mensagem));
+    }
+}
@@ -0,0 +1,111 @@
+package br.edu.esc.tp1.csv;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes da importação e exportação de CSV")
+class ImportadorCsvTest {
+    
+    private ProdutoService service;
+    private ImportadorCsv importador;
+    
+    @BeforeEach
+    void setUp() {
+        service = new ProdutoService(new ProdutoRepositoryImpl());
+        importador = new ImportadorCsv(service);
+    }
+    
+    @Test
+    @DisplayName("Deve importar linhas válidas com aspas, vírgulas, quebras de linha e CRLF")
+    void deveImportarLinhasValidas() throws IOException {
+        String csv = "id,nome,descricao,preco,quantidadeEstoque\r\n"
+            + "1,Mouse,\"Óptico, sem fio\",59.90,10\r\n"
+            + "2,\"Teclado \"\"gamer\"\"\",\"Linha 1\nLinha 2\",199.00,3\r\n"
+            + "\r\n"
+            + "3,Monitor,24 polegadas, 899.5 ,0";
+        
+        RelatorioImportacao relatorio = importador.importar(new StringReader(csv));
+        
+        assertEquals(3, relatorio.getImportados());
+        assertEquals(0, relatorio.getTotalErros());
+        assertEquals("Óptico, sem fio", service.buscarProduto(1L).orElseThrow().getDescricao());
+        assertEquals("Teclado \"gamer\"", service.buscarProduto(2L).orElseThrow().getNome());
+        assertEquals("Linha 1\nLinha 2", service.buscarProduto(2L).orElseThrow().getDescricao());
+        assertEquals(new BigDecimal("899.5"), service.buscarProduto(3L).orElseThrow().getPreco());
+    }
+    
+    @Test
+    @DisplayName("Deve relatar linhas inválidas e duplicadas com o número da linha")
+    void deveRelatarLinhasInvalidasComNumeroDaLinha() throws IOException {
+        String csv = "1,Mouse,Desc,10.00,1\n"
+            + "2,Teclado,\"Duas\nlinhas\",10.00,1\n"
+            + "x,Monitor,Desc,10.00,1\n"
+            + "4,Cabo,Desc,-1,1\n"
+            + "5,Faltando,Desc\n"
+            + "1,Duplicado,Desc,10.00,1\n"
+            + "6,Hub,Desc,abc,1\n";
+        
+        RelatorioImportacao relatorio = importador.importar(new StringReader(csv));
+        
+        assertEquals(7, relatorio.getRegistrosLidos());
+        assertEquals(2, relatorio.getImportados());
+        assertEquals(List.of(4L, 5L, 6L, 7L, 8L),
+            relatorio.getErros().stream().map(RelatorioImportacao.ErroLinha::linha).sorted().toList());
+        assertEquals(5, relatorio.getTotalErros());
+    }
+    
+    @Test
+    @DisplayName("Deve importar em vários lotes")
+    void deveImportarEmVariosLotes() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        int quantidade = ImportadorCsv.TAMANHO_LOTE * 2 + 7;
+        for (int id = 1; id <= quantidade; id++) {
+            csv.append(id).append(",Produto ").append(id).append(",Desc,1.00,").append(id).append('\n');
+        }
+        
+        RelatorioImportacao relatorio = importador.importar(new StringReader(csv.toString()));
+        
+        assertEquals(quantidade, relatorio.getImportados());
+        assertEquals(quantidade, service.listarProdutos().size());
+    }
+    
+    @Test
+    @DisplayName("Deve reimportar exatamente o que foi exportado")
+    void deveReimportarOQueFoiExportado() throws IOException {
+        service.criarProduto(1L, "Café, torrado", "Pacote \"premium\"\n500g", new BigDecimal("19.900"), 4);
+        service.criarProduto(2L, "Açúcar", "Refinado", new BigDecimal("4.5"), 0);
+        StringWriter saida = new StringWriter();
+        
+        long escritos = new ExportadorCsv(service).exportar(saida);
+        ProdutoService destino = new ProdutoService(new ProdutoRepositoryImpl());
+        RelatorioImportacao relatorio = new ImportadorCsv(destino).importar(new StringReader(saida.toString()));
+        
+        assertEquals(2, escritos);
+        assertEquals(2, relatorio.getImportados());
+        for (Produto original : service.listarProdutos()) {
+            Produto copia = destino.buscarProduto(original.getId()).orElseThrow();
+            assertEquals(original.getNome(), copia.getNome());
+            assertEquals(original.getDescricao(), copia.getDescricao());
+            assertEquals(original.getPreco(), copia.getPreco());
+            assertEquals(original.getQuantidadeEstoque(), copia.getQuantidadeEstoque());
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve falhar com aspas não fechadas")
+    void deveFalharComAspasNaoFechadas() {
+        assertThrows(IOException.class, () -> importador.importar(new StringReader("1,\"Mouse,Desc,1.00,1\n")));
+    }
+}
@@ -0,0 +1,106 @@
+package br.edu.esc.tp1.csv;
+
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.service.ProdutoService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes da importação paralela de CSV")
+class ImportadorParaleloTest {
+
+    @Test
+    @DisplayName("Deve produzir o mesmo resultado do importador sequencial")
+    void deveProduzirOMesmoResultadoDoSequencial() throws IOException {
+        String csv = gerarCsv(ImportadorParalelo.REGISTROS_POR_BLOCO * 7 + 13);
+        ProdutoService sequencial = new ProdutoService(new ProdutoRepositoryImpl());
+        ProdutoService paralelo = new ProdutoService(new ProdutoRepositoryImpl());
+
+        RelatorioImportacao esperado = new ImportadorCsv(sequencial).importar(new StringReader(csv));
+        RelatorioImportacao obtido = new ImportadorParalelo(paralelo, 3, 2).importar(new StringReader(csv));
+
+        assertEquals(esperado.getRegistrosLidos(), obtido.getRegistrosLidos());
+        assertEquals(esperado.getImportados(), obtido.getImportados());
+        assertEquals(esperado.getTotalErros(), obtido.getTotalErros());
+        assertEquals(esperado.getErros(), obtido.getErros());
+        assertEquals(sequencial.listarProdutos().size(), paralelo.listarProdutos().size());
+        for (Produto produto : sequencial.listarProdutos()) {
+            Produto copia = paralelo.buscarProduto(produto.getId()).orElseThrow();
+            assertEquals(produto.getNome(), copia.getNome());
+            assertEquals(produto.getPreco(), copia.getPreco());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve relatar erros de conversão e de gravação em ordem de linha")
+    void deveRelatarErrosEmOrdemDeLinha() throws IOException {
+        String csv = "id,nome,descricao,preco,quantidadeEstoque\n"
+            + "1,Mouse,Desc,10.00,1\n"
+            + "x,Teclado,Desc,10.00,1\n"
+            + "\n"
+            + "3,Monitor,Desc,-1,1\n"
+            + "1,Duplicado,Desc,10.00,1\n"
+            + "5,Faltando\n";
+        ProdutoService service = new ProdutoService(new ProdutoRepositoryImpl());
+        MetricasImportacao metricas = new MetricasImportacao();
+
+        RelatorioImportacao relatorio = new ImportadorParalelo(service, 2, 2).importar(new StringReader(csv), metricas);
+
+        assertEquals(5, relatorio.getRegistrosLidos());
+        assertEquals(1, relatorio.getImportados());
+        assertEquals(List.of(3L, 5L, 6L, 7L),
+            relatorio.getErros().stream().map(RelatorioImportacao.ErroLinha::linha).toList());
+        MetricasImportacao.Progresso progresso = metricas.instantaneo();
+        assertTrue(progresso.concluida());
+        assertEquals(5, progresso.lidos());
+        assertEquals(1, progresso.gravados());
+        assertEquals(4, progresso.erros());
+    }
+
+    @Test
+    @DisplayName("Deve relançar a falha de uma etapa e encerrar as demais")
+    void deveRelancarFalhaDeUmaEtapa() {
+        ProdutoService service = new ProdutoService(new ProdutoRepositoryImpl() {
+            @Override
+            public ResultadoLote criarEmLote(List<Produto> produtos, ModoLote modo) {
+                throw new IllegalStateException("disco cheio");
+            }
+        });
+        String csv = gerarCsv(ImportadorParalelo.REGISTROS_POR_BLOCO * 20);
+
+        IllegalStateException erro = assertThrows(IllegalStateException.class,
+            () -> new ImportadorParalelo(service, 2, 1).importar(new StringReader(csv)));
+
+        assertEquals("disco cheio", erro.getMessage());
+    }
+
+    @Test
+    @DisplayName("Deve falhar com aspas não fechadas")
+    void deveFalharComAspasNaoFechadas() {
+        ProdutoService service = new ProdutoService(new ProdutoRepositoryImpl());
+
+        assertThrows(IOException.class,
+            () -> new ImportadorParalelo(service, 2, 1).importar(new StringReader("1,\"Mouse,Desc,1.00,1\n")));
+    }
+
+    private static String gerarCsv(int quantidade) {
+        StringBuilder csv = new StringBuilder(ImportadorCsv.CABECALHO).append('\n');
+        for (int id = 1; id <= quantidade; id++) {
+            if (id % 997 == 0) {
+                csv.append(id).append(",Sem preço,Desc,,1\n");
+            } else {
+                csv.append(id).append(",\"Produto, ").append(id).append("\",Desc,").append(id % 100).append(".5,")
+                    .append(id % 7).append('\n');
+            }
+        }
+        return csv.toString();
+    }
+}
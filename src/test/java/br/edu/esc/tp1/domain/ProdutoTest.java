@@ -139,4 +139,35 @@ class ProdutoTest {
         assertEquals("Nome Novo", atualizado.getNome());
         assertEquals(1L, atualizado.getId());
     }
+    
+    @Test
+    @DisplayName("Deve tratar como vazios textos só com espaços e caracteres de controle")
+    void deveRejeitarTextosEmBranco() {
+        IllegalArgumentException nome = assertThrows(IllegalArgumentException.class,
+            () -> Produto.criar(1L, " \t\n\u0000", "Descrição", BigDecimal.ONE, 1));
+        IllegalArgumentException descricao = assertThrows(IllegalArgumentException.class,
+            () -> Produto.criar(1L, "Nome", "\r\n ", BigDecimal.ONE, 1));
+        
+        assertEquals("Nome do produto não pode ser vazio", nome.getMessage());
+        assertEquals("Descrição do produto não pode ser vazia", descricao.getMessage());
+        assertEquals("  Nome  ", Produto.criar(1L, "  Nome  ", " x ", BigDecimal.ONE, 1).getNome());
+    }
+    
+    @Test
+    @DisplayName("Deve criar com versão e manter a versão ao atualizar")
+    void deveCriarComVersaoEManterAoAtualizar() {
+        Produto original = Produto.criar(1L, "Nome", "Desc", new BigDecimal("100.00"), 5, 3);
+        
+        Produto atualizado = original.atualizar("Nome Novo", "Desc", new BigDecimal("100.00"), 5);
+        
+        assertEquals(3, original.getVersao());
+        assertEquals(3, atualizado.getVersao());
+        assertEquals("Nome Novo", atualizado.getNome());
+        assertSame(original, original.atualizar(original.getNome(), original.getDescricao(),
+            original.getPreco(), original.getQuantidadeEstoque()));
+        assertThrows(IllegalArgumentException.class,
+            () -> original.atualizar("Nome", "Desc", new BigDecimal("-0.01"), 5));
+        assertThrows(IllegalArgumentException.class,
+            () -> Produto.criar(1L, "Nome", "Desc", BigDecimal.ONE, 1, -1));
+    }
 }
@@ -0,0 +1,214 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.HistogramaPrecos;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResumoCatalogo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do catálogo colunar para agregações")
+class CatalogoColunarTest {
+    
+    @TempDir
+    Path diretorio;
+    
+    @Test
+    @DisplayName("Deve acompanhar as escritas de todas as implementações do repositório")
+    void deveAcompanharEscritasDeTodasAsImplementacoes() throws Exception {
+        try (ProdutoRepositoryPersistente persistente = new ProdutoRepositoryPersistente(diretorio)) {
+            for (ProdutoRepository repository : List.of(new ProdutoRepositoryImpl(), new ProdutoRepositoryOffHeap(), persistente)) {
+                repository.criar(produto(1L, "10.00", 3));
+                CatalogoColunar catalogo = new CatalogoColunar();
+                repository.registrarOuvinte(catalogo);
+                
+                Random aleatorio = new Random(7);
+                for (int i = 0; i < 3_000; i++) {
+                    long id = aleatorio.nextInt(300);
+                    Produto produto = produto(id, aleatorio.nextInt(100_000) + "." + aleatorio.nextInt(100), aleatorio.nextInt(50));
+                    if (!repository.existe(id)) {
+                        repository.criar(produto);
+                    } else if (aleatorio.nextInt(3) == 0) {
+                        repository.deletar(id);
+                    } else {
+                        repository.atualizar(produto);
+                    }
+                }
+                
+                assertResumoIgualAoCalculadoPorObjetos(repository.listarTodos(), catalogo.resumir());
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve mover o último produto para a posição removida")
+    void deveMoverUltimoProdutoParaPosicaoRemovida() {
+        CatalogoColunar catalogo = CatalogoColunar.de(List.of(
+            produto(1L, "1.00", 1), produto(2L, "2.00", 2), produto(3L, "3.00", 3)));
+        
+        catalogo.aoDeletar(produto(1L, "1.00", 1));
+        catalogo.aoAtualizar(produto(3L, "3.00", 3), produto(3L, "5.00", 10));
+        
+        ResumoCatalogo resumo = catalogo.resumir();
+        assertEquals(2, resumo.getQuantidadeProdutos());
+        assertEquals(12, resumo.getEstoqueTotal());
+        assertEquals(new BigDecimal("54.00"), resumo.getValorEmEstoque());
+        assertEquals(new BigDecimal("2.00"), resumo.getPrecoMinimo());
+        assertEquals(new BigDecimal("5.00"), resumo.getPrecoMaximo());
+    }
+    
+    @Test
+    @DisplayName("Deve refazer a soma com BigDecimal quando estoura long")
+    void deveRefazerSomaQuandoEstouraLong() {
+        BigDecimal caro = new BigDecimal("90000000000000000.00");
+        BigDecimal enorme = new BigDecimal("1e30");
+        CatalogoColunar catalogo = CatalogoColunar.de(List.of(
+            Produto.criar(1L, "Caro", "Desc", caro, 1_000),
+            Produto.criar(2L, "Enorme", "Desc", enorme, 1)));
+        
+        ResumoCatalogo resumo = catalogo.resumir();
+        assertEquals(0, caro.multiply(BigDecimal.valueOf(1_000)).add(enorme).compareTo(resumo.getValorEmEstoque()));
+        assertEquals(0, enorme.compareTo(resumo.getPrecoMaximo()));
+    }
+    
+    @Test
+    @DisplayName("Deve contar produtos por faixa de preço com última faixa aberta")
+    void deveContarProdutosPorFaixaDePreco() {
+        CatalogoColunar catalogo = CatalogoColunar.de(List.of(
+            produto(1L, "0.00", 1), produto(2L, "9.99", 1), produto(3L, "10.00", 1),
+            produto(4L, "25.50", 1), produto(5L, "1000.00", 1)));
+        
+        HistogramaPrecos histograma = catalogo.histogramaDePrecos(new BigDecimal("10"), 3);
+        assertEquals(2, histograma.getContagem(0));
+        assertEquals(1, histograma.getContagem(1));
+        assertEquals(2, histograma.getContagem(2));
+        assertEquals(new BigDecimal("20.00"), histograma.getInicioFaixa(2));
+        assertThrows(IllegalArgumentException.class, () -> catalogo.histogramaDePrecos(BigDecimal.ZERO, 3));
+        assertThrows(IllegalArgumentException.class, () -> catalogo.histogramaDePrecos(BigDecimal.ONE, 0));
+    }
+    
+    @Test
+    @DisplayName("Deve se registrar no repositório só na primeira consulta")
+    void deveSeRegistrarSoNaPrimeiraConsulta() {
+        AtomicInteger registros = new AtomicInteger();
+        ProdutoRepositoryImpl repository = new ProdutoRepositoryImpl() {
+            @Override
+            public void registrarOuvinte(OuvinteProduto ouvinte, boolean entregarExistentes) {
+                registros.incrementAndGet();
+                super.registrarOuvinte(ouvinte, entregarExistentes);
+            }
+        };
+        repository.criar(produto(1L, "10.00", 3));
+        CatalogoColunar catalogo = CatalogoColunar.sobDemanda(repository);
+        repository.criar(produto(2L, "5.00", 1));
+        
+        assertEquals(0, registros.get());
+        assertEquals(2, catalogo.tamanho());
+        repository.deletar(1L);
+        ResumoCatalogo resumo = catalogo.resumir();
+        
+        assertEquals(1, registros.get());
+        assertEquals(1, resumo.getQuantidadeProdutos());
+        assertEquals(0, new BigDecimal("5.00").compareTo(resumo.getValorEmEstoque()));
+    }
+    
+    @Test
+    @DisplayName("Deve ler o catálogo inteiro a cada consulta se o repositório não avisa escritas")
+    void deveLerCatalogoInteiroSeRepositorioNaoAvisaEscritas() {
+        List<Produto> produtos = new ArrayList<>(List.of(produto(1L, "10.00", 3)));
+        ProdutoRepository semAvisos = new ProdutoRepository() {
+            @Override public void criar(Produto produto) { produtos.add(produto); }
+            @Override public Optional<Produto> buscarPorId(Long id) { return Optional.empty(); }
+            @Override public List<Produto> listarTodos() { return List.copyOf(produtos); }
+            @Override public void atualizar(Produto produto) { }
+            @Override public void deletar(Long id) { }
+            @Override public boolean existe(Long id) { return false; }
+        };
+        CatalogoColunar catalogo = CatalogoColunar.sobDemanda(semAvisos);
+        
+        assertEquals(1, catalogo.tamanho());
+        semAvisos.criar(produto(2L, "5.00", 2));
+        
+        assertEquals(2, catalogo.resumir().getQuantidadeProdutos());
+        assertEquals(2, catalogo.histogramaDePrecos(BigDecimal.TEN, 2).getTotal());
+    }
+    
+    @Test
+    @DisplayName("Deve resumir catálogo vazio com zeros")
+    void deveResumirCatalogoVazio() {
+        ResumoCatalogo resumo = new CatalogoColunar().resumir();
+        
+        assertEquals(0, resumo.getQuantidadeProdutos());
+        assertEquals(0, BigDecimal.ZERO.compareTo(resumo.getValorEmEstoque()));
+    }
+    
+    @Test
+    @DisplayName("Deve aplicar todas as escritas concorrentes mesmo com agregações rodando")
+    void deveAplicarEscritasConcorrentesDuranteAgregacoes() throws Exception {
+        ProdutoRepositoryImpl repository = new ProdutoRepositoryImpl();
+        CatalogoColunar catalogo = new CatalogoColunar();
+        repository.registrarOuvinte(catalogo);
+        int escritores = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(escritores + 1);
+        AtomicBoolean escrevendo = new AtomicBoolean(true);
+        Future<?> relatorios = executor.submit(() -> {
+            while (escrevendo.get()) {
+                catalogo.resumir();
+                catalogo.histogramaDePrecos(BigDecimal.TEN, 8);
+            }
+        });
+        List<Future<?>> escritas = new ArrayList<>();
+        for (int t = 0; t < escritores; t++) {
+            long base = t * 1_000L;
+            escritas.add(executor.submit(() -> {
+                for (long id = base; id < base + 1_000; id++) {
+                    repository.criar(produto(id, "1.00", 1));
+                    repository.atualizar(produto(id, "2.50", 2));
+                    if (id % 3 == 0) {
+                        repository.deletar(id);
+                    }
+                }
+            }));
+        }
+        for (Future<?> escrita : escritas) {
+            escrita.get(30, TimeUnit.SECONDS);
+        }
+        escrevendo.set(false);
+        relatorios.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        
+        assertEquals(repository.listarTodos().size(), catalogo.tamanho());
+        assertResumoIgualAoCalculadoPorObjetos(repository.listarTodos(), catalogo.resumir());
+    }
+    
+    private static void assertResumoIgualAoCalculadoPorObjetos(List<Produto> produtos, ResumoCatalogo resumo) {
+        BigDecimal valor = BigDecimal.ZERO;
+        long estoque = 0;
+        for (Produto produto : produtos) {
+            valor = valor.add(produto.getPreco().multiply(BigDecimal.valueOf(produto.getQuantidadeEstoque())));
+            estoque += produto.getQuantidadeEstoque();
+        }
+        assertEquals(produtos.size(), resumo.getQuantidadeProdutos());
+        assertEquals(estoque, resumo.getEstoqueTotal());
+        assertEquals(0, valor.compareTo(resumo.getValorEmEstoque()));
+    }
+    
+    private static Produto produto(long id, String preco, int estoque) {
+        return Produto.criar(id, "Produto " + id, "Descrição", new BigDecimal(preco), estoque);
+    }
+}
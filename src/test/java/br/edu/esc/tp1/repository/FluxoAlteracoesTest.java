@@ -0,0 +1,190 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.exception.LimiteAssinaturasException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static br.edu.esc.tp1.repository.ProdutosTeste.criarProdutoTeste;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do fluxo de alterações do Repositório de Produtos")
+class FluxoAlteracoesTest {
+    
+    private final ProdutoRepositoryImpl repository = new ProdutoRepositoryImpl();
+    private FluxoAlteracoes fluxo;
+    
+    @AfterEach
+    void tearDown() {
+        fluxo.close();
+    }
+    
+    @Test
+    @DisplayName("Deve numerar as escritas em ordem, sem publicar os produtos já existentes no registro")
+    void deveNumerarEscritasSemACargaInicial() throws Exception {
+        repository.criar(criarProdutoTeste(1L, "Mouse"));
+        fluxo = new FluxoAlteracoes(16);
+        fluxo.registrarEm(repository);
+        assertEquals(0, fluxo.ultimaSequencia());
+        
+        Coletor coletor = new Coletor();
+        fluxo.assinar(1, coletor);
+        repository.criar(criarProdutoTeste(2L, "Teclado"));
+        repository.atualizar(criarProdutoTeste(1L, "Mouse sem fio"));
+        repository.deletar(2L);
+        
+        Alteracao criado = coletor.proxima();
+        Alteracao atualizado = coletor.proxima();
+        Alteracao removido = coletor.proxima();
+        assertEquals(1, criado.sequencia());
+        assertEquals(Alteracao.Tipo.CRIADO, criado.tipo());
+        assertEquals(2L, criado.id());
+        assertEquals(Alteracao.Tipo.ATUALIZADO, atualizado.tipo());
+        assertEquals("Mouse", atualizado.anterior().getNome());
+        assertEquals("Mouse sem fio", atualizado.atual().getNome());
+        assertEquals(3, removido.sequencia());
+        assertEquals(Alteracao.Tipo.REMOVIDO, removido.tipo());
+        assertEquals(3, fluxo.ultimaSequencia());
+    }
+    
+    @Test
+    @DisplayName("Deve retomar a partir da sequência pedida")
+    void deveRetomarDaSequenciaPedida() throws Exception {
+        fluxo = new FluxoAlteracoes(16);
+        fluxo.registrarEm(repository);
+        for (long id = 1; id <= 5; id++) {
+            repository.criar(criarProdutoTeste(id, "Produto " + id));
+        }
+        
+        Coletor coletor = new Coletor();
+        FluxoAlteracoes.Assinatura assinatura = fluxo.assinar(4, coletor);
+        
+        assertEquals(4, coletor.proxima().sequencia());
+        assertEquals(5, coletor.proxima().sequencia());
+        assertNull(coletor.alteracoes.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(6, assinatura.proximaSequencia());
+        assertThrows(IllegalArgumentException.class, () -> fluxo.assinar(7, new Coletor()));
+        assertThrows(IllegalArgumentException.class, () -> fluxo.assinar(0, new Coletor()));
+    }
+    
+    @Test
+    @DisplayName("Deve avisar as alterações sobrescritas e seguir da mais antiga ainda guardada")
+    void deveAvisarAlteracoesPerdidas() throws Exception {
+        fluxo = new FluxoAlteracoes(4);
+        fluxo.registrarEm(repository);
+        for (long id = 1; id <= 10; id++) {
+            repository.criar(criarProdutoTeste(id, "Produto " + id));
+        }
+        
+        Coletor coletor = new Coletor();
+        fluxo.assinar(2, coletor);
+        
+        assertEquals(List.of(2L, 6L), coletor.perdas.poll(5, TimeUnit.SECONDS));
+        for (long sequencia = 7; sequencia <= 10; sequencia++) {
+            assertEquals(sequencia, coletor.proxima().sequencia());
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve entregar cada escrita concorrente uma vez, com as de cada id na ordem aplicada")
+    void deveEntregarEscritasConcorrentesEmOrdem() throws Exception {
+        fluxo = new FluxoAlteracoes(1 << 16);
+        fluxo.registrarEm(repository);
+        Coletor coletor = new Coletor();
+        fluxo.assinar(1, coletor);
+        int threads = 4;
+        int escritasPorThread = 2_000;
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> escritores = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long id = t + 1;
+            Thread escritor = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                repository.criar(criarProdutoTeste(id, "0"));
+                for (int i = 1; i < escritasPorThread; i++) {
+                    repository.atualizar(criarProdutoTeste(id, Integer.toString(i)));
+                }
+            });
+            escritor.start();
+            escritores.add(escritor);
+        }
+        largada.countDown();
+        for (Thread escritor : escritores) {
+            escritor.join();
+        }
+        
+        Map<Long, Integer> ultimoNomePorId = new HashMap<>();
+        for (long sequencia = 1; sequencia <= (long) threads * escritasPorThread; sequencia++) {
+            Alteracao alteracao = coletor.proxima();
+            assertEquals(sequencia, alteracao.sequencia());
+            int nome = Integer.parseInt(alteracao.atual().getNome());
+            Integer anterior = ultimoNomePorId.put(alteracao.id(), nome);
+            assertEquals(anterior == null ? 0 : anterior + 1, nome);
+        }
+        assertTrue(coletor.perdas.isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Deve recusar assinaturas além do limite e liberar a vaga de quem cancela")
+    void deveRecusarAssinaturasAlemDoLimite() throws Exception {
+        fluxo = new FluxoAlteracoes(16, 2);
+        fluxo.registrarEm(repository);
+        FluxoAlteracoes.Assinatura primeira = fluxo.assinar(1, new Coletor());
+        fluxo.assinar(1, new Coletor());
+        
+        LimiteAssinaturasException excecao = assertThrows(LimiteAssinaturasException.class,
+            () -> fluxo.assinar(1, new Coletor()));
+        assertEquals(2, excecao.getMaximo());
+        
+        primeira.cancelar();
+        Coletor coletor = new Coletor();
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            try {
+                fluxo.assinar(1, coletor);
+                break;
+            } catch (LimiteAssinaturasException e) {
+                assertTrue(System.nanoTime() < limite, "Vaga não liberada a tempo");
+                Thread.sleep(10);
+            }
+        }
+        repository.criar(criarProdutoTeste(1L, "Mouse"));
+        assertEquals(1, coletor.proxima().sequencia());
+    }
+    
+    private static final class Coletor implements OuvinteAlteracoes {
+    
+        private final BlockingQueue<Alteracao> alteracoes = new LinkedBlockingQueue<>();
+        private final BlockingQueue<List<Long>> perdas = new LinkedBlockingQueue<>();
+    
+        @Override
+        public void aoReceber(Alteracao alteracao) {
+            alteracoes.add(alteracao);
+        }
+    
+        @Override
+        public void aoPerder(long primeira, long ultima) {
+            perdas.add(List.of(primeira, ultima));
+        }
+    
+        Alteracao proxima() throws InterruptedException {
+            Alteracao alteracao = alteracoes.poll(5, TimeUnit.SECONDS);
+            assertNotNull(alteracao, "Nenhuma alteração entregue a tempo");
+            return alteracao;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Pagina;
+import br.edu.esc.tp1.domain.Produto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static br.edu.esc.tp1.repository.ProdutosTeste.criarProdutoTeste;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes da busca textual do Repositório de Produtos")
+class IndiceTextualTest {
+    
+    private ProdutoRepository repository;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new ProdutoRepositoryImpl();
+    }
+    
+    @Test
+    @DisplayName("Deve normalizar acentos, cedilha e caixa")
+    void deveNormalizarAcentosCedilhaECaixa() {
+        assertEquals("acao pao cafe", IndiceTextual.normalizar("AÇÃO Pão Café"));
+        assertEquals(List.of("acucar", "mascavo", "1kg"), IndiceTextual.tokenizar("Açúcar mascavo - 1kg!"));
+    }
+    
+    @Test
+    @DisplayName("Deve encontrar produto ignorando acentos na consulta e no texto")
+    void deveEncontrarProdutoIgnorandoAcentos() {
+        repository.criar(criarProdutoTeste(1L, "Feijão preto", "Pacote de feijão"));
+        repository.criar(criarProdutoTeste(2L, "Arroz", "Tipo 1"));
+        
+        assertEquals(List.of(1L), ids(repository.buscarPorTexto("FEIJAO", 0, 10)));
+        assertEquals(List.of(1L), ids(repository.buscarPorTexto("feijão", 0, 10)));
+    }
+    
+    @Test
+    @DisplayName("Deve casar prefixos e exigir todos os termos")
+    void deveCasarPrefixosEExigirTodosOsTermos() {
+        repository.criar(criarProdutoTeste(1L, "Camiseta azul", "Algodão"));
+        repository.criar(criarProdutoTeste(2L, "Camisa branca", "Linho"));
+        repository.criar(criarProdutoTeste(3L, "Calça azul", "Jeans"));
+        
+        assertEquals(List.of(1L, 2L), ids(repository.buscarPorTexto("cami", 0, 10)));
+        assertEquals(List.of(1L), ids(repository.buscarPorTexto("cami azu", 0, 10)));
+        assertTrue(repository.buscarPorTexto("cami jeans", 0, 10).isVazia());
+    }
+    
+    @Test
+    @DisplayName("Deve ranquear nome acima de descrição e termo exato acima de prefixo")
+    void deveRanquearNomeAcimaDeDescricaoETermoExatoAcimaDePrefixo() {
+        repository.criar(criarProdutoTeste(1L, "Kit", "Mouse sem fio"));
+        repository.criar(criarProdutoTeste(2L, "Mousepad", "Tecido"));
+        repository.criar(criarProdutoTeste(3L, "Mouse", "Óptico"));
+        
+        assertEquals(List.of(3L, 2L, 1L), ids(repository.buscarPorTexto("mouse", 0, 10)));
+    }
+    
+    @Test
+    @DisplayName("Deve paginar resultados e informar o total")
+    void devePaginarResultadosEInformarTotal() {
+        for (long id = 1; id <= 7; id++) {
+            repository.criar(criarProdutoTeste(id, "Caneta " + id, "Escrita"));
+        }
+        
+        Pagina<Produto> pagina = repository.buscarPorTexto("caneta", 1, 3);
+        
+        assertEquals(List.of(4L, 5L, 6L), ids(pagina));
+        assertEquals(7, pagina.getTotalElementos());
+        assertTrue(pagina.temProxima());
+    }
+    
+    @Test
+    @DisplayName("Deve refletir atualizações e remoções no índice")
+    void deveRefletirAtualizacoesERemocoes() {
+        repository.criar(criarProdutoTeste(1L, "Lápis", "Grafite"));
+        repository.criar(criarProdutoTeste(2L, "Borracha", "Branca"));
+        
+        repository.atualizar(criarProdutoTeste(1L, "Caneta", "Tinta azul"));
+        repository.deletar(2L);
+        
+        assertTrue(repository.buscarPorTexto("lapis", 0, 10).isVazia());
+        assertTrue(repository.buscarPorTexto("borracha", 0, 10).isVazia());
+        assertEquals(List.of(1L), ids(repository.buscarPorTexto("tinta", 0, 10)));
+    }
+    
+    @Test
+    @DisplayName("Deve descartar termos que ficaram sem produtos")
+    void deveDescartarTermosSemProdutos() {
+        IndiceTextual indice = new IndiceTextual();
+        Produto lapis = criarProdutoTeste(1L, "Lápis", "Grafite");
+        Produto caneta = criarProdutoTeste(1L, "Caneta", "Grafite azul");
+        
+        indice.adicionar(lapis);
+        indice.remover(lapis);
+        indice.adicionar(caneta);
+        
+        assertEquals(3, indice.quantidadeDeTermos());
+        assertTrue(indice.buscar("lapis", 0, 10).ids().isEmpty());
+        
+        indice.remover(caneta);
+        
+        assertEquals(0, indice.quantidadeDeTermos());
+    }
+    
+    @Test
+    @DisplayName("Deve manter inclusões concorrentes com remoções do mesmo termo")
+    void deveManterInclusoesConcorrentesComRemocoes() throws Exception {
+        IndiceTextual indice = new IndiceTextual();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (long t = 0; t < 4; t++) {
+                long base = t * 10_000;
+                tarefas.add(executor.submit(() -> {
+                    for (long id = base; id < base + 2_000; id++) {
+                        Produto temporario = criarProdutoTeste(id, "Caderno", "Temporário");
+                        indice.adicionar(temporario);
+                        indice.remover(temporario);
+                        indice.adicionar(criarProdutoTeste(id + 5_000, "Caderno", "Fixo"));
+                    }
+                }));
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertEquals(8_000, indice.buscar("caderno", 0, 1).total());
+        assertTrue(indice.buscar("temporario", 0, 1).ids().isEmpty());
+        assertEquals(2, indice.quantidadeDeTermos());
+    }
+    
+    @Test
+    @DisplayName("Deve ranquear igual à varredura completa da interface")
+    void deveRanquearIgualAVarreduraCompleta() {
+        ProdutoRepository varredura = new ProdutoRepository() {
+            @Override public void criar(Produto produto) { }
+            @Override public Optional<Produto> buscarPorId(Long id) { return Optional.empty(); }
+            @Override public List<Produto> listarTodos() { return repository.listarTodos(); }
+            @Override public void atualizar(Produto produto) { }
+            @Override public void deletar(Long id) { }
+            @Override public boolean existe(Long id) { return false; }
+        };
+        repository.criar(criarProdutoTeste(1L, "Mesa de jantar", "Madeira maciça"));
+        repository.criar(criarProdutoTeste(2L, "Mesa", "Escritório em madeira"));
+        repository.criar(criarProdutoTeste(3L, "Cadeira", "Mesa não inclusa"));
+        repository.criar(criarProdutoTeste(4L, "Madeireira", "Mesas"));
+        
+        for (String consulta : List.of("mesa", "mad", "mesa madeira", "me ma", "ca")) {
+            assertEquals(ids(varredura.buscarPorTexto(consulta, 0, 10)),
+                         ids(repository.buscarPorTexto(consulta, 0, 10)), consulta);
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve retornar vazio para consulta em branco e lançar exceção para nula")
+    void deveTratarConsultaEmBrancoENula() {
+        repository.criar(criarProdutoTeste(1L, "Produto", "Desc"));
+        
+        assertTrue(repository.buscarPorTexto("  -- ", 0, 10).isVazia());
+        assertThrows(IllegalArgumentException.class, () -> repository.buscarPorTexto(null, 0, 10));
+    }
+    
+    private static List<Long> ids(Pagina<Produto> pagina) {
+        return pagina.getConteudo().stream().map(Produto::getId).toList();
+    }
+}
@@ -0,0 +1,170 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static br.edu.esc.tp1.repository.ProdutosTeste.criarProdutoTeste;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do cache de leituras do Repositório de Produtos")
+class ProdutoRepositoryCacheTest {
+    
+    private final AtomicLong agora = new AtomicLong();
+    private final AtomicInteger leiturasNoRepositorio = new AtomicInteger();
+    private ProdutoRepository base;
+    
+    @BeforeEach
+    void setUp() {
+        base = new ProdutoRepositoryImpl() {
+            @Override
+            public Optional<Produto> buscarPorId(Long id) {
+                leiturasNoRepositorio.incrementAndGet();
+                return super.buscarPorId(id);
+            }
+        };
+    }
+    
+    @Test
+    @DisplayName("Deve servir leituras repetidas do cache e contar acertos e faltas")
+    void deveServirLeiturasRepetidasDoCache() {
+        ProdutoRepositoryCache cache = cache(100, Duration.ofMinutes(1));
+        cache.criar(criarProdutoTeste(1L, "Mouse"));
+        
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Mouse", cache.buscarPorId(1L).orElseThrow().getNome());
+        }
+        
+        assertEquals(1, leiturasNoRepositorio.get());
+        ProdutoRepositoryCache.Estatisticas estatisticas = cache.estatisticas();
+        assertEquals(4, estatisticas.acertos());
+        assertEquals(1, estatisticas.faltas());
+        assertEquals(0.8, estatisticas.taxaDeAcerto(), 1e-9);
+    }
+    
+    @Test
+    @DisplayName("Deve publicar acertos, faltas, despejos e tamanho no registro de métricas")
+    void devePublicarContadoresNoRegistroDeMetricas() {
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        ProdutoRepositoryCache cache = cache(10, Duration.ofMinutes(1));
+        cache.bindTo(registro);
+        for (long id = 1; id <= 20; id++) {
+            cache.criar(criarProdutoTeste(id, "Produto " + id));
+            cache.buscarPorId(id);
+        }
+        cache.buscarPorId(20L);
+        
+        ProdutoRepositoryCache.Estatisticas estatisticas = cache.estatisticas();
+        assertEquals(1, registro.get(ProdutoRepositoryCache.CONSULTAS).tag("resultado", "acerto").functionCounter().count());
+        assertEquals(20, registro.get(ProdutoRepositoryCache.CONSULTAS).tag("resultado", "falta").functionCounter().count());
+        assertEquals(estatisticas.despejos(), registro.get(ProdutoRepositoryCache.DESPEJOS).functionCounter().count());
+        assertTrue(estatisticas.despejos() > 0);
+        assertEquals(estatisticas.tamanho(), registro.get(ProdutoRepositoryCache.TAMANHO).gauge().value());
+    }
+    
+    @Test
+    @DisplayName("Deve invalidar a entrada ao atualizar e ao deletar")
+    void deveInvalidarAoAtualizarEDeletar() {
+        ProdutoRepositoryCache cache = cache(100, Duration.ofMinutes(1));
+        cache.criar(criarProdutoTeste(1L, "Mouse"));
+        cache.buscarPorId(1L);
+        
+        cache.atualizar(criarProdutoTeste(1L, "Mouse sem fio"));
+        assertEquals("Mouse sem fio", cache.buscarPorId(1L).orElseThrow().getNome());
+        
+        cache.deletar(1L);
+        assertTrue(cache.buscarPorId(1L).isEmpty());
+        assertFalse(cache.existe(1L));
+        assertThrows(ProdutoNaoEncontradoException.class, () -> cache.deletar(1L));
+    }
+    
+    @Test
+    @DisplayName("Deve recarregar a entrada depois do TTL")
+    void deveRecarregarDepoisDoTtl() {
+        ProdutoRepositoryCache cache = cache(100, Duration.ofSeconds(10));
+        cache.criar(criarProdutoTeste(1L, "Mouse"));
+        cache.buscarPorId(1L);
+        
+        agora.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        cache.buscarPorId(1L);
+        assertEquals(1, leiturasNoRepositorio.get());
+        
+        agora.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        cache.buscarPorId(1L);
+        assertEquals(2, leiturasNoRepositorio.get());
+    }
+    
+    @Test
+    @DisplayName("Deve respeitar a capacidade e manter produtos quentes durante uma varredura")
+    void deveRespeitarCapacidadeEManterProdutosQuentes() {
+        ProdutoRepositoryCache cache = cache(10, Duration.ofMinutes(1));
+        for (long id = 1; id <= 1_000; id++) {
+            cache.criar(criarProdutoTeste(id, "Produto " + id));
+        }
+        cache.buscarPorId(1L);
+        cache.buscarPorId(1L);
+        
+        for (long id = 100; id <= 1_000; id++) {
+            cache.buscarPorId(id);
+        }
+        
+        ProdutoRepositoryCache.Estatisticas estatisticas = cache.estatisticas();
+        assertTrue(estatisticas.tamanho() <= 10);
+        assertTrue(estatisticas.despejos() > 0);
+        int antes = leiturasNoRepositorio.get();
+        cache.buscarPorId(1L);
+        assertEquals(antes, leiturasNoRepositorio.get());
+    }
+    
+    @Test
+    @DisplayName("Não deve guardar valor carregado antes de uma atualização concorrente")
+    void naoDeveGuardarValorCarregadoAntesDeAtualizacao() throws Exception {
+        CountDownLatch carregou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ProdutoRepository lento = new ProdutoRepositoryImpl() {
+            @Override
+            public Optional<Produto> buscarPorId(Long id) {
+                Optional<Produto> atual = super.buscarPorId(id);
+                if (carregou.getCount() > 0) {
+                    carregou.countDown();
+                    aguardar(liberar);
+                }
+                return atual;
+            }
+        };
+        ProdutoRepositoryCache cache = new ProdutoRepositoryCache(lento, 100, Duration.ofMinutes(1), agora::get);
+        cache.criar(criarProdutoTeste(1L, "Antigo"));
+        
+        CompletableFuture<Optional<Produto>> leitura = CompletableFuture.supplyAsync(() -> cache.buscarPorId(1L));
+        aguardar(carregou);
+        cache.atualizar(criarProdutoTeste(1L, "Novo"));
+        liberar.countDown();
+        
+        assertEquals("Antigo", leitura.get(5, TimeUnit.SECONDS).orElseThrow().getNome());
+        assertEquals("Novo", cache.buscarPorId(1L).orElseThrow().getNome());
+    }
+    
+    private ProdutoRepositoryCache cache(int capacidade, Duration ttl) {
+        return new ProdutoRepositoryCache(base, capacidade, ttl, agora::get);
+    }
+    
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
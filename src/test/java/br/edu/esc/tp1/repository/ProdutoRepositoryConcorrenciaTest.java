@@ -0,0 +1,210 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.exception.EstoqueInsuficienteException;
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes de concorrência do Repositório de Produtos")
+class ProdutoRepositoryConcorrenciaTest {
+    
+    private static final int THREADS = 16;
+    
+    private ProdutoRepository repository;
+    private ExecutorService executor;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new ProdutoRepositoryImpl();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+    
+    @RepeatedTest(20)
+    @DisplayName("Apenas uma criação concorrente com o mesmo ID deve ter sucesso")
+    void apenasUmaCriacaoConcorrenteDeveTerSucesso() throws Exception {
+        AtomicInteger sucessos = new AtomicInteger();
+        AtomicInteger duplicados = new AtomicInteger();
+        
+        executarAoMesmoTempo(i -> {
+            try {
+                repository.criar(criarProdutoTeste(1L, "Produto " + i));
+                sucessos.incrementAndGet();
+            } catch (ProdutoDuplicadoException e) {
+                assertEquals(1L, e.getProdutoId());
+                duplicados.incrementAndGet();
+            }
+        });
+        
+        assertEquals(1, sucessos.get());
+        assertEquals(THREADS - 1, duplicados.get());
+        assertEquals(1, repository.listarTodos().size());
+    }
+    
+    @RepeatedTest(20)
+    @DisplayName("Gravações concorrentes com o mesmo ID devem criar uma vez e atualizar nas demais")
+    void gravacoesConcorrentesDevemCriarUmaVez() throws Exception {
+        AtomicInteger criados = new AtomicInteger();
+        
+        executarAoMesmoTempo(i -> {
+            if (repository.criarOuAtualizar(criarProdutoTeste(1L, "Produto " + i)) == ResultadoGravacao.CRIADO) {
+                criados.incrementAndGet();
+            }
+        });
+        
+        assertEquals(1, criados.get());
+        assertEquals(THREADS, repository.buscarPorId(1L).orElseThrow().getVersao());
+    }
+    
+    @RepeatedTest(20)
+    @DisplayName("Apenas uma remoção concorrente do mesmo ID deve ter sucesso")
+    void apenasUmaRemocaoConcorrenteDeveTerSucesso() throws Exception {
+        repository.criar(criarProdutoTeste(1L, "Produto"));
+        AtomicInteger sucessos = new AtomicInteger();
+        AtomicInteger naoEncontrados = new AtomicInteger();
+        
+        executarAoMesmoTempo(i -> {
+            try {
+                repository.deletar(1L);
+                sucessos.incrementAndGet();
+            } catch (ProdutoNaoEncontradoException e) {
+                assertEquals(1L, e.getProdutoId());
+                naoEncontrados.incrementAndGet();
+            }
+        });
+        
+        assertEquals(1, sucessos.get());
+        assertEquals(THREADS - 1, naoEncontrados.get());
+        assertFalse(repository.existe(1L));
+    }
+    
+    @RepeatedTest(20)
+    @DisplayName("Atualização concorrente com remoção não deve recriar o produto")
+    void atualizacaoConcorrenteComRemocaoNaoDeveRecriarProduto() throws Exception {
+        repository.criar(criarProdutoTeste(1L, "Produto"));
+        AtomicInteger remocoes = new AtomicInteger();
+        
+        executarAoMesmoTempo(i -> {
+            try {
+                if (i == 0) {
+                    repository.deletar(1L);
+                    remocoes.incrementAndGet();
+                } else {
+                    repository.atualizar(criarProdutoTeste(1L, "Atualizado " + i));
+                }
+            } catch (ProdutoNaoEncontradoException e) {
+                assertEquals(1L, e.getProdutoId());
+            }
+        });
+        
+        assertEquals(1, remocoes.get());
+        assertFalse(repository.existe(1L));
+    }
+    
+    @RepeatedTest(20)
+    @DisplayName("Reservas concorrentes do mesmo produto nunca devem passar do estoque")
+    void reservasConcorrentesNaoDevemPassarDoEstoque() throws Exception {
+        repository.criar(criarProdutoTeste(1L, "Produto"));
+        AtomicInteger reservas = new AtomicInteger();
+        AtomicInteger recusas = new AtomicInteger();
+        
+        executarAoMesmoTempo(i -> {
+            try {
+                repository.reservarEstoque(1L, 1);
+                reservas.incrementAndGet();
+            } catch (EstoqueInsuficienteException e) {
+                recusas.incrementAndGet();
+            }
+        });
+        
+        assertEquals(10, reservas.get());
+        assertEquals(THREADS - 10, recusas.get());
+        assertEquals(0, repository.buscarPorId(1L).orElseThrow().getQuantidadeEstoque());
+    }
+    
+    @Test
+    @DisplayName("Reservas e devoluções concorrentes não devem perder nenhuma unidade")
+    void reservasEDevolucoesConcorrentesNaoDevemPerderUnidades() throws Exception {
+        repository.criar(criarProdutoTeste(1L, "Produto"));
+        
+        executarAoMesmoTempo(i -> {
+            for (int j = 0; j < 1_000; j++) {
+                try {
+                    repository.reservarEstoque(1L, 1 + j % 3);
+                    repository.devolverEstoque(1L, 1 + j % 3);
+                } catch (EstoqueInsuficienteException e) {
+                    assertTrue(e.getDisponivel() < e.getSolicitado());
+                }
+            }
+        });
+        
+        assertEquals(10, repository.buscarPorId(1L).orElseThrow().getQuantidadeEstoque());
+        assertEquals(List.of(1L), repository.buscarComEstoqueAbaixoDe(11).stream().map(Produto::getId).toList());
+    }
+    
+    @Test
+    @DisplayName("Criações concorrentes com IDs distintos devem ser todas mantidas")
+    void criacoesConcorrentesComIdsDistintosDevemSerMantidas() throws Exception {
+        int porThread = 1_000;
+        
+        executarAoMesmoTempo(i -> {
+            for (int j = 0; j < porThread; j++) {
+                long id = (long) i * porThread + j + 1;
+                repository.criar(criarProdutoTeste(id, "Produto " + id));
+            }
+        });
+        
+        assertEquals(THREADS * porThread, repository.listarTodos().size());
+    }
+    
+    private void executarAoMesmoTempo(Tarefa tarefa) throws Exception {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Void>> resultados = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int indice = i;
+            Callable<Void> chamada = () -> {
+                largada.await();
+                tarefa.executar(indice);
+                return null;
+            };
+            resultados.add(executor.submit(chamada));
+        }
+        largada.countDown();
+        for (Future<Void> resultado : resultados) {
+            resultado.get(30, TimeUnit.SECONDS);
+        }
+    }
+    
+    private Produto criarProdutoTeste(Long id, String nome) {
+        return Produto.criar(id, nome, "Descrição " + id, new BigDecimal("100.00"), 10);
+    }
+    
+    @FunctionalInterface
+    private interface Tarefa {
+        void executar(int indice);
+    }
+}
@@ -0,0 +1,177 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoLote;
+import br.edu.esc.tp1.domain.ResultadoLote.Situacao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static br.edu.esc.tp1.repository.ProdutosTeste.criarProdutoTeste;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes das operações em lote do Repositório de Produtos")
+class ProdutoRepositoryLoteTest {
+    
+    @TempDir
+    Path diretorio;
+    
+    private ProdutoRepository repository;
+    
+    @AfterEach
+    void fechar() throws Exception {
+        if (repository instanceof AutoCloseable recurso) {
+            recurso.close();
+        }
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"memoria", "offheap", "arquivo", "cache"})
+    @DisplayName("Deve aplicar os itens válidos e relatar as falhas no modo melhor esforço")
+    void deveAplicarItensValidosNoModoMelhorEsforco(String tipo) {
+        repository = criar(tipo);
+        repository.criar(criarProdutoTeste(2L, "Existente"));
+        
+        ResultadoLote resultado = repository.criarEmLote(
+            Arrays.asList(criarProdutoTeste(1L, "Novo"), criarProdutoTeste(2L, "Duplicado"), null, criarProdutoTeste(3L, "Outro")),
+            ModoLote.MELHOR_ESFORCO);
+        
+        assertEquals(List.of(Situacao.APLICADO, Situacao.FALHOU, Situacao.FALHOU, Situacao.APLICADO), situacoes(resultado));
+        assertEquals(2, resultado.getAplicados());
+        assertEquals(1, resultado.getFalhas().get(0).posicao());
+        assertEquals(2L, resultado.getFalhas().get(0).id());
+        assertEquals("Existente", repository.buscarPorId(2L).orElseThrow().getNome());
+        assertTrue(repository.existe(3L));
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"memoria", "offheap", "arquivo", "cache"})
+    @DisplayName("Deve desfazer tudo no modo tudo ou nada quando um item falha")
+    void deveDesfazerTudoNoModoTudoOuNada(String tipo) {
+        repository = criar(tipo);
+        repository.criar(criarProdutoTeste(1L, "Mouse"));
+        repository.criar(criarProdutoTeste(2L, "Teclado"));
+        
+        ResultadoLote atualizacao = repository.atualizarEmLote(
+            List.of(criarProdutoTeste(1L, "Mouse novo"), criarProdutoTeste(9L, "Inexistente"), criarProdutoTeste(2L, "Teclado novo")),
+            ModoLote.TUDO_OU_NADA);
+        ResultadoLote remocao = repository.deletarEmLote(List.of(1L, 2L, 9L), ModoLote.TUDO_OU_NADA);
+        ResultadoLote criacao = repository.criarEmLote(
+            List.of(criarProdutoTeste(5L, "Monitor"), criarProdutoTeste(1L, "Duplicado")), ModoLote.TUDO_OU_NADA);
+        
+        assertEquals(List.of(Situacao.NAO_APLICADO, Situacao.FALHOU, Situacao.NAO_APLICADO), situacoes(atualizacao));
+        assertEquals(List.of(Situacao.NAO_APLICADO, Situacao.NAO_APLICADO, Situacao.FALHOU), situacoes(remocao));
+        assertFalse(criacao.isSucessoTotal());
+        assertEquals("Mouse", repository.buscarPorId(1L).orElseThrow().getNome());
+        assertEquals("Teclado", repository.buscarPorId(2L).orElseThrow().getNome());
+        assertFalse(repository.existe(5L));
+        assertEquals(2, repository.listarTodos().size());
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"memoria", "offheap", "arquivo", "cache"})
+    @DisplayName("Deve aplicar lote inteiro quando todos os itens são válidos")
+    void deveAplicarLoteInteiro(String tipo) {
+        repository = criar(tipo);
+        
+        repository.criarEmLote(List.of(criarProdutoTeste(1L, "A"), criarProdutoTeste(2L, "B"), criarProdutoTeste(3L, "C")), ModoLote.TUDO_OU_NADA);
+        ResultadoLote atualizacao = repository.atualizarEmLote(List.of(criarProdutoTeste(1L, "A2")), ModoLote.TUDO_OU_NADA);
+        ResultadoLote remocao = repository.deletarEmLote(List.of(2L, 3L), ModoLote.TUDO_OU_NADA);
+        
+        assertTrue(atualizacao.isSucessoTotal());
+        assertTrue(remocao.isSucessoTotal());
+        assertEquals(List.of("A2"), repository.listarTodos().stream().map(Produto::getNome).toList());
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"memoria", "offheap", "arquivo", "cache"})
+    @DisplayName("Deve desfazer o lote sem avançar versões nem publicar alterações")
+    void deveDesfazerSemAvancarVersaoNemPublicar(String tipo) {
+        repository = criar(tipo);
+        repository.criar(criarProdutoTeste(1L, "Mouse"));
+        repository.criar(criarProdutoTeste(2L, "Teclado"));
+        repository.atualizar(criarProdutoTeste(1L, "Mouse sem fio"));
+        FluxoAlteracoes fluxo = new FluxoAlteracoes(64);
+        fluxo.registrarEm(repository);
+        
+        repository.atualizarEmLote(List.of(criarProdutoTeste(1L, "Mouse novo"), criarProdutoTeste(9L, "Inexistente")), ModoLote.TUDO_OU_NADA);
+        repository.deletarEmLote(List.of(2L, 9L), ModoLote.TUDO_OU_NADA);
+        repository.criarEmLote(List.of(criarProdutoTeste(5L, "Monitor"), criarProdutoTeste(1L, "Duplicado")), ModoLote.TUDO_OU_NADA);
+        
+        assertEquals(0, fluxo.ultimaSequencia());
+        assertEquals(2, repository.buscarPorId(1L).orElseThrow().getVersao());
+        assertEquals(1, repository.buscarPorId(2L).orElseThrow().getVersao());
+        
+        ResultadoLote aplicado = repository.atualizarEmLote(
+            List.of(criarProdutoTeste(1L, "Mouse novo").comVersao(2), criarProdutoTeste(2L, "Teclado novo")), ModoLote.TUDO_OU_NADA);
+        
+        assertTrue(aplicado.isSucessoTotal());
+        assertEquals(2, fluxo.ultimaSequencia());
+        assertEquals(3, repository.buscarPorId(1L).orElseThrow().getVersao());
+        fluxo.close();
+    }
+    
+    @Test
+    @DisplayName("Deve recuperar a versão de antes do lote desfeito após reabrir")
+    void deveRecuperarVersaoDeAntesDoLoteDesfeito() throws Exception {
+        try (ProdutoRepositoryPersistente persistente = new ProdutoRepositoryPersistente(diretorio)) {
+            persistente.criar(criarProdutoTeste(1L, "Mouse"));
+            persistente.atualizarEmLote(List.of(criarProdutoTeste(1L, "Mouse novo"), criarProdutoTeste(9L, "Inexistente")),
+                ModoLote.TUDO_OU_NADA);
+            assertEquals(1, persistente.buscarPorId(1L).orElseThrow().getVersao());
+            persistente.atualizar(criarProdutoTeste(1L, "Mouse sem fio").comVersao(1));
+        }
+        
+        try (ProdutoRepositoryPersistente reaberto = new ProdutoRepositoryPersistente(diretorio)) {
+            Produto recuperado = reaberto.buscarPorId(1L).orElseThrow();
+            assertEquals("Mouse sem fio", recuperado.getNome());
+            assertEquals(2, recuperado.getVersao());
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve recuperar do log só os lotes que foram aplicados")
+    void deveRecuperarDoLogSoOsLotesAplicados() throws Exception {
+        try (ProdutoRepositoryPersistente persistente = new ProdutoRepositoryPersistente(diretorio)) {
+            persistente.criarEmLote(List.of(criarProdutoTeste(1L, "A"), criarProdutoTeste(2L, "B")), ModoLote.TUDO_OU_NADA);
+            persistente.criarEmLote(List.of(criarProdutoTeste(3L, "C"), criarProdutoTeste(1L, "Duplicado")), ModoLote.TUDO_OU_NADA);
+            persistente.deletarEmLote(List.of(2L, 7L), ModoLote.MELHOR_ESFORCO);
+        }
+        
+        try (ProdutoRepositoryPersistente reaberto = new ProdutoRepositoryPersistente(diretorio)) {
+            assertEquals(List.of(1L), reaberto.listarTodos().stream().map(Produto::getId).toList());
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve rejeitar lote ou modo nulos")
+    void deveRejeitarLoteOuModoNulos() {
+        repository = new ProdutoRepositoryImpl();
+        
+        assertThrows(IllegalArgumentException.class, () -> repository.criarEmLote(null, ModoLote.MELHOR_ESFORCO));
+        assertThrows(IllegalArgumentException.class, () -> repository.deletarEmLote(List.of(1L), null));
+    }
+    
+    private ProdutoRepository criar(String tipo) {
+        return switch (tipo) {
+            case "memoria" -> new ProdutoRepositoryImpl();
+            case "offheap" -> new ProdutoRepositoryOffHeap();
+            case "arquivo" -> new ProdutoRepositoryPersistente(diretorio);
+            case "cache" -> new ProdutoRepositoryCache(new ProdutoRepositoryImpl(), 100, Duration.ofMinutes(1));
+            default -> throw new IllegalArgumentException(tipo);
+        };
+    }
+    
+    private static List<Situacao> situacoes(ResultadoLote resultado) {
+        return resultado.getItens().stream().map(ResultadoLote.Item::situacao).toList();
+    }
+}
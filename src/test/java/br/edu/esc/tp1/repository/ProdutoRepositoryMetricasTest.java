@@ -0,0 +1,89 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static br.edu.esc.tp1.repository.ProdutosTeste.criarProdutoTeste;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes das métricas do Repositório de Produtos")
+class ProdutoRepositoryMetricasTest {
+    
+    private SimpleMeterRegistry registro;
+    private ProdutoRepositoryMetricas repository;
+    
+    @BeforeEach
+    void setUp() {
+        registro = new SimpleMeterRegistry();
+        repository = new ProdutoRepositoryMetricas(new ProdutoRepositoryImpl(), registro);
+    }
+    
+    @Test
+    @DisplayName("Deve medir cada operação com o timer da sua tag")
+    void deveMedirCadaOperacao() {
+        repository.criar(criarProdutoTeste(1L));
+        repository.listarTodos();
+        repository.listarTodos();
+        
+        assertEquals(1, tempo("criar").count());
+        assertEquals(2, tempo("listarTodos").count());
+        assertEquals(0, tempo("deletar").count());
+        assertTrue(tempo("listarTodos").totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+    
+    @Test
+    @DisplayName("Não deve medir as leituras por id, que o serviço já mede")
+    void naoDeveMedirLeiturasPorId() {
+        repository.criar(criarProdutoTeste(1L));
+        
+        assertTrue(repository.buscarPorId(1L).isPresent());
+        assertTrue(repository.existe(1L));
+        assertEquals(1, repository.buscarPorIds(List.of(1L, 2L)).size());
+        
+        for (String operacao : List.of("buscarPorId", "buscarPorIds", "existe")) {
+            assertNull(registro.find(ProdutoRepositoryMetricas.TEMPO).tag("operacao", operacao).timer(), operacao);
+        }
+        assertEquals(2, registro.get(ProdutoRepositoryMetricas.ITENS_LOTE).summary().totalAmount());
+    }
+    
+    @Test
+    @DisplayName("Deve contar as falhas e medir o tempo também quando a operação lança exceção")
+    void deveContarFalhas() {
+        repository.criar(criarProdutoTeste(1L));
+        
+        assertThrows(ProdutoDuplicadoException.class, () -> repository.criar(criarProdutoTeste(1L)));
+        
+        assertEquals(2, tempo("criar").count());
+        assertEquals(1, registro.get(ProdutoRepositoryMetricas.FALHAS).tag("operacao", "criar").counter().count());
+        assertEquals(0, registro.get(ProdutoRepositoryMetricas.FALHAS).tag("operacao", "deletar").counter().count());
+    }
+    
+    @Test
+    @DisplayName("Deve registrar o tamanho dos lotes e repassar versões e ouvintes")
+    void deveRegistrarTamanhoDosLotes() {
+        ProdutoRepositoryMetricas versionado = new ProdutoRepositoryMetricas(
+            new ProdutoRepositoryVersionado(new ProdutoRepositoryImpl()), registro);
+        CatalogoColunar catalogo = new CatalogoColunar();
+        versionado.registrarOuvinte(catalogo);
+        
+        versionado.criarEmLote(List.of(criarProdutoTeste(1L), criarProdutoTeste(2L), criarProdutoTeste(3L)), ModoLote.TUDO_OU_NADA);
+        versionado.deletarEmLote(List.of(1L), ModoLote.TUDO_OU_NADA);
+        
+        assertEquals(2, registro.get(ProdutoRepositoryMetricas.ITENS_LOTE).summary().count());
+        assertEquals(4, registro.get(ProdutoRepositoryMetricas.ITENS_LOTE).summary().totalAmount());
+        assertEquals(2, catalogo.tamanho());
+        assertTrue(versionado.versao().orElseThrow().numero() > 0);
+    }
+    
+    private Timer tempo(String operacao) {
+        return registro.get(ProdutoRepositoryMetricas.TEMPO).tag("operacao", operacao).timer();
+    }
+}
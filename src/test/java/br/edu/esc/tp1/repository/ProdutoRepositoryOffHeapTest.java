@@ -0,0 +1,166 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.exception.ConflitoVersaoException;
+import br.edu.esc.tp1.exception.EstoqueInsuficienteException;
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static br.edu.esc.tp1.repository.ProdutosTeste.criarProdutoTeste;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Repositório de Produtos fora do heap")
+class ProdutoRepositoryOffHeapTest {
+    
+    private ProdutoRepositoryOffHeap repository;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new ProdutoRepositoryOffHeap(2);
+    }
+    
+    @Test
+    @DisplayName("Deve remontar produto com os mesmos campos, incluindo escala do preço e acentos")
+    void deveRemontarProdutoComOsMesmosCampos() {
+        repository.criar(Produto.criar(7L, "Café torrado", "Pacote 500g — moído", new BigDecimal("19.900"), 12));
+        
+        Produto lido = repository.buscarPorId(7L).orElseThrow();
+        assertEquals("Café torrado", lido.getNome());
+        assertEquals("Pacote 500g — moído", lido.getDescricao());
+        assertEquals(new BigDecimal("19.900"), lido.getPreco());
+        assertEquals(12, lido.getQuantidadeEstoque());
+    }
+    
+    @Test
+    @DisplayName("Deve aceitar ids zero e negativos")
+    void deveAceitarIdsZeroENegativos() {
+        repository.criar(criarProdutoTeste(0L, "Zero"));
+        repository.criar(criarProdutoTeste(-5L, "Negativo"));
+        
+        assertEquals("Zero", repository.buscarPorId(0L).orElseThrow().getNome());
+        repository.deletar(0L);
+        assertFalse(repository.existe(0L));
+        assertTrue(repository.existe(-5L));
+    }
+    
+    @Test
+    @DisplayName("Deve buscar vários ids de uma vez, na ordem pedida, ignorando ausentes e nulos")
+    void deveBuscarVariosIds() {
+        repository.criar(criarProdutoTeste(1L, "Mouse"));
+        repository.criar(criarProdutoTeste(2L, "Teclado"));
+        repository.criar(criarProdutoTeste(3L, "Monitor"));
+        
+        Map<Long, Produto> encontrados = repository.buscarPorIds(Arrays.asList(3L, 9L, null, 1L));
+        
+        assertEquals(List.of(3L, 1L), List.copyOf(encontrados.keySet()));
+        assertEquals("Monitor", encontrados.get(3L).getNome());
+    }
+    
+    @Test
+    @DisplayName("Deve lançar as mesmas exceções do repositório em memória")
+    void deveLancarAsMesmasExcecoes() {
+        repository.criar(criarProdutoTeste(1L, "Mouse"));
+        
+        assertThrows(ProdutoDuplicadoException.class, () -> repository.criar(criarProdutoTeste(1L, "Outro")));
+        assertThrows(ProdutoNaoEncontradoException.class, () -> repository.atualizar(criarProdutoTeste(2L, "Teclado")));
+        assertThrows(ProdutoNaoEncontradoException.class, () -> repository.deletar(2L));
+        assertThrows(IllegalArgumentException.class, () -> repository.criar(null));
+    }
+    
+    @Test
+    @DisplayName("Deve reservar e devolver estoque regravando só o estoque do registro")
+    void deveReservarEDevolverEstoque() {
+        repository.criar(Produto.criar(7L, "Café torrado", "Pacote 500g", new BigDecimal("19.90"), 12));
+        
+        assertEquals(2, repository.reservarEstoque(7L, 10));
+        assertThrows(EstoqueInsuficienteException.class, () -> repository.reservarEstoque(7L, 3));
+        assertEquals(5, repository.devolverEstoque(7L, 3));
+        assertThrows(IllegalArgumentException.class, () -> repository.devolverEstoque(7L, Integer.MAX_VALUE));
+        assertThrows(ProdutoNaoEncontradoException.class, () -> repository.reservarEstoque(8L, 1));
+        
+        Produto lido = repository.buscarPorId(7L).orElseThrow();
+        assertEquals(5, lido.getQuantidadeEstoque());
+        assertEquals("Café torrado", lido.getNome());
+        assertEquals(new BigDecimal("19.90"), lido.getPreco());
+    }
+    
+    @Test
+    @DisplayName("Deve guardar a versão no registro e recusar atualização sobre versão antiga")
+    void deveRecusarAtualizacaoSobreVersaoAntiga() {
+        repository.criar(criarProdutoTeste(1L, "Mouse"));
+        Produto lido = repository.buscarPorId(1L).orElseThrow();
+        
+        repository.reservarEstoque(1L, 1);
+        assertThrows(ConflitoVersaoException.class, () -> repository.atualizar(lido.atualizar("Mouse sem fio",
+            lido.getDescricao(), lido.getPreco(), lido.getQuantidadeEstoque())));
+        repository.atualizar(repository.buscarPorId(1L).orElseThrow().atualizar("Mouse sem fio",
+            lido.getDescricao(), lido.getPreco(), 5));
+        
+        Produto atual = repository.buscarPorId(1L).orElseThrow();
+        assertEquals(3, atual.getVersao());
+        assertEquals("Mouse sem fio", atual.getNome());
+        assertEquals(List.of(3L), repository.listarTodos().stream().map(Produto::getVersao).toList());
+    }
+    
+    @Test
+    @DisplayName("Deve rejeitar preço cujo valor sem escala não cabe em long")
+    void deveRejeitarPrecoQueNaoCabeEmLong() {
+        BigDecimal enorme = new BigDecimal("123456789012345678901234567890.00");
+        
+        assertThrows(IllegalArgumentException.class,
+            () -> repository.criar(Produto.criar(1L, "Caro", "Desc", enorme, 1)));
+        assertFalse(repository.existe(1L));
+    }
+    
+    @Test
+    @DisplayName("Deve reaproveitar registros e compactar textos sem perder produtos")
+    void deveReaproveitarRegistrosECompactarTextos() {
+        String longo = "x".repeat(4096);
+        for (long id = 1; id <= 50; id++) {
+            repository.criar(criarProdutoTeste(id, "Produto " + id));
+        }
+        for (int rodada = 0; rodada < 20; rodada++) {
+            for (long id = 1; id <= 50; id++) {
+                repository.atualizar(Produto.criar(id, "Produto " + id + " v" + rodada, longo, BigDecimal.ONE, rodada));
+            }
+        }
+        
+        assertEquals(50, repository.listarTodos().size());
+        Produto lido = repository.buscarPorId(33L).orElseThrow();
+        assertEquals("Produto 33 v19", lido.getNome());
+        assertEquals(longo, lido.getDescricao());
+        assertTrue(repository.bytesForaDoHeap() < 50L * 4096 * 20);
+    }
+    
+    @Test
+    @DisplayName("Deve manter o índice consistente com um mapa sob operações aleatórias")
+    void deveManterIndiceConsistenteComMapa() {
+        IndiceLongInt indice = new IndiceLongInt(4);
+        Map<Long, Integer> esperado = new HashMap<>();
+        Random aleatorio = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long chave = aleatorio.nextInt(2_000) - 1_000;
+            if (aleatorio.nextBoolean()) {
+                indice.colocar(chave, i);
+                esperado.put(chave, i);
+            } else {
+                assertEquals(esperado.getOrDefault(chave, IndiceLongInt.AUSENTE), indice.remover(chave));
+                esperado.remove(chave);
+            }
+        }
+        assertEquals(esperado.size(), indice.tamanho());
+        for (long chave = -1_000; chave < 1_000; chave++) {
+            assertEquals(esperado.getOrDefault(chave, IndiceLongInt.AUSENTE), indice.buscar(chave));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static br.edu.esc.tp1.repository.ProdutosTeste.criarProdutoTeste;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do percurso sem cópia do Repositório de Produtos")
+class ProdutoRepositoryPercursoTest {
+
+    private static final int QUANTIDADE = 1_000;
+
+    @TempDir
+    Path diretorio;
+
+    private ProdutoRepository repository;
+
+    @AfterEach
+    void fechar() throws Exception {
+        if (repository instanceof AutoCloseable recurso) {
+            recurso.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memoria", "offheap", "arquivo", "mapeado", "cache"})
+    @DisplayName("Deve percorrer os mesmos produtos de listarTodos")
+    void devePercorrerOsMesmosProdutosDeListarTodos(String tipo) {
+        repository = criar(tipo);
+        for (long id = QUANTIDADE / 2 + 1; id <= QUANTIDADE; id++) {
+            repository.criar(criarProdutoTeste(id, "Produto " + id));
+        }
+        repository.atualizar(criarProdutoTeste(QUANTIDADE, "Alterado"));
+        repository.deletar((long) QUANTIDADE - 1);
+
+        List<Produto> percorridos = new ArrayList<>();
+        Iterator<Produto> percurso = repository.percorrerTodos();
+        percurso.forEachRemaining(percorridos::add);
+
+        assertEquals(new HashSet<>(repository.listarTodos()), new HashSet<>(percorridos));
+        assertEquals(repository.listarTodos().size(), percorridos.size());
+        assertEquals("Alterado", percorridos.stream().filter(p -> p.getId() == QUANTIDADE).findFirst().orElseThrow().getNome());
+        assertThrows(NoSuchElementException.class, percurso::next);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memoria", "offheap", "arquivo", "mapeado", "cache"})
+    @DisplayName("Deve ver uma vez cada produto estável mesmo com escritas durante o percurso")
+    void deveVerProdutosEstaveisComEscritasDuranteOPercurso(String tipo) {
+        repository = criar(tipo);
+        Set<Long> estaveis = new HashSet<>();
+        for (long id = 1; id <= QUANTIDADE / 2; id += 2) {
+            estaveis.add(id);
+        }
+
+        List<Long> vistos = new ArrayList<>();
+        Iterator<Produto> percurso = repository.percorrerTodos();
+        long proximoNovo = QUANTIDADE + 1;
+        while (percurso.hasNext()) {
+            vistos.add(percurso.next().getId());
+            if (proximoNovo <= 2 * QUANTIDADE) {
+                repository.criar(criarProdutoTeste(proximoNovo++, "Novo"));
+            }
+            long volatil = 2 * (vistos.size() % (QUANTIDADE / 4)) + 2;
+            if (repository.existe(volatil)) {
+                repository.deletar(volatil);
+            }
+        }
+
+        List<Long> estaveisVistos = vistos.stream().filter(estaveis::contains).toList();
+        assertEquals(estaveis.size(), estaveisVistos.size());
+        assertEquals(estaveis, new HashSet<>(estaveisVistos));
+    }
+
+    private ProdutoRepository criar(String tipo) {
+        ProdutoRepository criado = switch (tipo) {
+            case "memoria" -> new ProdutoRepositoryImpl();
+            case "offheap" -> new ProdutoRepositoryOffHeap(16);
+            case "arquivo" -> new ProdutoRepositoryPersistente(diretorio);
+            case "mapeado" -> new ProdutoRepositoryPersistente(diretorio, 1_000_000,
+                ProdutoRepositoryPersistente.Carregamento.MAPEADO);
+            case "cache" -> new ProdutoRepositoryCache(new ProdutoRepositoryImpl(), 100, Duration.ofMinutes(1));
+            default -> throw new IllegalArgumentException(tipo);
+        };
+        for (long id = 1; id <= QUANTIDADE / 2; id++) {
+            criado.criar(criarProdutoTeste(id, "Produto " + id));
+        }
+        if (criado instanceof ProdutoRepositoryPersistente persistente) {
+            persistente.compactar();
+        }
+        return criado;
+    }
+}
@@ -0,0 +1,426 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.exception.ConflitoVersaoException;
+import br.edu.esc.tp1.exception.EstoqueInsuficienteException;
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import br.edu.esc.tp1.repository.ProdutoRepositoryPersistente.Carregamento;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Repositório de Produtos persistente")
+class ProdutoRepositoryPersistenteTest {
+    
+    @TempDir
+    Path diretorio;
+    
+    @Test
+    @DisplayName("Deve recuperar criações, atualizações e remoções após reabrir")
+    void deveRecuperarEscritasAposReabrir() throws IOException {
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            repository.criar(criarProdutoTeste(1L, "Original"));
+            repository.criar(criarProdutoTeste(2L, "Segundo"));
+            repository.criar(criarProdutoTeste(3L, "Terceiro"));
+            repository.atualizar(Produto.criar(1L, "Atualizado", "Nova desc", new BigDecimal("12.345"), 7));
+            repository.deletar(2L);
+        }
+        
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            Produto recuperado = repository.buscarPorId(1L).orElseThrow();
+            assertEquals("Atualizado", recuperado.getNome());
+            assertEquals("Nova desc", recuperado.getDescricao());
+            assertEquals(new BigDecimal("12.345"), recuperado.getPreco());
+            assertEquals(7, recuperado.getQuantidadeEstoque());
+            assertFalse(repository.existe(2L));
+            assertTrue(repository.existe(3L));
+            assertEquals(1, repository.buscarPorTexto("terceiro", 0, 10).getTotalElementos());
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve manter as exceções de duplicado e não encontrado sem gravar no log")
+    void deveManterExcecoesSemGravarNoLog() throws IOException {
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            repository.criar(criarProdutoTeste(1L, "Produto"));
+            long tamanhoLog = Files.size(diretorio.resolve(ProdutoRepositoryPersistente.ARQUIVO_LOG));
+            
+            assertThrows(ProdutoDuplicadoException.class, () -> repository.criar(criarProdutoTeste(1L, "Outro")));
+            assertThrows(ProdutoNaoEncontradoException.class, () -> repository.atualizar(criarProdutoTeste(9L, "X")));
+            assertThrows(ProdutoNaoEncontradoException.class, () -> repository.deletar(9L));
+            
+            assertEquals(tamanhoLog, Files.size(diretorio.resolve(ProdutoRepositoryPersistente.ARQUIVO_LOG)));
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve recuperar reservas e devoluções de estoque após reabrir")
+    void deveRecuperarReservasAposReabrir() throws IOException {
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            repository.criar(criarProdutoTeste(1L, "Produto"));
+            assertEquals(4, repository.reservarEstoque(1L, 6));
+            assertEquals(5, repository.devolverEstoque(1L, 1));
+            long tamanhoLog = Files.size(diretorio.resolve(ProdutoRepositoryPersistente.ARQUIVO_LOG));
+            assertThrows(EstoqueInsuficienteException.class, () -> repository.reservarEstoque(1L, 6));
+            assertEquals(tamanhoLog, Files.size(diretorio.resolve(ProdutoRepositoryPersistente.ARQUIVO_LOG)));
+        }
+        
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            assertEquals(5, repository.buscarPorId(1L).orElseThrow().getQuantidadeEstoque());
+        }
+    }
+    
+    @ParameterizedTest
+    @EnumSource(Carregamento.class)
+    @DisplayName("Deve compactar em snapshot, zerar o log e recuperar do snapshot")
+    void deveCompactarERecuperarDoSnapshot(Carregamento carregamento) throws IOException {
+        try (ProdutoRepositoryPersistente repository = abrir(carregamento)) {
+            for (long id = 1; id <= 50; id++) {
+                repository.criar(criarProdutoTeste(id, "Produto " + id));
+            }
+            repository.compactar();
+            assertEquals(0, Files.size(diretorio.resolve(ProdutoRepositoryPersistente.ARQUIVO_LOG)));
+            repository.deletar(50L);
+            repository.atualizar(criarProdutoTeste(1L, "Atualizado"));
+            assertEquals("Atualizado", repository.buscarPorId(1L).orElseThrow().getNome());
+            repository.compactar();
+            repository.criar(criarProdutoTeste(51L, "Depois do snapshot"));
+        }
+        
+        try (ProdutoRepositoryPersistente repository = abrir(carregamento)) {
+            assertEquals(50, repository.listarTodos().size());
+            assertFalse(repository.existe(50L));
+            assertEquals("Atualizado", repository.buscarPorId(1L).orElseThrow().getNome());
+            assertEquals(List.of(1L, 2L), repository.listarPagina(0, 2, OrdenacaoProduto.ID)
+                .getConteudo().stream().map(Produto::getId).toList());
+            assertTrue(Files.exists(repository.arquivoSnapshot(2)));
+            assertFalse(Files.exists(repository.arquivoSnapshot(1)));
+        }
+    }
+    
+    @ParameterizedTest
+    @EnumSource(Carregamento.class)
+    @DisplayName("Deve recuperar a versão de cada produto do snapshot e do log")
+    void deveRecuperarVersoesAposReabrir(Carregamento carregamento) throws IOException {
+        try (ProdutoRepositoryPersistente repository = abrir(carregamento)) {
+            repository.criar(criarProdutoTeste(1L, "Produto"));
+            repository.atualizar(criarProdutoTeste(1L, "Atualizado"));
+            repository.reservarEstoque(1L, 1);
+            repository.compactar();
+            repository.atualizar(repository.buscarPorId(1L).orElseThrow().atualizar("Depois do snapshot",
+                "Descrição", BigDecimal.ONE, 1));
+            repository.criar(criarProdutoTeste(2L, "Só no log"));
+            repository.atualizar(criarProdutoTeste(2L, "Só no log"));
+        }
+        
+        try (ProdutoRepositoryPersistente repository = abrir(carregamento)) {
+            Produto primeiro = repository.buscarPorId(1L).orElseThrow();
+            assertEquals(4, primeiro.getVersao());
+            assertEquals("Depois do snapshot", primeiro.getNome());
+            assertEquals(2, repository.buscarPorId(2L).orElseThrow().getVersao());
+            assertThrows(ConflitoVersaoException.class, () -> repository.atualizar(primeiro.comVersao(3)));
+            repository.atualizar(primeiro);
+            assertEquals(5, repository.buscarPorId(1L).orElseThrow().getVersao());
+        }
+    }
+    
+    @ParameterizedTest
+    @EnumSource(Carregamento.class)
+    @DisplayName("Deve criar ou atualizar com um registro no log e recuperar após reabrir")
+    void deveRecuperarCriarOuAtualizar(Carregamento carregamento) throws IOException {
+        try (ProdutoRepositoryPersistente repository = abrir(carregamento)) {
+            repository.criar(criarProdutoTeste(1L, "Produto"));
+            repository.compactar();
+            assertEquals(ResultadoGravacao.ATUALIZADO, repository.criarOuAtualizar(criarProdutoTeste(1L, "Alterado")));
+            long tamanhoLog = Files.size(diretorio.resolve(ProdutoRepositoryPersistente.ARQUIVO_LOG));
+            assertEquals(ResultadoGravacao.CRIADO, repository.criarOuAtualizar(criarProdutoTeste(2L, "Inserido")));
+            assertEquals(2 * tamanhoLog, Files.size(diretorio.resolve(ProdutoRepositoryPersistente.ARQUIVO_LOG)));
+        }
+        
+        try (ProdutoRepositoryPersistente repository = abrir(carregamento)) {
+            assertEquals("Alterado", repository.buscarPorId(1L).orElseThrow().getNome());
+            assertEquals(2, repository.buscarPorId(1L).orElseThrow().getVersao());
+            assertEquals("Inserido", repository.buscarPorId(2L).orElseThrow().getNome());
+            assertEquals(1, repository.buscarPorId(2L).orElseThrow().getVersao());
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve servir buscas do snapshot mapeado e manter as regras de escrita")
+    void deveServirBuscasDoSnapshotMapeado() throws IOException {
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            for (long id = 1; id <= 100; id += 2) {
+                repository.criar(Produto.criar(id, "Produto ç " + id, "Descrição " + id,
+                                               new BigDecimal("1234567890123456789.99"), (int) id));
+            }
+            repository.compactar();
+        }
+        
+        try (ProdutoRepositoryPersistente repository = abrir(Carregamento.MAPEADO)) {
+            Produto encontrado = repository.buscarPorId(51L).orElseThrow();
+            assertEquals("Produto ç 51", encontrado.getNome());
+            assertEquals(new BigDecimal("1234567890123456789.99"), encontrado.getPreco());
+            assertEquals(51, encontrado.getQuantidadeEstoque());
+            assertTrue(repository.buscarPorId(52L).isEmpty());
+            
+            assertThrows(ProdutoDuplicadoException.class, () -> repository.criar(criarProdutoTeste(51L, "X")));
+            assertThrows(ProdutoNaoEncontradoException.class, () -> repository.deletar(52L));
+            repository.deletar(51L);
+            assertThrows(ProdutoNaoEncontradoException.class, () -> repository.atualizar(criarProdutoTeste(51L, "X")));
+            repository.criar(criarProdutoTeste(51L, "Recriado"));
+            
+            assertEquals("Recriado", repository.buscarPorId(51L).orElseThrow().getNome());
+            assertEquals(50, repository.listarTodos().size());
+            assertEquals(1, repository.buscarPorTexto("recriado", 0, 10).getTotalElementos());
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve compactar automaticamente ao atingir o limite de registros")
+    void deveCompactarAutomaticamente() throws Exception {
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio, 10,
+                Carregamento.COMPLETO)) {
+            for (long id = 1; id <= 25; id++) {
+                repository.criar(criarProdutoTeste(id, "Produto " + id));
+            }
+            long limite = System.currentTimeMillis() + 5_000;
+            while (!existeSnapshot() && System.currentTimeMillis() < limite) {
+                Thread.sleep(10);
+            }
+            assertTrue(existeSnapshot());
+        }
+        
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            assertEquals(25, repository.listarTodos().size());
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve descartar registro incompleto no fim do log")
+    void deveDescartarRegistroIncompletoNoFimDoLog() throws IOException {
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            repository.criar(criarProdutoTeste(1L, "Inteiro"));
+        }
+        Path log = diretorio.resolve(ProdutoRepositoryPersistente.ARQUIVO_LOG);
+        long tamanhoValido = Files.size(log);
+        Files.write(log, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            assertTrue(repository.existe(1L));
+            assertEquals(tamanhoValido, Files.size(log));
+            repository.criar(criarProdutoTeste(2L, "Depois"));
+        }
+        
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            assertEquals(2, repository.listarTodos().size());
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve gravar escritas concorrentes em lote e recuperar todas")
+    void deveGravarEscritasConcorrentesERecuperarTodas() throws Exception {
+        int threads = 8;
+        int porThread = 200;
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long base = (long) t * porThread;
+                tarefas.add(executor.submit(() -> {
+                    for (long id = base + 1; id <= base + porThread; id++) {
+                        repository.criar(criarProdutoTeste(id, "Produto " + id));
+                    }
+                }));
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+        }
+        
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            assertEquals(threads * porThread, repository.listarTodos().size());
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve recusar escritas com o log fechado sem mudar o estado nem avisar os ouvintes")
+    void deveRecusarEscritasComLogFechado() throws IOException {
+        ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio);
+        repository.criar(criarProdutoTeste(1L, "Produto"));
+        AtomicInteger avisos = new AtomicInteger();
+        repository.registrarOuvinte(new OuvinteProduto() {
+            @Override
+            public void aoCriar(Produto produto) {
+                avisos.incrementAndGet();
+            }
+            
+            @Override
+            public void aoAtualizar(Produto anterior, Produto atual) {
+                avisos.incrementAndGet();
+            }
+            
+            @Override
+            public void aoDeletar(Produto removido) {
+                avisos.incrementAndGet();
+            }
+        });
+        avisos.set(0);
+        repository.close();
+        
+        assertThrows(IllegalStateException.class, () -> repository.criar(criarProdutoTeste(2L, "Novo")));
+        assertThrows(IllegalStateException.class, () -> repository.atualizar(criarProdutoTeste(1L, "Alterado")));
+        assertThrows(IllegalStateException.class, () -> repository.reservarEstoque(1L, 3));
+        assertThrows(IllegalStateException.class, () -> repository.deletar(1L));
+        assertThrows(IllegalStateException.class,
+            () -> repository.criarEmLote(List.of(criarProdutoTeste(3L, "Lote")), ModoLote.MELHOR_ESFORCO));
+        
+        assertEquals(0, avisos.get());
+        assertEquals(List.of(1L), repository.listarTodos().stream().map(Produto::getId).toList());
+        Produto atual = repository.buscarPorId(1L).orElseThrow();
+        assertEquals("Produto", atual.getNome());
+        assertEquals(10, atual.getQuantidadeEstoque());
+        assertEquals(1, atual.getVersao());
+    }
+    
+    @ParameterizedTest
+    @EnumSource(Carregamento.class)
+    @DisplayName("Deve desfazer a escrita e não avisar os ouvintes quando o fsync do log falha")
+    void deveDesfazerEscritaQuandoFsyncFalha(Carregamento carregamento) throws IOException {
+        Map<String, Consumer<ProdutoRepository>> escritas = new LinkedHashMap<>();
+        escritas.put("criar", r -> r.criar(criarProdutoTeste(3L, "Novo")));
+        escritas.put("atualizar", r -> r.atualizar(criarProdutoTeste(1L, "Alterado")));
+        escritas.put("deletar", r -> r.deletar(2L));
+        escritas.put("reservarEstoque", r -> r.reservarEstoque(1L, 3));
+        escritas.put("criarOuAtualizar", r -> r.criarOuAtualizar(criarProdutoTeste(2L, "Alterado")));
+        escritas.put("atualizarEmLote", r -> r.atualizarEmLote(
+            List.of(criarProdutoTeste(1L, "Lote"), criarProdutoTeste(2L, "Lote")), ModoLote.MELHOR_ESFORCO));
+        escritas.put("deletarEmLote", r -> r.deletarEmLote(List.of(1L, 2L), ModoLote.TUDO_OU_NADA));
+        
+        for (Map.Entry<String, Consumer<ProdutoRepository>> escrita : escritas.entrySet()) {
+            Path subdiretorio = diretorio.resolve(escrita.getKey());
+            AtomicBoolean falhar = new AtomicBoolean();
+            try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(subdiretorio,
+                    ProdutoRepositoryPersistente.REGISTROS_PARA_COMPACTAR_PADRAO, carregamento, canal -> {
+                        if (falhar.get()) {
+                            throw new IOException("Disco cheio");
+                        }
+                        canal.force(false);
+                    })) {
+                repository.criar(criarProdutoTeste(1L, "Primeiro"));
+                repository.criar(criarProdutoTeste(2L, "Segundo"));
+                List<Produto> antes = repository.listarTodos();
+                FluxoAlteracoes fluxo = new FluxoAlteracoes(16);
+                fluxo.registrarEm(repository);
+                falhar.set(true);
+                
+                assertThrows(UncheckedIOException.class, () -> escrita.getValue().accept(repository), escrita.getKey());
+                
+                assertEquals(0, fluxo.ultimaSequencia(), escrita.getKey());
+                assertEquals(antes, repository.listarTodos(), escrita.getKey());
+                for (Produto produto : antes) {
+                    assertEquals(produto.getVersao(),
+                        repository.buscarPorId(produto.getId()).orElseThrow().getVersao(), escrita.getKey());
+                }
+                assertFalse(repository.existe(3L), escrita.getKey());
+                fluxo.close();
+            }
+        }
+    }
+    
+    @ParameterizedTest
+    @EnumSource(Carregamento.class)
+    @DisplayName("Deve registrar ouvinte sem reentregar o catálogo quando só as próximas escritas interessam")
+    void deveRegistrarOuvinteSemReentregarCatalogo(Carregamento carregamento) throws IOException {
+        try (ProdutoRepositoryPersistente repository = abrir(carregamento)) {
+            repository.criar(criarProdutoTeste(1L, "Primeiro"));
+            repository.criar(criarProdutoTeste(2L, "Segundo"));
+            repository.compactar();
+        }
+        
+        try (ProdutoRepositoryPersistente repository = abrir(carregamento)) {
+            List<Long> semCarga = new ArrayList<>();
+            List<Long> comCarga = new ArrayList<>();
+            repository.registrarOuvinte(criacoesEm(semCarga), false);
+            repository.registrarOuvinte(criacoesEm(comCarga));
+            repository.criar(criarProdutoTeste(3L, "Terceiro"));
+            
+            assertEquals(List.of(3L), semCarga);
+            assertEquals(List.of(1L, 2L, 3L), comCarga.stream().sorted().toList());
+        }
+    }
+    
+    private static OuvinteProduto criacoesEm(List<Long> ids) {
+        return new OuvinteProduto() {
+            @Override
+            public void aoCriar(Produto produto) {
+                ids.add(produto.getId());
+            }
+            
+            @Override
+            public void aoAtualizar(Produto anterior, Produto atual) {
+            }
+            
+            @Override
+            public void aoDeletar(Produto removido) {
+            }
+        };
+    }
+    
+    @Test
+    @DisplayName("Deve recuperar preço com mais de 255 bytes sem corromper os registros seguintes")
+    void deveRecuperarPrecoGrande() throws IOException {
+        BigDecimal precoGrande = new BigDecimal("9".repeat(1_000) + ".99");
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            repository.criar(Produto.criar(1L, "Caro", "Preço enorme", precoGrande, 1));
+            repository.criar(criarProdutoTeste(2L, "Depois"));
+        }
+        
+        try (ProdutoRepositoryPersistente repository = new ProdutoRepositoryPersistente(diretorio)) {
+            assertEquals(precoGrande, repository.buscarPorId(1L).orElseThrow().getPreco());
+            assertEquals("Depois", repository.buscarPorId(2L).orElseThrow().getNome());
+        }
+    }
+    
+    private boolean existeSnapshot() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.anyMatch(arquivo -> arquivo.getFileName().toString().endsWith(".snapshot"));
+        }
+    }
+    
+    private ProdutoRepositoryPersistente abrir(Carregamento carregamento) {
+        return new ProdutoRepositoryPersistente(diretorio, ProdutoRepositoryPersistente.REGISTROS_PARA_COMPACTAR_PADRAO,
+                                                carregamento);
+    }
+    
+    private Produto criarProdutoTeste(Long id, String nome) {
+        return Produto.criar(id, nome, "Descrição " + id, new BigDecimal("100.00"), 10);
+    }
+}
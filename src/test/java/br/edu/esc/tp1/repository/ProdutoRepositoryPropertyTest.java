@@ -1,5 +1,8 @@
 package br.edu.esc.tp1.repository;
 
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
 import br.edu.esc.tp1.domain.Produto;
 import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
 import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
@@ -7,6 +10,7 @@ import net.jqwik.api.*;
 import net.jqwik.api.constraints.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -184,4 +188,95 @@ class ProdutoRepositoryPropertyTest {
         
         assertTrue(repository.listarTodos().isEmpty());
     }
+    
+    @Property
+    void paginaDeveCorresponderAOrdenacaoCompleta(
+            @ForAll @Size(max = 60) Set<@Positive Long> ids,
+            @ForAll @IntRange(min = 0, max = 10) int numero,
+            @ForAll @IntRange(min = 1, max = 15) int tamanho,
+            @ForAll OrdenacaoProduto ordenacao) {
+        
+        ProdutoRepository repository = new ProdutoRepositoryImpl();
+        for (Long id : ids) {
+            Produto produto = Produto.criar(id, "Produto " + (id % 7), "Desc",
+                                           new BigDecimal(id % 13), (int) (id % 5));
+            repository.criar(produto);
+        }
+        
+        List<Produto> esperado = repository.listarTodos().stream()
+            .sorted(ordenacao.comparador())
+            .skip((long) numero * tamanho)
+            .limit(tamanho)
+            .toList();
+        
+        assertEquals(esperado, repository.listarPagina(numero, tamanho, ordenacao).getConteudo());
+    }
+    
+    @Property
+    void cursoresDevemPercorrerAOrdenacaoCompletaNosDoisSentidos(
+            @ForAll @Size(max = 60) Set<@Positive Long> ids,
+            @ForAll @IntRange(min = 1, max = 15) int tamanho,
+            @ForAll OrdenacaoProduto ordenacao) {
+        
+        ProdutoRepositoryImpl indexado = new ProdutoRepositoryImpl();
+        for (Long id : ids) {
+            indexado.criar(Produto.criar(id, "Produto " + (id % 7), "Desc",
+                                         BigDecimal.valueOf(id % 13, 1), (int) (id % 5)));
+        }
+        ProdutoRepository varredura = new ProdutoRepository() {
+            @Override public void criar(Produto produto) { }
+            @Override public Optional<Produto> buscarPorId(Long id) { return Optional.empty(); }
+            @Override public List<Produto> listarTodos() { return indexado.listarTodos(); }
+            @Override public void atualizar(Produto produto) { }
+            @Override public void deletar(Long id) { }
+            @Override public boolean existe(Long id) { return false; }
+        };
+        List<Produto> esperado = indexado.listarTodos().stream().sorted(ordenacao.comparador()).toList();
+        
+        for (ProdutoRepository repository : List.of(indexado, varredura)) {
+            List<Produto> adiante = new ArrayList<>();
+            Pagina<Produto> pagina = repository.listarPagina(0, tamanho, ordenacao);
+            adiante.addAll(pagina.getConteudo());
+            while (pagina.getProxima() != null) {
+                pagina = repository.listarPagina(ChavePagina.depois(pagina.getProxima(), ordenacao), 0, tamanho);
+                adiante.addAll(pagina.getConteudo());
+            }
+            assertEquals(esperado, adiante);
+            
+            List<Produto> atras = new ArrayList<>(pagina.getConteudo());
+            while (pagina.getAnterior() != null) {
+                pagina = repository.listarPagina(ChavePagina.antes(pagina.getAnterior(), ordenacao), 0, tamanho);
+                atras.addAll(0, pagina.getConteudo());
+            }
+            assertEquals(esperado, atras);
+        }
+    }
+    
+    @Property
+    void consultasPorFaixaDevemCorresponderAVarreduraCompleta(
+            @ForAll @Size(max = 60) Set<@Positive Long> ids,
+            @ForAll @IntRange(min = 0, max = 20) int precoMinimo,
+            @ForAll @IntRange(min = 0, max = 20) int precoMaximo,
+            @ForAll @IntRange(min = 0, max = 10) int limiteEstoque) {
+        
+        ProdutoRepository repository = new ProdutoRepositoryImpl();
+        for (Long id : ids) {
+            repository.criar(Produto.criar(id, "Produto", "Desc",
+                                           BigDecimal.valueOf(id % 2001, 2), (int) (id % 11)));
+        }
+        BigDecimal minimo = BigDecimal.valueOf(precoMinimo);
+        BigDecimal maximo = BigDecimal.valueOf(precoMaximo);
+        
+        List<Produto> esperadoPorPreco = repository.listarTodos().stream()
+            .filter(p -> p.getPreco().compareTo(minimo) >= 0 && p.getPreco().compareTo(maximo) <= 0)
+            .sorted(OrdenacaoProduto.PRECO.comparador())
+            .toList();
+        List<Produto> esperadoPorEstoque = repository.listarTodos().stream()
+            .filter(p -> p.getQuantidadeEstoque() < limiteEstoque)
+            .sorted(OrdenacaoProduto.ESTOQUE.comparador())
+            .toList();
+        
+        assertEquals(esperadoPorPreco, repository.buscarPorFaixaDePreco(minimo, maximo));
+        assertEquals(esperadoPorEstoque, repository.buscarComEstoqueAbaixoDe(limiteEstoque));
+    }
 }
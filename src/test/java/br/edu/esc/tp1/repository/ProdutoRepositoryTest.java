@@ -1,6 +1,12 @@
 package br.edu.esc.tp1.repository;
 
+import br.edu.esc.tp1.domain.ChavePagina;
+import br.edu.esc.tp1.domain.OrdenacaoProduto;
+import br.edu.esc.tp1.domain.Pagina;
 import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.domain.ResultadoGravacao;
+import br.edu.esc.tp1.exception.ConflitoVersaoException;
+import br.edu.esc.tp1.exception.EstoqueInsuficienteException;
 import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
 import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
 import org.junit.jupiter.api.BeforeEach;
@@ -178,6 +184,221 @@ class ProdutoRepositoryTest {
         assertFalse(repository.existe(null));
     }
     
+    @Test
+    @DisplayName("Deve listar apenas a página pedida, ordenada por ID")
+    void deveListarApenasPaginaPedidaOrdenadaPorId() {
+        for (long id = 10; id >= 1; id--) {
+            repository.criar(criarProdutoTeste(id));
+        }
+        
+        Pagina<Produto> pagina = repository.listarPagina(1, 3, OrdenacaoProduto.ID);
+        
+        assertEquals(List.of(4L, 5L, 6L), pagina.getConteudo().stream().map(Produto::getId).toList());
+        assertEquals(10, pagina.getTotalElementos());
+        assertEquals(4, pagina.getTotalPaginas());
+        assertTrue(pagina.temAnterior());
+        assertTrue(pagina.temProxima());
+    }
+    
+    @Test
+    @DisplayName("Deve ordenar a página por preço e refletir atualizações")
+    void deveOrdenarPaginaPorPrecoERefletirAtualizacoes() {
+        repository.criar(Produto.criar(1L, "A", "Desc", new BigDecimal("30.00"), 1));
+        repository.criar(Produto.criar(2L, "B", "Desc", new BigDecimal("10.00"), 1));
+        repository.criar(Produto.criar(3L, "C", "Desc", new BigDecimal("20.00"), 1));
+        repository.atualizar(Produto.criar(2L, "B", "Desc", new BigDecimal("40.00"), 1));
+        
+        Pagina<Produto> pagina = repository.listarPagina(0, 10, OrdenacaoProduto.PRECO);
+        
+        assertEquals(List.of(3L, 1L, 2L), pagina.getConteudo().stream().map(Produto::getId).toList());
+        assertFalse(pagina.temProxima());
+    }
+    
+    @Test
+    @DisplayName("Deve retornar página vazia após o fim e remover produtos deletados")
+    void deveRetornarPaginaVaziaAposOFim() {
+        repository.criar(criarProdutoTeste(1L));
+        repository.criar(criarProdutoTeste(2L));
+        repository.deletar(1L);
+        
+        assertEquals(List.of(criarProdutoTeste(2L)),
+                     repository.listarPagina(0, 5, OrdenacaoProduto.NOME).getConteudo());
+        assertTrue(repository.listarPagina(1, 5, OrdenacaoProduto.NOME).isVazia());
+    }
+    
+    @Test
+    @DisplayName("Deve informar que não há próxima página no último número de página")
+    void deveInformarSemProximaNoUltimoNumeroDePagina() {
+        repository.criar(criarProdutoTeste(1L));
+        repository.criar(criarProdutoTeste(2L));
+        
+        Pagina<Produto> pagina = repository.listarPagina(Integer.MAX_VALUE, 1, OrdenacaoProduto.ID);
+        
+        assertTrue(pagina.isVazia());
+        assertFalse(pagina.temProxima());
+    }
+    
+    @Test
+    @DisplayName("Deve seguir o cursor sem pular nem repetir produtos criados e removidos no caminho")
+    void deveSeguirCursorComCriacoesERemocoesNoCaminho() {
+        for (long id = 1; id <= 6; id++) {
+            repository.criar(Produto.criar(id * 10, "Produto " + id, "Desc", BigDecimal.valueOf(id), 1));
+        }
+        
+        Pagina<Produto> primeira = repository.listarPagina(0, 3, OrdenacaoProduto.PRECO);
+        assertEquals("30:3", primeira.getProxima());
+        assertNull(primeira.getAnterior());
+        
+        repository.criar(Produto.criar(5L, "Novo", "Desc", BigDecimal.ONE, 1));
+        repository.deletar(40L);
+        Pagina<Produto> segunda = repository.listarPagina(ChavePagina.depois(primeira.getProxima(), OrdenacaoProduto.PRECO), 1, 3);
+        
+        assertEquals(List.of(50L, 60L), segunda.getConteudo().stream().map(Produto::getId).toList());
+        assertEquals(1, segunda.getNumero());
+        assertTrue(segunda.temAnterior());
+        assertFalse(segunda.temProxima());
+        
+        Pagina<Produto> volta = repository.listarPagina(ChavePagina.antes(segunda.getAnterior(), OrdenacaoProduto.PRECO), 0, 3);
+        
+        assertEquals(List.of(10L, 20L, 30L), volta.getConteudo().stream().map(Produto::getId).toList());
+        assertTrue(volta.temAnterior());
+        assertEquals("30:3", volta.getProxima());
+    }
+    
+    @Test
+    @DisplayName("Deve lançar exceção para cursor malformado ou nulo")
+    void deveLancarExcecaoParaCursorInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> ChavePagina.depois("abc", OrdenacaoProduto.ID));
+        assertThrows(IllegalArgumentException.class, () -> ChavePagina.depois("10", OrdenacaoProduto.PRECO));
+        assertThrows(IllegalArgumentException.class, () -> ChavePagina.antes("x:1", OrdenacaoProduto.ESTOQUE));
+        assertThrows(IllegalArgumentException.class, () -> repository.listarPagina(null, 0, 10));
+    }
+    
+    @Test
+    @DisplayName("Deve lançar exceção para página inválida")
+    void deveLancarExcecaoParaPaginaInvalida() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> repository.listarPagina(-1, 10, OrdenacaoProduto.ID));
+        assertThrows(IllegalArgumentException.class,
+                     () -> repository.listarPagina(0, 0, OrdenacaoProduto.ID));
+        assertThrows(IllegalArgumentException.class,
+                     () -> repository.listarPagina(0, 10, null));
+    }
+    
+    @Test
+    @DisplayName("Deve buscar produtos na faixa de preço, limites inclusivos")
+    void deveBuscarProdutosNaFaixaDePreco() {
+        repository.criar(Produto.criar(1L, "A", "Desc", new BigDecimal("5.00"), 1));
+        repository.criar(Produto.criar(2L, "B", "Desc", new BigDecimal("10.00"), 1));
+        repository.criar(Produto.criar(3L, "C", "Desc", new BigDecimal("15.50"), 1));
+        repository.criar(Produto.criar(4L, "D", "Desc", new BigDecimal("20.0"), 1));
+        repository.criar(Produto.criar(5L, "E", "Desc", new BigDecimal("20.01"), 1));
+        
+        List<Produto> encontrados = repository.buscarPorFaixaDePreco(new BigDecimal("10"), new BigDecimal("20.00"));
+        
+        assertEquals(List.of(2L, 3L, 4L), encontrados.stream().map(Produto::getId).toList());
+        assertTrue(repository.buscarPorFaixaDePreco(new BigDecimal("30"), new BigDecimal("10")).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Deve lançar exceção para faixa de preço com limite nulo")
+    void deveLancarExcecaoParaFaixaDePrecoComLimiteNulo() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> repository.buscarPorFaixaDePreco(null, BigDecimal.TEN));
+    }
+    
+    @Test
+    @DisplayName("Deve buscar produtos com estoque abaixo do limite e refletir atualizações")
+    void deveBuscarProdutosComEstoqueAbaixoDoLimite() {
+        repository.criar(Produto.criar(1L, "A", "Desc", BigDecimal.ONE, 0));
+        repository.criar(Produto.criar(2L, "B", "Desc", BigDecimal.ONE, 5));
+        repository.criar(Produto.criar(3L, "C", "Desc", BigDecimal.ONE, 2));
+        repository.atualizar(Produto.criar(1L, "A", "Desc", BigDecimal.ONE, 50));
+        
+        List<Produto> encontrados = repository.buscarComEstoqueAbaixoDe(5);
+        
+        assertEquals(List.of(3L), encontrados.stream().map(Produto::getId).toList());
+    }
+    
+    @Test
+    @DisplayName("Deve reservar e devolver estoque, mantendo o resto do produto e o índice por estoque")
+    void deveReservarEDevolverEstoque() {
+        repository.criar(criarProdutoTeste(1L));
+        
+        assertEquals(7, repository.reservarEstoque(1L, 3));
+        assertEquals(0, repository.reservarEstoque(1L, 7));
+        assertEquals(List.of(1L), repository.buscarComEstoqueAbaixoDe(1).stream().map(Produto::getId).toList());
+        assertEquals(4, repository.devolverEstoque(1L, 4));
+        
+        Produto produto = repository.buscarPorId(1L).orElseThrow();
+        assertEquals(4, produto.getQuantidadeEstoque());
+        assertEquals("Produto 1", produto.getNome());
+        assertTrue(repository.buscarComEstoqueAbaixoDe(1).isEmpty());
+        assertEquals(1, repository.buscarPorTexto("produto", 0, 10).getTotalElementos());
+    }
+    
+    @Test
+    @DisplayName("Deve recusar reserva acima do estoque sem alterar o produto")
+    void deveRecusarReservaAcimaDoEstoque() {
+        repository.criar(criarProdutoTeste(1L));
+        
+        EstoqueInsuficienteException exception = assertThrows(
+            EstoqueInsuficienteException.class,
+            () -> repository.reservarEstoque(1L, 11)
+        );
+        
+        assertEquals(1L, exception.getProdutoId());
+        assertEquals(11, exception.getSolicitado());
+        assertEquals(10, exception.getDisponivel());
+        assertEquals(10, repository.buscarPorId(1L).orElseThrow().getQuantidadeEstoque());
+        assertThrows(ProdutoNaoEncontradoException.class, () -> repository.reservarEstoque(2L, 1));
+        assertThrows(IllegalArgumentException.class, () -> repository.reservarEstoque(1L, 0));
+        assertThrows(IllegalArgumentException.class, () -> repository.devolverEstoque(1L, Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> repository.devolverEstoque(null, 1));
+    }
+    
+    @Test
+    @DisplayName("Deve avançar a versão a cada escrita e recusar atualização sobre versão antiga")
+    void deveRecusarAtualizacaoSobreVersaoAntiga() {
+        repository.criar(criarProdutoTeste(1L));
+        Produto lido = repository.buscarPorId(1L).orElseThrow();
+        assertEquals(1, lido.getVersao());
+        
+        repository.atualizar(lido.atualizar("Primeiro", "Descrição", BigDecimal.ONE, 1));
+        ConflitoVersaoException exception = assertThrows(
+            ConflitoVersaoException.class,
+            () -> repository.atualizar(lido.atualizar("Segundo", "Descrição", BigDecimal.TEN, 2))
+        );
+        
+        assertEquals(1L, exception.getProdutoId());
+        assertEquals(1, exception.getVersaoEsperada());
+        assertEquals(2, exception.getVersaoAtual());
+        assertEquals("Primeiro", repository.buscarPorId(1L).orElseThrow().getNome());
+        assertEquals(List.of(1L), repository.buscarPorFaixaDePreco(BigDecimal.ONE, BigDecimal.ONE)
+            .stream().map(Produto::getId).toList());
+        
+        repository.reservarEstoque(1L, 1);
+        repository.atualizar(criarProdutoTeste(1L));
+        assertEquals(4, repository.buscarPorId(1L).orElseThrow().getVersao());
+    }
+    
+    @Test
+    @DisplayName("Deve criar ou atualizar num passo só e informar o que fez")
+    void deveCriarOuAtualizar() {
+        assertEquals(ResultadoGravacao.CRIADO, repository.criarOuAtualizar(criarProdutoTeste(1L)));
+        Produto lido = repository.buscarPorId(1L).orElseThrow();
+        assertEquals(ResultadoGravacao.ATUALIZADO,
+            repository.criarOuAtualizar(lido.atualizar("Renomeado", "Descrição", BigDecimal.ONE, 1)));
+        
+        assertEquals("Renomeado", repository.buscarPorId(1L).orElseThrow().getNome());
+        assertEquals(1, repository.buscarPorTexto("renomeado", 0, 10).getTotalElementos());
+        assertThrows(ConflitoVersaoException.class, () -> repository.criarOuAtualizar(lido));
+        assertThrows(ProdutoNaoEncontradoException.class,
+            () -> repository.criarOuAtualizar(criarProdutoTeste(2L).comVersao(1)));
+        assertFalse(repository.existe(2L));
+        assertThrows(IllegalArgumentException.class, () -> repository.criarOuAtualizar(null));
+    }
+    
     private Produto criarProdutoTeste(Long id) {
         return Produto.criar(id, "Produto " + id, "Descrição " + id, 
                             new BigDecimal("100.00"), 10);
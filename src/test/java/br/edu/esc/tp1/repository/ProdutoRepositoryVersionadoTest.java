@@ -0,0 +1,86 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.ModoLote;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static br.edu.esc.tp1.repository.ProdutosTeste.criarProdutoTeste;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes das versões do Repositório de Produtos")
+class ProdutoRepositoryVersionadoTest {
+    
+    private final AtomicLong agora = new AtomicLong(1_000);
+    private ProdutoRepositoryVersionado repository;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new ProdutoRepositoryVersionado(new ProdutoRepositoryImpl(), agora::get);
+    }
+    
+    @Test
+    @DisplayName("Deve avançar a versão global a cada escrita e não nas leituras")
+    void deveAvancarVersaoGlobalNasEscritas() {
+        Versao inicial = repository.versao().orElseThrow();
+        
+        agora.set(2_000);
+        repository.criar(criarProdutoTeste(1L, "Mouse"));
+        Versao criado = repository.versao().orElseThrow();
+        repository.buscarPorId(1L);
+        repository.listarTodos();
+        assertEquals(criado, repository.versao().orElseThrow());
+        
+        agora.set(3_000);
+        repository.atualizar(criarProdutoTeste(1L, "Mouse sem fio"));
+        Versao atualizado = repository.versao().orElseThrow();
+        repository.deletar(1L);
+        Versao deletado = repository.versao().orElseThrow();
+        
+        assertTrue(inicial.numero() < criado.numero());
+        assertTrue(criado.numero() < atualizado.numero());
+        assertTrue(atualizado.numero() < deletado.numero());
+        assertEquals(2_000, criado.modificadoEm());
+        assertEquals(3_000, deletado.modificadoEm());
+        assertNotEquals(inicial.etag(), criado.etag());
+    }
+    
+    @Test
+    @DisplayName("Deve avançar a versão mesmo quando a escrita falha")
+    void deveAvancarMesmoQuandoEscritaFalha() {
+        Versao antes = repository.versao().orElseThrow();
+        
+        assertThrows(ProdutoNaoEncontradoException.class, () -> repository.deletar(9L));
+        
+        assertTrue(repository.versao().orElseThrow().numero() > antes.numero());
+    }
+    
+    @Test
+    @DisplayName("Deve avançar a versão a cada lote")
+    void deveAvancarVersaoACadaLote() {
+        Versao antes = repository.versao().orElseThrow();
+        
+        repository.criarEmLote(List.of(criarProdutoTeste(1L, "Mouse"), criarProdutoTeste(2L, "Teclado")), ModoLote.TUDO_OU_NADA);
+        Versao depoisDoLote = repository.versao().orElseThrow();
+        repository.deletarEmLote(List.of(1L, 2L), ModoLote.MELHOR_ESFORCO);
+        
+        assertTrue(depoisDoLote.numero() > antes.numero());
+        assertTrue(repository.versao().orElseThrow().numero() > depoisDoLote.numero());
+        assertTrue(repository.listarTodos().isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Deve usar épocas diferentes em instâncias criadas em instantes diferentes")
+    void deveUsarEpocasDiferentesEntreInstancias() {
+        agora.set(5_000);
+        ProdutoRepositoryVersionado outro = new ProdutoRepositoryVersionado(new ProdutoRepositoryImpl(), agora::get);
+        
+        assertEquals(0, outro.versao().orElseThrow().numero());
+        assertNotEquals(repository.versao().orElseThrow().etag(), outro.versao().orElseThrow().etag());
+        assertTrue(new ProdutoRepositoryImpl().versao().isEmpty());
+    }
+}
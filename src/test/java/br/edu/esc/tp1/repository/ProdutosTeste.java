@@ -0,0 +1,24 @@
+package br.edu.esc.tp1.repository;
+
+import br.edu.esc.tp1.domain.Produto;
+
+import java.math.BigDecimal;
+
+/** Produtos de teste dos repositórios; só o que cada teste confere vem por parâmetro. */
+final class ProdutosTeste {
+    
+    private ProdutosTeste() {
+    }
+    
+    static Produto criarProdutoTeste(long id) {
+        return criarProdutoTeste(id, "Produto " + id);
+    }
+    
+    static Produto criarProdutoTeste(long id, String nome) {
+        return criarProdutoTeste(id, nome, "Descrição");
+    }
+    
+    static Produto criarProdutoTeste(long id, String nome, String descricao) {
+        return Produto.criar(id, nome, descricao, new BigDecimal("10.00"), 5);
+    }
+}
@@ -0,0 +1,155 @@
+package br.edu.esc.tp1.service;
+
+import br.edu.esc.tp1.domain.Produto;
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes da fachada assíncrona do Serviço de Produtos")
+class ProdutoServiceAssincronoTest {
+    
+    private final List<Runnable> tarefas = new ArrayList<>();
+    private final List<Collection<Long>> buscasEmLote = new ArrayList<>();
+    private ProdutoService service;
+    private ProdutoServiceAssincrono assincrono;
+    
+    @BeforeEach
+    void setUp() {
+        service = new ProdutoService(new ProdutoRepositoryImpl() {
+            @Override
+            public Map<Long, Produto> buscarPorIds(Collection<Long> ids) {
+                buscasEmLote.add(List.copyOf(ids));
+                return super.buscarPorIds(ids);
+            }
+        });
+        assincrono = new ProdutoServiceAssincrono(service, tarefas::add);
+        for (long id = 1; id <= 5; id++) {
+            service.criarProduto(id, "Produto " + id, "Desc", BigDecimal.ONE, 1);
+        }
+    }
+    
+    @Test
+    @DisplayName("Deve juntar buscas por id pendentes numa só chamada ao repositório")
+    void deveJuntarBuscasPendentes() throws Exception {
+        CompletableFuture<Optional<Produto>> primeiro = assincrono.buscarProduto(1L);
+        CompletableFuture<Optional<Produto>> repetido = assincrono.buscarProduto(1L);
+        CompletableFuture<Optional<Produto>> terceiro = assincrono.buscarProduto(3L);
+        CompletableFuture<Optional<Produto>> ausente = assincrono.buscarProduto(99L);
+        
+        assertEquals(1, tarefas.size());
+        assertFalse(primeiro.isDone());
+        executarTarefas();
+        
+        assertEquals(List.of(List.of(1L, 3L, 99L)), buscasEmLote);
+        assertEquals("Produto 1", primeiro.get().orElseThrow().getNome());
+        assertEquals("Produto 1", repetido.get().orElseThrow().getNome());
+        assertEquals("Produto 3", terceiro.get().orElseThrow().getNome());
+        assertTrue(ausente.get().isEmpty());
+        
+        assincrono.buscarProduto(2L);
+        executarTarefas();
+        assertEquals(2, buscasEmLote.size());
+    }
+    
+    @Test
+    @DisplayName("Deve completar com a exceção do serviço, sem lançar na thread de quem chama")
+    void deveCompletarComExcecao() {
+        CompletableFuture<Void> criacao = assincrono.criarProduto(1L, "Outro", "Desc", BigDecimal.ONE, 1);
+        
+        assertFalse(criacao.isDone());
+        executarTarefas();
+        ExecutionException erro = assertThrows(ExecutionException.class, criacao::get);
+        assertInstanceOf(ProdutoDuplicadoException.class, erro.getCause());
+    }
+    
+    @Test
+    @DisplayName("Deve publicar o catálogo só até a demanda pedida pelo assinante")
+    void devePublicarSegundoDemanda() {
+        Assinante assinante = new Assinante();
+        assincrono.publicarProdutos().subscribe(assinante);
+        
+        assinante.assinatura.request(2);
+        executarTarefas();
+        assertEquals(2, assinante.recebidos.size());
+        assertFalse(assinante.completo);
+        
+        assinante.assinatura.request(2);
+        executarTarefas();
+        assertEquals(4, assinante.recebidos.size());
+        
+        assinante.assinatura.request(10);
+        executarTarefas();
+        assertEquals(5, assinante.recebidos.size());
+        assertTrue(assinante.completo);
+        assertEquals(5, assinante.recebidos.stream().map(Produto::getId).distinct().count());
+    }
+    
+    @Test
+    @DisplayName("Deve parar ao cancelar e sinalizar erro para demanda não positiva")
+    void deveRespeitarCancelamentoEDemandaInvalida() {
+        Assinante cancelado = new Assinante();
+        assincrono.publicarProdutos().subscribe(cancelado);
+        cancelado.assinatura.request(1);
+        executarTarefas();
+        cancelado.assinatura.cancel();
+        cancelado.assinatura.request(10);
+        executarTarefas();
+        assertEquals(1, cancelado.recebidos.size());
+        assertFalse(cancelado.completo);
+        
+        Assinante invalido = new Assinante();
+        assincrono.publicarProdutos().subscribe(invalido);
+        invalido.assinatura.request(0);
+        executarTarefas();
+        assertInstanceOf(IllegalArgumentException.class, invalido.erro);
+        assertTrue(invalido.recebidos.isEmpty());
+    }
+    
+    private void executarTarefas() {
+        while (!tarefas.isEmpty()) {
+            tarefas.remove(0).run();
+        }
+    }
+    
+    private static final class Assinante implements Flow.Subscriber<Produto> {
+    
+        private final List<Produto> recebidos = new ArrayList<>();
+        private Flow.Subscription assinatura;
+        private boolean completo;
+        private Throwable erro;
+    
+        @Override
+        public void onSubscribe(Flow.Subscription assinatura) {
+            this.assinatura = assinatura;
+        }
+    
+        @Override
+        public void onNext(Produto produto) {
+            recebidos.add(produto);
+        }
+    
+        @Override
+        public void onError(Throwable erro) {
+            this.erro = erro;
+        }
+    
+        @Override
+        public void onComplete() {
+            completo = true;
+        }
+    }
+}
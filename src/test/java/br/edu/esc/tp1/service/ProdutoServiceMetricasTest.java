@@ -0,0 +1,69 @@
+package br.edu.esc.tp1.service;
+
+import br.edu.esc.tp1.exception.ProdutoDuplicadoException;
+import br.edu.esc.tp1.exception.ProdutoNaoEncontradoException;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes das métricas do Serviço de Produtos")
+class ProdutoServiceMetricasTest {
+    
+    private SimpleMeterRegistry registro;
+    private ProdutoService service;
+    
+    @BeforeEach
+    void setUp() {
+        registro = new SimpleMeterRegistry();
+        service = new ProdutoServiceMetricas(new ProdutoRepositoryImpl(), null, registro);
+    }
+    
+    @Test
+    @DisplayName("Deve contar as exceções do serviço por tipo")
+    void deveContarExcecoesPorTipo() {
+        service.criarProduto(1L, "Mouse", "Óptico", BigDecimal.ONE, 1);
+        
+        assertThrows(ProdutoDuplicadoException.class,
+            () -> service.criarProduto(1L, "Mouse", "Óptico", BigDecimal.ONE, 1));
+        assertThrows(ProdutoNaoEncontradoException.class, () -> service.deletarProduto(9L));
+        assertThrows(ProdutoNaoEncontradoException.class,
+            () -> service.atualizarProduto(9L, "Teclado", "ABNT", BigDecimal.ONE, 1));
+        assertThrows(IllegalArgumentException.class,
+            () -> service.criarProduto(2L, "", "Óptico", BigDecimal.ONE, 1));
+        
+        assertEquals(1, excecoes("ProdutoDuplicadoException"));
+        assertEquals(2, excecoes("ProdutoNaoEncontradoException"));
+        assertEquals(1, excecoes("IllegalArgumentException"));
+        assertEquals(0, excecoes("outra"));
+    }
+    
+    @Test
+    @DisplayName("Deve medir as operações com o mesmo resultado do serviço sem métricas")
+    void deveMedirOperacoes() {
+        service.criarProduto(1L, "Mouse", "Óptico", BigDecimal.ONE, 1);
+        service.criarProduto(2L, "Teclado", "ABNT", BigDecimal.TEN, 3);
+        
+        assertEquals("Mouse", service.buscarProduto(1L).orElseThrow().getNome());
+        assertEquals(2, service.listarProdutos().size());
+        assertEquals(2, service.resumirCatalogo().getQuantidadeProdutos());
+        
+        assertEquals(2, tempo("criarProduto"));
+        assertEquals(1, tempo("buscarProduto"));
+        assertEquals(1, tempo("listarProdutos"));
+        assertEquals(1, tempo("resumirCatalogo"));
+    }
+    
+    private double excecoes(String tipo) {
+        return registro.get(ProdutoServiceMetricas.EXCECOES).tag("excecao", tipo).counter().count();
+    }
+    
+    private long tempo(String operacao) {
+        return registro.get(ProdutoServiceMetricas.TEMPO).tag("operacao", operacao).timer().count();
+    }
+}
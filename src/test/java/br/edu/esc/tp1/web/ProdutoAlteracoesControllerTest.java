@@ -0,0 +1,115 @@
+package br.edu.esc.tp1.web;
+
+import br.edu.esc.tp1.repository.FluxoAlteracoes;
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.service.ProdutoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@DisplayName("Testes das alterações de produtos em Server-Sent Events")
+class ProdutoAlteracoesControllerTest {
+
+    private ProdutoService service;
+    private FluxoAlteracoes fluxo;
+    private String epoca;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        ProdutoRepositoryImpl repository = new ProdutoRepositoryImpl();
+        service = new ProdutoService(repository);
+        fluxo = new FluxoAlteracoes(64);
+        fluxo.registrarEm(repository);
+        epoca = Long.toString(fluxo.epoca(), 36);
+        mvc = MockMvcBuilders.standaloneSetup(new ProdutoAlteracoesController(fluxo, Duration.ofMinutes(1)))
+                .setMessageConverters(new ProdutoJsonConverter())
+                .setControllerAdvice(new TratadorErrosApi())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fluxo.close();
+    }
+
+    @Test
+    @DisplayName("Deve enviar as próximas alterações com id, tipo e o produto em JSON")
+    void deveEnviarProximasAlteracoes() throws Exception {
+        service.criarProduto(1L, "Mouse", "Óptico", BigDecimal.ONE, 1);
+        MvcResult resultado = abrir(get("/api/produtos/alteracoes"));
+
+        service.atualizarProduto(1L, "Mouse sem fio", "Óptico", new BigDecimal("79.00"), 2);
+
+        String corpo = aguardarEventos(resultado, 1);
+        assertEquals("id:" + epoca + "-2\nevent:atualizado\ndata:{\"sequencia\":2,\"tipo\":\"ATUALIZADO\",\"id\":1,"
+                + "\"produto\":{\"id\":1,\"nome\":\"Mouse sem fio\",\"descricao\":\"Óptico\",\"preco\":79.00,"
+                + "\"quantidadeEstoque\":2,\"versao\":2},\"anterior\":{\"id\":1,\"nome\":\"Mouse\",\"descricao\":\"Óptico\","
+                + "\"preco\":1,\"quantidadeEstoque\":1,\"versao\":1}}\n\n", corpo);
+    }
+
+    @Test
+    @DisplayName("Deve retomar depois do Last-Event-ID e avisar perda quando o id é de outra época")
+    void deveRetomarPeloLastEventId() throws Exception {
+        for (long id = 1; id <= 3; id++) {
+            service.criarProduto(id, "Produto " + id, "Desc", BigDecimal.ONE, 1);
+        }
+
+        String retomado = aguardarEventos(abrir(get("/api/produtos/alteracoes").header("Last-Event-ID", epoca + "-1")), 2);
+        assertTrue(retomado.startsWith("id:" + epoca + "-2\nevent:criado\n"));
+        assertTrue(retomado.contains("id:" + epoca + "-3\nevent:criado\n"));
+
+        String desde = aguardarEventos(abrir(get("/api/produtos/alteracoes").param("desde", "3")), 1);
+        assertTrue(desde.startsWith("id:" + epoca + "-3\n"));
+
+        String outraEpoca = aguardarEventos(abrir(get("/api/produtos/alteracoes").header("Last-Event-ID", "abc-2")), 1);
+        assertEquals("event:perda\ndata:{\"primeira\":1,\"ultima\":3}\n\n", outraEpoca);
+
+        mvc.perform(get("/api/produtos/alteracoes").param("desde", "9"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve responder 503 quando as assinaturas estão esgotadas")
+    void deveResponder503ComAssinaturasEsgotadas() throws Exception {
+        for (int i = 0; i < fluxo.maximoAssinaturas(); i++) {
+            fluxo.assinar(1, alteracao -> { });
+        }
+
+        MvcResult resultado = mvc.perform(get("/api/produtos/alteracoes"))
+                .andExpect(status().isServiceUnavailable())
+                .andReturn();
+        assertEquals("{\"status\":503,\"mensagem\":\"Limite de 256 assinaturas do fluxo de alterações atingido\"}",
+                resultado.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private MvcResult abrir(RequestBuilder requisicao) throws Exception {
+        return mvc.perform(requisicao)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    /** O emissor fica aberto: espera os eventos chegarem ao corpo da resposta. */
+    private static String aguardarEventos(MvcResult resultado, int eventos) throws Exception {
+        long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        String corpo = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        while (corpo.split("\n\n", -1).length <= eventos && System.nanoTime() < limite) {
+            Thread.sleep(10);
+            corpo = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        }
+        return corpo;
+    }
+}
@@ -0,0 +1,124 @@
+package br.edu.esc.tp1.web;
+
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.service.ProdutoService;
+import br.edu.esc.tp1.service.ProdutoServiceAssincrono;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@DisplayName("Testes da API JSON assíncrona de produtos")
+class ProdutoApiAssincronoControllerTest {
+
+    private ProdutoService service;
+    private ProdutoServiceAssincrono assincrono;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProdutoService(new ProdutoRepositoryImpl());
+        assincrono = new ProdutoServiceAssincrono(service, 2);
+        mvc = MockMvcBuilders.standaloneSetup(new ProdutoApiAssincronoController(assincrono))
+                .setMessageConverters(new ProdutoJsonConverter())
+                .setControllerAdvice(new TratadorErrosApi())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        assincrono.close();
+    }
+
+    @Test
+    @DisplayName("Deve criar, buscar, atualizar e deletar com respostas assíncronas")
+    void deveFazerCrudAssincrono() throws Exception {
+        assincrono(post("/api/assincrono/produtos").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":1,\"nome\":\"Mouse\",\"descricao\":\"Óptico\",\"preco\":59.90,\"quantidadeEstoque\":3}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/api/assincrono/produtos/1"));
+        assincrono(get("/api/assincrono/produtos/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"preco\":59.90,")));
+
+        assincrono(put("/api/assincrono/produtos/1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\":\"Mouse sem fio\",\"descricao\":\"Óptico\",\"preco\":79,\"quantidadeEstoque\":2}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("{\"id\":1,")))
+                .andExpect(content().string(endsWith("\"versao\":2}")));
+        assertEquals("Mouse sem fio", service.buscarProduto(1L).orElseThrow().getNome());
+
+        assincrono(delete("/api/assincrono/produtos/1")).andExpect(status().isNoContent());
+        assertTrue(service.buscarProduto(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve responder 400, 404 e 409 pelo tratador de erros depois da resposta assíncrona")
+    void deveResponderErrosAssincronos() throws Exception {
+        service.criarProduto(1L, "Mouse", "Óptico", BigDecimal.ONE, 1);
+
+        assincrono(get("/api/assincrono/produtos/99"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(startsWith("{\"status\":404,\"mensagem\":\"Produto com ID 99 ")));
+        assincrono(post("/api/assincrono/produtos").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":1,\"nome\":\"Outro\",\"descricao\":\"Desc\",\"preco\":1,\"quantidadeEstoque\":1}"))
+                .andExpect(status().isConflict());
+        assincrono(post("/api/assincrono/produtos").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\":\"Outro\",\"descricao\":\"Desc\",\"preco\":1,\"quantidadeEstoque\":1}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(put("/api/assincrono/produtos/1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":2,\"nome\":\"Outro\",\"descricao\":\"Desc\",\"preco\":1,\"quantidadeEstoque\":1}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve buscar vários ids numa requisição, na ordem pedida")
+    void deveBuscarVariosIds() throws Exception {
+        for (long id = 1; id <= 3; id++) {
+            service.criarProduto(id, "Produto " + id, "Desc", BigDecimal.ONE, 1);
+        }
+
+        assincrono(get("/api/assincrono/produtos").param("ids", "3,99,1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(startsWith("[{\"id\":3,"), containsString("},{\"id\":1,"),
+                        endsWith("}]"))));
+    }
+
+    @Test
+    @DisplayName("Deve transmitir o catálogo inteiro em NDJSON pedindo ao publicador aos poucos")
+    void deveTransmitirCatalogoEmNdjson() throws Exception {
+        int total = ProdutoApiAssincronoController.LOTE_FLUXO * 3 + 7;
+        for (long id = 1; id <= total; id++) {
+            service.criarProduto(id, "Produto " + id, "Desc", BigDecimal.ONE, 1);
+        }
+
+        MvcResult resultado = mvc.perform(get("/api/assincrono/produtos/fluxo"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"));
+        assertEquals(total, resultado.getResponse().getContentAsString(StandardCharsets.UTF_8).lines().distinct().count());
+    }
+
+    private ResultActions assincrono(RequestBuilder requisicao) throws Exception {
+        MvcResult resultado = mvc.perform(requisicao)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(resultado));
+    }
+}
@@ -0,0 +1,238 @@
+package br.edu.esc.tp1.web;
+
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@DisplayName("Testes da API JSON de produtos")
+class ProdutoApiControllerTest {
+
+    private ProdutoService service;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProdutoService(new ProdutoRepositoryImpl());
+        mvc = MockMvcBuilders.standaloneSetup(new ProdutoApiController(service))
+                .setMessageConverters(new ProdutoJsonConverter())
+                .setControllerAdvice(new TratadorErrosApi())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Deve criar e devolver o produto com o preço exato")
+    void deveCriarEDevolverComPrecoExato() throws Exception {
+        mvc.perform(post("/api/produtos").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":1,\"nome\":\"Mouse\",\"descricao\":\"Óptico\",\"preco\":59.90,\"quantidadeEstoque\":3}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/api/produtos/1"));
+
+        mvc.perform(get("/api/produtos/1"))
+                .andExpect(status().isOk())
+                .andExpect(corpo(
+                        "{\"id\":1,\"nome\":\"Mouse\",\"descricao\":\"Óptico\",\"preco\":59.90,\"quantidadeEstoque\":3,\"versao\":1}"));
+        assertEquals(new BigDecimal("59.90"), service.buscarProduto(1L).orElseThrow().getPreco());
+    }
+
+    @Test
+    @DisplayName("Deve reservar e devolver estoque e responder 409 quando falta estoque")
+    void deveReservarEDevolverEstoque() throws Exception {
+        service.criarProduto(1L, "Mouse", "Óptico", BigDecimal.ONE, 5);
+
+        mvc.perform(post("/api/produtos/1/estoque/reserva").param("quantidade", "4"))
+                .andExpect(status().isOk())
+                .andExpect(corpo("{\"id\":1,\"quantidadeEstoque\":1}"));
+        mvc.perform(post("/api/produtos/1/estoque/reserva").param("quantidade", "2"))
+                .andExpect(status().isConflict())
+                .andExpect(content().string(startsWith("{\"status\":409,")));
+        mvc.perform(post("/api/produtos/1/estoque/devolucao").param("quantidade", "3"))
+                .andExpect(corpo("{\"id\":1,\"quantidadeEstoque\":4}"));
+        mvc.perform(post("/api/produtos/1/estoque/reserva").param("quantidade", "0"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/produtos/9/estoque/reserva").param("quantidade", "1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve escrever preços grandes sem notação científica")
+    void deveEscreverPrecoSemNotacaoCientifica() throws Exception {
+        service.criarProduto(1L, "Servidor", "Rack", new BigDecimal("1E+3"), 1);
+
+        mvc.perform(get("/api/produtos/1"))
+                .andExpect(content().string(containsString("\"preco\":1000,")));
+    }
+
+    @Test
+    @DisplayName("Deve responder 400, 404 e 409 com mensagem em JSON")
+    void deveResponderErrosComMensagem() throws Exception {
+        service.criarProduto(1L, "Mouse", "Óptico", BigDecimal.ONE, 1);
+
+        mvc.perform(post("/api/produtos").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":2,\"nome\":\"Teclado\",\"descricao\":\"ABNT\",\"preco\":-1,\"quantidadeEstoque\":1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(corpo("{\"status\":400,\"mensagem\":\"Preço deve ser maior ou igual a zero\"}"));
+        mvc.perform(post("/api/produtos").contentType(MediaType.APPLICATION_JSON).content("{\"id\":2,"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/produtos").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\":\"Teclado\",\"descricao\":\"ABNT\",\"preco\":1,\"quantidadeEstoque\":1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(corpo("{\"status\":400,\"mensagem\":\"ID do produto não pode ser nulo\"}"));
+        mvc.perform(get("/api/produtos/99"))
+                .andExpect(status().isNotFound());
+        mvc.perform(post("/api/produtos").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":1,\"nome\":\"Outro\",\"descricao\":\"Desc\",\"preco\":1,\"quantidadeEstoque\":1}"))
+                .andExpect(status().isConflict());
+        mvc.perform(put("/api/produtos/1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":2,\"nome\":\"Outro\",\"descricao\":\"Desc\",\"preco\":1,\"quantidadeEstoque\":1}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve atualizar pelo id da URL, responder com o produto guardado e deletar")
+    void deveAtualizarEDeletar() throws Exception {
+        service.criarProduto(1L, "Mouse", "Óptico", BigDecimal.ONE, 1);
+
+        mvc.perform(put("/api/produtos/1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\":\"Mouse sem fio\",\"descricao\":\"Óptico\",\"preco\":\"79.00\",\"quantidadeEstoque\":2}"))
+                .andExpect(status().isOk())
+                .andExpect(corpo("{\"id\":1,\"nome\":\"Mouse sem fio\",\"descricao\":\"Óptico\","
+                        + "\"preco\":79.00,\"quantidadeEstoque\":2,\"versao\":2}"));
+        assertEquals("Mouse sem fio", service.buscarProduto(1L).orElseThrow().getNome());
+        assertEquals(new BigDecimal("79.00"), service.buscarProduto(1L).orElseThrow().getPreco());
+
+        mvc.perform(put("/api/produtos/1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\":\"Mouse\",\"descricao\":\"Óptico\",\"preco\":1,\"quantidadeEstoque\":2,\"versao\":2}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(endsWith("\"versao\":3}")));
+        mvc.perform(put("/api/produtos/1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\":\"Mouse\",\"descricao\":\"Óptico\",\"preco\":1,\"quantidadeEstoque\":2,\"versao\":2}"))
+                .andExpect(status().isConflict())
+                .andExpect(content().string(startsWith("{\"status\":409,")));
+
+        mvc.perform(delete("/api/produtos/1")).andExpect(status().isNoContent());
+        mvc.perform(delete("/api/produtos/1")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve paginar e ordenar a listagem")
+    void devePaginarListagem() throws Exception {
+        for (long id = 1; id <= 5; id++) {
+            service.criarProduto(id, "Produto " + id, "Desc", BigDecimal.valueOf(10 - id), 1);
+        }
+
+        mvc.perform(get("/api/produtos").param("pagina", "1").param("tamanho", "2").param("ordem", "preco"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("{\"conteudo\":[{\"id\":3,")))
+                .andExpect(content().string(endsWith("\"numero\":1,\"tamanho\":2,\"totalElementos\":5,"
+                        + "\"totalPaginas\":3,\"anterior\":\"3:7\",\"proxima\":\"2:8\"}")));
+    }
+
+    @Test
+    @DisplayName("Deve seguir os cursores da listagem nos dois sentidos")
+    void deveSeguirCursoresDaListagem() throws Exception {
+        for (long id = 1; id <= 5; id++) {
+            service.criarProduto(id, "Produto " + id, "Desc", BigDecimal.valueOf(10 - id), 1);
+        }
+
+        mvc.perform(get("/api/produtos").param("depois", "2:8").param("pagina", "2").param("tamanho", "2")
+                        .param("ordem", "preco"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("{\"conteudo\":[{\"id\":1,")))
+                .andExpect(content().string(endsWith("\"numero\":2,\"tamanho\":2,\"totalElementos\":5,"
+                        + "\"totalPaginas\":3,\"anterior\":\"1:9\"}")));
+        mvc.perform(get("/api/produtos").param("antes", "3:7").param("tamanho", "2").param("ordem", "preco"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("{\"conteudo\":[{\"id\":5,")))
+                .andExpect(content().string(endsWith("\"proxima\":\"4:6\"}")));
+        mvc.perform(get("/api/produtos").param("depois", "2").param("ordem", "preco"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/produtos").param("depois", "2").param("antes", "3"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve recusar páginas além do deslocamento máximo em vez de trocar o número")
+    void deveRecusarPaginasAlemDoDeslocamentoMaximo() throws Exception {
+        service.criarProduto(1L, "Mouse", "Óptico", BigDecimal.ONE, 1);
+
+        mvc.perform(get("/api/produtos").param("pagina", String.valueOf(Integer.MAX_VALUE)).param("tamanho", "0"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/produtos").param("pagina", "100000").param("tamanho", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "{\"conteudo\":[],\"numero\":100000,\"tamanho\":1,\"totalElementos\":1,\"totalPaginas\":1}"));
+        mvc.perform(get("/api/produtos/busca").param("q", "mouse").param("pagina", "5000").param("tamanho", "100"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve aplicar lotes com a situação de cada item")
+    void deveAplicarLotes() throws Exception {
+        service.criarProduto(1L, "Mouse", "Óptico", BigDecimal.ONE, 1);
+
+        mvc.perform(post("/api/produtos/lote").param("modo", "melhor-esforco").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":1,\"nome\":\"A\",\"descricao\":\"D\",\"preco\":1,\"quantidadeEstoque\":1},"
+                                + "{\"id\":2,\"nome\":\"B\",\"descricao\":\"D\",\"preco\":2.50,\"quantidadeEstoque\":1}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith(
+                        "{\"sucessoTotal\":false,\"aplicados\":1,\"itens\":[{\"posicao\":0,\"id\":1,\"situacao\":\"FALHOU\"")));
+        assertEquals(new BigDecimal("2.50"), service.buscarProduto(2L).orElseThrow().getPreco());
+
+        mvc.perform(post("/api/produtos/lote/deletar").contentType(MediaType.APPLICATION_JSON).content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("{\"sucessoTotal\":true,\"aplicados\":2,")));
+        assertTrue(service.listarProdutos().isEmpty());
+
+        mvc.perform(post("/api/produtos/lote").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":3,\"nome\":\"\",\"descricao\":\"D\",\"preco\":1,\"quantidadeEstoque\":1}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertTrue(result.getResponse().getContentAsString(StandardCharsets.UTF_8)
+                        .contains("Item 0: Nome")));
+    }
+
+    @Test
+    @DisplayName("Deve exportar o catálogo em NDJSON e CSV enquanto percorre o repositório")
+    void deveExportarEmNdjsonECsv() throws Exception {
+        service.criarProduto(1L, "Café, torrado", "Pacote", new BigDecimal("19.900"), 4);
+        service.criarProduto(2L, "Açúcar", "Refinado", new BigDecimal("4.5"), 0);
+
+        MvcResult ndjson = mvc.perform(get("/api/produtos/exportacao"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"));
+        List<String> linhas = ndjson.getResponse().getContentAsString(StandardCharsets.UTF_8).lines().sorted().toList();
+        assertEquals(List.of(
+                "{\"id\":1,\"nome\":\"Café, torrado\",\"descricao\":\"Pacote\",\"preco\":19.900,\"quantidadeEstoque\":4,\"versao\":1}",
+                "{\"id\":2,\"nome\":\"Açúcar\",\"descricao\":\"Refinado\",\"preco\":4.5,\"quantidadeEstoque\":0,\"versao\":1}"), linhas);
+
+        MvcResult csv = mvc.perform(get("/api/produtos/exportacao").param("formato", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(csv)).andExpect(status().isOk());
+        assertTrue(csv.getResponse().getContentAsString(StandardCharsets.UTF_8)
+                .contains("1,\"Café, torrado\",Pacote,19.900,4\n"));
+    }
+
+    /** O JSON sai em UTF-8 sem charset no Content-Type, como manda a RFC 8259. */
+    private static ResultMatcher corpo(String esperado) {
+        return result -> assertEquals(esperado, result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+}
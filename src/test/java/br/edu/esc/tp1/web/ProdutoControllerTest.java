@@ -0,0 +1,182 @@
+package br.edu.esc.tp1.web;
+
+import br.edu.esc.tp1.repository.ProdutoRepositoryImpl;
+import br.edu.esc.tp1.repository.ProdutoRepositoryVersionado;
+import br.edu.esc.tp1.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@DisplayName("Testes das respostas condicionais das páginas de produtos")
+class ProdutoControllerTest {
+
+    private ProdutoService service;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProdutoService(new ProdutoRepositoryVersionado(new ProdutoRepositoryImpl()));
+        service.criarProduto(1L, "Mouse", "Óptico", BigDecimal.ONE, 1);
+        service.criarProduto(2L, "Teclado", "ABNT", BigDecimal.TEN, 1);
+        mvc = MockMvcBuilders.standaloneSetup(new ProdutoController(service)).build();
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 à listagem enquanto o catálogo não muda")
+    void deveResponder304EnquantoCatalogoNaoMuda() throws Exception {
+        String etag = mvc.perform(get("/produtos"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        mvc.perform(get("/produtos").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        service.atualizarProduto(2L, "Teclado", "ABNT2", BigDecimal.TEN, 1);
+        mvc.perform(get("/produtos").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeExists("produtos"))
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    @DisplayName("Deve validar o formulário de edição pela versão do produto")
+    void deveValidarEdicaoPelaVersaoDoProduto() throws Exception {
+        String etag = mvc.perform(get("/produtos/editar/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/produtos/editar/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        service.atualizarProduto(2L, "Teclado", "ABNT2", BigDecimal.TEN, 1);
+        mvc.perform(get("/produtos/editar/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        service.atualizarProduto(1L, "Mouse sem fio", "Óptico", BigDecimal.ONE, 1);
+        mvc.perform(get("/produtos/editar/1").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeExists("produto"));
+    }
+
+    @Test
+    @DisplayName("Deve listar pelo cursor e recusar páginas além do deslocamento máximo")
+    void deveListarPeloCursorERecusarPaginasDistantes() throws Exception {
+        mvc.perform(get("/produtos").param("depois", "1").param("pagina", "1").param("tamanho", "1"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("produtos", hasSize(1)))
+                .andExpect(model().attribute("pagina", hasProperty("anterior", is("2"))));
+
+        mvc.perform(get("/produtos").param("pagina", "100001").param("tamanho", "1"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/produtos/buscar").param("q", "mouse").param("pagina", "1001").param("tamanho", "100"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve servir a listagem do cache de páginas até o catálogo mudar")
+    void deveServirListagemDoCacheAteCatalogoMudar() throws Exception {
+        AtomicInteger renderizacoes = new AtomicInteger();
+        CachePaginas cache = new CachePaginas((nome, locale) -> (model, request, response) -> {
+            renderizacoes.incrementAndGet();
+            response.setContentType("text/html;charset=UTF-8");
+            response.getWriter().write(nome + " " + model.get("produtos") + " ç");
+        }, 8);
+        mvc = MockMvcBuilders.standaloneSetup(new ProdutoController(service, cache)).build();
+
+        String primeira = mvc.perform(get("/produtos").param("ordem", "preco"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        mvc.perform(get("/produtos").param("ordem", "preco"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/html;charset=UTF-8"))
+                .andExpect(content().bytes(primeira.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, renderizacoes.get());
+        assertTrue(primeira.contains("Teclado"));
+
+        mvc.perform(get("/produtos").param("ordem", "nome"));
+        service.deletarProduto(2L);
+        String depoisDaEscrita = mvc.perform(get("/produtos").param("ordem", "preco"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        mvc.perform(get("/produtos").param("ordem", "preco").flashAttr("erro", "Produto não encontrado."))
+                .andExpect(forwardedUrl("produtos/listagem"));
+
+        assertFalse(depoisDaEscrita.contains("Teclado"));
+        assertEquals(3, renderizacoes.get());
+        CachePaginas.Estatisticas estatisticas = cache.estatisticas();
+        assertEquals(1, estatisticas.acertos());
+        assertEquals(3, estatisticas.faltas());
+        assertEquals(3, estatisticas.renderizacoes());
+        assertEquals(1, estatisticas.paginas());
+    }
+
+    @Test
+    @DisplayName("Deve recusar a edição salva sobre uma versão antiga e aceitar ao salvar de novo")
+    void deveRecusarEdicaoSobreVersaoAntiga() throws Exception {
+        mvc.perform(get("/produtos/editar/1"))
+                .andExpect(model().attribute("produto", hasProperty("versao", is("1"))));
+        service.atualizarProduto(1L, "Mouse sem fio", "Óptico", BigDecimal.ONE, 1);
+
+        mvc.perform(post("/produtos").param("id", "1").param("nome", "Mouse gamer").param("descricao", "Óptico")
+                        .param("preco", "1").param("quantidadeEstoque", "1").param("versao", "1"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("produtos/formulario"))
+                .andExpect(model().attributeExists("erro"))
+                .andExpect(model().attribute("produto", hasProperty("versao", is("2"))));
+        assertEquals("Mouse sem fio", service.buscarProduto(1L).orElseThrow().getNome());
+
+        mvc.perform(post("/produtos").param("id", "1").param("nome", "Mouse gamer").param("descricao", "Óptico")
+                        .param("preco", "1").param("quantidadeEstoque", "1").param("versao", "2"))
+                .andExpect(redirectedUrl("/produtos"));
+        assertEquals("Mouse gamer", service.buscarProduto(1L).orElseThrow().getNome());
+    }
+
+    @Test
+    @DisplayName("Deve cadastrar ou atualizar pelo formulário sem buscar o produto antes")
+    void deveCadastrarOuAtualizarPeloFormulario() throws Exception {
+        mvc.perform(post("/produtos").param("id", "3").param("nome", "Monitor").param("descricao", "24 polegadas")
+                        .param("preco", "899.90").param("quantidadeEstoque", "2").param("versao", ""))
+                .andExpect(redirectedUrl("/produtos"))
+                .andExpect(flash().attribute("sucesso", "Produto cadastrado com sucesso."));
+        mvc.perform(post("/produtos").param("id", "3").param("nome", "Monitor").param("descricao", "27 polegadas")
+                        .param("preco", "1299.90").param("quantidadeEstoque", "2"))
+                .andExpect(redirectedUrl("/produtos"))
+                .andExpect(flash().attribute("sucesso", "Produto atualizado com sucesso."));
+
+        assertEquals("27 polegadas", service.buscarProduto(3L).orElseThrow().getDescricao());
+        service.deletarProduto(3L);
+        mvc.perform(post("/produtos").param("id", "3").param("nome", "Monitor").param("descricao", "27 polegadas")
+                        .param("preco", "1299.90").param("quantidadeEstoque", "2").param("versao", "2"))
+                .andExpect(redirectedUrl("/produtos"))
+                .andExpect(flash().attributeExists("erro"));
+        assertFalse(service.buscarProduto(3L).isPresent());
+    }
+
+    @Test
+    @DisplayName("Deve gerar a página sem ETag quando há mensagem de sucesso ou erro")
+    void deveGerarPaginaComMensagemSemEtag() throws Exception {
+        String etag = mvc.perform(get("/produtos"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/produtos").header("If-None-Match", etag).flashAttr("sucesso", "Produto excluído com sucesso."))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(model().attributeExists("produtos"));
+    }
+}